@@ -0,0 +1,409 @@
+package org.opengis.cite.cdb10;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+import org.opengis.cite.cdb10.util.TestSuiteLogger;
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Watches the Tiles, GTModel, MModel and Metadata directories of a CDB and
+ * re-runs the test classes affected by each change: e.g. the tile tests for a
+ * new tile, the archive tests of a GSModel dataset for a changed ZIP, or the
+ * XML tests for an edited Metadata file.
+ *
+ * Events are debounced: changes are collected until no event has arrived for
+ * {@link #DEBOUNCE_MILLIS} (or for at most {@link #MAX_BATCH_MILLIS}), and the
+ * union of the affected test classes is then run as one batch. The batch is
+ * limited to the changed geocells and model datasets (see the "scope" test
+ * run argument), so a changed tile does not re-validate the whole CDB.
+ *
+ * Directories are watched individually, so a large CDB may need a higher
+ * inotify watch limit on Linux (fs.inotify.max_user_watches).
+ */
+public class CdbWatcher implements Closeable {
+
+    /**
+     * Quiet period after the last event before a batch is run
+     */
+    static final long DEBOUNCE_MILLIS = 300;
+
+    /**
+     * Longest time events are collected before a batch is run
+     */
+    static final long MAX_BATCH_MILLIS = 2000;
+
+    /**
+     * Top-level directories of the CDB that are watched
+     */
+    static final List<String> WATCHED_DIRECTORIES = Arrays.asList("Tiles", "GTModel", "MModel", "Metadata");
+
+    private static final String STRUCTURE = "org.opengis.cite.cdb10.cdbStructure.";
+    private static final String GSMODEL = "org.opengis.cite.cdb10.cdbStructure.GSModel.";
+    private static final String METADATA = "org.opengis.cite.cdb10.metadataAndVersioning.";
+
+    private final Path cdbRoot;
+    private final BiConsumer<Set<String>, Set<String>> runner;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> keys = new HashMap<WatchKey, Path>();
+
+    /**
+     * Create a watcher for a CDB. Nothing is watched until {@link #watch()}
+     * is called.
+     *
+     * @param cdbRoot
+     *            Root directory of the CDB
+     * @param runner
+     *            Runs a batch of test classes, given their class names and
+     *            the changed directories, see {@link #scopeOf(Path)}
+     * @throws IOException
+     *             If the file system cannot be watched.
+     */
+    public CdbWatcher(Path cdbRoot, BiConsumer<Set<String>, Set<String>> runner) throws IOException {
+        this.cdbRoot = cdbRoot;
+        this.runner = runner;
+        this.watcher = cdbRoot.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Watch the CDB and run affected tests until the watcher is closed or the
+     * thread is interrupted.
+     *
+     * @throws IOException
+     *             If a directory cannot be watched.
+     */
+    public void watch() throws IOException {
+        for (String directory : WATCHED_DIRECTORIES) {
+            Path path = cdbRoot.resolve(directory);
+            if (Files.isDirectory(path)) {
+                register(path, null, null);
+            }
+        }
+        // top-level directories that do not exist yet
+        keys.put(cdbRoot.register(watcher, ENTRY_CREATE), cdbRoot);
+        TestSuiteLogger.log(Level.INFO, String.format("Watching %d directories in %s", keys.size(), cdbRoot));
+
+        Set<String> pending = new TreeSet<String>();
+        Set<String> scope = new TreeSet<String>();
+        long batchStart = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key;
+                if (pending.isEmpty()) {
+                    key = watcher.take();
+                    batchStart = System.currentTimeMillis();
+                } else {
+                    long wait = Math.min(DEBOUNCE_MILLIS, batchStart + MAX_BATCH_MILLIS - System.currentTimeMillis());
+                    key = wait > 0 ? watcher.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+
+                if (null == key) {
+                    runner.accept(Collections.unmodifiableSet(new TreeSet<String>(pending)),
+                            Collections.unmodifiableSet(new TreeSet<String>(scope)));
+                    pending.clear();
+                    scope.clear();
+                    continue;
+                }
+
+                Path directory = keys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW || null == directory) {
+                        for (String name : WATCHED_DIRECTORIES) {
+                            pending.addAll(affectedTests(cdbRoot.getFileSystem().getPath(name)));
+                            scope.add(name);
+                        }
+                        continue;
+                    }
+                    Path changed = directory.resolve((Path) event.context());
+                    Path relative = cdbRoot.relativize(changed);
+                    if (directory.equals(cdbRoot) && !WATCHED_DIRECTORIES.contains(relative.toString())) {
+                        continue;
+                    }
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                        // files may have been added before the watch is in place
+                        register(changed, pending, scope);
+                    }
+                    pending.addAll(affectedTests(relative));
+                    scope.add(scopeOf(relative));
+                }
+                if (!key.reset()) {
+                    keys.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stop watching
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+
+    /**
+     * Watch a directory tree, adding the tests affected by any file found to
+     * the pending tests and its directory to the scope if given.
+     */
+    private void register(Path start, Set<String> pending, Set<String> scope) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                keys.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (null != pending) {
+                    pending.addAll(affectedTests(cdbRoot.relativize(file)));
+                    scope.add(scopeOf(cdbRoot.relativize(file)));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Determine the test classes to re-run for a changed file or directory.
+     *
+     * @param relative
+     *            Path of the change, relative to the CDB root
+     * @return Fully qualified names of the affected test classes
+     */
+    static Set<String> affectedTests(Path relative) {
+        Set<String> tests = new TreeSet<String>();
+        List<String> names = new ArrayList<String>();
+        for (Path name : relative) {
+            names.add(name.toString());
+        }
+        if (names.isEmpty()) {
+            return tests;
+        }
+
+        switch (names.get(0)) {
+        case "Tiles":
+            // Tiles/{lat}/{lon}/{dataset}/...
+            String dataset = names.size() > 3 ? names.get(3) : "";
+            if (dataset.matches("3\\d\\d_GSModel.*")) {
+                addIfPresent(tests, GSMODEL + dataset.substring(4) + "StructureTests");
+                addIfPresent(tests, GSMODEL + "GSModelArchiveIntegrityTests");
+                addIfPresent(tests, STRUCTURE + "ModelGeometryContentTests");
+            } else {
+                addIfPresent(tests, STRUCTURE + "TilesStructureTests");
+                addIfPresent(tests, STRUCTURE + "TilesCoverageTests");
+                if (names.size() > 4) {
+                    addIfPresent(tests, STRUCTURE + "TilesContentTests");
+                }
+                if (dataset.startsWith("100_") || dataset.startsWith("101_")) {
+                    addIfPresent(tests, STRUCTURE + "ModelGeometryContentTests");
+                }
+            }
+            break;
+        case "GTModel":
+        case "MModel":
+            // {GTModel|MModel}/{dataset}/...
+            addIfPresent(tests, STRUCTURE + names.get(0) + "StructureTests");
+            if (names.size() > 1 && names.get(1).matches("\\d{3}_.+")) {
+                addIfPresent(tests, STRUCTURE + names.get(1).substring(4) + "StructureTests");
+                if (names.get(1).matches("(50[01]|51[01]|60[01])_.+")) {
+                    addIfPresent(tests, STRUCTURE + "ModelGeometryContentTests");
+                }
+            }
+            break;
+        case "Metadata":
+            addIfPresent(tests, METADATA + "MetadataStructureTests");
+            String file = names.size() == 2 ? names.get(1) : "";
+            if (file.startsWith("Lights_")) {
+                addIfPresent(tests, METADATA + "LightsXxxXmlStructureTests");
+            } else if (file.endsWith(".xml")) {
+                addIfPresent(tests, METADATA + file.replace(".xml", "").replace("_", "") + "XmlStructureTests");
+            } else if (names.size() > 1) {
+                // schemas and stylesheets may affect the validation of any file
+                for (String test : Arrays.asList("CDBAttributes", "Configuration", "Defaults",
+                        "GeomaticsAttributes", "Lights", "LightsXxx", "Materials", "ModelComponents",
+                        "VendorAttributes", "Version")) {
+                    addIfPresent(tests, METADATA + test + "XmlStructureTests");
+                }
+            }
+            break;
+        default:
+            break;
+        }
+        return tests;
+    }
+
+    /**
+     * Determine the directory to re-validate for a changed file or directory:
+     * its geocell ("Tiles/N62/W162") or model dataset
+     * ("GTModel/500_GTModelGeometry"), or the changed path itself if it is
+     * above them.
+     *
+     * @param relative
+     *            Path of the change, relative to the CDB root
+     * @return Directory relative to the CDB root, with "/" separators
+     */
+    static String scopeOf(Path relative) {
+        int depth = 1;
+        if (relative.getNameCount() > 0) {
+            switch (relative.getName(0).toString()) {
+            case "Tiles":
+                depth = 3;
+                break;
+            case "GTModel":
+            case "MModel":
+                depth = 2;
+                break;
+            default:
+                break;
+            }
+        }
+        List<String> names = new ArrayList<String>();
+        for (Path name : relative) {
+            if (names.size() < depth) {
+                names.add(name.toString());
+            }
+        }
+        return String.join("/", names);
+    }
+
+    private static void addIfPresent(Set<String> tests, String className) {
+        try {
+            Class.forName(className, false, CdbWatcher.class.getClassLoader());
+            tests.add(className);
+        } catch (ClassNotFoundException e) {
+            // no tests for this file
+        }
+    }
+
+    /**
+     * Read the test run arguments from a test run properties document.
+     *
+     * @param testRunArgs
+     *            A DOM Document containing a set of XML properties (key-value
+     *            pairs).
+     * @return Test run arguments, as suite parameters
+     */
+    static Map<String, String> parameters(Document testRunArgs) {
+        Map<String, String> args = new HashMap<String, String>();
+        NodeList entries = testRunArgs.getDocumentElement().getElementsByTagName("entry");
+        for (int i = 0; i < entries.getLength(); i++) {
+            Element entry = (Element) entries.item(i);
+            args.put(entry.getAttribute("key"), entry.getTextContent().trim());
+        }
+        return args;
+    }
+
+    /**
+     * Derive the arguments of a batch from those of the test run. The batch
+     * validates the changed directories, whichever shard they belong to, and
+     * does not use the checkpoint of the test run: resuming from it would
+     * skip the changed geocells as completed, and recording would replace it
+     * with the few units of the batch.
+     *
+     * @param parameters
+     *            Test run arguments
+     * @param scope
+     *            Changed directories, see {@link #scopeOf(Path)}
+     * @return Arguments of the batch
+     */
+    static Map<String, String> batchParameters(Map<String, String> parameters, Set<String> scope) {
+        Map<String, String> batchParameters = new HashMap<String, String>(parameters);
+        batchParameters.remove(TestRunArg.CHECKPOINT.toString());
+        batchParameters.remove(TestRunArg.RESUME.toString());
+        batchParameters.remove(TestRunArg.SHARD.toString());
+        if (!scope.isEmpty()) {
+            batchParameters.put(TestRunArg.SCOPE.toString(), String.join(",", scope));
+        }
+        return batchParameters;
+    }
+
+    /**
+     * Create a runner that runs a batch of test classes with TestNG, using
+     * the listeners of the test suite, and logs the failed tests. Only the
+     * changed directories of the batch are validated, see
+     * {@link #batchParameters(Map, Set)}.
+     *
+     * @param parameters
+     *            Test run arguments
+     * @param outputDir
+     *            Directory for the TestNG results of each batch
+     * @return Runner for {@link #CdbWatcher(Path, BiConsumer)}
+     */
+    public static BiConsumer<Set<String>, Set<String>> testNGRunner(Map<String, String> parameters,
+            File outputDir) {
+        return (classes, scope) -> {
+            if (classes.isEmpty()) {
+                return;
+            }
+            XmlSuite suite = new XmlSuite();
+            suite.setName("ets-cdb10 (watch)");
+            suite.setParameters(batchParameters(parameters, scope));
+            suite.addListener(TestRunListener.class.getName());
+            suite.addListener(SuiteFixtureListener.class.getName());
+            suite.addListener(TestFailureListener.class.getName());
+            suite.addListener(ShardMethodInterceptor.class.getName());
+            suite.addListener(CostMethodInterceptor.class.getName());
+            suite.addListener(ErrorBudgetListener.class.getName());
+            suite.addListener(TimeBudgetListener.class.getName());
+
+            XmlTest test = new XmlTest(suite);
+            test.setName("Changed files");
+            List<XmlClass> xmlClasses = new ArrayList<XmlClass>();
+            for (String name : classes) {
+                xmlClasses.add(new XmlClass(name));
+            }
+            test.setXmlClasses(xmlClasses);
+
+            TestListenerAdapter results = new TestListenerAdapter();
+            TestNG testng = new TestNG();
+            testng.setXmlSuites(Collections.singletonList(suite));
+            testng.setOutputDirectory(outputDir.getAbsolutePath());
+            testng.setUseDefaultListeners(false);
+            testng.addListener(results);
+            testng.run();
+
+            TestSuiteLogger.log(Level.INFO, String.format("Re-ran %s in %s: %d passed, %d failed, %d skipped",
+                    classes, scope, results.getPassedTests().size(), results.getFailedTests().size(),
+                    results.getSkippedTests().size()));
+            for (ITestResult failure : results.getFailedTests()) {
+                TestSuiteLogger.log(Level.WARNING, String.format("%s.%s: %s",
+                        failure.getMethod().getRealClass().getSimpleName(), failure.getMethod().getMethodName(),
+                        (null != failure.getThrowable()) ? failure.getThrowable().getMessage() : "failed"));
+            }
+        };
+    }
+}
@@ -1,7 +1,12 @@
 package org.opengis.cite.cdb10;
 
+import java.lang.reflect.Method;
+
+import org.opengis.cite.cdb10.util.ErrorBudget;
 import org.testng.ITestContext;
+import org.testng.SkipException;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 
 /**
  * A supporting base class that sets up a common test fixture. These
@@ -41,4 +46,19 @@ public class CommonFixture {
         	path = path.replaceFirst("^file:\\/\\/\\/", "");
         }
     }
+
+    /**
+     * Skips expensive tests (see {@link Cost.Stage#isExpensive()}) once the
+     * test run has found more errors than its {@link ErrorBudget} allows.
+     *
+     * @param method The test method about to run.
+     */
+    @BeforeMethod
+    public void checkErrorBudget(Method method) {
+        if (ErrorBudget.isExceeded() && Cost.Stage.of(method).isExpensive()) {
+            throw new SkipException(String.format(
+                    "Error budget of %d exceeded (%d errors found); test skipped.",
+                    ErrorBudget.getLimit(), ErrorBudget.getErrors()));
+        }
+    }
 }
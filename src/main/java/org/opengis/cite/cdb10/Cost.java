@@ -0,0 +1,73 @@
+package org.opengis.cite.cdb10;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+/**
+ * Estimated cost of the tests of a class or of a single test method, used by
+ * {@link CostMethodInterceptor} to run cheap checks first. An annotation on a
+ * method takes precedence over one on its class; tests without either are
+ * treated as {@link Stage#FILES}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface Cost {
+
+    /**
+     * @return Stage of the tests
+     */
+    Stage value();
+
+    /**
+     * Stages of validation, from cheapest to most expensive.
+     */
+    enum Stage {
+        /**
+         * Existence of the CDB root and Metadata directories and files
+         */
+        ROOT,
+        /**
+         * Names of directories
+         */
+        DIRECTORIES,
+        /**
+         * Names of files, or a few small files such as the Metadata XML files
+         */
+        FILES,
+        /**
+         * Opening archives and listing their entries
+         */
+        ARCHIVES,
+        /**
+         * Reading the content of every archive or tile file
+         */
+        CONTENT;
+
+        /**
+         * @return true if tests of this stage are skipped once the error
+         *         budget is exceeded
+         */
+        public boolean isExpensive() {
+            return compareTo(ARCHIVES) >= 0;
+        }
+
+        /**
+         * @param method
+         *            Test method
+         * @return Stage of the method, from its annotation or that of its
+         *         class
+         */
+        public static Stage of(Method method) {
+            Cost cost = method.getAnnotation(Cost.class);
+            if (null == cost) {
+                cost = method.getDeclaringClass().getAnnotation(Cost.class);
+            }
+            return (null != cost) ? cost.value() : FILES;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.opengis.cite.cdb10;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+/**
+ * A listener that orders the tests of each test group by their {@link Cost},
+ * so that existence and naming checks run before archives are opened and
+ * file contents are read. Tests of the same stage keep the order in which
+ * TestNG lists them. Together with the {@link TestRunArg#ERROR_BUDGET error
+ * budget}, this lets an invalid CDB fail before the expensive stages start.
+ *
+ * TestNG runs the tests of a suite one after the other, so the order only
+ * applies within each test; the suite lists the cheap "Metadata And
+ * Versioning" test before "CDB Structure" for this reason.
+ */
+public class CostMethodInterceptor implements IMethodInterceptor {
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        List<IMethodInstance> ordered = new ArrayList<IMethodInstance>(methods);
+        // List.sort is stable
+        ordered.sort(Comparator.comparing(method -> Cost.Stage.of(method.getMethod().getMethod())));
+        return ordered;
+    }
+}
@@ -0,0 +1,43 @@
+package org.opengis.cite.cdb10;
+
+import java.lang.reflect.Method;
+
+import org.opengis.cite.cdb10.util.ErrorBudget;
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+
+/**
+ * A listener that adds the errors of each failed test to the
+ * {@link ErrorBudget}. Tests report all errors they find in one assertion
+ * message, one error per line, so each line counts as one error, except for
+ * the line added by {@link TimeBudgetListener} to incomplete tests.
+ */
+public class ErrorBudgetListener extends TestListenerAdapter {
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        super.onTestFailure(result);
+        Method method = result.getMethod().getMethod();
+        ErrorBudget.add(countErrors(result.getThrowable()),
+                method.getDeclaringClass().getSimpleName() + "." + method.getName());
+    }
+
+    /**
+     * @param failure
+     *            Exception of a failed test
+     * @return Number of errors reported by the test
+     */
+    static int countErrors(Throwable failure) {
+        if (null == failure || null == failure.getMessage() || failure.getMessage().trim().isEmpty()) {
+            return 1;
+        }
+        int count = 0;
+        for (String line : failure.getMessage().trim().split("\n")) {
+            if (!line.startsWith(TimeBudget.INCOMPLETE)) {
+                count++;
+            }
+        }
+        return Math.max(1, count);
+    }
+}
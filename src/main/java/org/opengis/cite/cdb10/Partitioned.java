@@ -0,0 +1,19 @@
+package org.opengis.cite.cdb10;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class whose tests only validate the geocells or model
+ * datasets of the current {@link org.opengis.cite.cdb10.util.Shard}, so that
+ * they can run in every shard. Tests of other classes (e.g. ones comparing
+ * files across datasets) run in the first shard only.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Partitioned {
+}
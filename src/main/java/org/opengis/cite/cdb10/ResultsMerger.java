@@ -0,0 +1,281 @@
+package org.opengis.cite.cdb10;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Combines the TestNG results (testng-results.xml) of the test runs of all
+ * shards of a CDB (see the "shard" test run argument) into one results
+ * document, as if the CDB had been validated by a single test run.
+ *
+ * A test method fails if it failed in any shard, passes if it passed in any
+ * shard and failed in none, and is skipped otherwise (e.g. a dataset that is
+ * not present in any shard). A test that ran out of time in a shard (see the
+ * "test_time_budget" test run argument) stays incomplete: it is skipped even if it
+ * passed in other shards, and its failures in other shards keep the
+ * incomplete line. The failure messages of all shards are combined, without
+ * repeating lines reported by several shards, and the totals are recomputed.
+ *
+ * <pre>
+ * java -cp ets-cdb10-aio.jar org.opengis.cite.cdb10.ResultsMerger merged.xml shard-0.xml shard-1.xml ...
+ * </pre>
+ */
+public class ResultsMerger {
+
+    private static final String STATUS_FAIL = "FAIL";
+    private static final String STATUS_PASS = "PASS";
+    private static final String STATUS_SKIP = "SKIP";
+
+    /**
+     * Suffix added by TestNG to the message of a failed assertTrue
+     */
+    private static final Pattern ASSERTION_SUFFIX = Pattern.compile(" expected \\[.*\\] but found \\[.*\\]$");
+
+    /**
+     * Merge result files.
+     *
+     * @param args
+     *            The merged results file, followed by the results files of the
+     *            shards.
+     * @throws Exception
+     *             If a results file cannot be read or written.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultsMerger merged.xml testng-results.xml...");
+            System.exit(1);
+        }
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        List<Document> shards = new ArrayList<Document>();
+        for (int i = 1; i < args.length; i++) {
+            shards.add(factory.newDocumentBuilder().parse(new File(args[i])));
+        }
+        Document merged = merge(shards);
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.transform(new DOMSource(merged), new StreamResult(new File(args[0])));
+        Element root = merged.getDocumentElement();
+        System.out.println(String.format("Merged %d shards into %s: total %s, passed %s, failed %s, skipped %s",
+                shards.size(), args[0], root.getAttribute("total"), root.getAttribute("passed"),
+                root.getAttribute("failed"), root.getAttribute("skipped")));
+    }
+
+    /**
+     * Merge the results of several shards.
+     *
+     * @param shards
+     *            TestNG results documents, starting with the first shard
+     * @return A new results document
+     * @throws Exception
+     *             If the documents cannot be merged.
+     */
+    public static Document merge(List<Document> shards) throws Exception {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("No results to merge");
+        }
+        Document merged = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        merged.appendChild(merged.importNode(shards.get(0).getDocumentElement(), true));
+
+        for (Document shard : shards.subList(1, shards.size())) {
+            for (Element suite : children(shard.getDocumentElement(), "suite")) {
+                Element mergedSuite = child(merged.getDocumentElement(), suite, "name");
+                if (null == mergedSuite) {
+                    merged.getDocumentElement().appendChild(merged.importNode(suite, true));
+                    continue;
+                }
+                mergeDuration(mergedSuite, suite);
+                for (Element test : children(suite, "test")) {
+                    Element mergedTest = child(mergedSuite, test, "name");
+                    if (null == mergedTest) {
+                        mergedSuite.appendChild(merged.importNode(test, true));
+                        continue;
+                    }
+                    mergeDuration(mergedTest, test);
+                    for (Element testClass : children(test, "class")) {
+                        Element mergedClass = child(mergedTest, testClass, "name");
+                        if (null == mergedClass) {
+                            mergedTest.appendChild(merged.importNode(testClass, true));
+                            continue;
+                        }
+                        for (Element method : children(testClass, "test-method")) {
+                            mergeMethod(mergedClass, method);
+                        }
+                    }
+                }
+            }
+        }
+        updateTotals(merged.getDocumentElement());
+        return merged;
+    }
+
+    private static void mergeMethod(Element mergedClass, Element method) {
+        Element existing = null;
+        for (Element candidate : children(mergedClass, "test-method")) {
+            if (candidate.getAttribute("signature").equals(method.getAttribute("signature"))
+                    && candidate.getAttribute("is-config").equals(method.getAttribute("is-config"))) {
+                existing = candidate;
+                break;
+            }
+        }
+        Element imported = (Element) mergedClass.getOwnerDocument().importNode(method, true);
+        if (null == existing) {
+            mergedClass.appendChild(imported);
+            return;
+        }
+
+        String status = existing.getAttribute("status");
+        String other = method.getAttribute("status");
+        long duration = parseLong(existing.getAttribute("duration-ms")) + parseLong(method.getAttribute("duration-ms"));
+        Element result = existing;
+        if (status.equals(STATUS_FAIL) && (other.equals(STATUS_FAIL) || isIncomplete(method))) {
+            mergeMessages(existing, method);
+        } else if (other.equals(STATUS_FAIL)) {
+            mergedClass.replaceChild(imported, existing);
+            result = imported;
+            if (isIncomplete(existing)) {
+                mergeMessages(imported, existing);
+            }
+        } else if (isIncomplete(method) ? !isIncomplete(existing)
+                : other.equals(STATUS_PASS) && !status.equals(STATUS_PASS) && !isIncomplete(existing)) {
+            mergedClass.replaceChild(imported, existing);
+            result = imported;
+        }
+        if (result.hasAttribute("duration-ms")) {
+            result.setAttribute("duration-ms", Long.toString(duration));
+        }
+    }
+
+    /**
+     * A test skipped because it ran out of time, rather than because there
+     * was nothing to validate.
+     */
+    private static boolean isIncomplete(Element method) {
+        Element message = firstDescendant(method, "message");
+        return method.getAttribute("status").equals(STATUS_SKIP) && null != message
+                && message.getTextContent().trim().startsWith(TimeBudget.INCOMPLETE);
+    }
+
+    /**
+     * Combine the lines of the failure messages of two results.
+     */
+    private static void mergeMessages(Element merged, Element other) {
+        Element message = firstDescendant(merged, "message");
+        Element otherMessage = firstDescendant(other, "message");
+        if (null == message || null == otherMessage) {
+            return;
+        }
+        String suffix = "";
+        Set<String> lines = new LinkedHashSet<String>();
+        for (Element source : new Element[] { message, otherMessage }) {
+            String text = source.getTextContent().trim();
+            Matcher match = ASSERTION_SUFFIX.matcher(text);
+            if (match.find()) {
+                suffix = match.group();
+                text = text.substring(0, match.start());
+            }
+            for (String line : text.split("\n")) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        while (message.hasChildNodes()) {
+            message.removeChild(message.getFirstChild());
+        }
+        message.appendChild(message.getOwnerDocument().createCDATASection(String.join("\n", lines) + suffix));
+    }
+
+    /**
+     * Shards run at the same time, so a suite or test takes as long as its
+     * slowest shard.
+     */
+    private static void mergeDuration(Element merged, Element other) {
+        if (merged.hasAttribute("duration-ms") && other.hasAttribute("duration-ms")) {
+            merged.setAttribute("duration-ms", Long.toString(Math.max(
+                    parseLong(merged.getAttribute("duration-ms")), parseLong(other.getAttribute("duration-ms")))));
+        }
+    }
+
+    private static void updateTotals(Element root) {
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        for (Element suite : children(root, "suite")) {
+            for (Element test : children(suite, "test")) {
+                for (Element testClass : children(test, "class")) {
+                    for (Element method : children(testClass, "test-method")) {
+                        if (Boolean.parseBoolean(method.getAttribute("is-config"))) {
+                            continue;
+                        }
+                        String status = method.getAttribute("status");
+                        if (status.equals(STATUS_FAIL)) {
+                            failed++;
+                        } else if (status.equals(STATUS_PASS)) {
+                            passed++;
+                        } else {
+                            skipped++;
+                        }
+                    }
+                }
+            }
+        }
+        root.setAttribute("total", Integer.toString(passed + failed + skipped));
+        root.setAttribute("passed", Integer.toString(passed));
+        root.setAttribute("failed", Integer.toString(failed));
+        root.setAttribute("skipped", Integer.toString(skipped));
+    }
+
+    /**
+     * Find the child of a merged element that matches an element of another
+     * shard by the given attribute.
+     */
+    private static Element child(Element parent, Element match, String attribute) {
+        for (Element candidate : children(parent, match.getTagName())) {
+            if (candidate.getAttribute(attribute).equals(match.getAttribute(attribute))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static List<Element> children(Element parent, String tagName) {
+        List<Element> children = new ArrayList<Element>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.ELEMENT_NODE && ((Element) node).getTagName().equals(tagName)) {
+                children.add((Element) node);
+            }
+        }
+        return children;
+    }
+
+    private static Element firstDescendant(Element parent, String tagName) {
+        Node node = parent.getElementsByTagName(tagName).item(0);
+        return (Element) node;
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
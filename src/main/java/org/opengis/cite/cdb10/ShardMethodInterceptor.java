@@ -0,0 +1,31 @@
+package org.opengis.cite.cdb10;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opengis.cite.cdb10.util.Shard;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+/**
+ * A listener that removes the tests of classes that are not
+ * {@link Partitioned} from every shard but the first, so that each of them is
+ * run exactly once when a CDB is validated in several shards.
+ */
+public class ShardMethodInterceptor implements IMethodInterceptor {
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (Shard.current().isFirst()) {
+            return methods;
+        }
+        List<IMethodInstance> partitioned = new ArrayList<IMethodInstance>();
+        for (IMethodInstance method : methods) {
+            if (method.getMethod().getRealClass().isAnnotationPresent(Partitioned.class)) {
+                partitioned.add(method);
+            }
+        }
+        return partitioned;
+    }
+}
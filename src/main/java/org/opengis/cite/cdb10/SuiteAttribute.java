@@ -17,7 +17,12 @@ public enum SuiteAttribute {
     /**
      * An array of integers denoting the conformance levels to check.
      */
-    LEVELS("levels", Integer[].class);
+    LEVELS("levels", Integer[].class),
+
+    /**
+     * A Boolean indicating whether ZIP archive entry checksums are verified.
+     */
+    ZIP_INTEGRITY("zipIntegrity", Boolean.class);
 
     private final Class attrType;
     private final String attrName;
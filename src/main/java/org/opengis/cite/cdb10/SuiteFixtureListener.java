@@ -3,10 +3,27 @@ package org.opengis.cite.cdb10;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
+import org.opengis.cite.cdb10.util.ArchiveStatistics;
+import org.opengis.cite.cdb10.util.Checkpoint;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
+import org.opengis.cite.cdb10.util.ErrorBudget;
+import org.opengis.cite.cdb10.util.IoExecutors;
+import org.opengis.cite.cdb10.util.IoLimiter;
+import org.opengis.cite.cdb10.util.Shard;
+import org.opengis.cite.cdb10.util.TarUtils;
 import org.opengis.cite.cdb10.util.TestSuiteLogger;
+import org.opengis.cite.cdb10.util.TilesInventory;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.opengis.cite.cdb10.util.URIUtils;
 import org.testng.ISuite;
 import org.testng.ISuiteListener;
@@ -26,6 +43,18 @@ import org.testng.ISuiteListener;
  */
 public class SuiteFixtureListener implements ISuiteListener {
 
+	/**
+	 * Run arguments that set the rate limits of {@link IoLimiter}
+	 */
+	static final Map<TestRunArg, IoLimiter.Resource> IO_LIMITS = new EnumMap<TestRunArg, IoLimiter.Resource>(
+			TestRunArg.class);
+
+	static {
+		IO_LIMITS.put(TestRunArg.READ_BYTES_PER_SECOND, IoLimiter.Resource.BYTES);
+		IO_LIMITS.put(TestRunArg.LISTINGS_PER_SECOND, IoLimiter.Resource.LISTINGS);
+		IO_LIMITS.put(TestRunArg.OPENS_PER_SECOND, IoLimiter.Resource.OPENS);
+	}
+
 	@Override
 	public void onStart(ISuite suite) {
 		this.processSuiteParameters(suite);
@@ -33,6 +62,9 @@ public class SuiteFixtureListener implements ISuiteListener {
 
 	@Override
 	public void onFinish(ISuite suite) {
+		this.logTraversalMetrics();
+		this.logArchiveStatistics();
+		this.saveCheckpoint();
 		this.deleteTempFiles(suite);
 	}
 
@@ -63,13 +95,83 @@ public class SuiteFixtureListener implements ISuiteListener {
 
 		suite.setAttribute(SuiteAttribute.LEVELS.getName(), levels);
 
+		// settings left by an earlier run in the same JVM are reset to defaults
+		if (null != params.get(TestRunArg.MAX_OPEN_DIRS.toString())) {
+			DirectoryWalker.setMaxOpenDirectories(
+					Integer.parseInt(params.get(TestRunArg.MAX_OPEN_DIRS.toString()).trim()));
+		} else {
+			DirectoryWalker.setMaxOpenDirectories(DirectoryWalker.DEFAULT_MAX_OPEN_DIRECTORIES);
+		}
+		DirectoryWalker.resetCounters();
+		IoLimiter.resetCounters();
+		for (Map.Entry<TestRunArg, IoLimiter.Resource> limit : IO_LIMITS.entrySet()) {
+			if (null != params.get(limit.getKey().toString())) {
+				IoLimiter.setRate(limit.getValue(), Double.parseDouble(params.get(limit.getKey().toString()).trim()));
+			} else {
+				IoLimiter.setRate(limit.getValue(), 0);
+			}
+		}
+		TilesInventory.clear();
+		ArchiveStatistics.reset();
+
+		if (null != params.get(TestRunArg.TRAVERSAL_ORDER.toString())) {
+			DirectoryWalker.setOrder(
+					DirectoryWalker.Order.fromString(params.get(TestRunArg.TRAVERSAL_ORDER.toString())));
+		} else {
+			DirectoryWalker.setOrder(DirectoryWalker.Order.DIRECTORY);
+		}
+
+		if (null != params.get(TestRunArg.EXECUTOR.toString())) {
+			IoExecutors.setMode(IoExecutors.Mode.fromString(params.get(TestRunArg.EXECUTOR.toString())));
+		} else {
+			IoExecutors.setMode(IoExecutors.Mode.PLATFORM);
+		}
+		if (null != params.get(TestRunArg.MAX_OUTSTANDING_IO.toString())) {
+			IoExecutors.setMaxOutstanding(
+					Integer.parseInt(params.get(TestRunArg.MAX_OUTSTANDING_IO.toString()).trim()));
+		} else {
+			IoExecutors.setMaxOutstanding(IoExecutors.DEFAULT_MAX_OUTSTANDING);
+		}
+
+		Shard shard = Shard.ALL;
+		if (null != params.get(TestRunArg.SHARD.toString())) {
+			shard = Shard.parse(params.get(TestRunArg.SHARD.toString()));
+		}
+		if (null != params.get(TestRunArg.SCOPE.toString())) {
+			shard = shard.withScope(Arrays.asList(params.get(TestRunArg.SCOPE.toString()).split(",")));
+		}
+		Shard.setCurrent(shard);
+		if (shard != Shard.ALL) {
+			TestSuiteLogger.log(Level.INFO, "Validating shard " + shard);
+		}
+
+		if (null != params.get(TestRunArg.ERROR_BUDGET.toString())) {
+			ErrorBudget.reset(Long.parseLong(params.get(TestRunArg.ERROR_BUDGET.toString()).trim()));
+		} else {
+			ErrorBudget.reset(ErrorBudget.UNLIMITED);
+		}
+
+		long testTimeBudget = 0;
+		if (null != params.get(TestRunArg.TEST_TIME_BUDGET.toString())) {
+			testTimeBudget = TimeUnit.SECONDS
+				.toMillis(Long.parseLong(params.get(TestRunArg.TEST_TIME_BUDGET.toString()).trim()));
+		}
+		Map<String, Long> phaseTimeBudgets = Collections.emptyMap();
+		if (null != params.get(TestRunArg.PHASE_TIME_BUDGETS.toString())) {
+			phaseTimeBudgets = TimeBudget.parsePhases(params.get(TestRunArg.PHASE_TIME_BUDGETS.toString()));
+		}
+		TimeBudget.configure(testTimeBudget, phaseTimeBudgets);
+
+		suite.setAttribute(SuiteAttribute.ZIP_INTEGRITY.getName(),
+				Boolean.valueOf(params.get(TestRunArg.ZIP_INTEGRITY.toString())));
+
 		String iutParam = params.get(TestRunArg.IUT.toString());
 		
-		// Process ZIP file for IUT, if present
+		// Process ZIP or tar file for IUT, if present
         File iutFile = null;
         URI iutRef = URI.create(iutParam.trim());
         
-        if (iutParam.trim().endsWith(".zip")) {
+        if (iutParam.trim().endsWith(".zip") || TarUtils.isTarArchive(iutParam.trim())) {
         	try {
 	            iutFile = URIUtils.dereferenceURI(iutRef);
 	        } catch (IOException iox) {
@@ -80,6 +182,19 @@ public class SuiteFixtureListener implements ISuiteListener {
         }
 	    
 		suite.setAttribute(SuiteAttribute.TEST_SUBJECT.getName(), iutParam);
+
+		if (null != params.get(TestRunArg.CHECKPOINT.toString())) {
+			try {
+				// keyed on the argument, as archives are extracted to a new directory each run
+				Checkpoint.start(Paths.get(params.get(TestRunArg.CHECKPOINT.toString()).trim()),
+						params.get(TestRunArg.IUT.toString()).trim(),
+						Boolean.valueOf(params.get(TestRunArg.RESUME.toString())));
+			} catch (IOException iox) {
+				throw new RuntimeException("Failed to read checkpoint file", iox);
+			}
+		} else {
+			Checkpoint.disable();
+		}
 		
 		if (TestSuiteLogger.isLoggable(Level.FINE)) {
 			TestSuiteLogger.log(Level.FINE, String.format("Parsed resource retrieved from %s\n", TestRunArg.IUT));
@@ -88,6 +203,68 @@ public class SuiteFixtureListener implements ISuiteListener {
 	
 	
 
+	/**
+	 * Logs the directory handle counters collected while traversing the CDB,
+	 * and the I/O done and time waited for each rate limit that is set.
+	 */
+	void logTraversalMetrics() {
+		TestSuiteLogger.log(Level.INFO, String.format(
+				"Directories opened: %d, peak concurrently open: %d (limit %d)",
+				DirectoryWalker.getDirectoriesOpenedCount(),
+				DirectoryWalker.getPeakOpenDirectoryCount(),
+				DirectoryWalker.getMaxOpenDirectories()));
+		for (Map.Entry<TestRunArg, IoLimiter.Resource> limit : IO_LIMITS.entrySet()) {
+			if (IoLimiter.getRate(limit.getValue()) > 0) {
+				TestSuiteLogger.log(Level.INFO, String.format("%s: %d used, limit %s, waited %d ms",
+						limit.getKey(), IoLimiter.getCount(limit.getValue()),
+						IoLimiter.getRate(limit.getValue()), IoLimiter.getWaitedMillis(limit.getValue())));
+			}
+		}
+	}
+
+	/**
+	 * Logs the size and entry count distributions of the ZIP archives checked
+	 * during the run, per dataset and LOD. Size percentiles are upper bounds
+	 * from power-of-two histograms; the full histograms are logged at the FINE
+	 * level.
+	 */
+	void logArchiveStatistics() {
+		for (Map.Entry<ArchiveStatistics.Key, ArchiveStatistics> group : ArchiveStatistics.getStatistics().entrySet()) {
+			ArchiveStatistics.Histogram sizes = group.getValue().getSizes();
+			ArchiveStatistics.Histogram entries = group.getValue().getEntries();
+			List<String> largest = new ArrayList<String>();
+			for (ArchiveStatistics.Archive archive : group.getValue().getLargest()) {
+				largest.add(String.format("%s (%d bytes)", archive.getName(), archive.getSize()));
+			}
+
+			TestSuiteLogger.log(Level.INFO, String.format(
+					"Archives %s: %d archives, %d bytes; size p50 <= %d, p99 <= %d, max %d bytes; "
+							+ "entries p50 <= %d, p99 <= %d, max %d, total %d; largest: %s",
+					group.getKey(), sizes.getCount(), sizes.getTotal(),
+					sizes.getPercentile(50), sizes.getPercentile(99), sizes.getMax(),
+					entries.getPercentile(50), entries.getPercentile(99), entries.getMax(), entries.getTotal(),
+					String.join(", ", largest)));
+			if (TestSuiteLogger.isLoggable(Level.FINE)) {
+				TestSuiteLogger.log(Level.FINE, String.format("Archives %s size histogram: %s",
+						group.getKey(), sizes));
+				TestSuiteLogger.log(Level.FINE, String.format("Archives %s entry count histogram: %s",
+						group.getKey(), entries));
+			}
+		}
+	}
+
+	/**
+	 * Writes the final progress of the test run to the checkpoint file, if
+	 * there is one.
+	 */
+	void saveCheckpoint() {
+		try {
+			Checkpoint.current().save();
+		} catch (IOException iox) {
+			TestSuiteLogger.log(Level.WARNING, "Failed to write checkpoint file", iox);
+		}
+	}
+
 	/**
 	 * Deletes temporary files created during the test run if TestSuiteLogger is
 	 * enabled at the INFO level or higher (they are left intact at the CONFIG
@@ -46,7 +46,16 @@ public class TestNGController implements TestSuiteController {
      * 
      * <pre>
      * ets-*-aio.jar [-o|--outputDir $TMPDIR] [test-run-props.xml]
+     * ets-*-aio.jar [-o|--outputDir $TMPDIR] -s|--service $PORT
+     * ets-*-aio.jar [-o|--outputDir $TMPDIR] -w|--watch [test-run-props.xml]
      * </pre>
+     * <p>
+     * With the service option, the test suite keeps running as a
+     * {@link ValidationService} that accepts test runs on the given local port.
+     * With the watch option, the CDB (which must be a local directory) is
+     * watched after the test run by a {@link CdbWatcher}, which re-runs the
+     * tests affected by each change.
+     * </p>
      *
      * @param args
      *            Test run arguments (optional).
@@ -63,6 +72,12 @@ public class TestNGController implements TestSuiteController {
             System.out.println(px.getMessage());
             cmd.usage();
         }
+        if (null != testRunArgs.getServicePort()) {
+            String outputDir = testRunArgs.getOutputDir();
+            File outputFile = outputDir.startsWith("file:") ? new File(URI.create(outputDir)) : new File(outputDir);
+            new ValidationService(outputFile).start(testRunArgs.getServicePort());
+            return;
+        }
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         DocumentBuilder db = dbf.newDocumentBuilder();
         File xmlArgs = testRunArgs.getPropertiesFile();
@@ -70,6 +85,18 @@ public class TestNGController implements TestSuiteController {
         TestNGController controller = new TestNGController(testRunArgs.getOutputDir());
         Source testResults = controller.doTestRun(testRunProps);
         System.out.println("Test results: " + testResults.getSystemId());
+
+        if (testRunArgs.isWatch()) {
+            Map<String, String> parameters = CdbWatcher.parameters(testRunProps);
+            String iut = parameters.get(TestRunArg.IUT.toString());
+            File cdbRoot = iut.startsWith("file:") ? new File(URI.create(iut)) : new File(iut);
+            String outputDir = testRunArgs.getOutputDir();
+            File outputFile = outputDir.startsWith("file:") ? new File(URI.create(outputDir)) : new File(outputDir);
+            try (CdbWatcher watcher = new CdbWatcher(cdbRoot.toPath(),
+                    CdbWatcher.testNGRunner(parameters, new File(outputFile, "watch")))) {
+                watcher.watch();
+            }
+        }
     }
 
     /**
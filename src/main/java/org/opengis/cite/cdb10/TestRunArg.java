@@ -13,7 +13,80 @@ public enum TestRunArg {
     /**
      * The conformance level(s) that are active
      */
-    ICS;
+    ICS,
+    /**
+     * Maximum number of directory handles that may be open at the same time
+     * while traversing the CDB
+     */
+    MAX_OPEN_DIRS,
+    /**
+     * Order in which files found during traversal are processed: "directory"
+     * (default) or "inode"
+     */
+    TRAVERSAL_ORDER,
+    /**
+     * Verify the CRC-32 of every entry in GSModel ZIP archives: "true" or
+     * "false" (default)
+     */
+    ZIP_INTEGRITY,
+    /**
+     * Path of a file in which the progress of long-running tests is recorded
+     */
+    CHECKPOINT,
+    /**
+     * Resume from the progress recorded in the checkpoint file: "true" or
+     * "false" (default)
+     */
+    RESUME,
+    /**
+     * Partition of the CDB validated by this test run, as "i/N" for shard i
+     * of N (e.g. "0/4")
+     */
+    SHARD,
+    /**
+     * Directories validated by this test run, relative to the CDB root and
+     * separated by commas (e.g. "Tiles/N62/W162,GTModel/500_GTModelGeometry");
+     * the whole CDB by default
+     */
+    SCOPE,
+    /**
+     * Threads that run directory and archive tasks: "platform" (default) or
+     * "virtual" (Java 21 or later)
+     */
+    EXECUTOR,
+    /**
+     * Maximum number of directory and archive tasks doing I/O at the same time
+     * on virtual threads
+     */
+    MAX_OUTSTANDING_IO,
+    /**
+     * Maximum number of bytes read from CDB files per second; 0 (default) for
+     * no limit
+     */
+    READ_BYTES_PER_SECOND,
+    /**
+     * Maximum number of CDB directories listed per second; 0 (default) for no
+     * limit
+     */
+    LISTINGS_PER_SECOND,
+    /**
+     * Maximum number of CDB files opened per second; 0 (default) for no limit
+     */
+    OPENS_PER_SECOND,
+    /**
+     * Number of errors after which the tests that open archives or read file
+     * contents are skipped; unlimited by default
+     */
+    ERROR_BUDGET,
+    /**
+     * Maximum number of seconds for each test method; unlimited by default
+     */
+    TEST_TIME_BUDGET,
+    /**
+     * Maximum number of seconds for all tests of a cost stage together, as
+     * comma-separated "phase=seconds" pairs, e.g. "archives=600,content=3600"
+     */
+    PHASE_TIME_BUDGETS;
 
 
     @Override
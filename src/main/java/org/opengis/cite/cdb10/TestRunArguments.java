@@ -21,6 +21,8 @@ import java.util.List;
  * 
  * <pre>
  * ets-${ets-code}-${version}-aio.jar [-o|--outputDir $TMPDIR] [test-run-props.xml]
+ * ets-${ets-code}-${version}-aio.jar [-o|--outputDir $TMPDIR] -s|--service $PORT
+ * ets-${ets-code}-${version}-aio.jar [-o|--outputDir $TMPDIR] -w|--watch [test-run-props.xml]
  * </pre>
  */
 public class TestRunArguments {
@@ -31,6 +33,12 @@ public class TestRunArguments {
     @Parameter(names = { "-o", "--outputDir" }, description = "Output directory")
     private String outputDir;
 
+    @Parameter(names = { "-s", "--service" }, description = "Run as a validation service on this local port")
+    private Integer servicePort;
+
+    @Parameter(names = { "-w", "--watch" }, description = "Re-run affected tests when files in the CDB change")
+    private boolean watch;
+
     public TestRunArguments() {
         this.xmlProps = new ArrayList<>();
     }
@@ -49,4 +57,18 @@ public class TestRunArguments {
     public String getOutputDir() {
         return (null != outputDir) ? outputDir : System.getProperty("user.home");
     }
+
+    /**
+     * @return Local port for service mode, or null to execute a single test run
+     */
+    public Integer getServicePort() {
+        return servicePort;
+    }
+
+    /**
+     * @return true to keep watching the CDB after the test run
+     */
+    public boolean isWatch() {
+        return watch;
+    }
 }
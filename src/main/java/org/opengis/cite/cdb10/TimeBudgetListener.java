@@ -0,0 +1,50 @@
+package org.opengis.cite.cdb10;
+
+import java.lang.reflect.Method;
+
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+
+/**
+ * A listener that starts the {@link TimeBudget} of each test method, using
+ * its {@link Cost} stage as the phase. A test that ran out of time is marked
+ * as incomplete: failures keep the errors found so far with the covered share
+ * added on a last line, and tests that found no errors before the time was up
+ * are skipped rather than passed.
+ */
+public class TimeBudgetListener implements IInvokedMethodListener {
+
+    @Override
+    public void beforeInvocation(IInvokedMethod invokedMethod, ITestResult result) {
+        if (!invokedMethod.isTestMethod()) {
+            return;
+        }
+        Method method = invokedMethod.getTestMethod().getMethod();
+        TimeBudget.start(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                Cost.Stage.of(method).name());
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod invokedMethod, ITestResult result) {
+        if (!invokedMethod.isTestMethod()) {
+            return;
+        }
+        TimeBudget budget = TimeBudget.finish();
+        if (!budget.isExpired()) {
+            return;
+        }
+        if (result.getStatus() == ITestResult.FAILURE) {
+            Throwable failure = result.getThrowable();
+            String message = (null == failure || null == failure.getMessage()) ? "" : failure.getMessage().trim();
+            AssertionError incomplete = new AssertionError(message + "\n" + budget.describe());
+            incomplete.initCause(failure);
+            result.setThrowable(incomplete);
+        } else if (result.getStatus() == ITestResult.SUCCESS) {
+            result.setStatus(ITestResult.SKIP);
+            result.setThrowable(new SkipException(budget.describe()));
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package org.opengis.cite.cdb10;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Source;
+
+import org.apache.commons.io.IOUtils;
+import org.opengis.cite.cdb10.util.IoLimiter;
+import org.opengis.cite.cdb10.util.TestSuiteLogger;
+import org.w3c.dom.Document;
+
+import com.occamlab.te.spi.jaxrs.TestSuiteController;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the test suite as a long-lived local service, so that repeated test
+ * runs (e.g. from CI) reuse a warm JVM and the reference data cached by
+ * {@link org.opengis.cite.cdb10.util.reference.CdbReference} instead of
+ * starting from scratch each time.
+ *
+ * Test runs are submitted over HTTP on the loopback interface and executed one
+ * at a time, since suite fixtures such as the tiles inventory are shared by
+ * the whole JVM. Each run writes its results to its own subdirectory of the
+ * output directory.
+ *
+ * <ul>
+ * <li>POST /runs with a test run properties document: queue a run; responds
+ * 202 with the run id and a Location header</li>
+ * <li>GET /runs/{id}: status of the run, as "key: value" lines</li>
+ * <li>GET /runs/{id}/result: test results of a completed run</li>
+ * <li>GET /limits: I/O rate limits, as "key: value" lines named after the
+ * run arguments (e.g. "opens_per_second: 100.0")</li>
+ * <li>PUT /limits with "key: value" lines: change some or all of the I/O rate
+ * limits, including for the run in progress; responds with the new limits.
+ * The next run starts again from the limits in its own arguments.</li>
+ * </ul>
+ */
+public class ValidationService {
+
+    /**
+     * Number of finished runs remembered; older runs are forgotten (their
+     * results are left in the output directory).
+     */
+    static final int MAX_FINISHED_RUNS = 100;
+
+    /**
+     * State of a submitted test run.
+     */
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * A submitted test run.
+     */
+    public static class Run {
+        private final String id;
+        private final File outputDir;
+        private volatile Status status = Status.QUEUED;
+        private volatile String result;
+        private volatile String error;
+
+        Run(String id, File outputDir) {
+            this.id = id;
+            this.outputDir = outputDir;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public File getOutputDir() {
+            return outputDir;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return System id of the test results, once the run has completed
+         */
+        public String getResult() {
+            return result;
+        }
+
+        /**
+         * @return Reason the run failed, if it did
+         */
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final File outputDir;
+    private final Function<File, TestSuiteController> controllers;
+    private final ExecutorService queue = Executors.newSingleThreadExecutor();
+    private final Map<String, Run> runs = new LinkedHashMap<String, Run>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private HttpServer server;
+
+    /**
+     * Construct a service that runs this test suite, writing results to
+     * subdirectories of the given directory.
+     *
+     * @param outputDir
+     *            Root output directory; it will be created if it does not
+     *            exist.
+     */
+    public ValidationService(File outputDir) {
+        this(outputDir, runDir -> new TestNGController(runDir.toURI().toString()));
+    }
+
+    /**
+     * Construct a service with a custom controller for each run.
+     *
+     * @param outputDir
+     *            Root output directory
+     * @param controllers
+     *            Creates the controller for a run, given the run's output
+     *            directory
+     */
+    ValidationService(File outputDir, Function<File, TestSuiteController> controllers) {
+        this.outputDir = outputDir;
+        this.controllers = controllers;
+    }
+
+    /**
+     * Start listening for test runs on the loopback interface.
+     *
+     * @param port
+     *            Local port, or 0 for any free port
+     * @return The port the service is listening on
+     * @throws IOException
+     *             If the port cannot be bound.
+     */
+    public int start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/runs", this::handle);
+        server.createContext("/limits", this::handleLimits);
+        server.start();
+        int boundPort = server.getAddress().getPort();
+        TestSuiteLogger.log(Level.INFO, "Validation service listening on port " + boundPort);
+        return boundPort;
+    }
+
+    /**
+     * Stop accepting runs and wait for the current run to finish.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        queue.shutdown();
+    }
+
+    /**
+     * Queue a test run.
+     *
+     * @param testRunArgs
+     *            A DOM Document containing the test run properties.
+     * @return The queued run
+     */
+    public Run submit(Document testRunArgs) {
+        String id = Long.toString(nextId.getAndIncrement());
+        Run run = new Run(id, new File(outputDir, "run-" + id));
+        synchronized (runs) {
+            runs.put(id, run);
+            pruneFinishedRuns();
+        }
+        queue.execute(() -> execute(run, testRunArgs));
+        return run;
+    }
+
+    /**
+     * @param id
+     *            Run id
+     * @return The run, or null if it is unknown or has been forgotten
+     */
+    public Run getRun(String id) {
+        synchronized (runs) {
+            return runs.get(id);
+        }
+    }
+
+    private void execute(Run run, Document testRunArgs) {
+        run.status = Status.RUNNING;
+        try {
+            run.outputDir.mkdirs();
+            Source results = controllers.apply(run.outputDir).doTestRun(testRunArgs);
+            run.result = (null != results) ? results.getSystemId() : null;
+            run.status = Status.COMPLETED;
+        } catch (Exception e) {
+            TestSuiteLogger.log(Level.WARNING, "Test run " + run.id + " failed", e);
+            run.error = e.toString();
+            run.status = Status.FAILED;
+        }
+    }
+
+    private void pruneFinishedRuns() {
+        int finished = 0;
+        for (Run run : runs.values()) {
+            if (run.status == Status.COMPLETED || run.status == Status.FAILED) {
+                finished++;
+            }
+        }
+        Iterator<Run> oldest = runs.values().iterator();
+        while (finished > MAX_FINISHED_RUNS && oldest.hasNext()) {
+            Run run = oldest.next();
+            if (run.status == Status.COMPLETED || run.status == Status.FAILED) {
+                oldest.remove();
+                finished--;
+            }
+        }
+    }
+
+    /**
+     * Creates a parser factory for request bodies, which come from the network:
+     * DOCTYPE declarations, external entities and XInclude are refused.
+     *
+     * @return A DocumentBuilderFactory for untrusted XML.
+     * @throws ParserConfigurationException If the parser lacks a required feature.
+     */
+    static DocumentBuilderFactory newSecureDocumentBuilderFactory() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setXIncludeAware(false);
+        factory.setExpandEntityReferences(false);
+        return factory;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+
+            if (path.length == 2 && method.equals("POST")) {
+                Document testRunArgs;
+                try (InputStream body = exchange.getRequestBody()) {
+                    testRunArgs = newSecureDocumentBuilderFactory().newDocumentBuilder().parse(body);
+                } catch (Exception e) {
+                    respond(exchange, 400, "Invalid test run properties: " + e.getMessage());
+                    return;
+                }
+                Run run = submit(testRunArgs);
+                exchange.getResponseHeaders().set("Location", "/runs/" + run.id);
+                respond(exchange, 202, run.id);
+            } else if ((path.length == 3 || path.length == 4) && method.equals("GET")) {
+                Run run = getRun(path[2]);
+                if (null == run) {
+                    respond(exchange, 404, "Unknown run: " + path[2]);
+                } else if (path.length == 3) {
+                    respond(exchange, 200, String.format("id: %s\nstatus: %s\noutputDir: %s\n%s",
+                            run.id, run.status, run.outputDir.getAbsolutePath(),
+                            (null != run.error) ? "error: " + run.error + "\n"
+                                    : (null != run.result) ? "result: " + run.result + "\n" : ""));
+                } else if (path[3].equals("result") && run.status == Status.COMPLETED && null != run.result) {
+                    byte[] results;
+                    try {
+                        results = Files.readAllBytes(Paths.get(URI.create(run.result)));
+                    } catch (IllegalArgumentException e) {
+                        respond(exchange, 500, "Results are not a local file: " + run.result);
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("Content-Type", "application/xml");
+                    exchange.sendResponseHeaders(200, results.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(results);
+                    }
+                } else if (path[3].equals("result")) {
+                    respond(exchange, 409, "No results for run " + run.id + " (" + run.status + ")");
+                } else {
+                    respond(exchange, 404, "Not found");
+                }
+            } else {
+                respond(exchange, 405, "Unsupported request");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleLimits(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (method.equals("PUT")) {
+                String body;
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+                }
+                try {
+                    setLimits(body);
+                } catch (IllegalArgumentException e) {
+                    respond(exchange, 400, "Invalid limits: " + e.getMessage());
+                    return;
+                }
+            } else if (!method.equals("GET")) {
+                respond(exchange, 405, "Unsupported request");
+                return;
+            }
+            StringBuilder limits = new StringBuilder();
+            for (Map.Entry<TestRunArg, IoLimiter.Resource> limit : SuiteFixtureListener.IO_LIMITS.entrySet()) {
+                limits.append(limit.getKey()).append(": ").append(IoLimiter.getRate(limit.getValue())).append("\n");
+            }
+            respond(exchange, 200, limits.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Change I/O rate limits. All lines are checked before any limit is
+     * changed.
+     *
+     * @param limits
+     *            "key: value" lines, e.g. "listings_per_second: 50"; a value
+     *            of 0 removes the limit
+     * @throws IllegalArgumentException
+     *             If a key is not a rate limit or a value is not a valid rate
+     */
+    void setLimits(String limits) {
+        Map<IoLimiter.Resource, Double> rates = new LinkedHashMap<IoLimiter.Resource, Double>();
+        for (String line : limits.split("\n")) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] pair = line.split(":", 2);
+            IoLimiter.Resource resource = null;
+            for (Map.Entry<TestRunArg, IoLimiter.Resource> limit : SuiteFixtureListener.IO_LIMITS.entrySet()) {
+                if (limit.getKey().toString().equals(pair[0].trim())) {
+                    resource = limit.getValue();
+                }
+            }
+            if (null == resource || pair.length < 2) {
+                throw new IllegalArgumentException("not a rate limit: " + line.trim());
+            }
+            double rate;
+            try {
+                rate = Double.parseDouble(pair[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not a number: " + line.trim());
+            }
+            if (rate < 0 || Double.isNaN(rate) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("not a valid rate: " + line.trim());
+            }
+            rates.put(resource, rate);
+        }
+        for (Map.Entry<IoLimiter.Resource, Double> rate : rates.entrySet()) {
+            IoLimiter.setRate(rate.getKey(), rate.getValue());
+            TestSuiteLogger.log(Level.INFO, "I/O rate limit for " + rate.getKey() + " set to " + rate.getValue());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message.endsWith("\n") ? message : message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import org.opengis.cite.cdb10.CommonFixture;
+import org.opengis.cite.cdb10.Partitioned;
 import org.opengis.cite.cdb10.SuiteAttribute;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
+import org.opengis.cite.cdb10.util.IoExecutors;
+import org.opengis.cite.cdb10.util.Shard;
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.opengis.cite.cdb10.util.ValidationPipeline;
 import org.opengis.cite.cdb10.util.reference.CdbReference;
 import org.opengis.cite.cdb10.util.reference.ComponentSelectorValidator;
 import org.opengis.cite.cdb10.util.reference.DisCountryCodesValidator;
@@ -11,10 +17,9 @@ import org.testng.ITestContext;
 import org.testng.annotations.BeforeClass;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.regex.Matcher;
@@ -25,6 +30,20 @@ import java.util.regex.Pattern;
  */
 public class Capability1Tests extends CommonFixture {
 
+	/**
+	 * Number of threads opening archives in parallel
+	 */
+	protected static final int ARCHIVE_THREADS = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * @return Number of archives opened in parallel: {@link #ARCHIVE_THREADS}
+	 *         on platform threads, more on virtual threads (see
+	 *         {@link IoExecutors})
+	 */
+	protected static int archiveParallelism() {
+		return IoExecutors.getParallelism(ARCHIVE_THREADS);
+	}
+
 	public Capability1Tests() {
 	}
 	
@@ -47,10 +66,27 @@ public class Capability1Tests extends CommonFixture {
 		super.obtainTestSubject(testContext);
 	}
 	
+	/**
+	 * Check whether a geocell or model dataset directory is validated by this
+	 * test run. Classes that are not {@link Partitioned} validate every
+	 * directory.
+	 * 
+	 * @param  directory Geocell directory (e.g. "Tiles/N62/W162") or model
+	 *                   dataset directory (e.g. "GTModel/500_GTModelGeometry")
+	 * @return           true if the directory belongs to the current shard
+	 */
+	protected boolean inShard(Path directory) {
+		if (!getClass().isAnnotationPresent(Partitioned.class)) {
+			return true;
+		}
+		return Shard.current().owns(Shard.unitName(Paths.get(this.path), directory));
+	}
+	
 	/**
 	 * Scan the "Tiles" directory in the given CDB path for all Datasets with a
 	 * matching name, returning a list of their paths. This is used to collect
-	 * datasets out of different geocells.
+	 * datasets out of different geocells. Only the geocells of the current
+	 * shard are scanned by {@link Partitioned} classes.
 	 * 
 	 * @param  cdbRoot     String of path to root of CDB
 	 * @param  datasetName String of directories to match and return
@@ -62,7 +98,7 @@ public class Capability1Tests extends CommonFixture {
 		ArrayList<Path> datasetPaths = new ArrayList<Path>();
 		
 		iterateEntries(tilesPath, 2, (datasetPath -> {
-			if (datasetPath.endsWith(datasetName)) {
+			if (datasetPath.endsWith(datasetName) && inShard(datasetPath.getParent())) {
 				datasetPaths.add(datasetPath);
 			}
 		}));
@@ -81,11 +117,60 @@ public class Capability1Tests extends CommonFixture {
 	 * @throws IOException Error reading from CDB
 	 */
 	protected void iterateDatasets(ArrayList<Path> datasets, validateFile lambda) throws IOException {
+		TimeBudget budget = TimeBudget.current();
+		budget.addUnits(datasets.size());
 		for (Path dataset : datasets) {
+			if (budget.isExpired()) {
+				break;
+			}
 			iterateEntries(dataset, 2, lambda);
+			if (!budget.isExpired()) {
+				budget.unitDone();
+			}
+		}
+	}
+	
+	/**
+	 * Combine looping of the array of dataset paths with lambda file
+	 * evaluation, passing along the file attributes read during the walk.
+	 * 
+	 * @param  datasets    Array of datasets to evaluate
+	 * @param  lambda      Lambda used to validate individual files; lambda will
+	 *                     receive the Path to the file to be tested and its
+	 *                     BasicFileAttributes.
+	 * @throws IOException Error reading from CDB
+	 */
+	protected void iterateDatasets(ArrayList<Path> datasets, validateFileWithAttributes lambda) throws IOException {
+		TimeBudget budget = TimeBudget.current();
+		budget.addUnits(datasets.size());
+		for (Path dataset : datasets) {
+			if (budget.isExpired()) {
+				break;
+			}
+			iterateEntries(dataset, 2, lambda);
+			if (!budget.isExpired()) {
+				budget.unitDone();
+			}
 		}
 	}
 	
+	/**
+	 * Parallel variant of {@link #iterateDatasets(ArrayList, validateFile)}
+	 * for validations with slow steps, such as opening archives: the files of
+	 * the datasets are passed through the stages of the pipeline, and their
+	 * errors are returned in the same order as the sequential iteration.
+	 * 
+	 * @param  datasets    Array of datasets to evaluate
+	 * @param  pipeline    Stages run against each file; each stage adds to
+	 *                     the errors of the file it receives.
+	 * @return             ArrayList (String) of errors
+	 * @throws IOException Error reading from CDB
+	 */
+	protected ArrayList<String> iterateDatasets(ArrayList<Path> datasets, ValidationPipeline pipeline)
+			throws IOException {
+		return pipeline.run(datasets, 2);
+	}
+	
 	/**
 	 * Run a lambda function against all files a certain depth below a given
 	 * directory. Alternative to nested for loops that iterate
@@ -111,19 +196,25 @@ public class Capability1Tests extends CommonFixture {
 	 * @throws IOException   Error reading from base directory
 	 */
 	protected void iterateEntries(Path baseDirectory, int depth, validateFile lambda) throws IOException {
-		DirectoryStream<Path> files = Files.newDirectoryStream(baseDirectory);
-		
-		if (depth > 0) {
-			for (Path entry : files) {
-				if (Files.isDirectory(entry)) {
-					iterateEntries(entry, depth - 1, lambda);
-				}
-			}
-		} else {
-			for (Path entry : files) {
-				lambda.validate(entry);
-			}
-		}
+		DirectoryWalker.walkAtDepth(baseDirectory, depth, lambda::validate);
+	}
+	
+	/**
+	 * Run a lambda function against all files a certain depth below a given
+	 * directory, passing along the attributes that were read for each file
+	 * while its directory was listed. Use this instead of calling
+	 * {@code Files.isDirectory} or {@code File.length} on the entry, which
+	 * would stat the file a second time.
+	 * 
+	 * @param  baseDirectory Path to directory into which to "walk"
+	 * @param  depth         How many levels of subdirectories to recurse before
+	 *                       running lambdas against file entries
+	 * @param  lambda        Lambda function to run against files at target
+	 *                       depth
+	 * @throws IOException   Error reading from base directory
+	 */
+	protected void iterateEntries(Path baseDirectory, int depth, validateFileWithAttributes lambda) throws IOException {
+		DirectoryWalker.walkAtDepth(baseDirectory, depth, lambda::validate);
 	}
 	
 	/**
@@ -465,6 +556,14 @@ public class Capability1Tests extends CommonFixture {
 		void validate(Path file);
 	}
 	
+	/**
+	 * Variant of {@link validateFile} for lambdas that also need the file
+	 * attributes (type, size) read by the directory iterator.
+	 */
+	protected interface validateFileWithAttributes {
+		void validate(Path file, BasicFileAttributes attributes);
+	}
+	
 	/**
 	 * Validate a latitude code as being a valid latitude.
 	 * 
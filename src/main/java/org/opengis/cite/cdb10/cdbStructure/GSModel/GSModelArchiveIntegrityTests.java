@@ -0,0 +1,175 @@
+package org.opengis.cite.cdb10.cdbStructure.GSModel;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.SuiteAttribute;
+import org.opengis.cite.cdb10.cdbStructure.Capability1Tests;
+import org.opengis.cite.cdb10.util.Checkpoint;
+import org.opengis.cite.cdb10.util.IoExecutors;
+import org.opengis.cite.cdb10.util.StoredZipVerifier;
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.testng.Assert;
+import org.testng.ITestContext;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Integrity tests for the ZIP archives of the GSModel datasets. These read
+ * every byte of every archive, so they only run when the "zip_integrity" test
+ * run argument is "true".
+ */
+@Partitioned
+@Cost(Cost.Stage.CONTENT)
+public class GSModelArchiveIntegrityTests extends Capability1Tests {
+
+	/**
+	 * Datasets stored as ZIP archives of uncompressed entries
+	 */
+	protected static final String[] ARCHIVE_DATASETS = new String[] {
+			GSModelGeometryStructureTests.DATASET_DIRECTORY,
+			GSModelTextureStructureTests.DATASET_DIRECTORY,
+			GSModelDescriptorStructureTests.DATASET_DIRECTORY,
+			GSModelMaterialStructureTests.DATASET_DIRECTORY,
+			GSModelInteriorGeometryStructureTests.DATASET_DIRECTORY,
+			GSModelInteriorTextureStructureTests.DATASET_DIRECTORY,
+			GSModelInteriorDescriptorStructureTests.DATASET_DIRECTORY,
+			GSModelInteriorMaterialStructureTests.DATASET_DIRECTORY };
+
+	private boolean integrityEnabled = false;
+
+	@Override
+	@BeforeClass
+	public void obtainTestSubject(ITestContext testContext) {
+		super.obtainTestSubject(testContext);
+		Object enabled = testContext.getSuite().getAttribute(SuiteAttribute.ZIP_INTEGRITY.getName());
+		this.integrityEnabled = Boolean.TRUE.equals(enabled);
+	}
+
+	/**
+	 * @param enabled true to run the integrity tests
+	 */
+	public void setIntegrityEnabled(boolean enabled) {
+		this.integrityEnabled = enabled;
+	}
+
+	/**
+	 * Validates that the uncompressed entries of every GSModel ZIP archive
+	 * match the CRC-32 recorded in the archive's central directory. Archives
+	 * are verified in parallel, and each dataset directory is recorded in the
+	 * {@link Checkpoint} when done. Archives not yet started when the
+	 * {@link TimeBudget} expires are not verified.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.4.2")
+	public void verifyGSModelArchiveChecksums() throws IOException {
+		if (!this.integrityEnabled) {
+			throw new SkipException("ZIP integrity checks not enabled; test skipped.");
+		}
+
+		Checkpoint checkpoint = Checkpoint.current();
+		String task = getClass().getName() + ".verifyGSModelArchiveChecksums";
+		Path tilesPath = Paths.get(this.path, "Tiles");
+
+		// archives of each dataset directory, verified as one checkpoint unit
+		Map<Path, List<Path>> datasets = new LinkedHashMap<Path, List<Path>>();
+		for (String dataset : ARCHIVE_DATASETS) {
+			for (Path datasetPath : getDatasetPaths(this.path, dataset)) {
+				List<Path> archives = new ArrayList<Path>();
+				iterateEntries(datasetPath, 2, ((archive, attributes) -> {
+					if (attributes.isRegularFile() && archive.getFileName().toString().toLowerCase().endsWith(".zip")) {
+						archives.add(archive);
+					}
+				}));
+				if (!archives.isEmpty()) {
+					datasets.put(datasetPath, archives);
+				}
+			}
+		}
+
+		if (datasets.isEmpty()) {
+			throw new SkipException("No GSModel archives present; test skipped.");
+		}
+
+		ArrayList<String> errors = new ArrayList<String>(checkpoint.getSavedErrors(task));
+		TimeBudget budget = TimeBudget.current();
+		budget.addUnits(datasets.size());
+		ExecutorService executor = IoExecutors.newExecutor("archive-integrity", ARCHIVE_THREADS);
+		try {
+			Map<Path, List<Future<List<String>>>> results = new LinkedHashMap<Path, List<Future<List<String>>>>();
+			for (Map.Entry<Path, List<Path>> dataset : datasets.entrySet()) {
+				if (checkpoint.isCompleted(task, unitName(tilesPath, dataset.getKey()))) {
+					budget.unitDone();
+					continue;
+				}
+				List<Future<List<String>>> archiveResults = new ArrayList<Future<List<String>>>();
+				for (Path archive : dataset.getValue()) {
+					archiveResults.add(executor.submit(
+							() -> budget.isExpired() ? new ArrayList<String>() : verifyArchive(archive)));
+				}
+				results.put(dataset.getKey(), archiveResults);
+			}
+			for (Map.Entry<Path, List<Future<List<String>>>> dataset : results.entrySet()) {
+				List<String> datasetErrors = new ArrayList<String>();
+				for (Future<List<String>> result : dataset.getValue()) {
+					datasetErrors.addAll(result.get());
+				}
+				if (!budget.isExpired()) {
+					budget.unitDone();
+				}
+				checkpoint.complete(task, unitName(tilesPath, dataset.getKey()), datasetErrors);
+				errors.addAll(datasetErrors);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while verifying archives");
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * @return Dataset directory relative to the Tiles directory, e.g.
+	 *         "N62/W162/300_GSModelGeometry"
+	 */
+	private static String unitName(Path tilesPath, Path datasetPath) {
+		return tilesPath.relativize(datasetPath).toString().replace('\\', '/');
+	}
+
+	/**
+	 * Verify a single archive, prefixing problems with the archive name.
+	 *
+	 * @param  archive Path to ZIP archive
+	 * @return         List (String) of errors for the archive
+	 */
+	private List<String> verifyArchive(Path archive) {
+		String filename = archive.getFileName().toString();
+		List<String> errors = new ArrayList<String>();
+		try {
+			for (String problem : StoredZipVerifier.verify(archive)) {
+				errors.add(String.format("%s in ZIP archive '%s'", problem, filename));
+			}
+		} catch (IOException e) {
+			errors.add(String.format("Invalid ZIP archive file (%s): %s", e.getMessage(), filename));
+		}
+		return errors;
+	}
+}
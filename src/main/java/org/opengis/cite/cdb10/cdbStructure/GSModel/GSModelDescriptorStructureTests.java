@@ -15,14 +15,20 @@ import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.Partitioned;
 import org.opengis.cite.cdb10.cdbStructure.Capability1Tests;
+import org.opengis.cite.cdb10.util.ArchiveStatistics;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.IoLimiter;
+import org.opengis.cite.cdb10.util.ValidationPipeline;
 import org.opengis.cite.cdb10.util.reference.CdbReference;
 import org.opengis.cite.cdb10.util.reference.DatasetsValidator;
 import org.testng.Assert;
 import org.testng.SkipException;
 import org.testng.annotations.Test;
 
+@Partitioned
 public class GSModelDescriptorStructureTests extends Capability1Tests {
 
 	public static final String DATASET_CODE = "303";
@@ -114,6 +120,7 @@ public class GSModelDescriptorStructureTests extends Capability1Tests {
 	 * @throws IOException Error reading from CDB
 	 */
 	@Test(description = "OGC 15-113r3, Section 3.6.3.2")
+	@Cost(Cost.Stage.ARCHIVES)
 	public void verifyGSModelDescriptorFileArchive() throws IOException {
 		// Collect all matching datasets in the Tiles directory
 		ArrayList<Path> datasetPaths = getDatasetPaths(this.path, DATASET_DIRECTORY);
@@ -123,17 +130,22 @@ public class GSModelDescriptorStructureTests extends Capability1Tests {
 			throw new SkipException("No GSModelDescriptor present; test skipped.");
 		}
 		
-		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.GSModelDescriptor);
 		
-		iterateDatasets(datasetPaths, (archive -> {
-			String filename = archive.getFileName().toString();
-			Matcher match = filePattern.matcher(filename);
-			// Any files that do not match the GSModelDescriptor file pattern will
-			// be ignored, and will fail "verifyGSModelFile()" instead.
-			if (match.find()) {
-				File archiveFile = archive.toFile();
-				long archiveLength = archiveFile.length();
+		ValidationPipeline pipeline = new ValidationPipeline()
+			.stage("parse", 1, item -> {
+				Matcher match = filePattern.matcher(item.getFileName());
+				// Any files that do not match the GSModelDescriptor file pattern will
+				// be ignored, and will fail "verifyGSModelFile()" instead.
+				item.setParsed(match);
+				return match.find();
+			})
+			.stage("archive", archiveParallelism(), item -> {
+				String filename = item.getFileName();
+				Matcher match = item.getParsed(Matcher.class);
+				ArrayList<String> errors = item.getErrors();
+				File archiveFile = item.getPath().toFile();
+				long archiveLength = item.getAttributes().size();
 
 				if (archiveLength == 0) {
 					errors.add("Zero-length ZIP archive: " + filename);
@@ -142,7 +154,7 @@ public class GSModelDescriptorStructureTests extends Capability1Tests {
 				}
 
 				try {
-					ZipFile zip = new ZipFile(archiveFile);
+					ZipFile zip = IoLimiter.openZip(archiveFile);
 					Enumeration<? extends ZipEntry> entries = zip.entries();
 
 					while (entries.hasMoreElements()) {
@@ -155,6 +167,9 @@ public class GSModelDescriptorStructureTests extends Capability1Tests {
 						}
 					}
 
+					ArchiveStatistics.record(Integer.parseInt(match.group("datasetCode")),
+							parseLOD(match.group("lod")), filename, archiveLength, zip.size());
+
 					zip.close();
 
 				} catch (ZipException e) {
@@ -162,9 +177,11 @@ public class GSModelDescriptorStructureTests extends Capability1Tests {
 				} catch (IOException e) {
 					errors.add("Could not open file: " + filename);
 				}
-
-			}
-		}));
+				
+				return true;
+			});
+		
+		ArrayList<String> errors = iterateDatasets(datasetPaths, pipeline);
 
 		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
 	}
@@ -176,6 +193,7 @@ public class GSModelDescriptorStructureTests extends Capability1Tests {
 	 * @throws IOException Error reading from CDB
 	 */
 	@Test(description = "OGC 15-113r3, A.1.13, Test 71")
+	@Cost(Cost.Stage.ARCHIVES)
 	public void verifyGSModelDescriptorEntry() throws IOException {
 		// Collect all matching datasets in the Tiles directory
 		ArrayList<Path> datasetPaths = getDatasetPaths(this.path, DATASET_DIRECTORY);
@@ -201,7 +219,7 @@ public class GSModelDescriptorStructureTests extends Capability1Tests {
 				File archiveFile = archive.toFile();
 
 				try {
-					ZipFile zip = new ZipFile(archiveFile);
+					ZipFile zip = IoLimiter.openZip(archiveFile);
 					Enumeration<? extends ZipEntry> entries = zip.entries();
 
 					while (entries.hasMoreElements()) {
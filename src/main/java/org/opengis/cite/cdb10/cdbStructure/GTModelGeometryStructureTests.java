@@ -1,20 +1,23 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
-import org.opengis.cite.cdb10.util.DirectoryStreamFilters;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Partitioned
 public class GTModelGeometryStructureTests extends Capability1Tests {
 
 	/**
@@ -26,7 +29,7 @@ public class GTModelGeometryStructureTests extends Capability1Tests {
 	public void verifyGeometryEntryFile() throws IOException {
 		Path gtModelGeomPath = Paths.get(this.path, "GTModel", "500_GTModelGeometry");
 
-		if (Files.notExists(gtModelGeomPath)) {
+		if (Files.notExists(gtModelGeomPath) || !inShard(gtModelGeomPath)) {
 			return;
 		}
 
@@ -34,16 +37,19 @@ public class GTModelGeometryStructureTests extends Capability1Tests {
 		Pattern filePattern = Pattern.compile(FilenamePatterns.GTModelGeometry);
 		Pattern otherPattern = Pattern.compile("^(LC|L\\d{2}|D503.+)");
 
-		for (Path category : Files.newDirectoryStream(gtModelGeomPath)) {
-			DirectoryStream<Path> subcategories = Files.newDirectoryStream(category);
+		for (Path category : DirectoryWalker.list(gtModelGeomPath)) {
+			List<Path> subcategories = DirectoryWalker.list(category);
 
 			for (Path subcategory : subcategories) {
-				DirectoryStream<Path> featureTypes = Files.newDirectoryStream(subcategory);
+				List<Path> featureTypes = DirectoryWalker.list(subcategory);
 
 				for (Path featureType : featureTypes) {
-					DirectoryStream<Path> files = Files.newDirectoryStream(featureType);
+					List<Path> files = DirectoryWalker.list(featureType);
 
 					for (Path file : files) {
+						if (TimeBudget.current().isExpired()) {
+							break;
+						}
 						String filename = file.getFileName().toString();
 
 						// Ignore other valid directories/files that could be
@@ -90,26 +96,29 @@ public class GTModelGeometryStructureTests extends Capability1Tests {
 	public void verifyGeometryLoDFile() throws IOException {
 		Path gtModelGeomPath = Paths.get(this.path, "GTModel", "510_GTModelGeometry");
 
-		if (Files.notExists(gtModelGeomPath)) {
+		if (Files.notExists(gtModelGeomPath) || !inShard(gtModelGeomPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.GTModelGeometry510);
 
-		for (Path category : Files.newDirectoryStream(gtModelGeomPath)) {
-			DirectoryStream<Path> subcategories = Files.newDirectoryStream(category);
+		for (Path category : DirectoryWalker.list(gtModelGeomPath)) {
+			List<Path> subcategories = DirectoryWalker.list(category);
 
 			for (Path subcategory : subcategories) {
-				DirectoryStream<Path> featureTypes = Files.newDirectoryStream(subcategory);
+				List<Path> featureTypes = DirectoryWalker.list(subcategory);
 
 				for (Path featureType : featureTypes) {
-					DirectoryStream<Path> lods = Files.newDirectoryStream(featureType, DirectoryStreamFilters.lodFilter());
+					List<Path> lods = DirectoryWalker.listDirectories(featureType);
 					
 					for (Path lod : lods) {
-						DirectoryStream<Path> files = Files.newDirectoryStream(lod);
+						List<Path> files = DirectoryWalker.list(lod);
 						
 						for (Path file : files) {
+							if (TimeBudget.current().isExpired()) {
+								break;
+							}
 							String filename = file.getFileName().toString();
 	
 							Matcher match = filePattern.matcher(filename);
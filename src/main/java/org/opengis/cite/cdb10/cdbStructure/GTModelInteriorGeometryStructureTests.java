@@ -1,20 +1,23 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
-import org.opengis.cite.cdb10.util.DirectoryStreamFilters;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Partitioned
 public class GTModelInteriorGeometryStructureTests extends Capability1Tests {
 	
 	/**
@@ -26,26 +29,29 @@ public class GTModelInteriorGeometryStructureTests extends Capability1Tests {
 	public void verifyInteriorGeometryFile() throws IOException {
 		Path gtModelInteriorGeomPath = Paths.get(this.path, "GTModel", "506_GTModelInteriorGeometry");
 
-		if (Files.notExists(gtModelInteriorGeomPath)) {
+		if (Files.notExists(gtModelInteriorGeomPath) || !inShard(gtModelInteriorGeomPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.GTModelInteriorGeometry);
 
-		for (Path category : Files.newDirectoryStream(gtModelInteriorGeomPath)) {
-			DirectoryStream<Path> subcategories = Files.newDirectoryStream(category);
+		for (Path category : DirectoryWalker.list(gtModelInteriorGeomPath)) {
+			List<Path> subcategories = DirectoryWalker.list(category);
 
 			for (Path subcategory : subcategories) {
-				DirectoryStream<Path> featureTypes = Files.newDirectoryStream(subcategory);
+				List<Path> featureTypes = DirectoryWalker.list(subcategory);
 
 				for (Path featureType : featureTypes) {
-					DirectoryStream<Path> lods = Files.newDirectoryStream(featureType, DirectoryStreamFilters.lodFilter());
+					List<Path> lods = DirectoryWalker.listDirectories(featureType);
 					
 					for (Path lod : lods) {
-						DirectoryStream<Path> files = Files.newDirectoryStream(lod);
+						List<Path> files = DirectoryWalker.list(lod);
 						
 						for (Path file : files) {
+							if (TimeBudget.current().isExpired()) {
+								break;
+							}
 							String filename = file.getFileName().toString();
 	
 							Matcher match = filePattern.matcher(filename);
@@ -1,19 +1,23 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Partitioned
 public class GTModelInteriorMaterialStructureTests extends Capability1Tests {
 	/**
 	 * Validates that GTModelInteriorMaterial filenames have valid codes/names.
@@ -24,25 +28,28 @@ public class GTModelInteriorMaterialStructureTests extends Capability1Tests {
 	public void verifyModelInteriorMaterialFile() throws IOException {
 		Path gtModelGeomPath = Paths.get(this.path, "GTModel", "509_GTModelInteriorMaterial");
 
-		if (Files.notExists(gtModelGeomPath)) {
+		if (Files.notExists(gtModelGeomPath) || !inShard(gtModelGeomPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.GTModelInteriorMaterial);
 		
-		DirectoryStream<Path> tnamPrefixDirs = Files.newDirectoryStream(gtModelGeomPath);
+		List<Path> tnamPrefixDirs = DirectoryWalker.list(gtModelGeomPath);
 
 		for (Path tnamPrefixDir : tnamPrefixDirs) {
-			DirectoryStream<Path> secondDirs = Files.newDirectoryStream(tnamPrefixDir);
+			List<Path> secondDirs = DirectoryWalker.list(tnamPrefixDir);
 
 			for (Path secondDir : secondDirs) {
-				DirectoryStream<Path> textureNames = Files.newDirectoryStream(secondDir);
+				List<Path> textureNames = DirectoryWalker.list(secondDir);
 
 				for (Path textureName : textureNames) {
-					DirectoryStream<Path> files = Files.newDirectoryStream(textureName);
+					List<Path> files = DirectoryWalker.list(textureName);
 
 					for (Path file : files) {
+						if (TimeBudget.current().isExpired()) {
+							break;
+						}
 						String filename = file.getFileName().toString();
 
 						Matcher match = filePattern.matcher(filename);
@@ -1,19 +1,23 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Partitioned
 public class GTModelInteriorTextureStructureTests extends Capability1Tests {
 	/**
 	 * Validates that GTModelInteriorTexture filenames have valid codes/names.
@@ -24,7 +28,7 @@ public class GTModelInteriorTextureStructureTests extends Capability1Tests {
 	public void verifyModelInteriorTextureFile() throws IOException {
 		Path gtModelGeomPath = Paths.get(this.path, "GTModel", "507_GTModelInteriorTexture");
 
-		if (Files.notExists(gtModelGeomPath)) {
+		if (Files.notExists(gtModelGeomPath) || !inShard(gtModelGeomPath)) {
 			return;
 		}
 
@@ -32,18 +36,21 @@ public class GTModelInteriorTextureStructureTests extends Capability1Tests {
 		Pattern filePattern = Pattern.compile(FilenamePatterns.GTModelInteriorTexture);
 		Pattern otherPattern = Pattern.compile("^(D509|D513).+");
 		
-		DirectoryStream<Path> tnamPrefixDirs = Files.newDirectoryStream(gtModelGeomPath);
+		List<Path> tnamPrefixDirs = DirectoryWalker.list(gtModelGeomPath);
 
 		for (Path tnamPrefixDir : tnamPrefixDirs) {
-			DirectoryStream<Path> secondDirs = Files.newDirectoryStream(tnamPrefixDir);
+			List<Path> secondDirs = DirectoryWalker.list(tnamPrefixDir);
 
 			for (Path secondDir : secondDirs) {
-				DirectoryStream<Path> textureNames = Files.newDirectoryStream(secondDir);
+				List<Path> textureNames = DirectoryWalker.list(secondDir);
 
 				for (Path textureName : textureNames) {
-					DirectoryStream<Path> files = Files.newDirectoryStream(textureName);
+					List<Path> files = DirectoryWalker.list(textureName);
 
 					for (Path file : files) {
+						if (TimeBudget.current().isExpired()) {
+							break;
+						}
 						String filename = file.getFileName().toString();
 
 						// Ignore other valid directories/files that could be
@@ -1,20 +1,23 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
-import org.opengis.cite.cdb10.util.DirectoryStreamFilters;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Partitioned
 public class GTModelSignatureStructureTests extends Capability1Tests {
 	
 	/**
@@ -28,26 +31,29 @@ public class GTModelSignatureStructureTests extends Capability1Tests {
 		// between CDB 3.1 and CDB 3.0, and with OGC CDB 1.0.
 		Path gtModelGeomPath = Paths.get(this.path, "GTModel", "502_GTModelSignature");
 
-		if (Files.notExists(gtModelGeomPath)) {
+		if (Files.notExists(gtModelGeomPath) || !inShard(gtModelGeomPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.GTModelSignature);
 
-		for (Path category : Files.newDirectoryStream(gtModelGeomPath)) {
-			DirectoryStream<Path> subcategories = Files.newDirectoryStream(category);
+		for (Path category : DirectoryWalker.list(gtModelGeomPath)) {
+			List<Path> subcategories = DirectoryWalker.list(category);
 
 			for (Path subcategory : subcategories) {
-				DirectoryStream<Path> featureTypes = Files.newDirectoryStream(subcategory);
+				List<Path> featureTypes = DirectoryWalker.list(subcategory);
 
 				for (Path featureType : featureTypes) {
-					DirectoryStream<Path> lods = Files.newDirectoryStream(featureType, DirectoryStreamFilters.lodFilter());
+					List<Path> lods = DirectoryWalker.listDirectories(featureType);
 					
 					for (Path lod : lods) {
-						DirectoryStream<Path> files = Files.newDirectoryStream(lod);
+						List<Path> files = DirectoryWalker.list(lod);
 						
 						for (Path file : files) {
+							if (TimeBudget.current().isExpired()) {
+								break;
+							}
 							String filename = file.getFileName().toString();
 	
 							Matcher match = filePattern.matcher(filename);
@@ -1,22 +1,25 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.reference.CdbReference;
 import org.opengis.cite.cdb10.util.reference.DatasetsValidator;
 import org.opengis.cite.cdb10.util.reference.FeatureDataDictionaryValidator;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Cost(Cost.Stage.DIRECTORIES)
 public class GTModelStructureTests extends Capability1Tests {
 	/**
 	 * Validates that GTModel directories have valid codes/names.
@@ -38,7 +41,7 @@ public class GTModelStructureTests extends Capability1Tests {
 		final String[] allowedDatasets = { "500", "501", "502", "503", "504", "505", "506", "507", "508", 
 				"509", "510", "511", "512", "513" };
 
-		for (Path file : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path file : DirectoryWalker.list(gtModelsPath)) {
 			String filename = file.getFileName().toString();
 			String prefix = null;
 			Integer prefixID = null;
@@ -100,7 +103,7 @@ public class GTModelStructureTests extends Capability1Tests {
 		CdbReference references = new CdbReference();
 		FeatureDataDictionaryValidator validator = references.buildFeatureDataDictionaryValidator();
 
-		for (Path dataset : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path dataset : DirectoryWalker.list(gtModelsPath)) {
 			
 			// Only apply to 500, 502, 503, 506, 508, 510
 			final String[] allowedDatasets = { "500", "502", "503", "506", "508", "510" };
@@ -110,7 +113,7 @@ public class GTModelStructureTests extends Capability1Tests {
 				return;
 			}
 			
-			DirectoryStream<Path> categories = Files.newDirectoryStream(dataset);
+			List<Path> categories = DirectoryWalker.list(dataset);
 
 			for (Path category : categories) {
 				String filename = category.getFileName().toString();
@@ -170,7 +173,7 @@ public class GTModelStructureTests extends Capability1Tests {
 		CdbReference references = new CdbReference();
 		FeatureDataDictionaryValidator validator = references.buildFeatureDataDictionaryValidator();
 
-		for (Path dataset : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path dataset : DirectoryWalker.list(gtModelsPath)) {
 			
 			// Only apply to 500, 502, 503, 506, 508, 510
 			final String[] allowedDatasets = { "500", "502", "503", "506", "508", "510" };
@@ -180,10 +183,10 @@ public class GTModelStructureTests extends Capability1Tests {
 				return;
 			}
 			
-			DirectoryStream<Path> categories = Files.newDirectoryStream(dataset);
+			List<Path> categories = DirectoryWalker.list(dataset);
 
 			for (Path category : categories) {
-				DirectoryStream<Path> subcategories = Files.newDirectoryStream(category);
+				List<Path> subcategories = DirectoryWalker.list(category);
 
 				for (Path subcategory : subcategories) {
 					String filename = subcategory.getFileName().toString();
@@ -244,7 +247,7 @@ public class GTModelStructureTests extends Capability1Tests {
 		CdbReference references = new CdbReference();
 		FeatureDataDictionaryValidator validator = references.buildFeatureDataDictionaryValidator();
 
-		for (Path dataset : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path dataset : DirectoryWalker.list(gtModelsPath)) {
 			
 			// Only apply to 500, 502, 503, 506, 508, 510
 			final String[] allowedDatasets = { "500", "502", "503", "506", "508", "510" };
@@ -254,13 +257,13 @@ public class GTModelStructureTests extends Capability1Tests {
 				return;
 			}
 			
-			DirectoryStream<Path> categories = Files.newDirectoryStream(dataset);
+			List<Path> categories = DirectoryWalker.list(dataset);
 
 			for (Path category : categories) {
-				DirectoryStream<Path> subcategories = Files.newDirectoryStream(category);
+				List<Path> subcategories = DirectoryWalker.list(category);
 
 				for (Path subcategory : subcategories) {
-					DirectoryStream<Path> featureTypes = Files.newDirectoryStream(subcategory);
+					List<Path> featureTypes = DirectoryWalker.list(subcategory);
 
 					for (Path featureType : featureTypes) {
 						String filename = featureType.getFileName().toString();
@@ -325,7 +328,7 @@ public class GTModelStructureTests extends Capability1Tests {
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path dataset : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path dataset : DirectoryWalker.list(gtModelsPath)) {
 			
 			// Only apply to 500, 502, 503, 506, 508, 510
 			final String[] allowedDatasets = { "500", "502", "503", "506", "508", "510" };
@@ -335,16 +338,16 @@ public class GTModelStructureTests extends Capability1Tests {
 				return;
 			}
 			
-			DirectoryStream<Path> categories = Files.newDirectoryStream(dataset);
+			List<Path> categories = DirectoryWalker.list(dataset);
 
 			for (Path category : categories) {
-				DirectoryStream<Path> subcategories = Files.newDirectoryStream(category);
+				List<Path> subcategories = DirectoryWalker.list(category);
 
 				for (Path subcategory : subcategories) {
-					DirectoryStream<Path> featureTypes = Files.newDirectoryStream(subcategory);
+					List<Path> featureTypes = DirectoryWalker.list(subcategory);
 
 					for (Path featureType : featureTypes) {
-						DirectoryStream<Path> lods = Files.newDirectoryStream(featureType);
+						List<Path> lods = DirectoryWalker.list(featureType);
 
 						for (Path lod : lods) {
 							validateLod(lod.getFileName().toString(), errors);
@@ -379,7 +382,7 @@ public class GTModelStructureTests extends Capability1Tests {
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path dataset : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path dataset : DirectoryWalker.list(gtModelsPath)) {
 			
 			// Only apply to 501, 511, 504, 505, 507, 509, 513 datasets
 			final String[] allowedDatasets = { "501", "511", "504", "505", "507", "509", "513" };
@@ -389,7 +392,7 @@ public class GTModelStructureTests extends Capability1Tests {
 				return;
 			}
 			
-			DirectoryStream<Path> prefixes = Files.newDirectoryStream(dataset);
+			List<Path> prefixes = DirectoryWalker.list(dataset);
 
 			for (Path prefix : prefixes) {
 				String filename = prefix.getFileName().toString();
@@ -428,7 +431,7 @@ public class GTModelStructureTests extends Capability1Tests {
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path dataset : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path dataset : DirectoryWalker.list(gtModelsPath)) {
 			
 			// Only apply to 501, 511, 504, 505, 507, 509, 513 datasets
 			final String[] allowedDatasets = { "501", "511", "504", "505", "507", "509", "513" };
@@ -438,10 +441,10 @@ public class GTModelStructureTests extends Capability1Tests {
 				return;
 			}
 			
-			DirectoryStream<Path> tnamPrefixDirs = Files.newDirectoryStream(dataset);
+			List<Path> tnamPrefixDirs = DirectoryWalker.list(dataset);
 
 			for (Path tnamPrefixDir : tnamPrefixDirs) {
-				DirectoryStream<Path> secondDirs = Files.newDirectoryStream(tnamPrefixDir);
+				List<Path> secondDirs = DirectoryWalker.list(tnamPrefixDir);
 
 				for (Path secondDir : secondDirs) {
 					String filename = secondDir.getFileName().toString();
@@ -482,7 +485,7 @@ public class GTModelStructureTests extends Capability1Tests {
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern startPattern = Pattern.compile("^\\p{Alnum}{2}");
 
-		for (Path dataset : Files.newDirectoryStream(gtModelsPath)) {
+		for (Path dataset : DirectoryWalker.list(gtModelsPath)) {
 			
 			// Only apply to 501, 511, 504, 505, 507, 509, 513 datasets
 			final String[] allowedDatasets = { "501", "511", "504", "505", "507", "509", "513" };
@@ -492,14 +495,14 @@ public class GTModelStructureTests extends Capability1Tests {
 				return;
 			}
 			
-			DirectoryStream<Path> tnamPrefixDirs = Files.newDirectoryStream(dataset);
+			List<Path> tnamPrefixDirs = DirectoryWalker.list(dataset);
 
 			for (Path tnamPrefixDir : tnamPrefixDirs) {
-				DirectoryStream<Path> secondDirs = Files.newDirectoryStream(tnamPrefixDir);
+				List<Path> secondDirs = DirectoryWalker.list(tnamPrefixDir);
 				String firstDirFilename = tnamPrefixDir.getFileName().toString();
 
 				for (Path secondDir : secondDirs) {
-					DirectoryStream<Path> textureNames = Files.newDirectoryStream(secondDir);
+					List<Path> textureNames = DirectoryWalker.list(secondDir);
 					String secondDirFilename = secondDir.getFileName().toString();
 	
 					for (Path textureName : textureNames) {
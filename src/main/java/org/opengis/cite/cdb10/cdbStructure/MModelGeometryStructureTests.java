@@ -1,20 +1,50 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.Partitioned;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.PathRule;
+import org.opengis.cite.cdb10.util.RuleEngine;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+/**
+ * File/directory structure tests for the MModelGeometry dataset. The tests
+ * are declared as path rules, so the dataset is walked once for all of them.
+ */
+@Partitioned
+@Cost(Cost.Stage.DIRECTORIES)
 public class MModelGeometryStructureTests extends Capability1Tests {
+
+	private static final String DATASET = "MModel/600_MModelGeometry";
+
+	private final Pattern filePattern = Pattern.compile(FilenamePatterns.MModelGeometry);
+
+	private final RuleEngine rules = new RuleEngine(MModelGeometryStructureTests.class, Arrays.asList(
+			PathRule.of("verifyDISEntityKind", DATASET + "/{kind}",
+					(match, errors) -> validateDISEntityKind(match.getPath(), errors)),
+			PathRule.of("verifyDISDomain", DATASET + "/{kind}/{domain}",
+					(match, errors) -> validateDISDomain(match.getPath(), errors)),
+			PathRule.of("verifyDISCountry", DATASET + "/{kind}/{domain}/{country}",
+					(match, errors) -> validateDISCountry(match.getPath(), errors)),
+			PathRule.of("verifyDISCategory", DATASET + "/{kind}/{domain}/{country}/{category}",
+					(match, errors) -> validateDISCategory(match.getPath(), errors)),
+			PathRule.of("verifyDISEntity", DATASET + "/{kind}/{domain}/{country}/{category}/{entity}",
+					(match, errors) -> validateDISEntity(match.getPath(), errors)),
+			PathRule.of("verifyFile", DATASET + "/{kind}/{domain}/{country}/{category}/{entity}/{file}",
+					(match, errors) -> validateFile(match, errors))));
+
 	/**
 	 * Validates that MModelGeometry DIS Entity Kind directories have valid codes/names.
 	 *
@@ -22,19 +52,7 @@ public class MModelGeometryStructureTests extends Capability1Tests {
 	 */
 	@Test(description = "OGC 15-113r3, A.1.15, Test 58 - based on Section 3.5.1")
 	public void verifyDISEntityKind() throws IOException {
-		Path mmodelGeomPath = Paths.get(this.path, "MModel", "600_MModelGeometry");
-
-		if (Files.notExists(mmodelGeomPath)) {
-			return;
-		}
-
-		ArrayList<String> errors = new ArrayList<String>();
-
-		for (Path kindDir : Files.newDirectoryStream(mmodelGeomPath)) {
-			validateDISEntityKind(kindDir, errors);
-		}
-
-		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+		assertRules("verifyDISEntityKind");
 	}
 
 	/**
@@ -44,23 +62,7 @@ public class MModelGeometryStructureTests extends Capability1Tests {
 	 */
 	@Test(description = "OGC 15-113r3, A.1.15, Test 58 - based on Section 3.5.1")
 	public void verifyDISDomain() throws IOException {
-		Path mmodelGeomPath = Paths.get(this.path, "MModel", "600_MModelGeometry");
-
-		if (Files.notExists(mmodelGeomPath)) {
-			return;
-		}
-
-		ArrayList<String> errors = new ArrayList<String>();
-
-		for (Path kindDir : Files.newDirectoryStream(mmodelGeomPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
-
-			for (Path domainDir : domainDirs) {
-				validateDISDomain(domainDir, errors);
-			}
-		}
-
-		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+		assertRules("verifyDISDomain");
 	}
 
 	/**
@@ -70,27 +72,7 @@ public class MModelGeometryStructureTests extends Capability1Tests {
 	 */
 	@Test(description = "OGC 15-113r3, A.1.15, Test 58 - based on Section 3.5.1")
 	public void verifyDISCountry() throws IOException {
-		Path mmodelGeomPath = Paths.get(this.path, "MModel", "600_MModelGeometry");
-
-		if (Files.notExists(mmodelGeomPath)) {
-			return;
-		}
-
-		ArrayList<String> errors = new ArrayList<String>();
-
-		for (Path kindDir : Files.newDirectoryStream(mmodelGeomPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
-
-			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
-
-				for (Path countryDir : countryDirs) {
-					validateDISCountry(countryDir, errors);
-				}
-			}
-		}
-
-		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+		assertRules("verifyDISCountry");
 	}
 
 	/**
@@ -100,31 +82,7 @@ public class MModelGeometryStructureTests extends Capability1Tests {
 	 */
 	@Test(description = "OGC 15-113r3, A.1.15, Test 58 - based on Section 3.5.1")
 	public void verifyDISCategory() throws IOException {
-		Path mmodelGeomPath = Paths.get(this.path, "MModel", "600_MModelGeometry");
-
-		if (Files.notExists(mmodelGeomPath)) {
-			return;
-		}
-
-		ArrayList<String> errors = new ArrayList<String>();
-
-		for (Path kindDir : Files.newDirectoryStream(mmodelGeomPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
-
-			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
-
-				for (Path countryDir : countryDirs) {
-					DirectoryStream<Path> categoryDirs = Files.newDirectoryStream(countryDir);
-
-					for (Path categoryDir : categoryDirs) {
-						validateDISCategory(categoryDir, errors);
-					}
-				}
-			}
-		}
-
-		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+		assertRules("verifyDISCategory");
 	}
 
 	/**
@@ -134,111 +92,68 @@ public class MModelGeometryStructureTests extends Capability1Tests {
 	 */
 	@Test(description = "OGC 15-113r3, A.1.15, Test 58 - based on Section 3.5.1")
 	public void verifyDISEntity() throws IOException {
+		assertRules("verifyDISEntity");
+	}
+
+	/**
+	 * Validates that MModelGeometry filenames have valid codes/names.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, A.1.15, Test 58 - based on Section 3.5.1")
+	@Cost(Cost.Stage.FILES)
+	public void verifyFile() throws IOException {
+		assertRules("verifyFile");
+	}
+
+	/**
+	 * Assert that the rules of a test method found no errors in the dataset.
+	 */
+	private void assertRules(String testMethod) throws IOException {
 		Path mmodelGeomPath = Paths.get(this.path, "MModel", "600_MModelGeometry");
 
-		if (Files.notExists(mmodelGeomPath)) {
+		if (Files.notExists(mmodelGeomPath) || !inShard(mmodelGeomPath)) {
 			return;
 		}
 
-		ArrayList<String> errors = new ArrayList<String>();
-		
+		List<String> errors = rules.getErrors(Paths.get(this.path), testMethod);
 
-		for (Path kindDir : Files.newDirectoryStream(mmodelGeomPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
 
-			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
+	private void validateFile(PathRule.Match match, ArrayList<String> errors) {
+		String filename = match.getFileName();
 
-				for (Path countryDir : countryDirs) {
-					DirectoryStream<Path> categoryDirs = Files.newDirectoryStream(countryDir);
+		Matcher fileMatch = filePattern.matcher(filename);
+		if (!fileMatch.find()) {
+			errors.add("Invalid file name: " + filename);
+			return;
+		}
 
-					for (Path categoryDir : categoryDirs) {
-						DirectoryStream<Path> entityDirs = Files.newDirectoryStream(categoryDir);
+		String dataset = fileMatch.group("dataset");
 
-						for (Path entityDir : entityDirs) {
-							validateDISEntity(entityDir, errors);
-						}
-					}
-				}
-			}
+		if (!dataset.equals("D600") && !dataset.equals("D603")) {
+			errors.add("Invalid dataset: " + filename);
 		}
 
-		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
-	}
-
-	/**
-	 * Validates that MModelGeometry filenames have valid codes/names.
-	 *
-	 * @throws IOException Error reading from CDB
-	 */
-	@Test(description = "OGC 15-113r3, A.1.15, Test 58 - based on Section 3.5.1")
-	public void verifyFile() throws IOException {
-		Path mmodelGeomPath = Paths.get(this.path, "MModel", "600_MModelGeometry");
+		if (dataset.equals("D600") && !fileMatch.group("ext").equals("flt")) {
+			errors.add("Invalid file extension for D600: " + filename);
+		}
 
-		if (Files.notExists(mmodelGeomPath)) {
-			return;
+		if (dataset.equals("D603") && !fileMatch.group("ext").equals("xml")) {
+			errors.add("Invalid file extension for D603: " + filename);
 		}
 
-		ArrayList<String> errors = new ArrayList<String>();
-		Pattern filePattern = Pattern.compile(FilenamePatterns.MModelGeometry);
-
-		for (Path kindDir : Files.newDirectoryStream(mmodelGeomPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
-
-			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
-
-				for (Path countryDir : countryDirs) {
-					DirectoryStream<Path> categoryDirs = Files.newDirectoryStream(countryDir);
-
-					for (Path categoryDir : categoryDirs) {
-						DirectoryStream<Path> entityDirs = Files.newDirectoryStream(categoryDir);
-
-						for (Path entityDir : entityDirs) {
-							DirectoryStream<Path> files = Files.newDirectoryStream(entityDir);
-							String entityFilename = entityDir.getFileName().toString();
-
-							for (Path file : files) {
-								String filename = file.getFileName().toString();
-
-								Matcher match = filePattern.matcher(filename);
-								if (!match.find()) {
-									errors.add("Invalid file name: " + filename);
-								} else {
-									String dataset = match.group("dataset");
-
-									if (!dataset.equals("D600") && !dataset.equals("D603")) {
-										errors.add("Invalid dataset: " + filename);
-									}
-
-									if (dataset.equals("D600") && !match.group("ext").equals("flt")) {
-										errors.add("Invalid file extension for D600: " + filename);
-									}
-
-									if (dataset.equals("D603") && !match.group("ext").equals("xml")) {
-										errors.add("Invalid file extension for D603: " + filename);
-									}
-
-									if (!match.group("mmdc").equals(entityFilename)) {
-										errors.add("Moving Model DIS Code does not match parent directory: "
-												+ filename);
-									}
-
-									String cs1 = match.group("cs1");
-									String cs2 = match.group("cs2");
-									
-									validateComponentSelectorFormat(cs1, 1, filename, errors);
-									validateComponentSelector1(cs1, "600", errors);
-									validateComponentSelectorFormat(cs2, 2, filename, errors);
-									validateComponentSelector2(cs2, cs1, "600", errors);
-								}
-							}
-						}
-					}
-				}
-			}
+		if (!fileMatch.group("mmdc").equals(match.get("entity"))) {
+			errors.add("Moving Model DIS Code does not match parent directory: " + filename);
 		}
 
-		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+		String cs1 = fileMatch.group("cs1");
+		String cs2 = fileMatch.group("cs2");
+
+		validateComponentSelectorFormat(cs1, 1, filename, errors);
+		validateComponentSelector1(cs1, "600", errors);
+		validateComponentSelectorFormat(cs2, 2, filename, errors);
+		validateComponentSelector2(cs2, cs1, "600", errors);
 	}
 }
@@ -1,20 +1,25 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
-import org.opengis.cite.cdb10.util.DirectoryStreamFilters;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Partitioned
+@Cost(Cost.Stage.DIRECTORIES)
 public class MModelSignatureStructureTests extends Capability1Tests {
 	/**
 	 * Validates that MModelSignature DIS Entity Kind directories have valid codes/names.
@@ -25,13 +30,13 @@ public class MModelSignatureStructureTests extends Capability1Tests {
 	public void verifyDISEntityKind() throws IOException {
 		Path mmsPath = Paths.get(this.path, "MModel", "606_MModelSignature");
 
-		if (Files.notExists(mmsPath)) {
+		if (Files.notExists(mmsPath) || !inShard(mmsPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path kindDir : Files.newDirectoryStream(mmsPath)) {
+		for (Path kindDir : DirectoryWalker.list(mmsPath)) {
 			validateDISEntityKind(kindDir, errors);
 		}
 
@@ -47,14 +52,14 @@ public class MModelSignatureStructureTests extends Capability1Tests {
 	public void verifyDISDomain() throws IOException {
 		Path mmsPath = Paths.get(this.path, "MModel", "606_MModelSignature");
 
-		if (Files.notExists(mmsPath)) {
+		if (Files.notExists(mmsPath) || !inShard(mmsPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path kindDir : Files.newDirectoryStream(mmsPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
+		for (Path kindDir : DirectoryWalker.list(mmsPath)) {
+			List<Path> domainDirs = DirectoryWalker.list(kindDir);
 
 			for (Path domainDir : domainDirs) {
 				validateDISDomain(domainDir, errors);
@@ -73,17 +78,17 @@ public class MModelSignatureStructureTests extends Capability1Tests {
 	public void verifyDISCountry() throws IOException {
 		Path mmsPath = Paths.get(this.path, "MModel", "606_MModelSignature");
 
-		if (Files.notExists(mmsPath)) {
+		if (Files.notExists(mmsPath) || !inShard(mmsPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path kindDir : Files.newDirectoryStream(mmsPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
+		for (Path kindDir : DirectoryWalker.list(mmsPath)) {
+			List<Path> domainDirs = DirectoryWalker.list(kindDir);
 
 			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
+				List<Path> countryDirs = DirectoryWalker.list(domainDir);
 
 				for (Path countryDir : countryDirs) {
 					validateDISCountry(countryDir, errors);
@@ -103,20 +108,20 @@ public class MModelSignatureStructureTests extends Capability1Tests {
 	public void verifyDISCategory() throws IOException {
 		Path mmsPath = Paths.get(this.path, "MModel", "606_MModelSignature");
 
-		if (Files.notExists(mmsPath)) {
+		if (Files.notExists(mmsPath) || !inShard(mmsPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path kindDir : Files.newDirectoryStream(mmsPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
+		for (Path kindDir : DirectoryWalker.list(mmsPath)) {
+			List<Path> domainDirs = DirectoryWalker.list(kindDir);
 
 			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
+				List<Path> countryDirs = DirectoryWalker.list(domainDir);
 
 				for (Path countryDir : countryDirs) {
-					DirectoryStream<Path> categoryDirs = Files.newDirectoryStream(countryDir);
+					List<Path> categoryDirs = DirectoryWalker.list(countryDir);
 
 					for (Path categoryDir : categoryDirs) {
 						validateDISCategory(categoryDir, errors);
@@ -137,23 +142,23 @@ public class MModelSignatureStructureTests extends Capability1Tests {
 	public void verifyDISEntity() throws IOException {
 		Path mmsPath = Paths.get(this.path, "MModel", "606_MModelSignature");
 
-		if (Files.notExists(mmsPath)) {
+		if (Files.notExists(mmsPath) || !inShard(mmsPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path kindDir : Files.newDirectoryStream(mmsPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
+		for (Path kindDir : DirectoryWalker.list(mmsPath)) {
+			List<Path> domainDirs = DirectoryWalker.list(kindDir);
 
 			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
+				List<Path> countryDirs = DirectoryWalker.list(domainDir);
 
 				for (Path countryDir : countryDirs) {
-					DirectoryStream<Path> categoryDirs = Files.newDirectoryStream(countryDir);
+					List<Path> categoryDirs = DirectoryWalker.list(countryDir);
 
 					for (Path categoryDir : categoryDirs) {
-						DirectoryStream<Path> entityDirs = Files.newDirectoryStream(categoryDir);
+						List<Path> entityDirs = DirectoryWalker.list(categoryDir);
 
 						for (Path entityDir : entityDirs) {
 							validateDISEntity(entityDir, errors);
@@ -175,26 +180,26 @@ public class MModelSignatureStructureTests extends Capability1Tests {
 	public void verifyLOD() throws IOException {
 		Path mmsPath = Paths.get(this.path, "MModel", "606_MModelSignature");
 
-		if (Files.notExists(mmsPath)) {
+		if (Files.notExists(mmsPath) || !inShard(mmsPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path kindDir : Files.newDirectoryStream(mmsPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
+		for (Path kindDir : DirectoryWalker.list(mmsPath)) {
+			List<Path> domainDirs = DirectoryWalker.list(kindDir);
 
 			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
+				List<Path> countryDirs = DirectoryWalker.list(domainDir);
 
 				for (Path countryDir : countryDirs) {
-					DirectoryStream<Path> categoryDirs = Files.newDirectoryStream(countryDir);
+					List<Path> categoryDirs = DirectoryWalker.list(countryDir);
 
 					for (Path categoryDir : categoryDirs) {
-						DirectoryStream<Path> entityDirs = Files.newDirectoryStream(categoryDir);
+						List<Path> entityDirs = DirectoryWalker.list(categoryDir);
 
 						for (Path entityDir : entityDirs) {
-							DirectoryStream<Path> lods = Files.newDirectoryStream(entityDir, DirectoryStreamFilters.lodFilter());
+							List<Path> lods = DirectoryWalker.listDirectories(entityDir);
 
 							for (Path lod : lods) {
 								validateLod(lod.getFileName().toString(), errors);
@@ -214,36 +219,40 @@ public class MModelSignatureStructureTests extends Capability1Tests {
 	 * @throws IOException Error reading from CDB
 	 */
 	@Test(description = "OGC 15-113r3, A.1.15, Test 63 - based on Section 3.5.1")
+	@Cost(Cost.Stage.FILES)
 	public void verifyFile() throws IOException {
 		Path mmsPath = Paths.get(this.path, "MModel", "606_MModelSignature");
 
-		if (Files.notExists(mmsPath)) {
+		if (Files.notExists(mmsPath) || !inShard(mmsPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.MModelSignature);
 
-		for (Path kindDir : Files.newDirectoryStream(mmsPath)) {
-			DirectoryStream<Path> domainDirs = Files.newDirectoryStream(kindDir);
+		for (Path kindDir : DirectoryWalker.list(mmsPath)) {
+			List<Path> domainDirs = DirectoryWalker.list(kindDir);
 
 			for (Path domainDir : domainDirs) {
-				DirectoryStream<Path> countryDirs = Files.newDirectoryStream(domainDir);
+				List<Path> countryDirs = DirectoryWalker.list(domainDir);
 
 				for (Path countryDir : countryDirs) {
-					DirectoryStream<Path> categoryDirs = Files.newDirectoryStream(countryDir);
+					List<Path> categoryDirs = DirectoryWalker.list(countryDir);
 
 					for (Path categoryDir : categoryDirs) {
-						DirectoryStream<Path> entityDirs = Files.newDirectoryStream(categoryDir);
+						List<Path> entityDirs = DirectoryWalker.list(categoryDir);
 
 						for (Path entityDir : entityDirs) {
-							DirectoryStream<Path> lods = Files.newDirectoryStream(entityDir, DirectoryStreamFilters.lodFilter());
+							List<Path> lods = DirectoryWalker.listDirectories(entityDir);
 							String entityFilename = entityDir.getFileName().toString();
 
 							for (Path lod : lods) {
-								DirectoryStream<Path> files = Files.newDirectoryStream(lod);
+								List<Path> files = DirectoryWalker.list(lod);
 
 								for (Path file : files) {
+									if (TimeBudget.current().isExpired()) {
+										break;
+									}
 									String filename = file.getFileName().toString();
 
 									Matcher match = filePattern.matcher(filename);
@@ -5,13 +5,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.reference.CdbReference;
 import org.opengis.cite.cdb10.util.reference.DatasetsValidator;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Cost(Cost.Stage.DIRECTORIES)
 public class MModelStructureTests extends Capability1Tests {
 	/**
 	 * Validates that MModel directories have valid codes/names.
@@ -30,7 +34,7 @@ public class MModelStructureTests extends Capability1Tests {
 		CdbReference references = new CdbReference();
 		DatasetsValidator validator = references.buildDatasetsValidator();
 
-		for (Path file : Files.newDirectoryStream(mmPath)) {
+		for (Path file : DirectoryWalker.list(mmPath)) {
 			String filename = file.getFileName().toString();
 			String prefix = null;
 			Integer prefixID = null;
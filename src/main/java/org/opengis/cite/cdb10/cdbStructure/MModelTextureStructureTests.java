@@ -1,19 +1,25 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Partitioned
+@Cost(Cost.Stage.DIRECTORIES)
 public class MModelTextureStructureTests extends Capability1Tests {
 	/**
 	 * Validates that MModelTexture Texture Name Prefix directories have valid codes.
@@ -24,13 +30,13 @@ public class MModelTextureStructureTests extends Capability1Tests {
 	public void verifyTNAMPrefix() throws IOException {
 		Path mmtPath = Paths.get(this.path, "MModel", "601_MModelTexture");
 
-		if (Files.notExists(mmtPath)) {
+		if (Files.notExists(mmtPath) || !inShard(mmtPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path tnamPrefixDir : Files.newDirectoryStream(mmtPath)) {
+		for (Path tnamPrefixDir : DirectoryWalker.list(mmtPath)) {
 			String filename = tnamPrefixDir.getFileName().toString();
 
 			if (filename.length() != 1) {
@@ -54,14 +60,14 @@ public class MModelTextureStructureTests extends Capability1Tests {
 	public void verifyTNAMSecond() throws IOException {
 		Path mmtPath = Paths.get(this.path, "MModel", "601_MModelTexture");
 
-		if (Files.notExists(mmtPath)) {
+		if (Files.notExists(mmtPath) || !inShard(mmtPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path tnamPrefixDir : Files.newDirectoryStream(mmtPath)) {
-			DirectoryStream<Path> secondDirs = Files.newDirectoryStream(tnamPrefixDir);
+		for (Path tnamPrefixDir : DirectoryWalker.list(mmtPath)) {
+			List<Path> secondDirs = DirectoryWalker.list(tnamPrefixDir);
 
 			for (Path secondDir : secondDirs) {
 				String filename = secondDir.getFileName().toString();
@@ -88,19 +94,19 @@ public class MModelTextureStructureTests extends Capability1Tests {
 	public void verifyTNAM() throws IOException {
 		Path mmtPath = Paths.get(this.path, "MModel", "601_MModelTexture");
 
-		if (Files.notExists(mmtPath)) {
+		if (Files.notExists(mmtPath) || !inShard(mmtPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern startPattern = Pattern.compile("^\\p{Alnum}{2}");
 
-		for (Path firstDir : Files.newDirectoryStream(mmtPath)) {
-			DirectoryStream<Path> secondDirs = Files.newDirectoryStream(firstDir);
+		for (Path firstDir : DirectoryWalker.list(mmtPath)) {
+			List<Path> secondDirs = DirectoryWalker.list(firstDir);
 			String firstDirFilename = firstDir.getFileName().toString();
 
 			for (Path secondDir : secondDirs) {
-				DirectoryStream<Path> textureNames = Files.newDirectoryStream(secondDir);
+				List<Path> textureNames = DirectoryWalker.list(secondDir);
 				String secondDirFilename = secondDir.getFileName().toString();
 
 				for (Path textureName : textureNames) {
@@ -137,26 +143,30 @@ public class MModelTextureStructureTests extends Capability1Tests {
 	 * @throws IOException Error reading from CDB
 	 */
 	@Test(description = "OGC 15-113r3, A.1.15, Test 60 - based on Section 3.5.2")
+	@Cost(Cost.Stage.FILES)
 	public void verifyFile() throws IOException {
 		Path mmtPath = Paths.get(this.path, "MModel", "601_MModelTexture");
 
-		if (Files.notExists(mmtPath)) {
+		if (Files.notExists(mmtPath) || !inShard(mmtPath)) {
 			return;
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.MModelTexture);
 
-		for (Path firstDir : Files.newDirectoryStream(mmtPath)) {
-			DirectoryStream<Path> secondDirs = Files.newDirectoryStream(firstDir);
+		for (Path firstDir : DirectoryWalker.list(mmtPath)) {
+			List<Path> secondDirs = DirectoryWalker.list(firstDir);
 
 			for (Path secondDir : secondDirs) {
-				DirectoryStream<Path> textureNames = Files.newDirectoryStream(secondDir);
+				List<Path> textureNames = DirectoryWalker.list(secondDir);
 
 				for (Path textureName : textureNames) {
-					DirectoryStream<Path> files = Files.newDirectoryStream(textureName);
+					List<Path> files = DirectoryWalker.list(textureName);
 
 					for (Path file : files) {
+						if (TimeBudget.current().isExpired()) {
+							break;
+						}
 						String filename = file.getFileName().toString();
 
 						Matcher match = filePattern.matcher(filename);
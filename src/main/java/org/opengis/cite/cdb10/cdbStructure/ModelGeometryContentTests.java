@@ -0,0 +1,475 @@
+package org.opengis.cite.cdb10.cdbStructure;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.cdbStructure.GSModel.GSModelGeometryStructureTests;
+import org.opengis.cite.cdb10.cdbStructure.GSModel.GSModelTextureStructureTests;
+import org.opengis.cite.cdb10.util.DbfColumnReader;
+import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.MappedZipArchive;
+import org.opengis.cite.cdb10.util.OpenFlightScanner;
+import org.opengis.cite.cdb10.util.Shard;
+import org.opengis.cite.cdb10.util.TextureIndex;
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * File content tests for the OpenFlight model geometry of the GTModel,
+ * GSModel and MModel datasets, and of the references from model geometry to
+ * model textures and from point features to models. Only the OpenFlight
+ * record stream is scanned; geometry is not parsed.
+ */
+@Cost(Cost.Stage.CONTENT)
+public class ModelGeometryContentTests extends Capability1Tests {
+
+	/**
+	 * Feature datasets in the Tiles directory that reference models
+	 */
+	protected static final String GS_FEATURE_DIRECTORY = "100_GSFeature";
+	protected static final String GT_FEATURE_DIRECTORY = "101_GTFeature";
+
+	/**
+	 * DBF fields read to join features to models
+	 */
+	private static final String[] MODEL_KEY_FIELDS = new String[] { "MODL", "FACC", "FSC" };
+
+	/**
+	 * Scopes of the GTModel and MModel textures in the texture index; GSModel
+	 * textures are indexed per geocell
+	 */
+	private static final String GTMODEL_SCOPE = "GTModel";
+	private static final String MMODEL_SCOPE = "MModel";
+
+	/**
+	 * Index of all model textures, built on first use
+	 */
+	private TextureIndex textureIndex;
+
+	/**
+	 * Errors for model texture references missing from the index
+	 */
+	private ArrayList<String> danglingReferences;
+
+	/**
+	 * false if the time budget ran out while the index was built
+	 */
+	private boolean textureIndexComplete;
+
+	/**
+	 * Validates that GTModelGeometry OpenFlight files have a header record and
+	 * a well-formed record stream, and that their texture palette and
+	 * external reference records name a file.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.4.1")
+	public void verifyGTModelGeometryOpenFlight() throws IOException {
+		ArrayList<String> errors = new ArrayList<String>();
+
+		scanGTModelGeometry(((name, result) -> validateOpenFlightReferences(name, result, errors)), errors);
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Validates that OpenFlight entries in GSModelGeometry archives have a
+	 * header record and a well-formed record stream, and that their texture
+	 * palette and external reference records name a file. Entries are read
+	 * from the memory-mapped archive without extraction.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.6.2")
+	public void verifyGSModelGeometryOpenFlight() throws IOException {
+		ArrayList<String> errors = new ArrayList<String>();
+
+		scanGSModelGeometry(((name, result) -> validateOpenFlightReferences(name, result, errors)), errors);
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Validates that MModelGeometry OpenFlight files have a header record and
+	 * a well-formed record stream, and that their texture palette and
+	 * external reference records name a file.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.5.1")
+	public void verifyMModelGeometryOpenFlight() throws IOException {
+		ArrayList<String> errors = new ArrayList<String>();
+
+		scanMModelGeometry(((name, result) -> validateOpenFlightReferences(name, result, errors)), errors);
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Validates that every texture referenced by a texture palette record in
+	 * GTModel, GSModel or MModel geometry exists in the model texture datasets
+	 * of the same model type: GTModel or MModel textures, or the GSModel
+	 * textures of the same geocell. References are resolved against a hashed
+	 * index of texture file names.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.4.2")
+	public void verifyModelTextureReferences() throws IOException {
+		resolveTextureReferences();
+
+		Assert.assertTrue(danglingReferences.size() == 0, StringUtils.join(danglingReferences, "\n"));
+	}
+
+	/**
+	 * Validates that every texture in the model texture datasets is
+	 * referenced by the texture palette of at least one model.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.4.2")
+	public void verifyModelTexturesReferenced() throws IOException {
+		resolveTextureReferences();
+
+		ArrayList<String> errors = new ArrayList<String>();
+		for (String scope : textureIndex.getScopes()) {
+			for (String texture : textureIndex.getUnreferenced(scope)) {
+				errors.add(String.format("Texture is not referenced by any model in %s: %s", scope, texture));
+			}
+		}
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Validates that every point feature in the 100_GSFeature and
+	 * 101_GTFeature datasets with a MODL attribute references a model that
+	 * exists: a GSModelGeometry archive entry for GSFeature, or a
+	 * GTModelGeometry file for GTFeature. Models are matched on FACC, FSC and
+	 * MODL. Only those three DBF columns are read.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.6.2")
+	public void verifyFeatureModelReferences() throws IOException {
+		ArrayList<String> errors = new ArrayList<String>();
+
+		Set<String> gsModels = new HashSet<String>();
+		Pattern gsEntryPattern = Pattern.compile(FilenamePatterns.GSModelGeometryEntry);
+		iterateDatasets(getTilesDatasetPaths(GSModelGeometryStructureTests.DATASET_DIRECTORY),
+				((archive, attributes) -> {
+					if (!attributes.isRegularFile() || !archive.getFileName().toString().toLowerCase().endsWith(".zip")) {
+						return;
+					}
+					try {
+						for (MappedZipArchive.Entry entry : MappedZipArchive.open(archive).getEntries()) {
+							addModelKey(gsEntryPattern.matcher(entry.getName()), gsModels);
+						}
+					} catch (IOException e) {
+						// reported by GSModelGeometryStructureTests
+					}
+				}));
+
+		Set<String> gtModels = new HashSet<String>();
+		indexModelFiles(Paths.get(this.path, "GTModel", "500_GTModelGeometry"), 3,
+				Pattern.compile(FilenamePatterns.GTModelGeometry), gtModels);
+		indexModelFiles(Paths.get(this.path, "GTModel", "510_GTModelGeometry"), 4,
+				Pattern.compile(FilenamePatterns.GTModelGeometry510), gtModels);
+
+		validateFeatureModels(GS_FEATURE_DIRECTORY, gsModels, errors);
+		validateFeatureModels(GT_FEATURE_DIRECTORY, gtModels, errors);
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Stream the MODL, FACC and FSC columns of the attribute files of a
+	 * feature dataset and report records whose model key is not in an index.
+	 */
+	private void validateFeatureModels(String datasetName, Set<String> models, ArrayList<String> errors)
+			throws IOException {
+		iterateDatasets(getTilesDatasetPaths(datasetName), ((file, attributes) -> {
+			String filename = file.getFileName().toString();
+			if (!attributes.isRegularFile() || !filename.toLowerCase().endsWith(".dbf")) {
+				return;
+			}
+			try {
+				DbfColumnReader.read(file, MODEL_KEY_FIELDS, ((record, values) -> {
+					String modl = values[0];
+					if (modl == null || modl.isEmpty() || values[1] == null || values[2] == null) {
+						return;
+					}
+					String key = modelKey(values[1], values[2], modl);
+					if (key == null || !models.contains(key)) {
+						errors.add(String.format("Model '%s' (FACC %s, FSC %s) referenced by record %d of '%s' does not exist",
+								modl, values[1], values[2], record, filename));
+					}
+				}));
+			} catch (IOException e) {
+				errors.add(String.format("Invalid DBF file (%s): %s", e.getMessage(), filename));
+			}
+		}));
+	}
+
+	private void indexModelFiles(Path basePath, int depth, Pattern filePattern, Set<String> models)
+			throws IOException {
+		if (Files.notExists(basePath)) {
+			return;
+		}
+
+		iterateEntries(basePath, depth, ((file, attributes) -> {
+			if (attributes.isRegularFile()) {
+				addModelKey(filePattern.matcher(file.getFileName().toString()), models);
+			}
+		}));
+	}
+
+	private void addModelKey(Matcher match, Set<String> models) {
+		if (match.find()) {
+			String key = modelKey(match.group("featureCode"), match.group("fsc"), match.group("modl"));
+			if (key != null) {
+				models.add(key);
+			}
+		}
+	}
+
+	/**
+	 * Build the key joining feature attributes to model file names. FSC is
+	 * compared numerically, as DBF numeric fields are not zero-padded.
+	 *
+	 * @return Model key, or null if the FSC is not a number
+	 */
+	private static String modelKey(String facc, String fsc, String modl) {
+		try {
+			return facc + "_" + Integer.parseInt(fsc.trim()) + "_" + modl;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Build the texture index and resolve the texture references of all model
+	 * geometry against it. This is done once per test class instance, unless
+	 * the {@link TimeBudget} of the test ran out first. Files that cannot be
+	 * read are ignored here; they are reported by the other tests.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	protected void resolveTextureReferences() throws IOException {
+		if (textureIndex != null && textureIndexComplete) {
+			return;
+		}
+
+		TextureIndex index = new TextureIndex();
+		ArrayList<String> dangling = new ArrayList<String>();
+		ArrayList<String> ignored = new ArrayList<String>();
+
+		// {tnam prefix}/{tnam prefix}/{tnam}/{file}, see validateTextureNameCode
+		indexTextureFiles(Paths.get(this.path, "GTModel", "501_GTModelTexture"), GTMODEL_SCOPE, index);
+		indexTextureFiles(Paths.get(this.path, "GTModel", "511_GTModelTexture"), GTMODEL_SCOPE, index);
+		indexTextureFiles(Paths.get(this.path, "MModel", "601_MModelTexture"), MMODEL_SCOPE, index);
+		for (Path dataset : getTilesDatasetPaths(GSModelTextureStructureTests.DATASET_DIRECTORY)) {
+			String geocell = geocellOf(dataset);
+			iterateDatasets(new ArrayList<Path>(Collections.singletonList(dataset)), ((archive, attributes) -> {
+				if (!attributes.isRegularFile() || !archive.getFileName().toString().toLowerCase().endsWith(".zip")) {
+					return;
+				}
+				try {
+					for (MappedZipArchive.Entry entry : MappedZipArchive.open(archive).getEntries()) {
+						index.add(geocell, entry.getName());
+					}
+				} catch (IOException e) {
+					// reported by GSModelTextureStructureTests
+				}
+			}));
+		}
+
+		scanGTModelGeometry(textureResolver(index, GTMODEL_SCOPE, dangling), ignored);
+		for (Path dataset : getTilesDatasetPaths(GSModelGeometryStructureTests.DATASET_DIRECTORY)) {
+			scanGSModelGeometry(new ArrayList<Path>(Collections.singletonList(dataset)),
+					textureResolver(index, geocellOf(dataset), dangling), ignored);
+		}
+		scanMModelGeometry(textureResolver(index, MMODEL_SCOPE, dangling), ignored);
+
+		this.textureIndex = index;
+		this.danglingReferences = dangling;
+		// an incomplete index is built again by the next test
+		this.textureIndexComplete = !TimeBudget.current().isExpired();
+	}
+
+	/**
+	 * Resolve the texture references of model geometry against the textures
+	 * of a scope, adding an error for each reference that does not exist.
+	 */
+	private static visitOpenFlight textureResolver(TextureIndex index, String scope, ArrayList<String> dangling) {
+		return ((name, result) -> {
+			for (String texture : result.getTextures()) {
+				if (!texture.isEmpty() && !index.resolve(scope, texture)) {
+					dangling.add(String.format("Texture '%s' referenced by '%s' does not exist", texture, name));
+				}
+			}
+		});
+	}
+
+	private void indexTextureFiles(Path basePath, String scope, TextureIndex index) throws IOException {
+		if (Files.notExists(basePath)) {
+			return;
+		}
+
+		iterateEntries(basePath, 3, ((file, attributes) -> {
+			if (attributes.isRegularFile()) {
+				index.add(scope, file.getFileName().toString());
+			}
+		}));
+	}
+
+	/**
+	 * @return Geocell of a Tiles dataset directory, e.g. "Tiles/N62/W162"
+	 */
+	private String geocellOf(Path dataset) {
+		return Shard.unitName(Paths.get(this.path), dataset.getParent());
+	}
+
+	/**
+	 * Scan the OpenFlight files of 500_GTModelGeometry and
+	 * 510_GTModelGeometry.
+	 *
+	 * @param  visitor     Receives the scan result of each valid file
+	 * @param  errors      ArrayList (String) of errors, will be modified
+	 *                     in-place with files that could not be scanned
+	 * @throws IOException Error reading from CDB
+	 */
+	protected void scanGTModelGeometry(visitOpenFlight visitor, ArrayList<String> errors) throws IOException {
+		// {category}/{subcategory}/{featureType}/{file}
+		scanOpenFlightFiles(Paths.get(this.path, "GTModel", "500_GTModelGeometry"), 3, visitor, errors);
+		// {category}/{subcategory}/{featureType}/{lod}/{file}
+		scanOpenFlightFiles(Paths.get(this.path, "GTModel", "510_GTModelGeometry"), 4, visitor, errors);
+	}
+
+	/**
+	 * Scan the OpenFlight files of 600_MModelGeometry.
+	 *
+	 * @param  visitor     Receives the scan result of each valid file
+	 * @param  errors      ArrayList (String) of errors, will be modified
+	 *                     in-place with files that could not be scanned
+	 * @throws IOException Error reading from CDB
+	 */
+	protected void scanMModelGeometry(visitOpenFlight visitor, ArrayList<String> errors) throws IOException {
+		// {kind}/{domain}/{country}/{category}/{entity}/{file}
+		scanOpenFlightFiles(Paths.get(this.path, "MModel", "600_MModelGeometry"), 5, visitor, errors);
+	}
+
+	/**
+	 * Scan the uncompressed OpenFlight entries of the GSModelGeometry archives.
+	 * Compressed entries are reported by the GSModel structure tests.
+	 *
+	 * @param  visitor     Receives the scan result of each valid entry
+	 * @param  errors      ArrayList (String) of errors, will be modified
+	 *                     in-place with entries that could not be scanned
+	 * @throws IOException Error reading from CDB
+	 */
+	protected void scanGSModelGeometry(visitOpenFlight visitor, ArrayList<String> errors) throws IOException {
+		scanGSModelGeometry(getTilesDatasetPaths(GSModelGeometryStructureTests.DATASET_DIRECTORY), visitor, errors);
+	}
+
+	private void scanGSModelGeometry(ArrayList<Path> datasets, visitOpenFlight visitor, ArrayList<String> errors)
+			throws IOException {
+		iterateDatasets(datasets, ((archive, attributes) -> {
+			String filename = archive.getFileName().toString();
+			if (!attributes.isRegularFile() || !filename.toLowerCase().endsWith(".zip")) {
+				return;
+			}
+
+			MappedZipArchive zip;
+			try {
+				zip = MappedZipArchive.open(archive);
+			} catch (IOException e) {
+				errors.add("Invalid ZIP archive file: " + filename);
+				return;
+			}
+
+			for (MappedZipArchive.Entry entry : zip.getEntries()) {
+				if (!entry.isStored() || !entry.getName().toLowerCase().endsWith(".flt")) {
+					continue;
+				}
+				try {
+					visitor.visit(entry.getName(), OpenFlightScanner.scan(zip.slice(entry)));
+				} catch (IOException e) {
+					errors.add(String.format("Invalid OpenFlight entry '%s' in ZIP archive '%s': %s",
+							entry.getName(), filename, e.getMessage()));
+				}
+			}
+		}));
+	}
+
+	/**
+	 * Collect the paths of a dataset in all geocells, or none if the CDB has
+	 * no Tiles directory.
+	 */
+	private ArrayList<Path> getTilesDatasetPaths(String datasetName) throws IOException {
+		if (Files.notExists(Paths.get(this.path, "Tiles"))) {
+			return new ArrayList<Path>();
+		}
+		return getDatasetPaths(this.path, datasetName);
+	}
+
+	private void scanOpenFlightFiles(Path basePath, int depth, visitOpenFlight visitor, ArrayList<String> errors)
+			throws IOException {
+		if (Files.notExists(basePath)) {
+			return;
+		}
+
+		iterateEntries(basePath, depth, ((file, attributes) -> {
+			String filename = file.getFileName().toString();
+			if (!attributes.isRegularFile() || !filename.toLowerCase().endsWith(".flt")) {
+				return;
+			}
+			try {
+				visitor.visit(filename, OpenFlightScanner.scan(file));
+			} catch (IOException e) {
+				errors.add(String.format("Invalid OpenFlight file (%s): %s", e.getMessage(), filename));
+			}
+		}));
+	}
+
+	/**
+	 * Validate that texture palette and external reference records name a
+	 * file.
+	 *
+	 * @param name   Name of the OpenFlight file or archive entry
+	 * @param result Scan result
+	 * @param errors ArrayList (String) of errors, will be modified in-place
+	 */
+	protected void validateOpenFlightReferences(String name, OpenFlightScanner.Result result,
+			ArrayList<String> errors) {
+		for (String texture : result.getTextures()) {
+			if (texture.isEmpty()) {
+				errors.add("Texture palette record has no file name: " + name);
+			}
+		}
+		for (String reference : result.getExternalReferences()) {
+			if (reference.isEmpty()) {
+				errors.add("External reference record has no file name: " + name);
+			}
+		}
+	}
+
+	/**
+	 * This interface is used to connect the OpenFlight scanners to validation
+	 * lambda functions.
+	 */
+	protected interface visitOpenFlight {
+		void visit(String name, OpenFlightScanner.Result result);
+	}
+}
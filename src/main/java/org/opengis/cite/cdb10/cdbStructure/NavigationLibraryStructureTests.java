@@ -5,16 +5,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
 import org.opengis.cite.cdb10.util.reference.CdbReference;
 import org.opengis.cite.cdb10.util.reference.DatasetsValidator;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+@Cost(Cost.Stage.DIRECTORIES)
 public class NavigationLibraryStructureTests extends Capability1Tests {
 	/**
 	 * Validate the Navigation datasets.
@@ -32,7 +36,7 @@ public class NavigationLibraryStructureTests extends Capability1Tests {
 		CdbReference references = new CdbReference();
 		DatasetsValidator validator = references.buildDatasetsValidator();
 
-		for (Path file : Files.newDirectoryStream(navPath)) {
+		for (Path file : DirectoryWalker.list(navPath)) {
 			String filename = file.getFileName().toString();
 			String prefix = null;
 			Integer prefixID = null;
@@ -64,6 +68,7 @@ public class NavigationLibraryStructureTests extends Capability1Tests {
 	 * @throws IOException Error reading from CDB
 	 */
 	@Test(description = "OGC 15-113r3, A.1.18, Test 73 - based on Section 3.7")
+	@Cost(Cost.Stage.FILES)
 	public void verifyFile() throws IOException {
 		Path navPath = Paths.get(this.path, "Navigation", "400_NavData");
 
@@ -74,7 +79,7 @@ public class NavigationLibraryStructureTests extends Capability1Tests {
 		ArrayList<String> errors = new ArrayList<String>();
 		Pattern filePattern = Pattern.compile(FilenamePatterns.NavigationLibrary);
 
-		for (Path file : Files.newDirectoryStream(navPath)) {
+		for (Path file : DirectoryWalker.list(navPath)) {
 			String filename = file.getFileName().toString();
 
 			Matcher match = filePattern.matcher(filename);
@@ -1,19 +1,22 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 /**
  * File/directory structure tests for the root of the CDB directory
  */
+@Cost(Cost.Stage.ROOT)
 public class RootStructureTests extends Capability1Tests {
 	/**
 	 * Validate the contents of the root directory of the CDB, checking for stray
@@ -27,7 +30,7 @@ public class RootStructureTests extends Capability1Tests {
 		ArrayList<String> permittedRootDirectories = new ArrayList<String>(
 				Arrays.asList("Metadata", "GTModel", "MModel", "Tiles", "Navigation", "ExtMetadata"));
 
-		for (Path file : Files.newDirectoryStream(Paths.get(this.path))) {
+		for (Path file : DirectoryWalker.list(Paths.get(this.path))) {
 			String filename = file.getFileName().toString();
 			if (!permittedRootDirectories.contains(filename)) {
 				errors.add("Invalid file in root directory: " + filename);
@@ -0,0 +1,406 @@
+package org.opengis.cite.cdb10.cdbStructure;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.Checkpoint;
+import org.opengis.cite.cdb10.util.DbfHeader;
+import org.opengis.cite.cdb10.util.GeoTiffHeader;
+import org.opengis.cite.cdb10.util.IoExecutors;
+import org.opengis.cite.cdb10.util.Jpeg2000Header;
+import org.opengis.cite.cdb10.util.ShapefileHeader;
+import org.opengis.cite.cdb10.util.TileAddress;
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * File content tests for the tiled datasets in the Tiles directory of the CDB.
+ * Only file headers are read, and geocells are checked in parallel, so these
+ * tests can be run against large CDBs.
+ */
+@Partitioned
+@Cost(Cost.Stage.CONTENT)
+public class TilesContentTests extends Capability1Tests {
+
+	/**
+	 * Dataset code for Elevation (001_Elevation)
+	 */
+	private static final int ELEVATION_DATASET = 1;
+
+	/**
+	 * Dataset code for Imagery (004_Imagery)
+	 */
+	private static final int IMAGERY_DATASET = 4;
+
+	/**
+	 * Range of dataset codes for vector datasets (1xx and 2xx)
+	 */
+	private static final int MIN_VECTOR_DATASET = 100;
+	private static final int MAX_VECTOR_DATASET = 299;
+
+	/**
+	 * Tolerance in degrees for shapes on the edge of a tile
+	 */
+	private static final double EXTENT_TOLERANCE = 1e-7;
+
+	/**
+	 * Maximum number of geocells validated at the same time
+	 */
+	private static final int GEOCELL_THREADS = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Validates that GeoTIFF tiles have the raster size required for their
+	 * LOD, the sample format required for their dataset, and a georeferenced
+	 * extent matching the geocell, UREF and RREF in their file name. Extents
+	 * may differ from the expected tile extent by up to one pixel.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.6.2")
+	public void verifyGeoTiffTileHeaders() throws IOException {
+		Path tilesPath = Paths.get(this.path, "Tiles");
+
+		if (Files.notExists(tilesPath)) {
+			return;
+		}
+
+		ArrayList<String> errors = validateTileFiles("verifyGeoTiffTileHeaders", tilesPath, ".tif",
+				this::validateGeoTiffHeader);
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Validates that JPEG 2000 tiles have a complete box structure and
+	 * codestream (every tile-part present up to the EOC marker), an image size
+	 * matching their LOD, a tile grid fully covered by tile-parts, and the
+	 * component count and bit depth required for their dataset. No image data
+	 * is decoded.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.6.2")
+	public void verifyJpeg2000TileHeaders() throws IOException {
+		Path tilesPath = Paths.get(this.path, "Tiles");
+
+		if (Files.notExists(tilesPath)) {
+			return;
+		}
+
+		ArrayList<String> errors = validateTileFiles("verifyJpeg2000TileHeaders", tilesPath, ".jp2",
+				this::validateJpeg2000Header);
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Validates that the shapefiles of vector datasets (1xx and 2xx dataset
+	 * codes) have matching index (.shx) and attribute (.dbf) files, that the
+	 * three files agree on the number of records, and that the shape bounding
+	 * box lies inside the tile extent. Only file headers are read.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.6.2")
+	public void verifyShapefileHeaders() throws IOException {
+		Path tilesPath = Paths.get(this.path, "Tiles");
+
+		if (Files.notExists(tilesPath)) {
+			return;
+		}
+
+		ArrayList<String> errors = validateTileFiles("verifyShapefileHeaders", tilesPath, ".shp",
+				this::validateShapefileHeaders);
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Run a validator against all tile files with a given extension. Geocells
+	 * are validated in parallel; errors are returned in geocell order. Each
+	 * geocell is recorded in the {@link Checkpoint} when done, and geocells
+	 * completed in a resumed test run or outside the current shard are
+	 * skipped.
+	 *
+	 * @param  testName    Name of the test, identifying it in the checkpoint
+	 * @param  tilesPath   Path to the Tiles directory
+	 * @param  extension   File extension to match, including the dot
+	 * @param  validator   Validator to run against each tile file
+	 * @return             ArrayList (String) of errors
+	 * @throws IOException Error reading from CDB
+	 */
+	protected ArrayList<String> validateTileFiles(String testName, Path tilesPath, String extension,
+			validateTileFile validator) throws IOException {
+		Checkpoint checkpoint = Checkpoint.current();
+		String task = getClass().getName() + "." + testName;
+
+		ArrayList<Path> geocells = new ArrayList<Path>();
+		iterateEntries(tilesPath, 1, ((lonCell, attributes) -> {
+			if (attributes.isDirectory() && inShard(lonCell)
+					&& !checkpoint.isCompleted(task, geocellName(tilesPath, lonCell))) {
+				geocells.add(lonCell);
+			}
+		}));
+
+		ArrayList<String> errors = new ArrayList<String>(checkpoint.getSavedErrors(task));
+		TimeBudget budget = TimeBudget.current();
+		budget.addUnits(geocells.size());
+		ExecutorService executor = IoExecutors.newExecutor("geocell",
+				Math.max(1, Math.min(GEOCELL_THREADS, geocells.size())));
+		try {
+			List<Future<ArrayList<String>>> results = new ArrayList<Future<ArrayList<String>>>();
+			for (Path geocell : geocells) {
+				results.add(executor.submit(() -> {
+					ArrayList<String> geocellErrors = new ArrayList<String>();
+					if (budget.isExpired()) {
+						return geocellErrors;
+					}
+					// {lon}/{dataset}/{lod}/{uref}/{file}
+					iterateEntries(geocell, 3, ((file, attributes) -> {
+						String filename = file.getFileName().toString();
+						if (!attributes.isRegularFile() || !filename.toLowerCase().endsWith(extension)) {
+							return;
+						}
+
+						TileAddress address = TileAddress.parse(filename);
+						if (address == null) {
+							// Reported by TilesStructureTests
+							return;
+						}
+
+						validator.validate(file, address, geocellErrors);
+					}));
+					if (!budget.isExpired()) {
+						budget.unitDone();
+					}
+					checkpoint.complete(task, geocellName(tilesPath, geocell), geocellErrors);
+					return geocellErrors;
+				}));
+			}
+
+			for (Future<ArrayList<String>> result : results) {
+				errors.addAll(result.get());
+			}
+			return errors;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while validating tiles");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return Geocell directory relative to the Tiles directory, e.g. "N62/W162"
+	 */
+	private static String geocellName(Path tilesPath, Path geocell) {
+		return tilesPath.relativize(geocell).toString().replace('\\', '/');
+	}
+
+	/**
+	 * Validate the header of a single GeoTIFF tile.
+	 *
+	 * @param file    Path to the GeoTIFF file
+	 * @param address Tile address parsed from the file name
+	 * @param errors  List (String) of errors, will be modified in-place
+	 */
+	protected void validateGeoTiffHeader(Path file, TileAddress address, List<String> errors) {
+		String filename = file.getFileName().toString();
+		GeoTiffHeader header;
+
+		try {
+			header = GeoTiffHeader.read(file);
+		} catch (IOException e) {
+			errors.add(String.format("Invalid GeoTIFF header (%s): %s", e.getMessage(), filename));
+			return;
+		}
+
+		int rasterSize = address.getRasterSize();
+		if (header.getWidth() != rasterSize || header.getHeight() != rasterSize) {
+			errors.add(String.format("GeoTIFF should be %dx%d pixels for LOD, found %dx%d: %s",
+					rasterSize, rasterSize, header.getWidth(), header.getHeight(), filename));
+		}
+
+		if (address.getDatasetCode() == ELEVATION_DATASET) {
+			if (header.getSampleFormat() != GeoTiffHeader.SAMPLE_FORMAT_FLOAT
+					|| header.getBitsPerSample() != 32 || header.getSamplesPerPixel() != 1) {
+				errors.add("Elevation GeoTIFF should have a single 32-bit floating point sample: " + filename);
+			}
+		} else if (address.getDatasetCode() == IMAGERY_DATASET) {
+			if (header.getSampleFormat() != GeoTiffHeader.SAMPLE_FORMAT_UINT || header.getBitsPerSample() != 8
+					|| (header.getSamplesPerPixel() != 1 && header.getSamplesPerPixel() != 3)) {
+				errors.add("Imagery GeoTIFF should have 1 or 3 unsigned 8-bit samples: " + filename);
+			}
+		}
+
+		double[] extent = header.getExtent();
+		if (extent == null) {
+			errors.add("GeoTIFF is missing georeferencing tags: " + filename);
+			return;
+		}
+
+		double[] pixelSize = header.getPixelSize();
+		double toleranceX = Math.abs(pixelSize[0]);
+		double toleranceY = Math.abs(pixelSize[1]);
+
+		if (Math.abs(extent[0] - address.getWest()) > toleranceX
+				|| Math.abs(extent[1] - address.getSouth()) > toleranceY
+				|| Math.abs(extent[2] - address.getEast()) > toleranceX
+				|| Math.abs(extent[3] - address.getNorth()) > toleranceY) {
+			errors.add(String.format(
+					"GeoTIFF extent (%.6f, %.6f, %.6f, %.6f) does not match tile extent (%.6f, %.6f, %.6f, %.6f): %s",
+					extent[0], extent[1], extent[2], extent[3],
+					address.getWest(), address.getSouth(), address.getEast(), address.getNorth(), filename));
+		}
+	}
+
+	/**
+	 * Validate the box structure and codestream headers of a single JPEG 2000
+	 * tile.
+	 *
+	 * @param file    Path to the JPEG 2000 file
+	 * @param address Tile address parsed from the file name
+	 * @param errors  List (String) of errors, will be modified in-place
+	 */
+	protected void validateJpeg2000Header(Path file, TileAddress address, List<String> errors) {
+		String filename = file.getFileName().toString();
+		Jpeg2000Header header;
+
+		try {
+			header = Jpeg2000Header.read(file);
+		} catch (IOException e) {
+			errors.add(String.format("Invalid JPEG 2000 file (%s): %s", e.getMessage(), filename));
+			return;
+		}
+
+		if (!header.isImageHeaderConsistent()) {
+			errors.add("JP2 image header box does not match codestream SIZ marker: " + filename);
+		}
+
+		int rasterSize = address.getRasterSize();
+		if (header.getWidth() != rasterSize || header.getHeight() != rasterSize) {
+			errors.add(String.format("JPEG 2000 image should be %dx%d pixels for LOD, found %dx%d: %s",
+					rasterSize, rasterSize, header.getWidth(), header.getHeight(), filename));
+		}
+
+		if (header.getTilesFound() != header.getTileCount()) {
+			errors.add(String.format("JPEG 2000 codestream has %d of %d tiles: %s",
+					header.getTilesFound(), header.getTileCount(), filename));
+		}
+
+		if (header.getDecompositionLevels() < 0) {
+			errors.add("JPEG 2000 codestream has no COD marker: " + filename);
+		}
+
+		if (address.getDatasetCode() == IMAGERY_DATASET) {
+			boolean validComponents = header.getComponents() == 1 || header.getComponents() == 3;
+			for (int i = 0; i < header.getComponents(); i++) {
+				validComponents &= header.getBitDepth(i) == 8 && !header.isSigned(i);
+			}
+			if (!validComponents) {
+				errors.add("Imagery JPEG 2000 should have 1 or 3 unsigned 8-bit components: " + filename);
+			}
+		}
+	}
+
+	/**
+	 * This interface is used to connect the tile iterator to validation
+	 * methods for individual tile files.
+	 */
+	protected interface validateTileFile {
+		void validate(Path file, TileAddress address, List<String> errors);
+	}
+
+	/**
+	 * Validate the headers of a shapefile and its index and attribute files.
+	 *
+	 * @param file    Path to the .shp file
+	 * @param address Tile address parsed from the file name
+	 * @param errors  List (String) of errors, will be modified in-place
+	 */
+	protected void validateShapefileHeaders(Path file, TileAddress address, List<String> errors) {
+		if (address.getDatasetCode() < MIN_VECTOR_DATASET || address.getDatasetCode() > MAX_VECTOR_DATASET) {
+			return;
+		}
+
+		String filename = file.getFileName().toString();
+		String baseName = filename.substring(0, filename.length() - ".shp".length());
+		Path indexFile = file.resolveSibling(baseName + ".shx");
+		Path attributeFile = file.resolveSibling(baseName + ".dbf");
+
+		boolean complete = true;
+		if (Files.notExists(indexFile)) {
+			errors.add("Shapefile is missing index file (.shx): " + filename);
+			complete = false;
+		}
+		if (Files.notExists(attributeFile)) {
+			errors.add("Shapefile is missing attribute file (.dbf): " + filename);
+			complete = false;
+		}
+		if (!complete) {
+			return;
+		}
+
+		ShapefileHeader shp;
+		ShapefileHeader shx;
+		DbfHeader dbf;
+		try {
+			shp = ShapefileHeader.read(file);
+			shx = ShapefileHeader.read(indexFile);
+			dbf = DbfHeader.read(attributeFile);
+		} catch (IOException e) {
+			errors.add(String.format("Invalid shapefile header (%s): %s", e.getMessage(), filename));
+			return;
+		}
+
+		if (shp.getDeclaredLength() != shp.getActualLength()) {
+			errors.add(String.format("Shapefile length in header (%d) does not match file size (%d): %s",
+					shp.getDeclaredLength(), shp.getActualLength(), filename));
+		}
+		if (shx.getDeclaredLength() != shx.getActualLength() || shx.getIndexRecordCount() < 0) {
+			errors.add("Shapefile index length is invalid: " + baseName + ".shx");
+		}
+		if (shp.getShapeType() != shx.getShapeType()) {
+			errors.add("Shapefile and index shape types do not match: " + filename);
+		}
+		if (!dbf.isRecordLengthConsistent()) {
+			errors.add("DBF record length does not match field descriptors: " + baseName + ".dbf");
+		}
+		if (!dbf.isComplete()) {
+			errors.add("DBF file is shorter than its declared records (truncated?): " + baseName + ".dbf");
+		}
+
+		long recordCount = shx.getIndexRecordCount();
+		if (recordCount >= 0 && recordCount != dbf.getRecordCount()) {
+			errors.add(String.format("Shapefile index has %d records but attribute file has %d: %s",
+					recordCount, dbf.getRecordCount(), filename));
+		}
+
+		if (recordCount > 0 && (shp.getMinX() < address.getWest() - EXTENT_TOLERANCE
+				|| shp.getMinY() < address.getSouth() - EXTENT_TOLERANCE
+				|| shp.getMaxX() > address.getEast() + EXTENT_TOLERANCE
+				|| shp.getMaxY() > address.getNorth() + EXTENT_TOLERANCE)) {
+			errors.add(String.format(
+					"Shapefile bounding box (%.6f, %.6f, %.6f, %.6f) is outside tile extent (%.6f, %.6f, %.6f, %.6f): %s",
+					shp.getMinX(), shp.getMinY(), shp.getMaxX(), shp.getMaxY(),
+					address.getWest(), address.getSouth(), address.getEast(), address.getNorth(), filename));
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package org.opengis.cite.cdb10.cdbStructure;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.GeocellCoverage;
+import org.opengis.cite.cdb10.util.SparseBitmap;
+import org.opengis.cite.cdb10.util.TestSuiteLogger;
+import org.opengis.cite.cdb10.util.TilesInventory;
+import org.opengis.cite.cdb10.util.reference.CdbReference;
+import org.opengis.cite.cdb10.util.reference.DatasetsValidator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Coverage tests for the tiled datasets in the Tiles directory of the CDB.
+ * These use the inventory of tiles built while validating tile file names
+ * (or by a single walk of the Tiles directory), so no file is opened.
+ */
+@Partitioned
+public class TilesCoverageTests extends Capability1Tests {
+
+	/**
+	 * Maximum number of example tiles listed per error
+	 */
+	private static final int MAX_REPORTED_TILES = 10;
+
+	/**
+	 * Datasets that should only be present where another dataset is present,
+	 * as {dataset code, required dataset code}: imagery and min/max elevation
+	 * are draped on or derived from elevation, and RMDescriptor describes
+	 * the RMTexture tiles.
+	 */
+	private static final int[][] REQUIRED_COVERAGE = { { 2, 1 }, { 4, 1 }, { 6, 5 } };
+
+	/**
+	 * Validates that the LOD pyramid of each dataset in each geocell is
+	 * complete: every tile at LOD n (n &gt;= 1) has its parent at LOD n-1, and
+	 * every parent with children at LOD n has all four of its children.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.6.2.4")
+	public void verifyLodPyramid() throws IOException {
+		Path tilesPath = Paths.get(this.path, "Tiles");
+
+		if (Files.notExists(tilesPath)) {
+			return;
+		}
+
+		ArrayList<String> errors = new ArrayList<String>();
+		TilesInventory inventory = TilesInventory.forTiles(tilesPath);
+
+		for (TilesInventory.CoverageKey key : new TreeSet<TilesInventory.CoverageKey>(inventory.getKeys())) {
+			SortedMap<Integer, SparseBitmap> lods = inventory.getCoverage(key);
+
+			for (int lod : lods.keySet()) {
+				if (lod < 1) {
+					continue;
+				}
+				SparseBitmap tiles = lods.get(lod);
+				SparseBitmap parentLod = lods.containsKey(lod - 1) ? lods.get(lod - 1) : new SparseBitmap();
+				SparseBitmap parents = TilesInventory.parentsOf(tiles);
+
+				SparseBitmap missingParents = parents.andNot(parentLod);
+				if (!missingParents.isEmpty()) {
+					errors.add(String.format("Missing %d parent tiles at LOD %d for %s: %s",
+							missingParents.getCardinality(), lod - 1, key, describeTiles(missingParents)));
+				}
+
+				SparseBitmap holes = TilesInventory.childrenOf(parents).andNot(tiles);
+				if (!holes.isEmpty()) {
+					errors.add(String.format("Coverage holes at LOD %d for %s, %d sibling tiles missing: %s",
+							lod, key, holes.getCardinality(), describeTiles(holes)));
+				}
+			}
+		}
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Reports the geocells covered by each tiled dataset, and validates that
+	 * datasets which depend on another dataset (e.g. Imagery on Elevation) are
+	 * not present in geocells where that dataset is missing.
+	 *
+	 * @throws IOException Error reading from CDB
+	 */
+	@Test(description = "OGC 15-113r3, Section 3.6.2")
+	public void verifyGeocellCoverage() throws IOException {
+		Path tilesPath = Paths.get(this.path, "Tiles");
+
+		if (Files.notExists(tilesPath)) {
+			return;
+		}
+
+		ArrayList<String> errors = new ArrayList<String>();
+		GeocellCoverage coverage = TilesInventory.forTiles(tilesPath).getGeocellCoverage();
+		DatasetsValidator validator = new CdbReference().buildDatasetsValidator();
+
+		for (int datasetCode : coverage.getDatasetCodes()) {
+			TestSuiteLogger.log(Level.INFO, String.format("Tiles coverage of %s: %d geocells, %d square degrees",
+					datasetName(validator, datasetCode), coverage.getGeocellCount(datasetCode),
+					coverage.getCellCount(datasetCode)));
+		}
+
+		for (int[] rule : REQUIRED_COVERAGE) {
+			List<String> missing = coverage.getGeocellsMissing(rule[0], rule[1]);
+			if (!missing.isEmpty()) {
+				errors.add(String.format("%s is present in %d geocells without %s: %s",
+						datasetName(validator, rule[0]), missing.size(), datasetName(validator, rule[1]),
+						describeGeocells(missing)));
+			}
+		}
+
+		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
+	}
+
+	/**
+	 * Format a dataset code as its directory name, e.g. "001_Elevation".
+	 */
+	private String datasetName(DatasetsValidator validator, int datasetCode) {
+		String name = validator.datasetNameForCode(datasetCode);
+		return name == null ? String.format("%03d", datasetCode) : String.format("%03d_%s", datasetCode, name);
+	}
+
+	private String describeGeocells(List<String> geocells) {
+		if (geocells.size() <= MAX_REPORTED_TILES) {
+			return StringUtils.join(geocells, ", ");
+		}
+		return StringUtils.join(geocells.subList(0, MAX_REPORTED_TILES), ", ") + ", ...";
+	}
+
+	/**
+	 * List the first few tiles of a bitmap as "U{uref}_R{rref}".
+	 */
+	private String describeTiles(SparseBitmap tiles) {
+		List<String> names = new ArrayList<String>();
+		tiles.forEach(index -> {
+			if (names.size() < MAX_REPORTED_TILES) {
+				names.add(String.format("U%d_R%d", TilesInventory.urefOf(index), TilesInventory.rrefOf(index)));
+			}
+		});
+		if (tiles.getCardinality() > MAX_REPORTED_TILES) {
+			names.add("...");
+		}
+		return StringUtils.join(names, ", ");
+	}
+}
@@ -1,17 +1,22 @@
 package org.opengis.cite.cdb10.cdbStructure;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
-import org.opengis.cite.cdb10.util.DirectoryStreamFilters;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.Partitioned;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.FilenamePatterns;
+import org.opengis.cite.cdb10.util.TileAddress;
+import org.opengis.cite.cdb10.util.TilesInventory;
+import org.opengis.cite.cdb10.util.TimeBudget;
 import org.opengis.cite.cdb10.util.reference.CdbReference;
 import org.opengis.cite.cdb10.util.reference.DatasetsValidator;
 import org.testng.Assert;
@@ -20,6 +25,8 @@ import org.testng.annotations.Test;
 /**
  * File/directory structure tests for the Tiles directory of the CDB
  */
+@Partitioned
+@Cost(Cost.Stage.DIRECTORIES)
 public class TilesStructureTests extends Capability1Tests {
 
 	/**
@@ -30,22 +37,7 @@ public class TilesStructureTests extends Capability1Tests {
 	 * @return          An integer amount of degrees of longitude
 	 */
 	public Integer sliceWidthForLatitude(Integer latitude) {
-		Integer dLonZone = 1;
-		if (((latitude >= 89) && (latitude < 90)) || ((latitude >= -90) && (latitude < -89))) {
-			dLonZone = 12;
-		} else if (((latitude >= 80) && (latitude < 89)) || ((latitude >= -89) && (latitude < -80))) {
-			dLonZone = 6;
-		} else if (((latitude >= 75) && (latitude < 80)) || ((latitude >= -80) && (latitude < -75))) {
-			dLonZone = 4;
-		} else if (((latitude >= 70) && (latitude < 75)) || ((latitude >= -75) && (latitude < -70))) {
-			dLonZone = 3;
-		} else if (((latitude >= 50) && (latitude < 70)) || ((latitude >= -70) && (latitude < -50))) {
-			dLonZone = 2;
-		} else if (((latitude >= 0) && (latitude < 50)) || ((latitude >= -50) && (latitude < 0))) {
-			dLonZone = 1;
-		}
-
-		return dLonZone;
+		return TileAddress.sliceWidthForLatitude(latitude);
 	}
 
 	/**
@@ -63,7 +55,7 @@ public class TilesStructureTests extends Capability1Tests {
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path file : Files.newDirectoryStream(tilesPath)) {
+		for (Path file : DirectoryWalker.list(tilesPath)) {
 			String filename = file.getFileName().toString();
 
 			if (!filename.substring(0, 1).equals("S") && !filename.substring(0, 1).equals("N")) {
@@ -90,7 +82,7 @@ public class TilesStructureTests extends Capability1Tests {
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		for (Path file : Files.newDirectoryStream(tilesPath)) {
+		for (Path file : DirectoryWalker.list(tilesPath)) {
 			String filename = file.getFileName().toString();
 			String slice = filename.substring(1, filename.length());
 
@@ -136,12 +128,16 @@ public class TilesStructureTests extends Capability1Tests {
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		DirectoryStream<Path> latitudeCells = Files.newDirectoryStream(tilesPath);
+		List<Path> latitudeCells = DirectoryWalker.list(tilesPath);
 
 		for (Path latCell : latitudeCells) {
-			DirectoryStream<Path> longitudeCells = Files.newDirectoryStream(latCell);
+			List<Path> longitudeCells = DirectoryWalker.list(latCell);
 
 			for (Path lonCell : longitudeCells) {
+				if (!inShard(lonCell)) {
+					continue;
+				}
+
 				String filename = lonCell.getFileName().toString();
 
 				if (!filename.substring(0, 1).equals("E") && !filename.substring(0, 1).equals("W")) {
@@ -169,10 +165,10 @@ public class TilesStructureTests extends Capability1Tests {
 
 		ArrayList<String> errors = new ArrayList<String>();
 
-		DirectoryStream<Path> latitudeCells = Files.newDirectoryStream(tilesPath);
+		List<Path> latitudeCells = DirectoryWalker.list(tilesPath);
 
 		for (Path latCell : latitudeCells) {
-			DirectoryStream<Path> longitudeCells = Files.newDirectoryStream(latCell);
+			List<Path> longitudeCells = DirectoryWalker.list(latCell);
 			String latFilename = latCell.getFileName().toString();
 			String latSlice = latFilename.substring(1, latFilename.length());
 			Integer latSliceID = null;
@@ -184,6 +180,10 @@ public class TilesStructureTests extends Capability1Tests {
 			}
 
 			for (Path lonCell : longitudeCells) {
+				if (!inShard(lonCell)) {
+					continue;
+				}
+
 				String filename = lonCell.getFileName().toString();
 				String slice = filename.substring(1, filename.length());
 				Integer sliceID = 0;
@@ -245,13 +245,17 @@ public class TilesStructureTests extends Capability1Tests {
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
-		DirectoryStream<Path> latitudeCells = Files.newDirectoryStream(tilesPath);
+		List<Path> latitudeCells = DirectoryWalker.list(tilesPath);
 
 		for (Path latCell : latitudeCells) {
-			DirectoryStream<Path> longitudeCells = Files.newDirectoryStream(latCell);
+			List<Path> longitudeCells = DirectoryWalker.list(latCell);
 
 			for (Path lonCell : longitudeCells) {
-				DirectoryStream<Path> datasets = Files.newDirectoryStream(lonCell);
+				if (!inShard(lonCell)) {
+					continue;
+				}
+
+				List<Path> datasets = DirectoryWalker.list(lonCell);
 
 				for (Path dataset : datasets) {
 					String filename = dataset.getFileName().toString();
@@ -295,15 +299,19 @@ public class TilesStructureTests extends Capability1Tests {
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
-		DirectoryStream<Path> latitudeCells = Files.newDirectoryStream(tilesPath);
+		List<Path> latitudeCells = DirectoryWalker.list(tilesPath);
 		CdbReference references = new CdbReference();
 		DatasetsValidator validator = references.buildDatasetsValidator();
 
 		for (Path latCell : latitudeCells) {
-			DirectoryStream<Path> longitudeCells = Files.newDirectoryStream(latCell);
+			List<Path> longitudeCells = DirectoryWalker.list(latCell);
 
 			for (Path lonCell : longitudeCells) {
-				DirectoryStream<Path> datasets = Files.newDirectoryStream(lonCell);
+				if (!inShard(lonCell)) {
+					continue;
+				}
+
+				List<Path> datasets = DirectoryWalker.list(lonCell);
 
 				for (Path dataset : datasets) {
 					String filename = dataset.getFileName().toString();
@@ -357,16 +365,20 @@ public class TilesStructureTests extends Capability1Tests {
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
-		DirectoryStream<Path> latitudeCells = Files.newDirectoryStream(tilesPath);
+		List<Path> latitudeCells = DirectoryWalker.list(tilesPath);
 
 		for (Path latCell : latitudeCells) {
-			DirectoryStream<Path> longitudeCells = Files.newDirectoryStream(latCell);
+			List<Path> longitudeCells = DirectoryWalker.list(latCell);
 
 			for (Path lonCell : longitudeCells) {
-				DirectoryStream<Path> datasets = Files.newDirectoryStream(lonCell);
+				if (!inShard(lonCell)) {
+					continue;
+				}
+
+				List<Path> datasets = DirectoryWalker.list(lonCell);
 
 				for (Path dataset : datasets) {
-					DirectoryStream<Path> lods = Files.newDirectoryStream(dataset, DirectoryStreamFilters.lodFilter());
+					List<Path> lods = DirectoryWalker.listDirectories(dataset);
 
 					for (Path lod : lods) {
 						validateLod(lod.getFileName().toString(), errors);
@@ -395,23 +407,27 @@ public class TilesStructureTests extends Capability1Tests {
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
-		DirectoryStream<Path> latitudeCells = Files.newDirectoryStream(tilesPath);
+		List<Path> latitudeCells = DirectoryWalker.list(tilesPath);
 
 		for (Path latCell : latitudeCells) {
-			DirectoryStream<Path> longitudeCells = Files.newDirectoryStream(latCell);
+			List<Path> longitudeCells = DirectoryWalker.list(latCell);
 
 			for (Path lonCell : longitudeCells) {
-				DirectoryStream<Path> datasets = Files.newDirectoryStream(lonCell);
+				if (!inShard(lonCell)) {
+					continue;
+				}
+
+				List<Path> datasets = DirectoryWalker.list(lonCell);
 
 				for (Path dataset : datasets) {
-					DirectoryStream<Path> lods = Files.newDirectoryStream(dataset, DirectoryStreamFilters.lodFilter());
+					List<Path> lods = DirectoryWalker.listDirectories(dataset);
 
 					for (Path lod : lods) {
 						String lodFilename = lod.getFileName().toString();
 						
 						Integer lodLevel = parseLOD(lodFilename);
 
-						DirectoryStream<Path> urefs = Files.newDirectoryStream(lod);
+						List<Path> urefs = DirectoryWalker.list(lod);
 
 						for (Path uref : urefs) {
 							String filename = uref.getFileName().toString();
@@ -440,6 +456,7 @@ public class TilesStructureTests extends Capability1Tests {
 	 * @throws IOException Error reading from CDB
 	 */
 	@Test(description = "OGC 15-113r3, Section 3.6.2")
+	@Cost(Cost.Stage.FILES)
 	public void verifyDatasetFileName() throws IOException {
 		Path tilesPath = Paths.get(this.path, "Tiles");
 
@@ -448,30 +465,38 @@ public class TilesStructureTests extends Capability1Tests {
 		}
 
 		ArrayList<String> errors = new ArrayList<String>();
-		DirectoryStream<Path> latitudeCells = Files.newDirectoryStream(tilesPath);
+		List<Path> latitudeCells = DirectoryWalker.list(tilesPath);
 		Pattern filePattern = Pattern.compile(FilenamePatterns.Tiles);
+		TilesInventory inventory = new TilesInventory();
 
 		for (Path latCell : latitudeCells) {
 			String latFilename = latCell.getFileName().toString();
-			DirectoryStream<Path> longitudeCells = Files.newDirectoryStream(latCell);
+			List<Path> longitudeCells = DirectoryWalker.list(latCell);
 
 			for (Path lonCell : longitudeCells) {
+				if (!inShard(lonCell)) {
+					continue;
+				}
+
 				String lonFilename = lonCell.getFileName().toString();
-				DirectoryStream<Path> datasets = Files.newDirectoryStream(lonCell);
+				List<Path> datasets = DirectoryWalker.list(lonCell);
 
 				for (Path dataset : datasets) {
 					String datasetFilename = dataset.getFileName().toString();
-					DirectoryStream<Path> lods = Files.newDirectoryStream(dataset, DirectoryStreamFilters.lodFilter());
+					List<Path> lods = DirectoryWalker.listDirectories(dataset);
 
 					for (Path lod : lods) {
 						String lodFilename = lod.getFileName().toString();
-						DirectoryStream<Path> urefs = Files.newDirectoryStream(lod);
+						List<Path> urefs = DirectoryWalker.list(lod);
 
 						for (Path uref : urefs) {
 							String urefFilename = uref.getFileName().toString();
-							DirectoryStream<Path> datasetFiles = Files.newDirectoryStream(uref);
+							List<Path> datasetFiles = DirectoryWalker.list(uref);
 
 							for (Path datasetFile : datasetFiles) {
+								if (TimeBudget.current().isExpired()) {
+									break;
+								}
 								String filename = datasetFile.getFileName().toString();
 								Matcher match = filePattern.matcher(filename);
 								if (!match.find()) {
@@ -516,6 +541,11 @@ public class TilesStructureTests extends Capability1Tests {
 									validateComponentSelectorFormat(cs2, 2, filename, errors);
 									validateComponentSelector2(cs2, cs1, datasetID, errors);
 
+									TileAddress address = TileAddress.parse(filename);
+									if (address != null) {
+										inventory.add(address);
+									}
+
 								}
 							}
 
@@ -527,6 +557,10 @@ public class TilesStructureTests extends Capability1Tests {
 			}
 		}
 
+		// Share the inventory with the coverage tests, so they need not walk
+		// the Tiles directory again
+		TilesInventory.publish(tilesPath, inventory);
+
 		Assert.assertTrue(errors.size() == 0, StringUtils.join(errors, "\n"));
 	}
 }
@@ -2,7 +2,6 @@ package org.opengis.cite.cdb10.metadataAndVersioning;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,6 +12,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.opengis.cite.cdb10.util.SchemaValidatorErrorHandler;
 import org.opengis.cite.cdb10.util.XMLUtils;
 import org.testng.Assert;
@@ -149,7 +149,7 @@ public class LightsXxxXmlStructureTests extends Capability2Tests {
         List<File> lightsXmlFiles = new ArrayList<>();
 
         try {
-            DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(path, "Metadata"));
+            List<Path> stream = DirectoryWalker.list(Paths.get(path, "Metadata"));
             for (Path entry : stream) {
                 if (pathMatcher.matches(entry.getFileName())) {
                     lightsXmlFiles.add(entry.toFile());
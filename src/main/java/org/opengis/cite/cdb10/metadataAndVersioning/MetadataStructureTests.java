@@ -1,6 +1,8 @@
 package org.opengis.cite.cdb10.metadataAndVersioning;
 
 import org.opengis.cite.cdb10.CommonFixture;
+import org.opengis.cite.cdb10.Cost;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -15,6 +17,7 @@ import java.util.List;
 /**
  * Created by serene on 2016-09-01.
  */
+@Cost(Cost.Stage.ROOT)
 public class MetadataStructureTests extends CommonFixture {
 
 	/**
@@ -28,7 +31,7 @@ public class MetadataStructureTests extends CommonFixture {
         Assert.assertTrue(Files.exists(Paths.get(path, "Metadata", "Stylesheet")), "Metadata should contain Stylesheet folder.");
 
         int fileCount = 0;
-        for (Path file : Files.newDirectoryStream(Paths.get(path, "Metadata"))) {
+        for (Path file : DirectoryWalker.list(Paths.get(path, "Metadata"))) {
             if (file.toFile().isDirectory()) {
                 fileCount++;
             }
@@ -0,0 +1,236 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Size and entry count statistics of the ZIP archives of a CDB, aggregated per
+ * dataset code and LOD while the archives are checked. Sizes and entry counts
+ * go into fixed power-of-two histograms, and only the largest few archives of
+ * each group are kept, so memory use does not grow with the size of the CDB.
+ */
+public class ArchiveStatistics {
+
+	/**
+	 * Number of largest archives kept per dataset and LOD
+	 */
+	public static final int LARGEST_ARCHIVES = 5;
+
+	private static final Map<Key, ArchiveStatistics> statistics = new TreeMap<Key, ArchiveStatistics>();
+
+	private final Histogram sizes = new Histogram();
+	private final Histogram entries = new Histogram();
+	private final PriorityQueue<Archive> largest = new PriorityQueue<Archive>();
+
+	/**
+	 * Identifies a group of archives by dataset code and LOD.
+	 */
+	public static class Key implements Comparable<Key> {
+		private final int datasetCode;
+		private final int lod;
+
+		Key(int datasetCode, int lod) {
+			this.datasetCode = datasetCode;
+			this.lod = lod;
+		}
+
+		public int getDatasetCode() {
+			return datasetCode;
+		}
+
+		/**
+		 * @return Level of detail, negative for "LC" levels
+		 */
+		public int getLod() {
+			return lod;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key && compareTo((Key) other) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return datasetCode * 31 + lod;
+		}
+
+		@Override
+		public int compareTo(Key other) {
+			int result = Integer.compare(datasetCode, other.datasetCode);
+			return result == 0 ? Integer.compare(lod, other.lod) : result;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("D%03d %s", datasetCode,
+					lod < 0 ? String.format("LC%02d", -lod) : String.format("L%02d", lod));
+		}
+	}
+
+	/**
+	 * A histogram of non-negative values with one bucket per power of two:
+	 * bucket 0 holds 0, and bucket b holds values in [2^(b-1), 2^b).
+	 */
+	public static class Histogram {
+		private final long[] buckets = new long[65];
+		private long count;
+		private long total;
+		private long max;
+
+		void add(long value) {
+			buckets[64 - Long.numberOfLeadingZeros(value)]++;
+			count++;
+			total += value;
+			max = Math.max(max, value);
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * @param  bucket Bucket index, 0 to 64
+		 * @return        Number of values in the bucket
+		 */
+		public long getBucketCount(int bucket) {
+			return buckets[bucket];
+		}
+
+		/**
+		 * Estimate a percentile as the upper bound of the bucket that contains
+		 * it, so the estimate is at most twice the actual value (and never
+		 * more than the maximum).
+		 *
+		 * @param  percentile Percentile, 0 to 100
+		 * @return            Upper bound for the percentile value
+		 */
+		public long getPercentile(double percentile) {
+			long rank = (long) Math.ceil(count * percentile / 100.0);
+			long seen = 0;
+			for (int bucket = 0; bucket < buckets.length; bucket++) {
+				seen += buckets[bucket];
+				if (seen >= rank && seen > 0) {
+					return bucket == 0 ? 0 : Math.min(max, bucket == 64 ? Long.MAX_VALUE : (1L << bucket) - 1);
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * @return Non-empty buckets as "[low, high): count", for logging
+		 */
+		@Override
+		public String toString() {
+			List<String> parts = new ArrayList<String>();
+			for (int bucket = 0; bucket < buckets.length; bucket++) {
+				if (buckets[bucket] > 0) {
+					long low = bucket == 0 ? 0 : 1L << (bucket - 1);
+					parts.add(String.format("[%d, %s): %d", low,
+							bucket == 0 ? "1" : bucket == 64 ? "inf" : Long.toString(1L << bucket), buckets[bucket]));
+				}
+			}
+			return String.join(", ", parts);
+		}
+	}
+
+	/**
+	 * An archive file name and size, ordered by size.
+	 */
+	public static class Archive implements Comparable<Archive> {
+		private final String name;
+		private final long size;
+
+		Archive(String name, long size) {
+			this.name = name;
+			this.size = size;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		@Override
+		public int compareTo(Archive other) {
+			int result = Long.compare(size, other.size);
+			return result == 0 ? other.name.compareTo(name) : result;
+		}
+	}
+
+	/**
+	 * Record an archive.
+	 *
+	 * @param datasetCode Dataset code of the archive
+	 * @param lod         Level of detail, negative for "LC" levels
+	 * @param name        File name of the archive
+	 * @param size        Size of the archive in bytes
+	 * @param entryCount  Number of entries in the archive
+	 */
+	public static synchronized void record(int datasetCode, int lod, String name, long size, int entryCount) {
+		Key key = new Key(datasetCode, lod);
+		ArchiveStatistics group = statistics.get(key);
+		if (group == null) {
+			group = new ArchiveStatistics();
+			statistics.put(key, group);
+		}
+		group.sizes.add(size);
+		group.entries.add(entryCount);
+		group.largest.add(new Archive(name, size));
+		if (group.largest.size() > LARGEST_ARCHIVES) {
+			group.largest.poll();
+		}
+	}
+
+	/**
+	 * @return Statistics of each dataset and LOD with archives, in order
+	 */
+	public static synchronized Map<Key, ArchiveStatistics> getStatistics() {
+		return Collections.unmodifiableMap(new TreeMap<Key, ArchiveStatistics>(statistics));
+	}
+
+	/**
+	 * Forget all recorded archives, e.g. at the start of a test run.
+	 */
+	public static synchronized void reset() {
+		statistics.clear();
+	}
+
+	/**
+	 * @return Histogram of archive sizes in bytes
+	 */
+	public Histogram getSizes() {
+		return sizes;
+	}
+
+	/**
+	 * @return Histogram of entries per archive
+	 */
+	public Histogram getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return The largest archives, largest first
+	 */
+	public synchronized List<Archive> getLargest() {
+		List<Archive> archives = new ArrayList<Archive>(largest);
+		Collections.sort(archives, Collections.reverseOrder());
+		return archives;
+	}
+}
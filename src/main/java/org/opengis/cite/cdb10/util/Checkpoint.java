@@ -0,0 +1,302 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Records the progress of long-running tests so that an interrupted test run
+ * can be resumed. A test splits its work into units (e.g. geocells) and calls
+ * {@link #complete(String, String, List)} after each one; on resume, completed
+ * units are skipped and the errors saved for them are reported again.
+ *
+ * Only the first {@link #MAX_SAVED_ERRORS} errors of each test are saved. The
+ * checkpoint file is rewritten at most every {@link #SAVE_INTERVAL_MILLIS}
+ * (and at the end of the suite), by writing a temporary file and moving it
+ * over the previous checkpoint, so a crash never leaves a partial file.
+ */
+public class Checkpoint {
+
+	/**
+	 * Maximum number of errors saved per test
+	 */
+	public static final int MAX_SAVED_ERRORS = 1000;
+
+	/**
+	 * Minimum time between writes of the checkpoint file
+	 */
+	public static final long SAVE_INTERVAL_MILLIS = 30000;
+
+	private static final String HEADER = "# ets-cdb10 checkpoint";
+
+	private static volatile Checkpoint current = new Checkpoint(null, null);
+
+	private final Path file;
+	private final String iut;
+	private final Map<String, Set<String>> completedUnits = new HashMap<String, Set<String>>();
+	private final Map<String, List<String>> savedErrors = new HashMap<String, List<String>>();
+	private final Map<String, Integer> droppedErrors = new HashMap<String, Integer>();
+	/**
+	 * Errors of the resumed test run, kept apart from those recorded since
+	 */
+	private final Map<String, List<String>> resumedErrors = new HashMap<String, List<String>>();
+	private final Map<String, Integer> resumedDropped = new HashMap<String, Integer>();
+	private long lastSaved = System.currentTimeMillis();
+
+	private Checkpoint(Path file, String iut) {
+		this.file = file;
+		this.iut = iut;
+	}
+
+	/**
+	 * @return Checkpoint of the current test run; disabled unless
+	 *         {@link #start(Path, String, boolean)} has been called
+	 */
+	public static Checkpoint current() {
+		return current;
+	}
+
+	/**
+	 * Start checkpointing the current test run.
+	 *
+	 * @param  file        Checkpoint file
+	 * @param  iut         Test subject as given in the iut argument, not the
+	 *                     directory an archive was extracted to; must match
+	 *                     the checkpoint to resume from it
+	 * @param  resume      true to skip the units completed in an existing
+	 *                     checkpoint file
+	 * @return             The checkpoint
+	 * @throws IOException Error reading the checkpoint file
+	 */
+	public static Checkpoint start(Path file, String iut, boolean resume) throws IOException {
+		Checkpoint checkpoint = new Checkpoint(file, iut);
+		if (resume && Files.exists(file)) {
+			checkpoint.load();
+		}
+		current = checkpoint;
+		return checkpoint;
+	}
+
+	/**
+	 * Stop checkpointing, e.g. for a test run without a checkpoint file.
+	 */
+	public static void disable() {
+		current = new Checkpoint(null, null);
+	}
+
+	/**
+	 * @return true if progress is being recorded
+	 */
+	public boolean isEnabled() {
+		return file != null;
+	}
+
+	/**
+	 * @param  task Name of the test
+	 * @param  unit Name of the unit of work
+	 * @return      true if the unit was completed in the resumed test run
+	 */
+	public synchronized boolean isCompleted(String task, String unit) {
+		Set<String> units = completedUnits.get(task);
+		return units != null && units.contains(unit);
+	}
+
+	/**
+	 * Get the errors saved for the units of a test completed in the resumed
+	 * test run. Errors of units completed in this test run are not included,
+	 * as the test reports them itself.
+	 *
+	 * @param  task Name of the test
+	 * @return      Saved errors, followed by a note if some were not saved
+	 */
+	public synchronized List<String> getSavedErrors(String task) {
+		List<String> errors = new ArrayList<String>();
+		if (resumedErrors.containsKey(task)) {
+			errors.addAll(resumedErrors.get(task));
+		}
+		if (resumedDropped.containsKey(task)) {
+			errors.add(String.format("%d more errors from completed units were not saved in the checkpoint",
+					resumedDropped.get(task)));
+		}
+		return errors;
+	}
+
+	/**
+	 * Record a completed unit of work and its errors, writing the checkpoint
+	 * file if it has not been written recently. Units finished after the
+	 * {@link TimeBudget} of the test expired may be incomplete, and are not
+	 * recorded.
+	 *
+	 * @param  task        Name of the test
+	 * @param  unit        Name of the unit of work
+	 * @param  errors      Errors found in the unit
+	 * @throws IOException Error writing the checkpoint file
+	 */
+	public synchronized void complete(String task, String unit, List<String> errors) throws IOException {
+		if (!isEnabled() || TimeBudget.current().isExpired()) {
+			return;
+		}
+		addUnit(task, unit);
+		for (String error : errors) {
+			addError(task, error);
+		}
+		if (System.currentTimeMillis() - lastSaved >= SAVE_INTERVAL_MILLIS) {
+			save();
+		}
+	}
+
+	/**
+	 * Write the checkpoint file, replacing the previous one atomically.
+	 *
+	 * @throws IOException Error writing the checkpoint file
+	 */
+	public synchronized void save() throws IOException {
+		if (!isEnabled()) {
+			return;
+		}
+		Path parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				writer.write(HEADER);
+				writer.newLine();
+				writeLine(writer, "iut", iut == null ? "" : iut, null);
+				for (Map.Entry<String, Set<String>> units : completedUnits.entrySet()) {
+					for (String unit : units.getValue()) {
+						writeLine(writer, "unit", units.getKey(), unit);
+					}
+				}
+				for (Map.Entry<String, List<String>> errors : savedErrors.entrySet()) {
+					for (String error : errors.getValue()) {
+						writeLine(writer, "error", errors.getKey(), error);
+					}
+				}
+				for (Map.Entry<String, Integer> dropped : droppedErrors.entrySet()) {
+					writeLine(writer, "dropped", dropped.getKey(), dropped.getValue().toString());
+				}
+			}
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		lastSaved = System.currentTimeMillis();
+	}
+
+	private void load() throws IOException {
+		List<String[]> records = new ArrayList<String[]>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(reader.readLine())) {
+				throw new IOException("Not a checkpoint file: " + file);
+			}
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split("\t", -1);
+				for (int i = 0; i < fields.length; i++) {
+					fields[i] = unescape(fields[i]);
+				}
+				if (fields[0].equals("iut") && fields.length == 2 && !fields[1].equals(iut == null ? "" : iut)) {
+					TestSuiteLogger.log(Level.WARNING, String.format(
+							"Checkpoint %s is for test subject %s, not resuming", file, fields[1]));
+					return;
+				}
+				records.add(fields);
+			}
+		}
+		for (String[] fields : records) {
+			if (fields.length != 3) {
+				continue;
+			}
+			if (fields[0].equals("unit")) {
+				addUnit(fields[1], fields[2]);
+			} else if (fields[0].equals("error")) {
+				addError(fields[1], fields[2]);
+			} else if (fields[0].equals("dropped")) {
+				Integer dropped = droppedErrors.get(fields[1]);
+				droppedErrors.put(fields[1], (dropped == null ? 0 : dropped) + Integer.parseInt(fields[2]));
+			}
+		}
+		for (Map.Entry<String, List<String>> errors : savedErrors.entrySet()) {
+			resumedErrors.put(errors.getKey(), new ArrayList<String>(errors.getValue()));
+		}
+		resumedDropped.putAll(droppedErrors);
+		TestSuiteLogger.log(Level.INFO, String.format("Resuming from checkpoint %s", file));
+	}
+
+	private void addUnit(String task, String unit) {
+		Set<String> units = completedUnits.get(task);
+		if (units == null) {
+			units = new HashSet<String>();
+			completedUnits.put(task, units);
+		}
+		units.add(unit);
+	}
+
+	private void addError(String task, String error) {
+		List<String> errors = savedErrors.get(task);
+		if (errors == null) {
+			errors = new ArrayList<String>();
+			savedErrors.put(task, errors);
+		}
+		if (errors.size() < MAX_SAVED_ERRORS) {
+			errors.add(error);
+		} else {
+			Integer dropped = droppedErrors.get(task);
+			droppedErrors.put(task, (dropped == null ? 0 : dropped) + 1);
+		}
+	}
+
+	/**
+	 * @param  task Name of the test
+	 * @return      Number of completed units of the test
+	 */
+	public synchronized int getCompletedCount(String task) {
+		Set<String> units = completedUnits.get(task);
+		return units == null ? 0 : units.size();
+	}
+
+	private static void writeLine(BufferedWriter writer, String type, String task, String value)
+			throws IOException {
+		writer.write(type);
+		writer.write('\t');
+		writer.write(escape(task));
+		if (value != null) {
+			writer.write('\t');
+			writer.write(escape(value));
+		}
+		writer.newLine();
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private static String unescape(String value) {
+		StringBuilder result = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' && i + 1 < value.length()) {
+				char next = value.charAt(++i);
+				result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+}
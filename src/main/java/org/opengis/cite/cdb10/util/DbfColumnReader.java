@@ -0,0 +1,106 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Streams selected columns of a dBASE (.dbf) file. Records are read in
+ * blocks, and only the bytes of the requested fields are decoded, so wide
+ * attribute tables can be scanned for a few fields cheaply.
+ */
+public class DbfColumnReader {
+
+	private static final int BLOCK_SIZE = 64 * 1024;
+	private static final byte DELETED = '*';
+
+	private DbfColumnReader() {
+	}
+
+	/**
+	 * Receives the values of the requested fields for each record.
+	 */
+	public interface RecordVisitor {
+		/**
+		 * @param record Zero-based record number
+		 * @param values Trimmed values of the requested fields, in request
+		 *               order; null for fields that are not in the file
+		 */
+		void visit(long record, String[] values);
+	}
+
+	/**
+	 * Read the values of some fields from every record that is not marked as
+	 * deleted.
+	 *
+	 * @param  file        Path to .dbf file
+	 * @param  fieldNames  Names of the fields to read, case-insensitive
+	 * @param  visitor     Visitor to run against each record
+	 * @return             Header of the file
+	 * @throws IOException Error reading the file, or the file is truncated
+	 */
+	public static DbfHeader read(Path file, String[] fieldNames, RecordVisitor visitor) throws IOException {
+		DbfHeader header = DbfHeader.read(file);
+		DbfHeader.Field[] fields = new DbfHeader.Field[fieldNames.length];
+		for (int i = 0; i < fieldNames.length; i++) {
+			fields[i] = header.getField(fieldNames[i]);
+		}
+
+		int recordLength = header.getRecordLength();
+		if (recordLength < 1) {
+			throw new IOException("Invalid DBF record length: " + recordLength);
+		}
+		for (DbfHeader.Field field : fields) {
+			if (field != null && field.getOffset() + field.getLength() > recordLength) {
+				throw new IOException("DBF field extends past end of record: " + field.getName());
+			}
+		}
+		int recordsPerBlock = Math.max(1, BLOCK_SIZE / recordLength);
+		ByteBuffer block = ByteBuffer.allocate(recordsPerBlock * recordLength);
+		byte[] scratch = new byte[256];
+		String[] values = new String[fields.length];
+
+		try (FileChannel channel = IoLimiter.open(file)) {
+			long position = header.getHeaderLength();
+			long record = 0;
+			while (record < header.getRecordCount()) {
+				int count = (int) Math.min(recordsPerBlock, header.getRecordCount() - record);
+				((Buffer) block).clear();
+				((Buffer) block).limit(count * recordLength);
+				IoLimiter.read(block.limit());
+				while (block.hasRemaining()) {
+					if (channel.read(block, position + block.position()) < 0) {
+						throw new EOFException("DBF file is truncated at record " + (record + block.position() / recordLength));
+					}
+				}
+
+				for (int i = 0; i < count; i++) {
+					int base = i * recordLength;
+					if (block.get(base) != DELETED) {
+						for (int f = 0; f < fields.length; f++) {
+							values[f] = fields[f] == null ? null : readValue(block, base, fields[f], scratch);
+						}
+						visitor.visit(record + i, values);
+					}
+				}
+
+				position += (long) count * recordLength;
+				record += count;
+			}
+		}
+		return header;
+	}
+
+	private static String readValue(ByteBuffer block, int recordBase, DbfHeader.Field field, byte[] scratch) {
+		int length = field.getLength();
+		int offset = recordBase + field.getOffset();
+		for (int i = 0; i < length; i++) {
+			scratch[i] = block.get(offset + i);
+		}
+		return new String(scratch, 0, length, StandardCharsets.ISO_8859_1).trim();
+	}
+}
@@ -0,0 +1,198 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the header and field descriptors of a dBASE (.dbf) attribute file
+ * without reading any records.
+ */
+public class DbfHeader {
+
+	private static final int PREAMBLE_SIZE = 32;
+	private static final int DESCRIPTOR_SIZE = 32;
+	private static final byte DESCRIPTOR_TERMINATOR = 0x0d;
+
+	private long recordCount;
+	private int headerLength;
+	private int recordLength;
+	private long fileLength;
+	private List<Field> fields;
+
+	private DbfHeader() {
+	}
+
+	/**
+	 * A field (column) descriptor.
+	 */
+	public static class Field {
+		private final String name;
+		private final char type;
+		private final int length;
+		private final int decimalCount;
+		private final int offset;
+
+		Field(String name, char type, int length, int decimalCount, int offset) {
+			this.name = name;
+			this.type = type;
+			this.length = length;
+			this.decimalCount = decimalCount;
+			this.offset = offset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return dBASE field type, e.g. 'C' (character), 'N' (numeric)
+		 */
+		public char getType() {
+			return type;
+		}
+
+		public int getLength() {
+			return length;
+		}
+
+		public int getDecimalCount() {
+			return decimalCount;
+		}
+
+		/**
+		 * @return Offset of the field within a record, after the deletion flag
+		 */
+		public int getOffset() {
+			return offset;
+		}
+	}
+
+	/**
+	 * Read the header and field descriptors of a .dbf file.
+	 *
+	 * @param  file        Path to the file
+	 * @return             Parsed header
+	 * @throws IOException Error reading the file, or the header is truncated
+	 *                     or malformed
+	 */
+	public static DbfHeader read(Path file) throws IOException {
+		try (FileChannel channel = IoLimiter.open(file)) {
+			ByteBuffer preamble = readAt(channel, 0, PREAMBLE_SIZE);
+
+			DbfHeader header = new DbfHeader();
+			header.recordCount = preamble.getInt(4) & 0xffffffffL;
+			header.headerLength = preamble.getShort(8) & 0xffff;
+			header.recordLength = preamble.getShort(10) & 0xffff;
+			header.fileLength = channel.size();
+
+			if (header.headerLength < PREAMBLE_SIZE + 1) {
+				throw new IOException("Invalid DBF header length: " + header.headerLength);
+			}
+
+			ByteBuffer descriptors = readAt(channel, PREAMBLE_SIZE, header.headerLength - PREAMBLE_SIZE);
+			List<Field> fields = new ArrayList<Field>();
+			int offset = 1;
+			int position = 0;
+			while (position < descriptors.limit() && descriptors.get(position) != DESCRIPTOR_TERMINATOR) {
+				if (position + DESCRIPTOR_SIZE > descriptors.limit()) {
+					throw new IOException("DBF field descriptors are not terminated");
+				}
+				int nameEnd = 0;
+				while (nameEnd < 11 && descriptors.get(position + nameEnd) != 0) {
+					nameEnd++;
+				}
+				byte[] name = new byte[nameEnd];
+				for (int i = 0; i < nameEnd; i++) {
+					name[i] = descriptors.get(position + i);
+				}
+				int length = descriptors.get(position + 16) & 0xff;
+				fields.add(new Field(new String(name, StandardCharsets.US_ASCII),
+						(char) descriptors.get(position + 11), length,
+						descriptors.get(position + 17) & 0xff, offset));
+				offset += length;
+				position += DESCRIPTOR_SIZE;
+			}
+			if (position >= descriptors.limit()) {
+				throw new IOException("DBF field descriptors are not terminated");
+			}
+			header.fields = Collections.unmodifiableList(fields);
+			return header;
+		}
+	}
+
+	private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+		IoLimiter.read(length);
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("DBF header is truncated");
+			}
+		}
+		((Buffer) buffer).flip();
+		return buffer;
+	}
+
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * @return Length of the header, including field descriptors, in bytes
+	 */
+	public int getHeaderLength() {
+		return headerLength;
+	}
+
+	/**
+	 * @return Length of each record, including the deletion flag, in bytes
+	 */
+	public int getRecordLength() {
+		return recordLength;
+	}
+
+	public List<Field> getFields() {
+		return fields;
+	}
+
+	/**
+	 * @param  name Field name, case-insensitive
+	 * @return      Field descriptor, or null if there is no such field
+	 */
+	public Field getField(String name) {
+		for (Field field : fields) {
+			if (field.getName().equalsIgnoreCase(name)) {
+				return field;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if the record length equals the deletion flag plus the
+	 *         field lengths
+	 */
+	public boolean isRecordLengthConsistent() {
+		int total = 1;
+		for (Field field : fields) {
+			total += field.getLength();
+		}
+		return total == recordLength;
+	}
+
+	/**
+	 * @return true if the file is long enough to hold every record declared
+	 *         in the header
+	 */
+	public boolean isComplete() {
+		return fileLength >= (long) headerLength + recordCount * recordLength;
+	}
+}
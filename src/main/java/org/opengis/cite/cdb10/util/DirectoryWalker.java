@@ -0,0 +1,531 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Walks CDB directory trees, visiting entries in the same order as
+ * {@link Files#walkFileTree}. The attributes read for each entry during the
+ * walk are handed to the visitor, so callers do not need to stat the entry
+ * again to check its type or size. Visitors that only need the path of the
+ * entries (see {@link PathVisitor}) do not have the entries at the target
+ * depth read at all.
+ *
+ * Each directory is listed into memory and its handle closed before its
+ * entries are visited, so a walk holds at most one directory handle at a time
+ * however deep it goes. The number of directories open at the same time
+ * across all walks is capped (see {@link #setMaxOpenDirectories(int)}).
+ * Counters of opened directories and of entries read are kept for reporting.
+ *
+ * Entries are visited in directory order by default. On storage where seeks
+ * are expensive (spinning disks, tape-backed file systems), the walker can
+ * instead sort entries by inode number before visiting them (see
+ * {@link #setOrder(Order)}), which roughly follows their on-disk layout.
+ *
+ * Walks stop at the next entry once the {@link TimeBudget} of the running
+ * test has expired, returning normally with the entries visited so far.
+ */
+public class DirectoryWalker {
+
+	/**
+	 * Default cap on concurrently open directory handles.
+	 */
+	public static final int DEFAULT_MAX_OPEN_DIRECTORIES = 256;
+
+	private static volatile Semaphore openDirectoryPermits = new Semaphore(DEFAULT_MAX_OPEN_DIRECTORIES);
+	private static volatile int maxOpenDirectories = DEFAULT_MAX_OPEN_DIRECTORIES;
+
+	private static volatile Order order = Order.DIRECTORY;
+
+	private static final Pattern INODE_PATTERN = Pattern.compile("ino=(\\d+)");
+
+	private static final AtomicInteger openDirectories = new AtomicInteger();
+	private static final AtomicInteger peakOpenDirectories = new AtomicInteger();
+	private static final AtomicLong directoriesOpened = new AtomicLong();
+	private static final AtomicLong attributesRead = new AtomicLong();
+
+	private DirectoryWalker() {
+	}
+
+	/**
+	 * Order in which the entries found by a walk are visited.
+	 */
+	public enum Order {
+		/**
+		 * Order returned by the file system when listing a directory.
+		 */
+		DIRECTORY,
+		/**
+		 * Ascending inode number, where the file system exposes one; other
+		 * entries keep directory order and are visited last.
+		 */
+		INODE;
+
+		/**
+		 * Parse an order name, ignoring case.
+		 *
+		 * @param name "directory" or "inode"
+		 * @return Matching Order
+		 */
+		public static Order fromString(String name) {
+			return Order.valueOf(name.trim().toUpperCase());
+		}
+	}
+
+	/**
+	 * Set the order in which {@link #walkAtDepth(Path, int, EntryVisitor)}
+	 * visits the entries it finds.
+	 *
+	 * @param walkOrder Order to use for walks
+	 */
+	public static void setOrder(Order walkOrder) {
+		order = walkOrder;
+	}
+
+	/**
+	 * @return Order used for walks
+	 */
+	public static Order getOrder() {
+		return order;
+	}
+
+	/**
+	 * Set the maximum number of directory handles that may be open at the same
+	 * time. Callers that would exceed the cap wait for a handle to be closed.
+	 *
+	 * @param max Maximum number of open directories, must be positive
+	 */
+	public static void setMaxOpenDirectories(int max) {
+		if (max < 1) {
+			throw new IllegalArgumentException("Maximum open directories must be positive: " + max);
+		}
+		maxOpenDirectories = max;
+		openDirectoryPermits = new Semaphore(max);
+	}
+
+	/**
+	 * @return Maximum number of directory handles that may be open at once
+	 */
+	public static int getMaxOpenDirectories() {
+		return maxOpenDirectories;
+	}
+
+	/**
+	 * @return Number of directory handles currently open
+	 */
+	public static int getOpenDirectoryCount() {
+		return openDirectories.get();
+	}
+
+	/**
+	 * @return Highest number of directory handles open at the same time
+	 */
+	public static int getPeakOpenDirectoryCount() {
+		return peakOpenDirectories.get();
+	}
+
+	/**
+	 * @return Total number of directories opened since the last reset
+	 */
+	public static long getDirectoriesOpenedCount() {
+		return directoriesOpened.get();
+	}
+
+	/**
+	 * @return Total number of entries whose attributes were read since the
+	 *         last reset
+	 */
+	public static long getAttributesReadCount() {
+		return attributesRead.get();
+	}
+
+	/**
+	 * Reset the directory counters, usually at the start of a test run.
+	 */
+	public static void resetCounters() {
+		peakOpenDirectories.set(openDirectories.get());
+		directoriesOpened.set(0);
+		attributesRead.set(0);
+	}
+
+	/**
+	 * List the entries of a directory. The directory handle is closed before
+	 * this method returns, so the result can be iterated in nested loops
+	 * without holding file handles open.
+	 *
+	 * @param  directory   Directory to list
+	 * @return             List of entries in directory order
+	 * @throws IOException Error reading the directory
+	 */
+	public static List<Path> list(Path directory) throws IOException {
+		return list(directory, entry -> true);
+	}
+
+	/**
+	 * List the entries of a directory that are accepted by a filter. The
+	 * directory handle is closed before this method returns. Once the
+	 * {@link TimeBudget} of the running test has expired, listing stops and
+	 * the entries listed so far are returned, so nested loops over listings
+	 * wind down without reading further directories.
+	 *
+	 * @param  directory   Directory to list
+	 * @param  filter      Filter for the entries, e.g. from
+	 *                     {@link DirectoryStreamFilters}
+	 * @return             List of accepted entries in directory order
+	 * @throws IOException Error reading the directory
+	 */
+	public static List<Path> list(Path directory, DirectoryStream.Filter<? super Path> filter) throws IOException {
+		return list(directory, filter, TimeBudget.current());
+	}
+
+	/**
+	 * List the subdirectories of a directory, e.g. the LOD directories of a
+	 * dataset. Each entry is read once, the same way a walk reads it, so
+	 * symbolic links to directories are included.
+	 *
+	 * @param  directory   Directory to list
+	 * @return             List of subdirectories in walk order
+	 * @throws IOException Error reading the directory
+	 */
+	public static List<Path> listDirectories(Path directory) throws IOException {
+		List<Path> directories = new ArrayList<Path>();
+		walkAtDepth(directory, 0, (entry, attributes) -> {
+			if (attributes.isDirectory()) {
+				directories.add(entry);
+			}
+		});
+		return directories;
+	}
+
+	private static List<Path> list(Path directory, DirectoryStream.Filter<? super Path> filter, TimeBudget budget)
+			throws IOException {
+		List<Path> entries = new ArrayList<Path>();
+		if (budget.isExpired()) {
+			return entries;
+		}
+		Semaphore permits = acquireDirectory();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, filter)) {
+			for (Path entry : stream) {
+				if (budget.isExpired()) {
+					break;
+				}
+				entries.add(entry);
+			}
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		} finally {
+			releaseDirectory(permits);
+		}
+		return entries;
+	}
+
+	private static Semaphore acquireDirectory() throws IOException {
+		IoLimiter.list();
+		Semaphore permits = openDirectoryPermits;
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a directory handle");
+		}
+		int open = openDirectories.incrementAndGet();
+		peakOpenDirectories.accumulateAndGet(open, Math::max);
+		directoriesOpened.incrementAndGet();
+		return permits;
+	}
+
+	private static void releaseDirectory(Semaphore permits) {
+		openDirectories.decrementAndGet();
+		permits.release();
+	}
+
+	/**
+	 * Read the attributes of an entry, following symbolic links. Broken links
+	 * get the attributes of the link itself, as with {@link Files#walkFileTree}.
+	 */
+	private static BasicFileAttributes attributesOf(Path entry) throws IOException {
+		attributesRead.incrementAndGet();
+		try {
+			return Files.readAttributes(entry, BasicFileAttributes.class);
+		} catch (IOException e) {
+			return Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		}
+	}
+
+	/**
+	 * @return true if a linked directory is one of the directories being
+	 *         walked, which would make the walk loop
+	 */
+	private static boolean isLoop(Path directory, BasicFileAttributes attributes, Deque<Ancestor> ancestors)
+			throws IOException {
+		Object key = attributes.fileKey();
+		for (Ancestor ancestor : ancestors) {
+			if (key != null && ancestor.key != null) {
+				if (key.equals(ancestor.key)) {
+					return true;
+				}
+			} else if (Files.isSameFile(directory, ancestor.path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Receives an entry found by the walker along with the attributes that
+	 * were read for it during the walk.
+	 */
+	public interface EntryVisitor {
+		void visit(Path entry, BasicFileAttributes attributes) throws IOException;
+	}
+
+	/**
+	 * Receives an entry found by the walker, for visitors that do not need
+	 * its attributes.
+	 */
+	public interface PathVisitor {
+		void visit(Path entry) throws IOException;
+	}
+
+	/**
+	 * Visit all entries (files and directories) a certain depth below a given
+	 * directory. For depth = 0 the entries of the directory itself are
+	 * visited. Non-directory entries found above the target depth are ignored.
+	 * Symbolic links are followed.
+	 *
+	 * With {@link Order#INODE}, all entries at the target depth are collected
+	 * first and visited once the walk is complete, sorted by inode number.
+	 *
+	 * @param  baseDirectory Path to directory into which to "walk"
+	 * @param  depth         How many levels of subdirectories to recurse before
+	 *                       visiting entries
+	 * @param  visitor       Visitor to run against entries at target depth
+	 * @throws IOException   Error reading from base directory or one of its
+	 *                       subdirectories
+	 */
+	public static void walkAtDepth(Path baseDirectory, int depth, EntryVisitor visitor) throws IOException {
+		walkAtDepth(baseDirectory, depth, visitor, true);
+	}
+
+	/**
+	 * Visit all entries (files and directories) a certain depth below a given
+	 * directory, as {@link #walkAtDepth(Path, int, EntryVisitor)} does, but
+	 * without reading the attributes of the entries at the target depth. Only
+	 * the directories above the target depth are read, to know which to enter.
+	 * With {@link Order#INODE} the entries at the target depth are still read,
+	 * as their inode numbers are needed for sorting.
+	 *
+	 * @param  baseDirectory Path to directory into which to "walk"
+	 * @param  depth         How many levels of subdirectories to recurse before
+	 *                       visiting entries
+	 * @param  visitor       Visitor to run against entries at target depth
+	 * @throws IOException   Error reading from base directory or one of its
+	 *                       subdirectories
+	 */
+	public static void walkAtDepth(Path baseDirectory, int depth, PathVisitor visitor) throws IOException {
+		walkAtDepth(baseDirectory, depth, (entry, attributes) -> visitor.visit(entry), false);
+	}
+
+	private static void walkAtDepth(Path baseDirectory, int depth, EntryVisitor visitor, boolean leafAttributes)
+			throws IOException {
+		TimeBudget budget = TimeBudget.current();
+		BasicFileAttributes attributes = attributesOf(baseDirectory);
+		if (!attributes.isDirectory()) {
+			return;
+		}
+		if (order == Order.INODE) {
+			List<SortableEntry> entries = new ArrayList<SortableEntry>();
+			walk(baseDirectory, attributes, 0, depth,
+					(entry, entryAttributes) -> entries.add(new SortableEntry(entry, entryAttributes)),
+					true, new ArrayDeque<Ancestor>(), budget);
+			Collections.sort(entries);
+			for (SortableEntry entry : entries) {
+				if (budget.isExpired()) {
+					break;
+				}
+				visitor.visit(entry.path, entry.attributes);
+			}
+		} else {
+			walk(baseDirectory, attributes, 0, depth, visitor, leafAttributes, new ArrayDeque<Ancestor>(), budget);
+		}
+	}
+
+	/**
+	 * Visit the entries of a directory at the given level below the base
+	 * directory. The directory is listed and its handle closed before its
+	 * entries are visited or its subdirectories walked, so a walk holds at
+	 * most one directory handle at a time whatever its depth. Entries at the
+	 * target depth are visited with null attributes unless leafAttributes is
+	 * set.
+	 */
+	private static void walk(Path directory, BasicFileAttributes attributes, int level, int depth,
+			EntryVisitor visitor, boolean leafAttributes, Deque<Ancestor> ancestors, TimeBudget budget)
+			throws IOException {
+		ancestors.push(new Ancestor(directory, attributes));
+		try {
+			for (Path entry : list(directory, entry -> true, budget)) {
+				if (budget.isExpired()) {
+					return;
+				}
+				if (level == depth) {
+					visitor.visit(entry, leafAttributes ? attributesOf(entry) : null);
+					continue;
+				}
+				BasicFileAttributes entryAttributes = attributesOf(entry);
+				if (entryAttributes.isDirectory() && !isLoop(entry, entryAttributes, ancestors)) {
+					walk(entry, entryAttributes, level + 1, depth, visitor, leafAttributes, ancestors, budget);
+				}
+			}
+		} finally {
+			ancestors.pop();
+		}
+	}
+
+	/**
+	 * Receives the entries found by {@link #walkTree} and decides which
+	 * directories are entered.
+	 */
+	public interface TreeVisitor extends EntryVisitor {
+		/**
+		 * @param  directory   A directory that has just been visited
+		 * @return             true to visit the entries of the directory
+		 * @throws IOException Error evaluating the directory
+		 */
+		boolean enter(Path directory) throws IOException;
+
+		/**
+		 * Called once all entries of an entered directory have been visited.
+		 *
+		 * @param directory The directory
+		 */
+		default void leave(Path directory) {
+		}
+	}
+
+	/**
+	 * Visit the entries (files and directories) below a given directory down
+	 * to a maximum depth, only descending into the directories the visitor
+	 * enters. For maxDepth = 0 only the entries of the directory itself are
+	 * visited. Entries are always visited in directory order, parents before
+	 * their entries. Symbolic links are followed.
+	 *
+	 * @param  baseDirectory Path to directory into which to "walk"
+	 * @param  maxDepth      Deepest level of subdirectories to visit
+	 * @param  visitor       Visitor to run against entries
+	 * @throws IOException   Error reading from base directory or one of its
+	 *                       subdirectories
+	 */
+	public static void walkTree(Path baseDirectory, int maxDepth, TreeVisitor visitor) throws IOException {
+		BasicFileAttributes attributes = attributesOf(baseDirectory);
+		if (!attributes.isDirectory()) {
+			visitor.visit(baseDirectory, attributes);
+			return;
+		}
+		walkTree(baseDirectory, attributes, 0, maxDepth, visitor, new ArrayDeque<Ancestor>(), TimeBudget.current());
+	}
+
+	private static void walkTree(Path directory, BasicFileAttributes attributes, int level, int maxDepth,
+			TreeVisitor visitor, Deque<Ancestor> ancestors, TimeBudget budget) throws IOException {
+		ancestors.push(new Ancestor(directory, attributes));
+		try {
+			for (Path entry : list(directory, entry -> true, budget)) {
+				if (budget.isExpired()) {
+					return;
+				}
+				BasicFileAttributes entryAttributes = attributesOf(entry);
+				if (entryAttributes.isDirectory() && level < maxDepth) {
+					if (isLoop(entry, entryAttributes, ancestors)) {
+						continue;
+					}
+					visitor.visit(entry, entryAttributes);
+					if (visitor.enter(entry)) {
+						walkTree(entry, entryAttributes, level + 1, maxDepth, visitor, ancestors, budget);
+						visitor.leave(entry);
+					}
+				} else {
+					visitor.visit(entry, entryAttributes);
+				}
+			}
+		} finally {
+			ancestors.pop();
+		}
+	}
+
+	/**
+	 * A directory being walked, for detecting loops through symbolic links.
+	 */
+	private static class Ancestor {
+		private final Path path;
+		private final Object key;
+
+		Ancestor(Path path, BasicFileAttributes attributes) {
+			this.path = path;
+			this.key = attributes.fileKey();
+		}
+	}
+
+	/**
+	 * Get the inode number of a file. The file key from the walk attributes is
+	 * used where it carries the inode (Unix file systems), so no additional
+	 * stat is needed; otherwise the "unix:ino" attribute is read.
+	 *
+	 * @param  entry      Path to the file
+	 * @param  attributes Attributes read for the file
+	 * @return            Inode number, or -1 if not available
+	 */
+	static long inodeOf(Path entry, BasicFileAttributes attributes) {
+		Object fileKey = attributes.fileKey();
+		if (fileKey != null) {
+			Matcher match = INODE_PATTERN.matcher(fileKey.toString());
+			if (match.find()) {
+				return Long.parseLong(match.group(1));
+			}
+		}
+		try {
+			Object inode = Files.getAttribute(entry, "unix:ino");
+			return ((Number) inode).longValue();
+		} catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Entry collected during a walk, ordered by inode number. Entries without
+	 * an inode sort last; the sort is stable so they keep directory order.
+	 */
+	private static class SortableEntry implements Comparable<SortableEntry> {
+		private final Path path;
+		private final BasicFileAttributes attributes;
+		private final long inode;
+
+		SortableEntry(Path path, BasicFileAttributes attributes) {
+			this.path = path;
+			this.attributes = attributes;
+			this.inode = inodeOf(path, attributes);
+		}
+
+		@Override
+		public int compareTo(SortableEntry other) {
+			if (this.inode < 0 || other.inode < 0) {
+				return Boolean.compare(this.inode < 0, other.inode < 0);
+			}
+			return Long.compare(this.inode, other.inode);
+		}
+	}
+}
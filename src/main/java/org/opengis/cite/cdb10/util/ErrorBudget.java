@@ -0,0 +1,78 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Number of errors that a test run may find before its expensive tests
+ * (opening archives, reading file contents) are skipped. A CDB that already
+ * fails its naming checks in thousands of places is not worth hours of
+ * archive scanning; the skipped tests are reported as such, and can be run
+ * once the cheaper errors are fixed.
+ *
+ * The budget is unlimited by default.
+ */
+public class ErrorBudget {
+
+	/**
+	 * Budget of a test run that never skips tests
+	 */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private static volatile long limit = UNLIMITED;
+
+	private static final AtomicLong errors = new AtomicLong();
+
+	private ErrorBudget() {
+	}
+
+	/**
+	 * Set the budget and clear the errors counted so far, usually at the start
+	 * of a test run.
+	 *
+	 * @param maxErrors Number of errors allowed before expensive tests are
+	 *                  skipped, or {@link #UNLIMITED}
+	 */
+	public static void reset(long maxErrors) {
+		if (maxErrors < 0) {
+			throw new IllegalArgumentException("Error budget must not be negative: " + maxErrors);
+		}
+		limit = maxErrors;
+		errors.set(0);
+	}
+
+	/**
+	 * @return Number of errors allowed before expensive tests are skipped
+	 */
+	public static long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return Number of errors found by failed tests so far
+	 */
+	public static long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * Count the errors of a failed test.
+	 *
+	 * @param count Number of errors
+	 * @param test  Name of the test, for logging
+	 */
+	public static void add(long count, String test) {
+		long before = errors.getAndAdd(count);
+		if (before <= limit && before + count > limit) {
+			TestSuiteLogger.log(Level.WARNING, String.format(
+					"Error budget of %d exceeded after %s; archive and content tests will be skipped", limit, test));
+		}
+	}
+
+	/**
+	 * @return true if more errors were found than the budget allows
+	 */
+	public static boolean isExceeded() {
+		return errors.get() > limit;
+	}
+}
@@ -0,0 +1,379 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Reads the header and first image file directory (IFD) of a TIFF/GeoTIFF file
+ * without decoding any image data. Only the regions holding the header, the
+ * IFD and the referenced tag values are memory-mapped, so a few kilobytes are
+ * touched per file. Classic TIFF and BigTIFF are supported.
+ */
+public class GeoTiffHeader {
+
+	/** Size of the window mapped at the start of the file. */
+	private static final int HEADER_WINDOW = 16 * 1024;
+
+	private static final int TAG_IMAGE_WIDTH = 256;
+	private static final int TAG_IMAGE_LENGTH = 257;
+	private static final int TAG_BITS_PER_SAMPLE = 258;
+	private static final int TAG_SAMPLES_PER_PIXEL = 277;
+	private static final int TAG_SAMPLE_FORMAT = 339;
+	private static final int TAG_MODEL_PIXEL_SCALE = 33550;
+	private static final int TAG_MODEL_TIEPOINT = 33922;
+	private static final int TAG_MODEL_TRANSFORMATION = 34264;
+	private static final int TAG_GEO_KEY_DIRECTORY = 34735;
+
+	private static final int GEO_KEY_RASTER_TYPE = 1025;
+
+	/** SampleFormat value for unsigned integer data (the TIFF default) */
+	public static final int SAMPLE_FORMAT_UINT = 1;
+	/** SampleFormat value for signed integer data */
+	public static final int SAMPLE_FORMAT_INT = 2;
+	/** SampleFormat value for IEEE floating point data */
+	public static final int SAMPLE_FORMAT_FLOAT = 3;
+
+	/** GTRasterTypeGeoKey value for "PixelIsPoint" */
+	public static final int RASTER_PIXEL_IS_POINT = 2;
+
+	private long width = -1;
+	private long height = -1;
+	private int samplesPerPixel = 1;
+	private int bitsPerSample = 1;
+	private int sampleFormat = SAMPLE_FORMAT_UINT;
+	private double[] pixelScale;
+	private double[] tiepoint;
+	private double[] transformation;
+	private int rasterType = 1;
+
+	private GeoTiffHeader() {
+	}
+
+	/**
+	 * Read the TIFF header and first IFD of a file.
+	 *
+	 * @param  file        Path to TIFF file
+	 * @return             Parsed header
+	 * @throws IOException Error reading the file, or the file is not a valid
+	 *                     TIFF (truncated, bad byte order mark or magic)
+	 */
+	public static GeoTiffHeader read(Path file) throws IOException {
+		try (FileChannel channel = IoLimiter.open(file)) {
+			return new Reader(channel).read();
+		}
+	}
+
+	/**
+	 * @return Image width in pixels
+	 */
+	public long getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return Image height in pixels
+	 */
+	public long getHeight() {
+		return height;
+	}
+
+	public int getSamplesPerPixel() {
+		return samplesPerPixel;
+	}
+
+	/**
+	 * @return Bits per sample of the first sample
+	 */
+	public int getBitsPerSample() {
+		return bitsPerSample;
+	}
+
+	/**
+	 * @return SampleFormat of the first sample, see {@code SAMPLE_FORMAT_*}
+	 */
+	public int getSampleFormat() {
+		return sampleFormat;
+	}
+
+	/**
+	 * @return GTRasterTypeGeoKey value: 1 for PixelIsArea, 2 for PixelIsPoint
+	 */
+	public int getRasterType() {
+		return rasterType;
+	}
+
+	/**
+	 * @return true if the file carries a georeferencing model (tie point and
+	 *         pixel scale, or a transformation matrix)
+	 */
+	public boolean isGeoreferenced() {
+		return (tiepoint != null && tiepoint.length >= 6 && pixelScale != null && pixelScale.length >= 2)
+				|| (transformation != null && transformation.length >= 16);
+	}
+
+	/**
+	 * Compute the extent covered by the raster in model coordinates, as
+	 * {west, south, east, north}. Pixels are treated as areas, so for
+	 * PixelIsPoint rasters, whose tie point is the centre of a pixel, the
+	 * extent is offset by half a pixel.
+	 *
+	 * @return Extent, or null if the file is not georeferenced
+	 */
+	public double[] getExtent() {
+		double scaleX;
+		double scaleY;
+		double west;
+		double north;
+
+		if (tiepoint != null && tiepoint.length >= 6 && pixelScale != null && pixelScale.length >= 2) {
+			scaleX = pixelScale[0];
+			scaleY = pixelScale[1];
+			west = tiepoint[3] - tiepoint[0] * scaleX;
+			north = tiepoint[4] + tiepoint[1] * scaleY;
+		} else if (transformation != null && transformation.length >= 16) {
+			scaleX = transformation[0];
+			scaleY = -transformation[5];
+			west = transformation[3];
+			north = transformation[7];
+		} else {
+			return null;
+		}
+		if (rasterType == RASTER_PIXEL_IS_POINT) {
+			// raster coordinates are at pixel centres, move to the corner
+			west -= scaleX / 2;
+			north += scaleY / 2;
+		}
+
+		return new double[] { west, north - height * scaleY, west + width * scaleX, north };
+	}
+
+	/**
+	 * @return Pixel size in model units as {x, y}, or null if not
+	 *         georeferenced
+	 */
+	public double[] getPixelSize() {
+		if (pixelScale != null && pixelScale.length >= 2) {
+			return new double[] { pixelScale[0], pixelScale[1] };
+		} else if (transformation != null && transformation.length >= 16) {
+			return new double[] { transformation[0], -transformation[5] };
+		}
+		return null;
+	}
+
+	/**
+	 * Walks the IFD entries, mapping value regions outside the header window
+	 * on demand.
+	 */
+	private static class Reader {
+		private final FileChannel channel;
+		private final long size;
+		private ByteBuffer window;
+		private ByteOrder order;
+		private boolean bigTiff;
+
+		Reader(FileChannel channel) throws IOException {
+			this.channel = channel;
+			this.size = channel.size();
+		}
+
+		GeoTiffHeader read() throws IOException {
+			if (size < 8) {
+				throw new IOException("File too short for a TIFF header");
+			}
+			IoLimiter.read(Math.min(size, HEADER_WINDOW));
+			window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEADER_WINDOW));
+
+			if (window.get(0) == 'I' && window.get(1) == 'I') {
+				order = ByteOrder.LITTLE_ENDIAN;
+			} else if (window.get(0) == 'M' && window.get(1) == 'M') {
+				order = ByteOrder.BIG_ENDIAN;
+			} else {
+				throw new IOException("Invalid TIFF byte order mark");
+			}
+			window.order(order);
+
+			int magic = window.getShort(2) & 0xffff;
+			long ifdOffset;
+			if (magic == 42) {
+				bigTiff = false;
+				ifdOffset = window.getInt(4) & 0xffffffffL;
+			} else if (magic == 43 && size >= 16) {
+				bigTiff = true;
+				ifdOffset = window.getLong(8);
+			} else {
+				throw new IOException("Invalid TIFF magic number: " + magic);
+			}
+
+			GeoTiffHeader header = new GeoTiffHeader();
+			readIfd(ifdOffset, header);
+
+			if (header.width < 0 || header.height < 0) {
+				throw new IOException("TIFF is missing image dimensions");
+			}
+			return header;
+		}
+
+		private void readIfd(long offset, GeoTiffHeader header) throws IOException {
+			int countSize = bigTiff ? 8 : 2;
+			int entrySize = bigTiff ? 20 : 12;
+
+			ByteBuffer countBuffer = region(offset, countSize);
+			long entryCount = bigTiff ? countBuffer.getLong(0) : countBuffer.getShort(0) & 0xffff;
+			if (entryCount <= 0 || entryCount > 4096) {
+				throw new IOException("Invalid TIFF IFD entry count: " + entryCount);
+			}
+
+			ByteBuffer entries = region(offset + countSize, (int) entryCount * entrySize);
+			for (int i = 0; i < entryCount; i++) {
+				int base = i * entrySize;
+				int tag = entries.getShort(base) & 0xffff;
+				int type = entries.getShort(base + 2) & 0xffff;
+				long count = bigTiff ? entries.getLong(base + 4) : entries.getInt(base + 4) & 0xffffffffL;
+				int valueField = base + (bigTiff ? 12 : 8);
+
+				switch (tag) {
+				case TAG_IMAGE_WIDTH:
+					header.width = readNumbers(entries, valueField, type, 1)[0];
+					break;
+				case TAG_IMAGE_LENGTH:
+					header.height = readNumbers(entries, valueField, type, 1)[0];
+					break;
+				case TAG_SAMPLES_PER_PIXEL:
+					header.samplesPerPixel = (int) readNumbers(entries, valueField, type, 1)[0];
+					break;
+				case TAG_BITS_PER_SAMPLE:
+					header.bitsPerSample = (int) readNumbers(entries, valueField, type, count)[0];
+					break;
+				case TAG_SAMPLE_FORMAT:
+					header.sampleFormat = (int) readNumbers(entries, valueField, type, count)[0];
+					break;
+				case TAG_MODEL_PIXEL_SCALE:
+					header.pixelScale = readDoubles(entries, valueField, type, count);
+					break;
+				case TAG_MODEL_TIEPOINT:
+					header.tiepoint = readDoubles(entries, valueField, type, count);
+					break;
+				case TAG_MODEL_TRANSFORMATION:
+					header.transformation = readDoubles(entries, valueField, type, count);
+					break;
+				case TAG_GEO_KEY_DIRECTORY:
+					readGeoKeys(readNumbers(entries, valueField, type, count), header);
+					break;
+				default:
+					break;
+				}
+			}
+		}
+
+		private void readGeoKeys(long[] directory, GeoTiffHeader header) {
+			// header: version, revision, minor revision, number of keys
+			if (directory.length < 4) {
+				return;
+			}
+			int keyCount = (int) directory[3];
+			for (int k = 0; k < keyCount && 4 + k * 4 + 3 < directory.length; k++) {
+				int base = 4 + k * 4;
+				// key id, tag location (0 = value inline), count, value
+				if (directory[base] == GEO_KEY_RASTER_TYPE && directory[base + 1] == 0) {
+					header.rasterType = (int) directory[base + 3];
+				}
+			}
+		}
+
+		/**
+		 * Buffer holding the values of an entry, either inline in the entry
+		 * or at the offset stored there.
+		 */
+		private ByteBuffer values(ByteBuffer entries, int valueField, int type, long count) throws IOException {
+			long length = count * typeSize(type);
+			int inlineSize = bigTiff ? 8 : 4;
+			if (length <= inlineSize) {
+				ByteBuffer inline = entries.duplicate();
+				((Buffer) inline).position(valueField);
+				return inline.slice().order(order);
+			}
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("TIFF tag value too large");
+			}
+			long offset = bigTiff ? entries.getLong(valueField) : entries.getInt(valueField) & 0xffffffffL;
+			return region(offset, (int) length);
+		}
+
+		private long[] readNumbers(ByteBuffer entries, int valueField, int type, long count) throws IOException {
+			if (count < 1) {
+				throw new IOException("TIFF tag has no values");
+			}
+			ByteBuffer buffer = values(entries, valueField, type, count);
+			long[] numbers = new long[(int) count];
+			for (int i = 0; i < count; i++) {
+				switch (type) {
+				case 1:
+				case 7:
+					numbers[i] = buffer.get(i) & 0xff;
+					break;
+				case 3:
+					numbers[i] = buffer.getShort(i * 2) & 0xffff;
+					break;
+				case 4:
+					numbers[i] = buffer.getInt(i * 4) & 0xffffffffL;
+					break;
+				case 16:
+					numbers[i] = buffer.getLong(i * 8);
+					break;
+				default:
+					throw new IOException("Unexpected TIFF field type " + type);
+				}
+			}
+			return numbers;
+		}
+
+		private double[] readDoubles(ByteBuffer entries, int valueField, int type, long count) throws IOException {
+			if (type != 12) {
+				throw new IOException("Expected DOUBLE values for GeoTIFF tag, found type " + type);
+			}
+			ByteBuffer buffer = values(entries, valueField, type, count);
+			double[] doubles = new double[(int) count];
+			for (int i = 0; i < count; i++) {
+				doubles[i] = buffer.getDouble(i * 8);
+			}
+			return doubles;
+		}
+
+		/**
+		 * Return a buffer for a region of the file, sliced from the header
+		 * window where possible and memory-mapped otherwise.
+		 */
+		private ByteBuffer region(long offset, int length) throws IOException {
+			if (offset < 0 || offset + length > size) {
+				throw new IOException("TIFF structure extends past end of file (truncated?)");
+			}
+			if (offset + length <= window.limit()) {
+				ByteBuffer slice = window.duplicate();
+				((Buffer) slice).position((int) offset);
+				((Buffer) slice).limit((int) offset + length);
+				return slice.slice().order(order);
+			}
+			IoLimiter.read(length);
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(order);
+		}
+
+		private static int typeSize(int type) throws IOException {
+			switch (type) {
+			case 1: case 2: case 6: case 7:
+				return 1;
+			case 3: case 8:
+				return 2;
+			case 4: case 9: case 11:
+				return 4;
+			case 5: case 10: case 12: case 16: case 17: case 18:
+				return 8;
+			default:
+				throw new IOException("Unknown TIFF field type " + type);
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The geocells covered by each tiled dataset of a CDB, kept as one 180x360
+ * bitset of one-degree cells per dataset code. A geocell wider than one degree
+ * of longitude (see {@link TileAddress#sliceWidthForLatitude(int)}) sets all
+ * of the cells it spans, so the coverage of datasets can be compared with a
+ * single bitwise operation.
+ */
+public class GeocellCoverage {
+
+	private static final int ROWS = 180;
+	private static final int COLUMNS = 360;
+
+	private final Map<Integer, BitSet> coverage = new TreeMap<Integer, BitSet>();
+
+	/**
+	 * Mark a geocell as covered by a dataset.
+	 *
+	 * @param datasetCode Dataset code
+	 * @param latitude    South edge of the geocell in degrees
+	 * @param longitude   West edge of the geocell in degrees
+	 */
+	public void add(int datasetCode, int latitude, int longitude) {
+		if (latitude < -90 || latitude >= 90 || longitude < -180 || longitude >= 180) {
+			return;
+		}
+		BitSet cells = coverage.get(datasetCode);
+		if (cells == null) {
+			cells = new BitSet(ROWS * COLUMNS);
+			coverage.put(datasetCode, cells);
+		}
+		int start = cellIndex(latitude, longitude);
+		int end = Math.min(longitude + TileAddress.sliceWidthForLatitude(latitude), 180);
+		cells.set(start, start + end - longitude);
+	}
+
+	/**
+	 * @return Codes of the datasets with at least one geocell
+	 */
+	public SortedSet<Integer> getDatasetCodes() {
+		return Collections.unmodifiableSortedSet(new TreeSet<Integer>(coverage.keySet()));
+	}
+
+	/**
+	 * @param  datasetCode Dataset code
+	 * @param  latitude    Latitude in degrees
+	 * @param  longitude   Longitude in degrees
+	 * @return             true if the dataset covers the one-degree cell
+	 */
+	public boolean covers(int datasetCode, int latitude, int longitude) {
+		BitSet cells = coverage.get(datasetCode);
+		return cells != null && cells.get(cellIndex(latitude, longitude));
+	}
+
+	/**
+	 * @param  datasetCode Dataset code
+	 * @return             Area covered by the dataset in one-degree cells
+	 */
+	public int getCellCount(int datasetCode) {
+		BitSet cells = coverage.get(datasetCode);
+		return cells == null ? 0 : cells.cardinality();
+	}
+
+	/**
+	 * @param  datasetCode Dataset code
+	 * @return             Number of geocells covered by the dataset
+	 */
+	public int getGeocellCount(int datasetCode) {
+		BitSet cells = coverage.get(datasetCode);
+		return cells == null ? 0 : geocellsIn(cells).size();
+	}
+
+	/**
+	 * Find the geocells covered by one dataset that are not covered by another.
+	 *
+	 * @param  datasetCode  Dataset code
+	 * @param  requiredCode Code of the dataset that should cover the same area
+	 * @return              Geocell names, e.g. "N62W162", south to north
+	 */
+	public List<String> getGeocellsMissing(int datasetCode, int requiredCode) {
+		BitSet cells = coverage.get(datasetCode);
+		if (cells == null) {
+			return Collections.emptyList();
+		}
+		BitSet missing = (BitSet) cells.clone();
+		BitSet required = coverage.get(requiredCode);
+		if (required != null) {
+			missing.andNot(required);
+		}
+		return geocellsIn(missing);
+	}
+
+	/**
+	 * List the geocells with any covered cell, using the geocell that contains
+	 * each cell so that a partially covered wide geocell is listed once.
+	 */
+	private static List<String> geocellsIn(BitSet cells) {
+		List<String> geocells = new ArrayList<String>();
+		int lastGeocell = -1;
+		for (int i = cells.nextSetBit(0); i >= 0; i = cells.nextSetBit(i + 1)) {
+			int latitude = i / COLUMNS - 90;
+			int column = i % COLUMNS;
+			int width = TileAddress.sliceWidthForLatitude(latitude);
+			int geocell = (latitude + 90) * COLUMNS + column - column % width;
+			if (geocell != lastGeocell) {
+				geocells.add(TilesInventory.geocellName(latitude, column - column % width - 180));
+				lastGeocell = geocell;
+			}
+		}
+		return geocells;
+	}
+
+	private static int cellIndex(int latitude, int longitude) {
+		return (latitude + 90) * COLUMNS + (longitude + 180);
+	}
+}
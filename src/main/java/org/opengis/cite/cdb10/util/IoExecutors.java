@@ -0,0 +1,222 @@
+package org.opengis.cite.cdb10.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Creates the executors that run directory and archive tasks, such as
+ * validating a geocell or opening a ZIP archive.
+ *
+ * By default these run on a fixed pool of platform threads, one per
+ * processor. On network file systems, where each directory listing or archive
+ * open waits milliseconds for the server, the tasks can instead run on
+ * virtual threads (see {@link #setMode(Mode)}): each task gets its own thread,
+ * and the number of tasks doing I/O at the same time is capped by a semaphore
+ * (see {@link #setMaxOutstanding(int)}) rather than by the number of threads.
+ *
+ * Virtual threads need Java 21 or later. They are looked up by reflection, as
+ * the suite targets Java 8; on older runtimes the platform pools are used.
+ */
+public class IoExecutors {
+
+	/**
+	 * Default cap on tasks doing I/O at the same time on virtual threads.
+	 */
+	public static final int DEFAULT_MAX_OUTSTANDING = 1024;
+
+	private static volatile Mode mode = Mode.PLATFORM;
+
+	private static volatile int maxOutstanding = DEFAULT_MAX_OUTSTANDING;
+	private static volatile Semaphore outstandingPermits = new Semaphore(DEFAULT_MAX_OUTSTANDING);
+
+	private static final Method OF_VIRTUAL = findOfVirtual();
+
+	private IoExecutors() {
+	}
+
+	/**
+	 * Kind of threads that run directory and archive tasks.
+	 */
+	public enum Mode {
+		/**
+		 * Fixed pools of platform threads, one thread per processor.
+		 */
+		PLATFORM,
+		/**
+		 * One virtual thread per task, falling back to platform threads when
+		 * the runtime has no virtual threads.
+		 */
+		VIRTUAL;
+
+		/**
+		 * Parse a mode name, ignoring case.
+		 *
+		 * @param name "platform" or "virtual"
+		 * @return Matching Mode
+		 */
+		public static Mode fromString(String name) {
+			return Mode.valueOf(name.trim().toUpperCase());
+		}
+	}
+
+	/**
+	 * Set the kind of threads used by executors created after this call.
+	 *
+	 * @param executorMode Kind of threads to use
+	 */
+	public static void setMode(Mode executorMode) {
+		if (executorMode == Mode.VIRTUAL && OF_VIRTUAL == null) {
+			TestSuiteLogger.log(Level.WARNING,
+					"Virtual threads are not available on this Java runtime; using platform threads");
+		}
+		mode = executorMode;
+	}
+
+	/**
+	 * @return Kind of threads requested for directory and archive tasks
+	 */
+	public static Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return true if tasks run on virtual threads
+	 */
+	public static boolean isVirtual() {
+		return mode == Mode.VIRTUAL && OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Set the maximum number of tasks that may do I/O at the same time on
+	 * virtual threads. Submitting a task beyond the cap waits for a running
+	 * task to finish.
+	 *
+	 * @param max Maximum number of outstanding tasks, must be positive
+	 */
+	public static void setMaxOutstanding(int max) {
+		if (max < 1) {
+			throw new IllegalArgumentException("Maximum outstanding I/O tasks must be positive: " + max);
+		}
+		maxOutstanding = max;
+		outstandingPermits = new Semaphore(max);
+	}
+
+	/**
+	 * @return Maximum number of tasks doing I/O at once on virtual threads
+	 */
+	public static int getMaxOutstanding() {
+		return maxOutstanding;
+	}
+
+	/**
+	 * Number of threads for work that is split up front, such as the workers
+	 * of a {@link ValidationPipeline} stage.
+	 *
+	 * @param  platformThreads Number of threads to use with platform threads
+	 * @return                 platformThreads, or the outstanding I/O cap
+	 *                         with virtual threads
+	 */
+	public static int getParallelism(int platformThreads) {
+		return isVirtual() ? Math.max(platformThreads, maxOutstanding) : platformThreads;
+	}
+
+	/**
+	 * Create an executor for directory or archive tasks. With virtual threads,
+	 * each task runs on a new virtual thread once one of the outstanding I/O
+	 * permits is free; submitting blocks until then.
+	 *
+	 * @param  name            Prefix of the thread names
+	 * @param  platformThreads Size of the pool with platform threads
+	 * @return                 Executor, to be shut down by the caller
+	 */
+	public static ExecutorService newExecutor(String name, int platformThreads) {
+		if (!isVirtual()) {
+			return Executors.newFixedThreadPool(Math.max(1, platformThreads));
+		}
+		return new BoundedExecutor(newThreadFactory(name), outstandingPermits);
+	}
+
+	/**
+	 * Create a factory for threads that run directory or archive tasks: virtual
+	 * threads if enabled, otherwise daemon platform threads.
+	 *
+	 * @param  name Prefix of the thread names
+	 * @return      Thread factory
+	 */
+	public static ThreadFactory newThreadFactory(String name) {
+		if (isVirtual()) {
+			try {
+				Object builder = OF_VIRTUAL.invoke(null);
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+				return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			} catch (ReflectiveOperationException e) {
+				TestSuiteLogger.log(Level.WARNING, "Failed to create virtual threads; using platform threads", e);
+			}
+		}
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Find Thread.ofVirtual(), if the runtime has it and it can be used.
+	 */
+	private static Method findOfVirtual() {
+		try {
+			Method ofVirtual = Thread.class.getMethod("ofVirtual");
+			// preview API before Java 21, fails unless previews are enabled
+			ofVirtual.invoke(null);
+			return ofVirtual;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Runs each task on a new thread, with a semaphore capping the number of
+	 * tasks that have been submitted but have not finished.
+	 */
+	private static class BoundedExecutor extends ThreadPoolExecutor {
+		private final Semaphore permits;
+
+		BoundedExecutor(ThreadFactory threadFactory, Semaphore permits) {
+			super(0, Integer.MAX_VALUE, 1, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), threadFactory);
+			this.permits = permits;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for an I/O permit", e);
+			}
+			try {
+				super.execute(() -> {
+					try {
+						command.run();
+					} finally {
+						permits.release();
+					}
+				});
+			} catch (RuntimeException e) {
+				permits.release();
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipFile;
+
+/**
+ * Limits the rate of I/O against the CDB, so that a test run can validate a
+ * CDB that is being served from shared storage without starving its other
+ * users. Directory listings, file opens and bytes read each have their own
+ * token bucket; a rate of 0 (the default) means no limit.
+ *
+ * The limits are applied where the suite touches the file system: directory
+ * listings in {@link DirectoryWalker}, and files opened and read through
+ * {@link #open(Path)}, {@link #openZip(File)} and {@link #read(long)} by the
+ * archive and header readers. Rates can be changed while a test run is in
+ * progress; callers already waiting keep their current delay.
+ */
+public class IoLimiter {
+
+	/**
+	 * Kind of I/O that is limited.
+	 */
+	public enum Resource {
+		/**
+		 * Bytes read from files
+		 */
+		BYTES,
+		/**
+		 * Directories listed
+		 */
+		LISTINGS,
+		/**
+		 * Files opened
+		 */
+		OPENS
+	}
+
+	private static final Map<Resource, TokenBucket> buckets = new EnumMap<Resource, TokenBucket>(Resource.class);
+
+	static {
+		for (Resource resource : Resource.values()) {
+			buckets.put(resource, new TokenBucket());
+		}
+	}
+
+	private IoLimiter() {
+	}
+
+	/**
+	 * Set the rate limit for a kind of I/O. Up to one second's worth of
+	 * unused permits is saved up, so short bursts are not delayed.
+	 *
+	 * @param resource Kind of I/O
+	 * @param rate     Maximum units per second, or 0 for no limit
+	 */
+	public static void setRate(Resource resource, double rate) {
+		if (rate < 0 || Double.isNaN(rate) || Double.isInfinite(rate)) {
+			throw new IllegalArgumentException("Invalid rate for " + resource + ": " + rate);
+		}
+		buckets.get(resource).setRate(rate);
+	}
+
+	/**
+	 * @param  resource Kind of I/O
+	 * @return          Maximum units per second, or 0 for no limit
+	 */
+	public static double getRate(Resource resource) {
+		return buckets.get(resource).getRate();
+	}
+
+	/**
+	 * @param  resource Kind of I/O
+	 * @return          Units of I/O done since the last reset
+	 */
+	public static long getCount(Resource resource) {
+		return buckets.get(resource).count.get();
+	}
+
+	/**
+	 * @param  resource Kind of I/O
+	 * @return          Total time callers waited for this kind of I/O since
+	 *                  the last reset, in milliseconds
+	 */
+	public static long getWaitedMillis(Resource resource) {
+		return TimeUnit.NANOSECONDS.toMillis(buckets.get(resource).waited.get());
+	}
+
+	/**
+	 * Reset the counters, usually at the start of a test run. Rates are kept.
+	 */
+	public static void resetCounters() {
+		for (TokenBucket bucket : buckets.values()) {
+			bucket.count.set(0);
+			bucket.waited.set(0);
+		}
+	}
+
+	/**
+	 * Wait until a directory may be listed.
+	 *
+	 * @throws IOException Interrupted while waiting
+	 */
+	public static void list() throws IOException {
+		buckets.get(Resource.LISTINGS).acquire(1);
+	}
+
+	/**
+	 * Wait until a number of bytes may be read. Reads larger than the rate
+	 * proceed, and later callers wait for the excess.
+	 *
+	 * @param  bytes       Number of bytes about to be read
+	 * @throws IOException Interrupted while waiting
+	 */
+	public static void read(long bytes) throws IOException {
+		buckets.get(Resource.BYTES).acquire(bytes);
+	}
+
+	/**
+	 * Open a file for reading once the open rate allows it.
+	 *
+	 * @param  file        Path to the file
+	 * @return             Channel, to be closed by the caller
+	 * @throws IOException Error opening the file, or interrupted while waiting
+	 */
+	public static FileChannel open(Path file) throws IOException {
+		buckets.get(Resource.OPENS).acquire(1);
+		return FileChannel.open(file, StandardOpenOption.READ);
+	}
+
+	/**
+	 * Open a ZIP archive once the open rate allows it. ZipFile reads the
+	 * central directory when it is opened, which is counted as read bytes.
+	 *
+	 * @param  file        ZIP archive
+	 * @return             ZipFile, to be closed by the caller
+	 * @throws IOException Error opening the archive, or interrupted while
+	 *                     waiting
+	 */
+	public static ZipFile openZip(File file) throws IOException {
+		buckets.get(Resource.OPENS).acquire(1);
+		ZipFile zip = new ZipFile(file);
+		try {
+			// approximate central directory size: fixed header and name per entry
+			read(zip.size() * 64L);
+		} catch (IOException e) {
+			zip.close();
+			throw e;
+		}
+		return zip;
+	}
+
+	/**
+	 * Token bucket that lets callers go into debt: a request larger than the
+	 * saved permits is granted at once, and the caller waits until the rate
+	 * has paid it off. Later callers queue behind the debt.
+	 */
+	private static class TokenBucket {
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong waited = new AtomicLong();
+		private double rate;
+		private double permits;
+		private long updated = System.nanoTime();
+
+		synchronized void setRate(double newRate) {
+			refill(System.nanoTime());
+			// a new limit starts with a full bucket
+			permits = (rate == 0) ? newRate : Math.min(permits, newRate);
+			rate = newRate;
+		}
+
+		synchronized double getRate() {
+			return rate;
+		}
+
+		void acquire(long units) throws IOException {
+			count.addAndGet(units);
+			long delay = reserve(units);
+			if (delay <= 0) {
+				return;
+			}
+			waited.addAndGet(delay);
+			try {
+				TimeUnit.NANOSECONDS.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the I/O rate limit");
+			}
+		}
+
+		/**
+		 * @return Nanoseconds to wait before using the units
+		 */
+		private synchronized long reserve(long units) {
+			if (rate == 0) {
+				return 0;
+			}
+			long now = System.nanoTime();
+			refill(now);
+			permits -= units;
+			return permits >= 0 ? 0 : (long) (-permits / rate * TimeUnit.SECONDS.toNanos(1));
+		}
+
+		private void refill(long now) {
+			if (rate > 0) {
+				permits = Math.min(rate, permits + (now - updated) * rate / TimeUnit.SECONDS.toNanos(1));
+			}
+			updated = now;
+		}
+	}
+}
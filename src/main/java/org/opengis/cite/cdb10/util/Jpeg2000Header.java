@@ -0,0 +1,377 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Reads the box structure of a JP2 file (or a raw J2K codestream) and the SIZ
+ * and COD markers of its codestream without decoding any image data. The
+ * tile-parts of the codestream are walked using the lengths in their SOT
+ * markers, so a truncated file is detected after reading a few bytes per
+ * tile-part.
+ */
+public class Jpeg2000Header {
+
+	private static final byte[] JP2_SIGNATURE = { 0, 0, 0, 12, 'j', 'P', ' ', ' ', 0x0d, 0x0a, (byte) 0x87, 0x0a };
+
+	private static final int BOX_JP2H = 0x6a703268;
+	private static final int BOX_IHDR = 0x69686472;
+	private static final int BOX_JP2C = 0x6a703263;
+
+	private static final int MARKER_SOC = 0xff4f;
+	private static final int MARKER_SIZ = 0xff51;
+	private static final int MARKER_COD = 0xff52;
+	private static final int MARKER_SOT = 0xff90;
+	private static final int MARKER_EOC = 0xffd9;
+
+	/**
+	 * Highest number of tiles a codestream can address, as tile indexes (Isot)
+	 * are 16 bits
+	 */
+	public static final int MAX_TILES = 65535;
+
+	private long width;
+	private long height;
+	private long tileWidth;
+	private long tileHeight;
+	private long tileOffsetX;
+	private long tileOffsetY;
+	private long imageOffsetX;
+	private long imageOffsetY;
+	private long tileCount;
+	private int components;
+	private int[] bitDepths;
+	private boolean[] signed;
+	private int decompositionLevels = -1;
+	private int layers = -1;
+	private int tileParts;
+	private int tilesFound;
+	private boolean jp2;
+	private long headerWidth = -1;
+	private long headerHeight = -1;
+	private int headerComponents = -1;
+
+	private Jpeg2000Header() {
+	}
+
+	/**
+	 * Read the JP2 boxes and codestream main header of a file, and walk its
+	 * tile-parts.
+	 *
+	 * @param  file        Path to a JP2 file or raw codestream
+	 * @return             Parsed header
+	 * @throws IOException Error reading the file, or the file is malformed or
+	 *                     truncated
+	 */
+	public static Jpeg2000Header read(Path file) throws IOException {
+		try (FileChannel channel = IoLimiter.open(file)) {
+			Jpeg2000Header header = new Jpeg2000Header();
+			long size = channel.size();
+			ByteBuffer start = readAt(channel, 0, (int) Math.min(size, JP2_SIGNATURE.length));
+
+			if (startsWith(start, JP2_SIGNATURE)) {
+				header.jp2 = true;
+				long[] codestream = header.readBoxes(channel, size);
+				header.readCodestream(channel, codestream[0], codestream[1]);
+			} else if (start.limit() >= 2 && (start.getShort(0) & 0xffff) == MARKER_SOC) {
+				header.readCodestream(channel, 0, size);
+			} else {
+				throw new IOException("Not a JP2 file or JPEG 2000 codestream");
+			}
+			return header;
+		}
+	}
+
+	/**
+	 * Walk the top-level boxes, reading the image header box and returning the
+	 * start and end of the contiguous codestream box contents.
+	 */
+	private long[] readBoxes(FileChannel channel, long size) throws IOException {
+		long position = 0;
+		while (position < size) {
+			ByteBuffer box = readAt(channel, position, 8);
+			long length = box.getInt(0) & 0xffffffffL;
+			int type = box.getInt(4);
+			long contentStart = position + 8;
+
+			if (length == 1) {
+				length = readAt(channel, position + 8, 8).getLong(0);
+				contentStart = position + 16;
+			} else if (length == 0) {
+				// box extends to the end of the file
+				length = size - position;
+			}
+			if (length < contentStart - position || position + length > size) {
+				throw new EOFException("JP2 box extends past end of file (truncated?)");
+			}
+
+			if (type == BOX_JP2H) {
+				readImageHeader(channel, contentStart, position + length);
+			} else if (type == BOX_JP2C) {
+				return new long[] { contentStart, position + length };
+			}
+			position += length;
+		}
+		throw new IOException("JP2 file has no contiguous codestream box");
+	}
+
+	private void readImageHeader(FileChannel channel, long start, long end) throws IOException {
+		long position = start;
+		while (position + 8 <= end) {
+			ByteBuffer box = readAt(channel, position, 8);
+			long length = box.getInt(0) & 0xffffffffL;
+			if (box.getInt(4) == BOX_IHDR && length >= 22) {
+				ByteBuffer ihdr = readAt(channel, position + 8, 14);
+				headerHeight = ihdr.getInt(0) & 0xffffffffL;
+				headerWidth = ihdr.getInt(4) & 0xffffffffL;
+				headerComponents = ihdr.getShort(8) & 0xffff;
+				return;
+			}
+			if (length < 8) {
+				break;
+			}
+			position += length;
+		}
+		throw new IOException("JP2 header box has no image header");
+	}
+
+	private void readCodestream(FileChannel channel, long start, long end) throws IOException {
+		if ((readAt(channel, start, 2).getShort(0) & 0xffff) != MARKER_SOC) {
+			throw new IOException("Codestream does not start with SOC marker");
+		}
+
+		// main header: marker segments up to the first SOT
+		long position = start + 2;
+		boolean sizFound = false;
+		while (true) {
+			if (position + 4 > end) {
+				throw new EOFException("Codestream main header is truncated");
+			}
+			ByteBuffer segment = readAt(channel, position, 4);
+			int marker = segment.getShort(0) & 0xffff;
+			int length = segment.getShort(2) & 0xffff;
+
+			if (marker == MARKER_SOT) {
+				break;
+			}
+			if ((marker & 0xff00) != 0xff00 || length < 2) {
+				throw new IOException(String.format("Invalid marker 0x%04x in codestream main header", marker));
+			}
+			if (position + 2 + length > end) {
+				throw new EOFException("Codestream main header is truncated");
+			}
+			if (marker == MARKER_SIZ) {
+				readSiz(readAt(channel, position + 4, length - 2));
+				sizFound = true;
+			} else if (marker == MARKER_COD && length >= 12) {
+				ByteBuffer cod = readAt(channel, position + 4, length - 2);
+				layers = cod.getShort(2) & 0xffff;
+				decompositionLevels = cod.get(5) & 0xff;
+			}
+			position += 2 + length;
+		}
+
+		if (!sizFound) {
+			throw new IOException("Codestream has no SIZ marker");
+		}
+
+		// tile-parts: SOT Lsot Isot Psot TPsot TNsot
+		boolean[] seen = new boolean[(int) tileCount];
+		while (true) {
+			ByteBuffer sot = readAt(channel, position, Math.min(12, (int) Math.max(0, end - position)));
+			if (sot.limit() >= 2 && (sot.getShort(0) & 0xffff) == MARKER_EOC) {
+				break;
+			}
+			if (sot.limit() < 12 || (sot.getShort(0) & 0xffff) != MARKER_SOT) {
+				throw new EOFException("Codestream is truncated or missing EOC marker");
+			}
+			int tileIndex = sot.getShort(4) & 0xffff;
+			long partLength = sot.getInt(6) & 0xffffffffL;
+
+			if (tileIndex >= seen.length) {
+				throw new IOException("Tile index out of range: " + tileIndex);
+			}
+			if (!seen[tileIndex]) {
+				seen[tileIndex] = true;
+				tilesFound++;
+			}
+			tileParts++;
+
+			if (partLength == 0) {
+				// last tile-part, runs to the EOC marker
+				if ((readAt(channel, end - 2, 2).getShort(0) & 0xffff) != MARKER_EOC) {
+					throw new EOFException("Codestream is truncated or missing EOC marker");
+				}
+				break;
+			}
+			if (partLength < 12 || position + partLength > end) {
+				throw new EOFException("Tile-part extends past end of codestream (truncated?)");
+			}
+			position += partLength;
+		}
+	}
+
+	private void readSiz(ByteBuffer siz) throws IOException {
+		if (siz.limit() < 36) {
+			throw new IOException("SIZ marker is too short");
+		}
+		width = siz.getInt(2) & 0xffffffffL;
+		height = siz.getInt(6) & 0xffffffffL;
+		imageOffsetX = siz.getInt(10) & 0xffffffffL;
+		imageOffsetY = siz.getInt(14) & 0xffffffffL;
+		tileWidth = siz.getInt(18) & 0xffffffffL;
+		tileHeight = siz.getInt(22) & 0xffffffffL;
+		tileOffsetX = siz.getInt(26) & 0xffffffffL;
+		tileOffsetY = siz.getInt(30) & 0xffffffffL;
+		components = siz.getShort(34) & 0xffff;
+
+		if (siz.limit() < 36 + components * 3) {
+			throw new IOException("SIZ marker is too short for " + components + " components");
+		}
+		if (tileWidth == 0 || tileHeight == 0 || width <= imageOffsetX || height <= imageOffsetY
+				|| tileOffsetX > imageOffsetX || tileOffsetY > imageOffsetY) {
+			throw new IOException("SIZ marker has invalid image or tile size");
+		}
+		// sizes are at most 2^32 - 1, so only the product can overflow
+		long columns = (width - tileOffsetX + tileWidth - 1) / tileWidth;
+		long rows = (height - tileOffsetY + tileHeight - 1) / tileHeight;
+		try {
+			tileCount = Math.multiplyExact(columns, rows);
+		} catch (ArithmeticException e) {
+			tileCount = Long.MAX_VALUE;
+		}
+		if (tileCount > MAX_TILES) {
+			throw new IOException(String.format("SIZ marker declares too many tiles (%dx%d)", columns, rows));
+		}
+		bitDepths = new int[components];
+		signed = new boolean[components];
+		for (int i = 0; i < components; i++) {
+			int ssiz = siz.get(36 + i * 3) & 0xff;
+			bitDepths[i] = (ssiz & 0x7f) + 1;
+			signed[i] = (ssiz & 0x80) != 0;
+		}
+	}
+
+	private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+		IoLimiter.read(length);
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new EOFException("Unexpected end of file (truncated?)");
+			}
+		}
+		((Buffer) buffer).flip();
+		return buffer;
+	}
+
+	private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+		if (buffer.limit() < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (buffer.get(i) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the file is wrapped in JP2 boxes, false for a raw
+	 *         codestream
+	 */
+	public boolean isJp2() {
+		return jp2;
+	}
+
+	/**
+	 * @return Width of the image area (Xsiz - XOsiz)
+	 */
+	public long getWidth() {
+		return width - imageOffsetX;
+	}
+
+	/**
+	 * @return Height of the image area (Ysiz - YOsiz)
+	 */
+	public long getHeight() {
+		return height - imageOffsetY;
+	}
+
+	public long getTileWidth() {
+		return tileWidth;
+	}
+
+	public long getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * @return Number of tiles in the tile grid declared by the SIZ marker
+	 */
+	public long getTileCount() {
+		return tileCount;
+	}
+
+	/**
+	 * @return Number of distinct tiles with at least one tile-part
+	 */
+	public int getTilesFound() {
+		return tilesFound;
+	}
+
+	public int getTileParts() {
+		return tileParts;
+	}
+
+	public int getComponents() {
+		return components;
+	}
+
+	/**
+	 * @param  component Component index
+	 * @return           Bit depth of the component
+	 */
+	public int getBitDepth(int component) {
+		return bitDepths[component];
+	}
+
+	/**
+	 * @param  component Component index
+	 * @return           true if the component samples are signed
+	 */
+	public boolean isSigned(int component) {
+		return signed[component];
+	}
+
+	/**
+	 * @return Number of wavelet decomposition levels from the COD marker, or
+	 *         -1 if there is no COD marker
+	 */
+	public int getDecompositionLevels() {
+		return decompositionLevels;
+	}
+
+	/**
+	 * @return Number of quality layers from the COD marker, or -1 if there is
+	 *         no COD marker
+	 */
+	public int getLayers() {
+		return layers;
+	}
+
+	/**
+	 * @return true if the JP2 image header box agrees with the SIZ marker on
+	 *         size and component count (always true for raw codestreams)
+	 */
+	public boolean isImageHeaderConsistent() {
+		if (!jp2) {
+			return true;
+		}
+		return headerWidth == getWidth() && headerHeight == getHeight() && headerComponents == components;
+	}
+}
@@ -0,0 +1,192 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A ZIP archive mapped into memory and indexed from its central directory.
+ * The data of uncompressed (STORED) entries can be accessed as slices of the
+ * mapped archive, without copying it through an input stream.
+ *
+ * ZIP64 archives are not supported; CDB archives are limited to 32 MB.
+ */
+public class MappedZipArchive {
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+	private static final int CENTRAL_SIGNATURE = 0x02014b50;
+	private static final int LOCAL_SIGNATURE = 0x04034b50;
+	private static final int EOCD_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xffff;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	/** Compression method of uncompressed entries */
+	public static final int METHOD_STORED = 0;
+
+	private final ByteBuffer map;
+	private final List<Entry> entries;
+
+	/**
+	 * An entry from the central directory.
+	 */
+	public static class Entry {
+		private final String name;
+		private final int method;
+		private final long crc;
+		private final long compressedSize;
+		private final long localHeaderOffset;
+
+		Entry(String name, int method, long crc, long compressedSize, long localHeaderOffset) {
+			this.name = name;
+			this.method = method;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.localHeaderOffset = localHeaderOffset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Compression method, {@link MappedZipArchive#METHOD_STORED}
+		 *         for uncompressed entries
+		 */
+		public int getMethod() {
+			return method;
+		}
+
+		/**
+		 * @return CRC-32 of the uncompressed data, from the central directory
+		 */
+		public long getCrc() {
+			return crc;
+		}
+
+		public long getCompressedSize() {
+			return compressedSize;
+		}
+
+		public boolean isStored() {
+			return method == METHOD_STORED;
+		}
+	}
+
+	private MappedZipArchive(ByteBuffer map, List<Entry> entries) {
+		this.map = map;
+		this.entries = entries;
+	}
+
+	/**
+	 * Map a ZIP archive and read its central directory.
+	 *
+	 * @param  archive     Path to ZIP archive
+	 * @return             Mapped archive
+	 * @throws IOException Error reading the archive, or the end of central
+	 *                     directory or central directory is invalid
+	 */
+	public static MappedZipArchive open(Path archive) throws IOException {
+		ByteBuffer map;
+		try (FileChannel channel = IoLimiter.open(archive)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("ZIP archive is too large to map");
+			}
+			IoLimiter.read(size);
+			// the mapping stays valid after the channel is closed
+			map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		int eocd = findEndOfCentralDirectory(map);
+		int entryCount = map.getShort(eocd + 10) & 0xffff;
+		long directoryOffset = map.getInt(eocd + 16) & 0xffffffffL;
+
+		List<Entry> entries = new ArrayList<Entry>(entryCount);
+		long position = directoryOffset;
+		for (int i = 0; i < entryCount; i++) {
+			if (position + CENTRAL_HEADER_SIZE > eocd || map.getInt((int) position) != CENTRAL_SIGNATURE) {
+				throw new IOException("Invalid ZIP central directory");
+			}
+			int header = (int) position;
+			int nameLength = map.getShort(header + 28) & 0xffff;
+			int extraLength = map.getShort(header + 30) & 0xffff;
+			int commentLength = map.getShort(header + 32) & 0xffff;
+			if (header + CENTRAL_HEADER_SIZE + nameLength > eocd) {
+				throw new IOException("Invalid ZIP central directory");
+			}
+
+			entries.add(new Entry(readName(map, header + CENTRAL_HEADER_SIZE, nameLength),
+					map.getShort(header + 10) & 0xffff,
+					map.getInt(header + 16) & 0xffffffffL,
+					map.getInt(header + 20) & 0xffffffffL,
+					map.getInt(header + 42) & 0xffffffffL));
+
+			position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+
+		return new MappedZipArchive(map, Collections.unmodifiableList(entries));
+	}
+
+	/**
+	 * @return Entries in central directory order
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Return the data of an entry as a read-only slice of the mapped archive.
+	 * For STORED entries this is the entry content.
+	 *
+	 * @param  entry       Entry of this archive
+	 * @return             Little-endian buffer positioned at the entry data;
+	 *                     callers may change its byte order
+	 * @throws IOException The local header is invalid, or the data extends
+	 *                     past the end of the archive
+	 */
+	public ByteBuffer slice(Entry entry) throws IOException {
+		long localOffset = entry.localHeaderOffset;
+		if (localOffset + LOCAL_HEADER_SIZE > map.limit() || map.getInt((int) localOffset) != LOCAL_SIGNATURE) {
+			throw new IOException("has an invalid local header");
+		}
+		int localNameLength = map.getShort((int) localOffset + 26) & 0xffff;
+		int localExtraLength = map.getShort((int) localOffset + 28) & 0xffff;
+		long dataStart = localOffset + LOCAL_HEADER_SIZE + localNameLength + localExtraLength;
+
+		if (dataStart + entry.compressedSize > map.limit()) {
+			throw new IOException("extends past end of archive (truncated?)");
+		}
+
+		ByteBuffer data = map.duplicate();
+		((Buffer) data).position((int) dataStart);
+		((Buffer) data).limit((int) (dataStart + entry.compressedSize));
+		return data.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static int findEndOfCentralDirectory(ByteBuffer map) throws IOException {
+		int limit = map.limit();
+		int lowest = Math.max(0, limit - EOCD_SIZE - MAX_COMMENT_SIZE);
+		for (int position = limit - EOCD_SIZE; position >= lowest; position--) {
+			if (map.getInt(position) == EOCD_SIGNATURE) {
+				return position;
+			}
+		}
+		throw new IOException("ZIP end of central directory not found");
+	}
+
+	private static String readName(ByteBuffer map, int offset, int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = map.get(offset + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,199 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Scans the record stream of an OpenFlight (.flt) file, reading the header
+ * record and collecting the file names from texture palette and external
+ * reference records. Other records are skipped using their length field, so
+ * geometry is never parsed. The scanner works on any ByteBuffer, such as a
+ * memory-mapped file or a slice of a memory-mapped ZIP archive; only the
+ * collected file names are allocated.
+ */
+public class OpenFlightScanner {
+
+	/** Opcode of the header record */
+	public static final int OPCODE_HEADER = 1;
+	/** Opcode of the continuation record */
+	public static final int OPCODE_CONTINUATION = 23;
+	/** Opcode of the external reference record */
+	public static final int OPCODE_EXTERNAL_REFERENCE = 63;
+	/** Opcode of the texture palette record */
+	public static final int OPCODE_TEXTURE_PALETTE = 64;
+
+	private static final int RECORD_HEADER_SIZE = 4;
+	private static final int FILENAME_OFFSET = 4;
+	private static final int FILENAME_LENGTH = 200;
+	private static final int HEADER_ID_LENGTH = 8;
+	private static final int HEADER_MIN_LENGTH = 16;
+
+	private OpenFlightScanner() {
+	}
+
+	/**
+	 * Header fields and references collected from an OpenFlight file.
+	 */
+	public static class Result {
+		private final String id;
+		private final int formatRevision;
+		private final int recordCount;
+		private final List<String> textures;
+		private final List<String> externalReferences;
+
+		Result(String id, int formatRevision, int recordCount, List<String> textures,
+				List<String> externalReferences) {
+			this.id = id;
+			this.formatRevision = formatRevision;
+			this.recordCount = recordCount;
+			this.textures = Collections.unmodifiableList(textures);
+			this.externalReferences = Collections.unmodifiableList(externalReferences);
+		}
+
+		/**
+		 * @return ASCII ID of the header record (the database name)
+		 */
+		public String getId() {
+			return id;
+		}
+
+		/**
+		 * @return OpenFlight format revision, e.g. 1640 for version 16.4
+		 */
+		public int getFormatRevision() {
+			return formatRevision;
+		}
+
+		/**
+		 * @return Number of records in the file
+		 */
+		public int getRecordCount() {
+			return recordCount;
+		}
+
+		/**
+		 * @return File names from texture palette records, in file order
+		 */
+		public List<String> getTextures() {
+			return textures;
+		}
+
+		/**
+		 * @return File names from external reference records, in file order,
+		 *         without any "&lt;node&gt;" suffix
+		 */
+		public List<String> getExternalReferences() {
+			return externalReferences;
+		}
+	}
+
+	/**
+	 * Scan an OpenFlight file, mapping it into memory.
+	 *
+	 * @param  file        Path to the .flt file
+	 * @return             Scan result
+	 * @throws IOException Error reading the file, or the record stream is
+	 *                     invalid or truncated
+	 */
+	public static Result scan(Path file) throws IOException {
+		try (FileChannel channel = IoLimiter.open(file)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("OpenFlight file is too large to map");
+			}
+			IoLimiter.read(channel.size());
+			return scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Scan an OpenFlight record stream from the position to the limit of a
+	 * buffer. The buffer position is not changed.
+	 *
+	 * @param  data        Buffer holding the file content
+	 * @return             Scan result
+	 * @throws IOException The record stream does not start with a header
+	 *                     record, or a record extends past the end of the data
+	 */
+	public static Result scan(ByteBuffer data) throws IOException {
+		ByteBuffer buffer = data.duplicate().order(ByteOrder.BIG_ENDIAN);
+		int start = buffer.position();
+		int end = buffer.limit();
+		byte[] scratch = new byte[FILENAME_LENGTH];
+
+		if (end - start < RECORD_HEADER_SIZE || (buffer.getShort(start) & 0xffff) != OPCODE_HEADER) {
+			throw new IOException("OpenFlight file does not start with a header record");
+		}
+
+		String id = null;
+		int formatRevision = 0;
+		int recordCount = 0;
+		List<String> textures = new ArrayList<String>();
+		List<String> externalReferences = new ArrayList<String>();
+
+		int position = start;
+		while (position < end) {
+			if (end - position < RECORD_HEADER_SIZE) {
+				throw new IOException("Truncated OpenFlight record at offset " + (position - start));
+			}
+			int opcode = buffer.getShort(position) & 0xffff;
+			int length = buffer.getShort(position + 2) & 0xffff;
+			if (length < RECORD_HEADER_SIZE || position + length > end) {
+				throw new IOException(String.format("Invalid or truncated OpenFlight record (opcode %d) at offset %d",
+						opcode, position - start));
+			}
+
+			switch (opcode) {
+			case OPCODE_HEADER:
+				if (recordCount == 0) {
+					if (length < HEADER_MIN_LENGTH) {
+						throw new IOException("OpenFlight header record is too short");
+					}
+					id = readString(buffer, position + RECORD_HEADER_SIZE, HEADER_ID_LENGTH, scratch);
+					formatRevision = buffer.getInt(position + 12);
+				}
+				break;
+			case OPCODE_TEXTURE_PALETTE:
+				if (length >= FILENAME_OFFSET + FILENAME_LENGTH) {
+					textures.add(readString(buffer, position + FILENAME_OFFSET, FILENAME_LENGTH, scratch));
+				}
+				break;
+			case OPCODE_EXTERNAL_REFERENCE:
+				if (length >= FILENAME_OFFSET + FILENAME_LENGTH) {
+					String reference = readString(buffer, position + FILENAME_OFFSET, FILENAME_LENGTH, scratch);
+					int node = reference.indexOf('<');
+					externalReferences.add(node >= 0 ? reference.substring(0, node) : reference);
+				}
+				break;
+			default:
+				break;
+			}
+
+			recordCount++;
+			position += length;
+		}
+
+		return new Result(id, formatRevision, recordCount, textures, externalReferences);
+	}
+
+	/**
+	 * Read a null-terminated ASCII string of at most maxLength bytes.
+	 */
+	private static String readString(ByteBuffer buffer, int offset, int maxLength, byte[] scratch) {
+		int length = 0;
+		while (length < maxLength) {
+			byte b = buffer.get(offset + length);
+			if (b == 0) {
+				break;
+			}
+			scratch[length++] = b;
+		}
+		return new String(scratch, 0, length, StandardCharsets.US_ASCII).trim();
+	}
+}
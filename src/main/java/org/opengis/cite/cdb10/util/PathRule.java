@@ -0,0 +1,148 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A check of the entries of a CDB that match a path pattern, reported by a
+ * test method. Rules are run by a {@link RuleEngine}, which walks the CDB
+ * once for all of its rules.
+ *
+ * The pattern is a relative path with "/" separators. Each segment is either
+ * a literal directory or file name, "*" for any name, or "{name}" for any
+ * name that the check can read with {@link Match#get(String)}, e.g.
+ * "MModel/600_MModelGeometry/{kind}/{domain}/{country}/{category}/{entity}".
+ * A pattern of n segments matches the files and directories n levels below
+ * the CDB root.
+ */
+public class PathRule {
+
+	/**
+	 * Validates an entry matched by a rule, adding any errors to a list.
+	 */
+	public interface check {
+		void check(Match match, ArrayList<String> errors) throws IOException;
+	}
+
+	/**
+	 * An entry matched by a rule.
+	 */
+	public static class Match {
+		private final Path path;
+		private final BasicFileAttributes attributes;
+		private final List<String> pattern;
+		private final List<String> segments;
+
+		Match(Path path, BasicFileAttributes attributes, List<String> pattern, List<String> segments) {
+			this.path = path;
+			this.attributes = attributes;
+			this.pattern = pattern;
+			this.segments = segments;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * @return Attributes read for the entry during the walk
+		 */
+		public BasicFileAttributes getAttributes() {
+			return attributes;
+		}
+
+		/**
+		 * @return Name of the matched file or directory
+		 */
+		public String getFileName() {
+			return path.getFileName().toString();
+		}
+
+		/**
+		 * @param  name Name of a "{name}" segment of the pattern
+		 * @return      Directory or file name matched by the segment
+		 * @throws IllegalArgumentException If the pattern has no such segment
+		 */
+		public String get(String name) {
+			int index = pattern.indexOf("{" + name + "}");
+			if (index < 0) {
+				throw new IllegalArgumentException("No segment {" + name + "} in pattern " + pattern);
+			}
+			return segments.get(index);
+		}
+	}
+
+	private final String testMethod;
+	private final List<String> pattern;
+	private final check check;
+
+	private PathRule(String testMethod, String pattern, check check) {
+		this.testMethod = testMethod;
+		this.pattern = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(pattern.split("/"))));
+		this.check = check;
+		if (this.pattern.contains("")) {
+			throw new IllegalArgumentException("Invalid rule pattern: " + pattern);
+		}
+	}
+
+	/**
+	 * Create a rule that adds an error for each matching entry that does not
+	 * satisfy a predicate.
+	 *
+	 * @param  testMethod    Name of the test method that reports the errors
+	 * @param  pattern       Path pattern of the entries to check
+	 * @param  predicate     Condition that valid entries satisfy
+	 * @param  errorTemplate Error message, formatted with the file name of
+	 *                       the entry, e.g. "Invalid file name: %s"
+	 * @return               The rule
+	 */
+	public static PathRule of(String testMethod, String pattern, Predicate<Match> predicate, String errorTemplate) {
+		return new PathRule(testMethod, pattern, (match, errors) -> {
+			if (!predicate.test(match)) {
+				errors.add(String.format(errorTemplate, match.getFileName()));
+			}
+		});
+	}
+
+	/**
+	 * Create a rule that runs a check against each matching entry.
+	 *
+	 * @param  testMethod Name of the test method that reports the errors
+	 * @param  pattern    Path pattern of the entries to check
+	 * @param  check      Check of an entry, which adds its own errors
+	 * @return            The rule
+	 */
+	public static PathRule of(String testMethod, String pattern, check check) {
+		return new PathRule(testMethod, pattern, check);
+	}
+
+	public String getTestMethod() {
+		return testMethod;
+	}
+
+	/**
+	 * @return Segments of the path pattern
+	 */
+	public List<String> getPattern() {
+		return pattern;
+	}
+
+	void apply(Path entry, BasicFileAttributes attributes, List<String> segments, ArrayList<String> errors)
+			throws IOException {
+		check.check(new Match(entry, attributes, pattern, segments), errors);
+	}
+
+	/**
+	 * @param  segment Segment of a pattern
+	 * @return         true if the segment matches any name
+	 */
+	static boolean isWildcard(String segment) {
+		return segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"));
+	}
+}
@@ -0,0 +1,240 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.testng.annotations.Test;
+
+/**
+ * Runs the {@link PathRule}s of a test class in a single walk of the CDB.
+ * The rule patterns are compiled into a tree of path segments, so the walk
+ * only enters directories that some pattern can match below, and each entry
+ * is dispatched to every rule it matches.
+ *
+ * Errors are kept per test method of the class, so that each method reports
+ * the errors of its own rules; the walk runs when the first method asks for
+ * its errors, and later methods reuse the results.
+ */
+public class RuleEngine {
+
+	/**
+	 * Node of the compiled patterns, matching one path segment
+	 */
+	private static class Node {
+		private final Map<String, Node> literals = new HashMap<String, Node>();
+		private Node wildcard;
+		private final List<PathRule> rules = new ArrayList<PathRule>();
+
+		private Node child(String segment) {
+			if (PathRule.isWildcard(segment)) {
+				if (wildcard == null) {
+					wildcard = new Node();
+				}
+				return wildcard;
+			}
+			Node child = literals.get(segment);
+			if (child == null) {
+				child = new Node();
+				literals.put(segment, child);
+			}
+			return child;
+		}
+
+		private boolean hasChildren() {
+			return wildcard != null || !literals.isEmpty();
+		}
+	}
+
+	/**
+	 * Directory entered by the walk, with the pattern nodes it matched
+	 */
+	private static class Frame {
+		private final List<Node> nodes;
+		private final List<String> segments;
+
+		private Frame(List<Node> nodes, List<String> segments) {
+			this.nodes = nodes;
+			this.segments = segments;
+		}
+	}
+
+	private final Class<?> testClass;
+	private final Node root = new Node();
+	private final List<PathRule> rules;
+	private final Map<String, String> descriptions = new LinkedHashMap<String, String>();
+	private final int maxDepth;
+	private final Map<Path, Map<String, List<String>>> results = new HashMap<Path, Map<String, List<String>>>();
+
+	/**
+	 * Compile the rules of a test class.
+	 *
+	 * @param  testClass Class of the test methods that report the errors
+	 * @param  rules     Rules, in the order their errors are reported
+	 * @throws IllegalArgumentException If a rule names a method of the class
+	 *                                  that is not a TestNG test
+	 */
+	public RuleEngine(Class<?> testClass, List<PathRule> rules) {
+		this.testClass = testClass;
+		this.rules = new ArrayList<PathRule>(rules);
+		int depth = 0;
+		for (PathRule rule : this.rules) {
+			if (!descriptions.containsKey(rule.getTestMethod())) {
+				descriptions.put(rule.getTestMethod(), describe(testClass, rule.getTestMethod()));
+			}
+			Node node = root;
+			for (String segment : rule.getPattern()) {
+				node = node.child(segment);
+			}
+			node.rules.add(rule);
+			depth = Math.max(depth, rule.getPattern().size());
+		}
+		this.maxDepth = depth - 1;
+	}
+
+	/**
+	 * Get the errors found by the rules of a test method, walking the CDB if
+	 * it has not been walked yet.
+	 *
+	 * @param  cdbRoot     Root of the CDB
+	 * @param  testMethod  Name of the test method
+	 * @return             Errors, in walk order
+	 * @throws IOException Error reading from CDB
+	 */
+	public synchronized List<String> getErrors(Path cdbRoot, String testMethod) throws IOException {
+		if (!descriptions.containsKey(testMethod)) {
+			throw new IllegalArgumentException(
+					String.format("No rules for %s.%s", testClass.getSimpleName(), testMethod));
+		}
+		Path key = cdbRoot.toAbsolutePath().normalize();
+		Map<String, List<String>> errors = results.get(key);
+		if (errors == null) {
+			errors = run(key);
+			if (!TimeBudget.current().isExpired()) {
+				// a walk cut short by the time budget is not reused
+				results.put(key, errors);
+			}
+		}
+		return new ArrayList<String>(errors.get(testMethod));
+	}
+
+	/**
+	 * @param  testMethod Name of a test method with rules
+	 * @return            Description of the test method, e.g. "OGC 15-113r3,
+	 *                    A.1.15, Test 58 - based on Section 3.5.1"
+	 */
+	public String getDescription(String testMethod) {
+		return descriptions.get(testMethod);
+	}
+
+	/**
+	 * Walk a CDB once, running all rules.
+	 *
+	 * @param  cdbRoot     Root of the CDB
+	 * @return             Errors of each test method
+	 * @throws IOException Error reading from CDB
+	 */
+	Map<String, List<String>> run(Path cdbRoot) throws IOException {
+		Map<String, ArrayList<String>> errors = new LinkedHashMap<String, ArrayList<String>>();
+		for (String testMethod : descriptions.keySet()) {
+			errors.put(testMethod, new ArrayList<String>());
+		}
+		if (maxDepth < 0 || Files.notExists(cdbRoot)) {
+			return new LinkedHashMap<String, List<String>>(errors);
+		}
+
+		Map<Path, Frame> frames = new HashMap<Path, Frame>();
+		frames.put(cdbRoot, new Frame(Collections.singletonList(root), Collections.<String>emptyList()));
+		long[] matched = new long[1];
+
+		DirectoryWalker.walkTree(cdbRoot, maxDepth, new DirectoryWalker.TreeVisitor() {
+			@Override
+			public void visit(Path entry, BasicFileAttributes attributes) throws IOException {
+				Frame parent = frames.get(entry.getParent());
+				if (parent == null) {
+					return;
+				}
+				String name = entry.getFileName().toString();
+				List<Node> nodes = new ArrayList<Node>(2);
+				for (Node node : parent.nodes) {
+					if (node.literals.containsKey(name)) {
+						nodes.add(node.literals.get(name));
+					}
+					if (node.wildcard != null) {
+						nodes.add(node.wildcard);
+					}
+				}
+				if (nodes.isEmpty()) {
+					return;
+				}
+
+				List<String> segments = new ArrayList<String>(parent.segments.size() + 1);
+				segments.addAll(parent.segments);
+				segments.add(name);
+
+				List<PathRule> matches = new ArrayList<PathRule>();
+				boolean descend = false;
+				for (Node node : nodes) {
+					matches.addAll(node.rules);
+					descend |= node.hasChildren();
+				}
+				if (matches.size() > 1) {
+					// report in the order the rules were given
+					matches.sort(Comparator.comparingInt(rules::indexOf));
+				}
+				for (PathRule rule : matches) {
+					rule.apply(entry, attributes, segments, errors.get(rule.getTestMethod()));
+					matched[0]++;
+				}
+				if (descend && attributes.isDirectory()) {
+					frames.put(entry, new Frame(nodes, segments));
+				}
+			}
+
+			@Override
+			public boolean enter(Path directory) {
+				return frames.containsKey(directory);
+			}
+
+			@Override
+			public void leave(Path directory) {
+				frames.remove(directory);
+			}
+		});
+
+		if (TestSuiteLogger.isLoggable(Level.FINE)) {
+			TestSuiteLogger.log(Level.FINE, String.format("%d rules of %s checked %d entries of %s in one walk",
+					rules.size(), testClass.getSimpleName(), matched[0], cdbRoot));
+			for (Map.Entry<String, ArrayList<String>> test : errors.entrySet()) {
+				TestSuiteLogger.log(Level.FINE, String.format("%s (%s): %d errors", test.getKey(),
+						descriptions.get(test.getKey()), test.getValue().size()));
+			}
+		}
+		return new LinkedHashMap<String, List<String>>(errors);
+	}
+
+	private static String describe(Class<?> testClass, String testMethod) {
+		try {
+			Method method = testClass.getMethod(testMethod);
+			Test test = method.getAnnotation(Test.class);
+			if (test == null) {
+				throw new IllegalArgumentException(
+						String.format("%s.%s is not a test method", testClass.getSimpleName(), testMethod));
+			}
+			return test.description();
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(
+					String.format("%s has no test method %s", testClass.getSimpleName(), testMethod));
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Reads the 100-byte main file header shared by shapefile main (.shp) and
+ * index (.shx) files. No shape records are read.
+ */
+public class ShapefileHeader {
+
+	/** Size of the main file header in bytes */
+	public static final int HEADER_SIZE = 100;
+
+	/** Size of an index (.shx) record in bytes */
+	public static final int INDEX_RECORD_SIZE = 8;
+
+	private static final int FILE_CODE = 9994;
+	private static final int VERSION = 1000;
+
+	private long declaredLength;
+	private long actualLength;
+	private int shapeType;
+	private double minX;
+	private double minY;
+	private double maxX;
+	private double maxY;
+
+	private ShapefileHeader() {
+	}
+
+	/**
+	 * Read the main file header of a .shp or .shx file.
+	 *
+	 * @param  file        Path to the file
+	 * @return             Parsed header
+	 * @throws IOException Error reading the file, or the file is too short or
+	 *                     does not have the shapefile file code and version
+	 */
+	public static ShapefileHeader read(Path file) throws IOException {
+		try (FileChannel channel = IoLimiter.open(file)) {
+			IoLimiter.read(HEADER_SIZE);
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, buffer.position()) < 0) {
+					throw new EOFException("File is shorter than the 100-byte shapefile header");
+				}
+			}
+
+			// file code and length are big-endian, the rest little-endian
+			buffer.order(ByteOrder.BIG_ENDIAN);
+			if (buffer.getInt(0) != FILE_CODE) {
+				throw new IOException("Invalid shapefile file code: " + buffer.getInt(0));
+			}
+
+			ShapefileHeader header = new ShapefileHeader();
+			// length is stored in 16-bit words
+			header.declaredLength = (buffer.getInt(24) & 0xffffffffL) * 2;
+			header.actualLength = channel.size();
+
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt(28) != VERSION) {
+				throw new IOException("Invalid shapefile version: " + buffer.getInt(28));
+			}
+			header.shapeType = buffer.getInt(32);
+			header.minX = buffer.getDouble(36);
+			header.minY = buffer.getDouble(44);
+			header.maxX = buffer.getDouble(52);
+			header.maxY = buffer.getDouble(60);
+			return header;
+		}
+	}
+
+	/**
+	 * @return File length in bytes declared in the header
+	 */
+	public long getDeclaredLength() {
+		return declaredLength;
+	}
+
+	/**
+	 * @return File length in bytes on disk
+	 */
+	public long getActualLength() {
+		return actualLength;
+	}
+
+	/**
+	 * @return Shape type code (0 = null, 1 = point, 3 = polyline, 5 =
+	 *         polygon, etc.)
+	 */
+	public int getShapeType() {
+		return shapeType;
+	}
+
+	public double getMinX() {
+		return minX;
+	}
+
+	public double getMinY() {
+		return minY;
+	}
+
+	public double getMaxX() {
+		return maxX;
+	}
+
+	public double getMaxY() {
+		return maxY;
+	}
+
+	/**
+	 * Number of records indexed by an .shx file, derived from its length.
+	 *
+	 * @return Record count, or -1 if the length is not a whole number of
+	 *         index records
+	 */
+	public long getIndexRecordCount() {
+		long recordBytes = declaredLength - HEADER_SIZE;
+		if (recordBytes < 0 || recordBytes % INDEX_RECORD_SIZE != 0) {
+			return -1;
+		}
+		return recordBytes / INDEX_RECORD_SIZE;
+	}
+}
@@ -0,0 +1,176 @@
+package org.opengis.cite.cdb10.util;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One partition of a CDB that is validated by several test runs (e.g. on
+ * different machines), given as "i/N" for shard i of N shards (0 &lt;= i &lt;
+ * N). Units of work are assigned to shards by hashing their path relative to
+ * the CDB root: geocell directories ("Tiles/N62/W162") for tiled datasets and
+ * dataset directories ("GTModel/500_GTModelGeometry") for models. The hash of
+ * a String is defined by the Java language, so the assignment is the same in
+ * every JVM and only depends on N.
+ *
+ * Tests that are not partitioned run in shard 0 only; the results of all
+ * shards can be combined with {@link org.opengis.cite.cdb10.ResultsMerger}.
+ *
+ * A shard may also be limited to a scope of directories below the CDB root
+ * (e.g. the geocells changed since the last run), in which case it only owns
+ * the units inside, or containing, one of them.
+ */
+public class Shard {
+
+	private static final Pattern SHARD_PATTERN = Pattern.compile("^\\s*(\\d+)\\s*/\\s*(\\d+)\\s*$");
+
+	/**
+	 * The whole CDB, used when no shard is given
+	 */
+	public static final Shard ALL = new Shard(0, 1);
+
+	private static volatile Shard current = ALL;
+
+	private final int index;
+	private final int count;
+	private final List<String> scope;
+
+	/**
+	 * @param index Index of this shard, from 0 to count - 1
+	 * @param count Number of shards
+	 */
+	public Shard(int index, int count) {
+		this(index, count, null);
+	}
+
+	private Shard(int index, int count, List<String> scope) {
+		if (count < 1 || index < 0 || index >= count) {
+			throw new IllegalArgumentException(String.format("Invalid shard %d/%d", index, count));
+		}
+		this.index = index;
+		this.count = count;
+		this.scope = scope;
+	}
+
+	/**
+	 * Limit this shard to a scope of directories.
+	 *
+	 * @param  directories Directories relative to the CDB root with "/"
+	 *                     separators, e.g. "Tiles/N62/W162" or "GTModel"
+	 * @return             The shard, only owning the units in the scope
+	 */
+	public Shard withScope(Collection<String> directories) {
+		List<String> units = new ArrayList<String>();
+		for (String directory : directories) {
+			String unit = directory.trim().replace('\\', '/').replaceAll("^/+|/+$", "");
+			if (!unit.isEmpty()) {
+				units.add(unit);
+			}
+		}
+		return new Shard(index, count, units.isEmpty() ? null : Collections.unmodifiableList(units));
+	}
+
+	/**
+	 * @return Directories this shard is limited to, empty for the whole CDB
+	 */
+	public List<String> getScope() {
+		return scope == null ? Collections.<String>emptyList() : scope;
+	}
+
+	/**
+	 * Parse a shard given as "i/N".
+	 *
+	 * @param  value String of the shard
+	 * @return       The shard
+	 * @throws IllegalArgumentException If the value is not a valid shard
+	 */
+	public static Shard parse(String value) {
+		Matcher match = SHARD_PATTERN.matcher(value);
+		if (!match.find()) {
+			throw new IllegalArgumentException("Invalid shard, expected i/N: " + value);
+		}
+		try {
+			return new Shard(Integer.parseInt(match.group(1)), Integer.parseInt(match.group(2)));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid shard, expected i/N: " + value);
+		}
+	}
+
+	/**
+	 * @return Shard validated by the current test run, {@link #ALL} by default
+	 */
+	public static Shard current() {
+		return current;
+	}
+
+	/**
+	 * @param shard Shard validated by the current test run
+	 */
+	public static void setCurrent(Shard shard) {
+		current = shard == null ? ALL : shard;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return true if this shard runs the tests that are not partitioned
+	 */
+	public boolean isFirst() {
+		return index == 0;
+	}
+
+	/**
+	 * @param  unit Name of a unit of work, see {@link #unitName(Path, Path)}
+	 * @return      true if the unit belongs to this shard
+	 */
+	public boolean owns(String unit) {
+		return inScope(unit) && (count == 1 || Math.floorMod(unit.hashCode(), count) == index);
+	}
+
+	private boolean inScope(String unit) {
+		if (scope == null) {
+			return true;
+		}
+		for (String directory : scope) {
+			if (unit.equals(directory) || unit.startsWith(directory + "/") || directory.startsWith(unit + "/")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Name a directory as a unit of work, by its path relative to the CDB
+	 * root with "/" separators, e.g. "Tiles/N62/W162".
+	 *
+	 * @param  cdbRoot   Root of the CDB
+	 * @param  directory Directory below the root
+	 * @return           Name of the unit
+	 */
+	public static String unitName(Path cdbRoot, Path directory) {
+		Path relative = cdbRoot.toAbsolutePath().normalize().relativize(directory.toAbsolutePath().normalize());
+		StringBuilder name = new StringBuilder();
+		for (Path part : relative) {
+			if (name.length() > 0) {
+				name.append('/');
+			}
+			name.append(part.toString());
+		}
+		return name.toString();
+	}
+
+	@Override
+	public String toString() {
+		return scope == null ? index + "/" + count : index + "/" + count + " of " + String.join(", ", scope);
+	}
+}
@@ -0,0 +1,207 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * A compressed bitmap of non-negative long values, organized like a Roaring
+ * bitmap: values are grouped by their high bits into chunks of 65536, and
+ * each chunk is stored either as a sorted array (when sparse) or as a plain
+ * bitmap (when dense). Memory use therefore follows the number of values set
+ * rather than the size of the value range, which keeps tile grids at high
+ * LODs (up to 2^23 x 2^23 tiles) small.
+ */
+public class SparseBitmap {
+
+	/**
+	 * Chunks with more values than this are stored as bitmaps
+	 */
+	private static final int ARRAY_MAX = 4096;
+	private static final int CHUNK_BITS = 16;
+	private static final int BITMAP_WORDS = (1 << CHUNK_BITS) / 64;
+
+	private final TreeMap<Long, Chunk> chunks = new TreeMap<Long, Chunk>();
+
+	/**
+	 * Add a value to the bitmap.
+	 *
+	 * @param value Non-negative value
+	 */
+	public void add(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value: " + value);
+		}
+		Long key = value >>> CHUNK_BITS;
+		Chunk chunk = chunks.get(key);
+		if (chunk == null) {
+			chunk = new Chunk();
+			chunks.put(key, chunk);
+		}
+		chunk.add((char) value);
+	}
+
+	/**
+	 * @param  value Value to look up
+	 * @return       true if the value is in the bitmap
+	 */
+	public boolean contains(long value) {
+		if (value < 0) {
+			return false;
+		}
+		Chunk chunk = chunks.get(value >>> CHUNK_BITS);
+		return chunk != null && chunk.contains((char) value);
+	}
+
+	/**
+	 * @return Number of values in the bitmap
+	 */
+	public long getCardinality() {
+		long cardinality = 0;
+		for (Chunk chunk : chunks.values()) {
+			cardinality += chunk.cardinality;
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return chunks.isEmpty();
+	}
+
+	/**
+	 * Compute the values in this bitmap that are not in another bitmap.
+	 *
+	 * @param  other Bitmap of values to remove
+	 * @return       New bitmap; neither input is modified
+	 */
+	public SparseBitmap andNot(SparseBitmap other) {
+		SparseBitmap result = new SparseBitmap();
+		for (Map.Entry<Long, Chunk> entry : chunks.entrySet()) {
+			Chunk otherChunk = other.chunks.get(entry.getKey());
+			Chunk difference = otherChunk == null ? entry.getValue().copy() : entry.getValue().andNot(otherChunk);
+			if (difference.cardinality > 0) {
+				result.chunks.put(entry.getKey(), difference);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Run an action for each value, in ascending order.
+	 *
+	 * @param action Action to run
+	 */
+	public void forEach(LongConsumer action) {
+		for (Map.Entry<Long, Chunk> entry : chunks.entrySet()) {
+			entry.getValue().forEach(entry.getKey() << CHUNK_BITS, action);
+		}
+	}
+
+	/**
+	 * The values of one chunk, as a sorted array or a bitmap.
+	 */
+	private static final class Chunk {
+		private char[] array = new char[4];
+		private long[] bitmap;
+		private int cardinality;
+
+		void add(char low) {
+			if (bitmap != null) {
+				long mask = 1L << low;
+				if ((bitmap[low >>> 6] & mask) == 0) {
+					bitmap[low >>> 6] |= mask;
+					cardinality++;
+				}
+				return;
+			}
+
+			int index = Arrays.binarySearch(array, 0, cardinality, low);
+			if (index >= 0) {
+				return;
+			}
+			if (cardinality == ARRAY_MAX) {
+				toBitmap();
+				add(low);
+				return;
+			}
+			index = -index - 1;
+			if (cardinality == array.length) {
+				array = Arrays.copyOf(array, Math.min(array.length * 2, ARRAY_MAX));
+			}
+			System.arraycopy(array, index, array, index + 1, cardinality - index);
+			array[index] = low;
+			cardinality++;
+		}
+
+		boolean contains(char low) {
+			if (bitmap != null) {
+				return (bitmap[low >>> 6] & (1L << low)) != 0;
+			}
+			return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+		}
+
+		Chunk andNot(Chunk other) {
+			Chunk result = new Chunk();
+			if (bitmap != null && other.bitmap != null) {
+				result.bitmap = new long[BITMAP_WORDS];
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					result.bitmap[i] = bitmap[i] & ~other.bitmap[i];
+					result.cardinality += Long.bitCount(result.bitmap[i]);
+				}
+				result.array = null;
+				if (result.cardinality <= ARRAY_MAX) {
+					result.toArray();
+				}
+				return result;
+			}
+			forEach(0, value -> {
+				if (!other.contains((char) value)) {
+					result.add((char) value);
+				}
+			});
+			return result;
+		}
+
+		Chunk copy() {
+			Chunk copy = new Chunk();
+			copy.cardinality = cardinality;
+			copy.array = array == null ? null : Arrays.copyOf(array, array.length);
+			copy.bitmap = bitmap == null ? null : Arrays.copyOf(bitmap, bitmap.length);
+			return copy;
+		}
+
+		void forEach(long base, LongConsumer action) {
+			if (bitmap != null) {
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					long word = bitmap[i];
+					while (word != 0) {
+						int bit = Long.numberOfTrailingZeros(word);
+						action.accept(base + i * 64 + bit);
+						word &= word - 1;
+					}
+				}
+			} else {
+				for (int i = 0; i < cardinality; i++) {
+					action.accept(base + array[i]);
+				}
+			}
+		}
+
+		private void toBitmap() {
+			bitmap = new long[BITMAP_WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				bitmap[array[i] >>> 6] |= 1L << array[i];
+			}
+			array = null;
+		}
+
+		private void toArray() {
+			char[] values = new char[Math.max(cardinality, 4)];
+			int[] count = new int[1];
+			forEach(0, value -> values[count[0]++] = (char) value);
+			array = values;
+			bitmap = null;
+		}
+	}
+}
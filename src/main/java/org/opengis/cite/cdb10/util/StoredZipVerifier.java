@@ -0,0 +1,62 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Verifies the CRC-32 of uncompressed (STORED) entries in a ZIP archive. The
+ * central directory is read to find each entry, and the CRC is computed
+ * directly over a memory-mapped slice of the archive holding the entry data,
+ * without copying it through an input stream.
+ *
+ * Compressed entries are not verified.
+ */
+public class StoredZipVerifier {
+
+	private StoredZipVerifier() {
+	}
+
+	/**
+	 * Verify the STORED entries of a ZIP archive against the CRC-32 values in
+	 * its central directory.
+	 *
+	 * @param  archive     Path to ZIP archive
+	 * @return             List of problems found, one per entry; empty if all
+	 *                     STORED entries are intact
+	 * @throws IOException Error reading the archive, or the archive structure
+	 *                     (end of central directory, central directory) is
+	 *                     invalid
+	 */
+	public static List<String> verify(Path archive) throws IOException {
+		List<String> problems = new ArrayList<String>();
+		MappedZipArchive zip = MappedZipArchive.open(archive);
+
+		for (MappedZipArchive.Entry entry : zip.getEntries()) {
+			if (!entry.isStored()) {
+				continue;
+			}
+
+			ByteBuffer data;
+			try {
+				data = zip.slice(entry);
+			} catch (IOException e) {
+				problems.add(String.format("Entry '%s' %s", entry.getName(), e.getMessage()));
+				continue;
+			}
+
+			CRC32 checksum = new CRC32();
+			checksum.update(data);
+
+			if (checksum.getValue() != entry.getCrc()) {
+				problems.add(String.format("Entry '%s' CRC-32 mismatch: expected %08x, computed %08x",
+						entry.getName(), entry.getCrc(), checksum.getValue()));
+			}
+		}
+
+		return problems;
+	}
+}
@@ -0,0 +1,301 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Provides streaming extraction of tar and gzip-compressed tar archives. The
+ * archive is read in a single forward pass, so a CDB delivered as a tar file
+ * can be extracted directly from a file or network stream without staging an
+ * intermediate copy.
+ *
+ * Regular files and directories are extracted; links and special files are
+ * skipped. GNU long names and POSIX (pax) path records are supported.
+ */
+public class TarUtils {
+
+	private static final int BLOCK_SIZE = 512;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Largest GNU long name or pax extended header that is read into memory
+	 */
+	private static final int MAX_HEADER_DATA = 1024 * 1024;
+
+	private TarUtils() {
+	}
+
+	/**
+	 * Check if a file name or URI refers to a tar archive, optionally gzip
+	 * compressed.
+	 *
+	 * @param name File name or URI
+	 * @return true if the name has a tar, tar.gz or tgz extension
+	 */
+	public static boolean isTarArchive(String name) {
+		String lowerName = name.toLowerCase();
+		return lowerName.endsWith(".tar") || isGzipTarArchive(lowerName);
+	}
+
+	/**
+	 * Check if a file name or URI refers to a gzip compressed tar archive.
+	 *
+	 * @param name File name or URI
+	 * @return true if the name has a tar.gz or tgz extension
+	 */
+	public static boolean isGzipTarArchive(String name) {
+		String lowerName = name.toLowerCase();
+		return lowerName.endsWith(".tar.gz") || lowerName.endsWith(".tgz");
+	}
+
+	/**
+	 * Extract a tar or tar.gz file to a directory.
+	 *
+	 * @param tarFile The tar file; gzip compression is detected by extension
+	 * @param destDir The destination directory
+	 * @throws IOException If an IO error occurred, or the archive is malformed
+	 */
+	public static void untarFile(File tarFile, File destDir) throws IOException {
+		try (InputStream in = new FileInputStream(tarFile)) {
+			untarStream(in, isGzipTarArchive(tarFile.getName()), destDir);
+		}
+	}
+
+	/**
+	 * Extract a tar stream to a directory. The stream is not closed.
+	 *
+	 * @param in      Stream positioned at the start of the archive
+	 * @param gzipped true if the stream is gzip compressed
+	 * @param destDir The destination directory
+	 * @throws IOException If an IO error occurred, or the archive is malformed
+	 */
+	public static void untarStream(InputStream in, boolean gzipped, File destDir) throws IOException {
+		InputStream tarStream = new BufferedInputStream(
+				gzipped ? new GZIPInputStream(in, BUFFER_SIZE) : in, BUFFER_SIZE);
+		Path destPath = destDir.toPath().toAbsolutePath().normalize();
+		byte[] header = new byte[BLOCK_SIZE];
+		byte[] buffer = new byte[BUFFER_SIZE];
+		String longName = null;
+
+		while (readBlock(tarStream, header)) {
+			if (isZeroBlock(header)) {
+				// End-of-archive marker
+				break;
+			}
+
+			verifyChecksum(header);
+
+			long size = parseSize(header);
+			char type = (char) header[156];
+			String name = (longName != null) ? longName : entryName(header);
+			longName = null;
+
+			if (type == 'L') {
+				// GNU long name: the data is the name of the next entry
+				longName = trimName(readData(tarStream, size));
+				continue;
+			} else if (type == 'x') {
+				// pax extended header for the next entry
+				longName = paxPath(readData(tarStream, size));
+				continue;
+			}
+
+			Path outPath = destPath.resolve(name).normalize();
+			if (!outPath.startsWith(destPath)) {
+				throw new IOException("Tar entry is outside of the destination directory: " + name);
+			}
+
+			if (type == '5') {
+				Files.createDirectories(outPath);
+				skipPadded(tarStream, size, buffer);
+			} else if (type == '0' || type == '\0' || type == '7') {
+				Files.createDirectories(outPath.getParent());
+				try (OutputStream out = Files.newOutputStream(outPath)) {
+					long remaining = size;
+					while (remaining > 0) {
+						int len = tarStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+						if (len < 0) {
+							throw new EOFException("Truncated tar entry: " + name);
+						}
+						out.write(buffer, 0, len);
+						remaining -= len;
+					}
+				}
+				skipPadding(tarStream, size, buffer);
+			} else {
+				// Links, devices, global pax headers: not extracted
+				skipPadded(tarStream, size, buffer);
+			}
+		}
+	}
+
+	private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+		int offset = 0;
+		while (offset < block.length) {
+			int len = in.read(block, offset, block.length - offset);
+			if (len < 0) {
+				if (offset == 0) {
+					return false;
+				}
+				throw new EOFException("Truncated tar header");
+			}
+			offset += len;
+		}
+		return true;
+	}
+
+	private static boolean isZeroBlock(byte[] block) {
+		for (byte b : block) {
+			if (b != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void verifyChecksum(byte[] header) throws IOException {
+		long expected = parseOctal(header, 148, 8);
+		long sum = 0;
+		for (int i = 0; i < header.length; i++) {
+			// checksum field is counted as spaces
+			sum += (i >= 148 && i < 156) ? ' ' : (header[i] & 0xff);
+		}
+		if (sum != expected) {
+			throw new IOException("Invalid tar header checksum");
+		}
+	}
+
+	private static long parseSize(byte[] header) throws IOException {
+		if ((header[124] & 0x80) != 0) {
+			// GNU base-256 encoding for entries larger than 8 GB
+			long size = header[124] & 0x7f;
+			for (int i = 125; i < 136; i++) {
+				size = (size << 8) | (header[i] & 0xff);
+			}
+			return size;
+		}
+		return parseOctal(header, 124, 12);
+	}
+
+	private static long parseOctal(byte[] header, int offset, int length) throws IOException {
+		long value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			byte b = header[i];
+			if (b == 0 || b == ' ') {
+				if (value != 0) {
+					break;
+				}
+				continue;
+			}
+			if (b < '0' || b > '7') {
+				throw new IOException("Invalid octal number in tar header");
+			}
+			value = (value << 3) + (b - '0');
+		}
+		return value;
+	}
+
+	private static String entryName(byte[] header) {
+		String name = trimName(header, 0, 100);
+		if (header[257] == 'u' && header[258] == 's' && header[259] == 't'
+				&& header[260] == 'a' && header[261] == 'r') {
+			String prefix = trimName(header, 345, 155);
+			if (!prefix.isEmpty()) {
+				name = prefix + "/" + name;
+			}
+		}
+		return name;
+	}
+
+	private static String trimName(byte[] bytes) {
+		return trimName(bytes, 0, bytes.length);
+	}
+
+	private static String trimName(byte[] bytes, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && bytes[end] != 0) {
+			end++;
+		}
+		return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Extract the "path" record from pax extended header data. Records have
+	 * the form "LENGTH KEY=VALUE\n", where LENGTH is the number of bytes of
+	 * the whole record; only the value is decoded as UTF-8.
+	 */
+	private static String paxPath(byte[] data) throws IOException {
+		int position = 0;
+		while (position < data.length) {
+			int length = 0;
+			int cursor = position;
+			while (cursor < data.length && data[cursor] >= '0' && data[cursor] <= '9' && length <= data.length) {
+				length = length * 10 + (data[cursor++] - '0');
+			}
+			int key = cursor + 1;
+			int end = position + length - 1;
+			if (cursor == position || cursor >= data.length || data[cursor] != ' ' || end < key
+					|| end >= data.length || data[end] != '\n') {
+				throw new IOException("Invalid pax extended header record");
+			}
+			int equals = key;
+			while (equals < end && data[equals] != '=') {
+				equals++;
+			}
+			if (equals < end && equals == key + 4 && new String(data, key, 4, StandardCharsets.US_ASCII).equals("path")) {
+				return new String(data, equals + 1, end - equals - 1, StandardCharsets.UTF_8);
+			}
+			position += length;
+		}
+		return null;
+	}
+
+	private static byte[] readData(InputStream in, long size) throws IOException {
+		if (size < 0 || size > MAX_HEADER_DATA) {
+			throw new IOException(String.format("Tar extended header of %d bytes is too large", size));
+		}
+		byte[] data = new byte[(int) size];
+		int offset = 0;
+		while (offset < data.length) {
+			int len = in.read(data, offset, data.length - offset);
+			if (len < 0) {
+				throw new EOFException("Truncated tar entry");
+			}
+			offset += len;
+		}
+		skipPadding(in, size, new byte[BLOCK_SIZE]);
+		return data;
+	}
+
+	private static void skipPadded(InputStream in, long size, byte[] buffer) throws IOException {
+		skipFully(in, size, buffer);
+		skipPadding(in, size, buffer);
+	}
+
+	private static void skipPadding(InputStream in, long size, byte[] buffer) throws IOException {
+		long remainder = size % BLOCK_SIZE;
+		if (remainder != 0) {
+			skipFully(in, BLOCK_SIZE - remainder, buffer);
+		}
+	}
+
+	private static void skipFully(InputStream in, long count, byte[] buffer) throws IOException {
+		long remaining = count;
+		while (remaining > 0) {
+			int len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (len < 0) {
+				throw new EOFException("Truncated tar entry");
+			}
+			remaining -= len;
+		}
+	}
+}
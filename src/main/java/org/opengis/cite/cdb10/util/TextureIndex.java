@@ -0,0 +1,102 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A hashed index of texture file names, used to resolve the texture
+ * references of model geometry in constant time per reference and to find
+ * textures that are never referenced.
+ *
+ * Textures are indexed per scope, the part of the CDB whose models may
+ * reference them: e.g. "GTModel", "MModel", or a geocell such as
+ * "Tiles/N62/W162" for the GSModel textures of that geocell. A reference only
+ * resolves to a texture of the same scope, so equal file names in different
+ * scopes do not hide each other.
+ *
+ * References are matched on file name only; any directory components
+ * (separated by "/" or "\") in a reference are ignored, as models usually
+ * reference textures relative to their own location.
+ */
+public class TextureIndex {
+
+	/**
+	 * Scope mapped to its texture file names, mapped to whether they have
+	 * been referenced
+	 */
+	private final Map<String, Map<String, Boolean>> scopes = new TreeMap<String, Map<String, Boolean>>();
+
+	/**
+	 * Add a texture to the index.
+	 *
+	 * @param scope    Scope of the texture
+	 * @param filename Texture file name
+	 */
+	public void add(String scope, String filename) {
+		scopes.computeIfAbsent(scope, key -> new HashMap<String, Boolean>())
+				.putIfAbsent(fileName(filename), Boolean.FALSE);
+	}
+
+	/**
+	 * Resolve a texture reference, marking the texture as referenced.
+	 *
+	 * @param  scope     Scope of the model geometry
+	 * @param  reference Texture reference from model geometry
+	 * @return           true if the texture is in the index for the scope
+	 */
+	public boolean resolve(String scope, String reference) {
+		Map<String, Boolean> textures = scopes.get(scope);
+		return textures != null && textures.replace(fileName(reference), Boolean.TRUE) != null;
+	}
+
+	/**
+	 * @return Number of textures in the index, over all scopes
+	 */
+	public int size() {
+		int size = 0;
+		for (Map<String, Boolean> textures : scopes.values()) {
+			size += textures.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return Sorted scopes that have textures
+	 */
+	public Set<String> getScopes() {
+		return Collections.unmodifiableSet(scopes.keySet());
+	}
+
+	/**
+	 * @param  scope Scope of the textures
+	 * @return       Sorted names of the textures of the scope that have not
+	 *               been resolved by any reference
+	 */
+	public List<String> getUnreferenced(String scope) {
+		List<String> unreferenced = new ArrayList<String>();
+		Map<String, Boolean> textures = scopes.get(scope);
+		if (textures == null) {
+			return unreferenced;
+		}
+		for (Map.Entry<String, Boolean> texture : textures.entrySet()) {
+			if (!texture.getValue()) {
+				unreferenced.add(texture.getKey());
+			}
+		}
+		Collections.sort(unreferenced);
+		return unreferenced;
+	}
+
+	/**
+	 * Strip any directory components from a file name or reference.
+	 */
+	private static String fileName(String reference) {
+		int separator = Math.max(reference.lastIndexOf('/'), reference.lastIndexOf('\\'));
+		return reference.substring(separator + 1);
+	}
+}
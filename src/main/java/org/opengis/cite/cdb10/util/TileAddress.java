@@ -0,0 +1,226 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The components of a tiled dataset file name (geocell, dataset, component
+ * selectors, LOD, UREF and RREF), along with the geographic extent and raster
+ * size they imply. See OGC 15-113r3, Section 3.6.2.
+ */
+public class TileAddress {
+
+	private static final Pattern TILE_PATTERN = Pattern.compile(FilenamePatterns.Tiles);
+
+	/**
+	 * Number of rows/columns of a raster tile at LOD 0 and above.
+	 */
+	public static final int TILE_SIZE = 1024;
+
+	private final int latitude;
+	private final int longitude;
+	private final int datasetCode;
+	private final String cs1;
+	private final String cs2;
+	private final int lod;
+	private final int uref;
+	private final int rref;
+	private final String extension;
+
+	private TileAddress(int latitude, int longitude, int datasetCode, String cs1, String cs2,
+			int lod, int uref, int rref, String extension) {
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.datasetCode = datasetCode;
+		this.cs1 = cs1;
+		this.cs2 = cs2;
+		this.lod = lod;
+		this.uref = uref;
+		this.rref = rref;
+		this.extension = extension;
+	}
+
+	/**
+	 * Parse a tiled dataset file name.
+	 *
+	 * @param  filename File name, e.g. "N62W162_D001_S001_T001_L07_U38_R102.tif"
+	 * @return          TileAddress, or null if the name does not match
+	 *                  {@link FilenamePatterns#Tiles}
+	 */
+	public static TileAddress parse(String filename) {
+		Matcher match = TILE_PATTERN.matcher(filename);
+		if (!match.find()) {
+			return null;
+		}
+
+		String lat = match.group("lat");
+		String lon = match.group("lon");
+		String lodName = match.group("lod");
+
+		try {
+			int latitude = Integer.parseInt(lat.substring(1)) * (lat.startsWith("S") ? -1 : 1);
+			int longitude = Integer.parseInt(lon.substring(1)) * (lon.startsWith("W") ? -1 : 1);
+			int lod = lodName.startsWith("LC")
+					? -1 * Integer.parseInt(lodName.substring(2))
+					: Integer.parseInt(lodName.substring(1));
+
+			return new TileAddress(latitude, longitude,
+					Integer.parseInt(match.group("datasetCode")),
+					match.group("cs1"), match.group("cs2"), lod,
+					Integer.parseInt(match.group("uref").substring(1)),
+					Integer.parseInt(match.group("rref")),
+					match.group("ext"));
+		} catch (NumberFormatException e) {
+			// UREF/RREF too large for an int
+			return null;
+		}
+	}
+
+	/**
+	 * Return the number of degrees of Longitude a Geocell encompasses, given a
+	 * latitude. (Geocells have variable sizes.)
+	 *
+	 * @param  latitude The latitude in integer degrees
+	 * @return          An integer amount of degrees of longitude
+	 */
+	public static int sliceWidthForLatitude(int latitude) {
+		int dLonZone = 1;
+		if (((latitude >= 89) && (latitude < 90)) || ((latitude >= -90) && (latitude < -89))) {
+			dLonZone = 12;
+		} else if (((latitude >= 80) && (latitude < 89)) || ((latitude >= -89) && (latitude < -80))) {
+			dLonZone = 6;
+		} else if (((latitude >= 75) && (latitude < 80)) || ((latitude >= -80) && (latitude < -75))) {
+			dLonZone = 4;
+		} else if (((latitude >= 70) && (latitude < 75)) || ((latitude >= -75) && (latitude < -70))) {
+			dLonZone = 3;
+		} else if (((latitude >= 50) && (latitude < 70)) || ((latitude >= -70) && (latitude < -50))) {
+			dLonZone = 2;
+		}
+
+		return dLonZone;
+	}
+
+	/**
+	 * Number of rows and columns expected in a raster tile for an LOD: 1024 for
+	 * LOD 0 and above, halved for each negative LOD down to 1 at LC10.
+	 *
+	 * @param  lod Level of detail, negative for "LC" levels
+	 * @return     Raster width/height in pixels
+	 */
+	public static int rasterSizeForLod(int lod) {
+		if (lod >= 0) {
+			return TILE_SIZE;
+		}
+		return Math.max(TILE_SIZE >> -lod, 1);
+	}
+
+	/**
+	 * @return South edge of the geocell in degrees (negative for "S")
+	 */
+	public int getLatitude() {
+		return latitude;
+	}
+
+	/**
+	 * @return West edge of the geocell in degrees (negative for "W")
+	 */
+	public int getLongitude() {
+		return longitude;
+	}
+
+	public int getDatasetCode() {
+		return datasetCode;
+	}
+
+	public String getCs1() {
+		return cs1;
+	}
+
+	public String getCs2() {
+		return cs2;
+	}
+
+	/**
+	 * @return Level of detail, negative for "LC" levels
+	 */
+	public int getLod() {
+		return lod;
+	}
+
+	public int getUref() {
+		return uref;
+	}
+
+	public int getRref() {
+		return rref;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * @return Geocell directory path components, e.g. "N62/W162"
+	 */
+	public String getGeocell() {
+		return String.format("%s%02d/%s%03d",
+				latitude < 0 ? "S" : "N", Math.abs(latitude),
+				longitude < 0 ? "W" : "E", Math.abs(longitude));
+	}
+
+	/**
+	 * @return Expected raster width/height for this tile's LOD
+	 */
+	public int getRasterSize() {
+		return rasterSizeForLod(lod);
+	}
+
+	/**
+	 * @return Number of tiles per geocell side at this LOD (1 for "LC" levels)
+	 */
+	private int tilesPerSide() {
+		return lod > 0 ? 1 << lod : 1;
+	}
+
+	/**
+	 * @return Height of the tile in degrees of latitude
+	 */
+	public double getTileHeight() {
+		return 1.0 / tilesPerSide();
+	}
+
+	/**
+	 * @return Width of the tile in degrees of longitude
+	 */
+	public double getTileWidth() {
+		return (double) sliceWidthForLatitude(latitude) / tilesPerSide();
+	}
+
+	/**
+	 * @return South edge of the tile in degrees
+	 */
+	public double getSouth() {
+		return latitude + uref * getTileHeight();
+	}
+
+	/**
+	 * @return North edge of the tile in degrees
+	 */
+	public double getNorth() {
+		return getSouth() + getTileHeight();
+	}
+
+	/**
+	 * @return West edge of the tile in degrees
+	 */
+	public double getWest() {
+		return longitude + rref * getTileWidth();
+	}
+
+	/**
+	 * @return East edge of the tile in degrees
+	 */
+	public double getEast() {
+		return getWest() + getTileWidth();
+	}
+}
@@ -0,0 +1,290 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An inventory of the tiles present in the Tiles directory of a CDB. For each
+ * geocell, dataset and component selector pair, the (UREF, RREF) addresses
+ * present at each LOD are kept in a {@link SparseBitmap}.
+ *
+ * The inventory of a CDB is built once, either while the tile file names are
+ * validated (see {@link #publish(Path, TilesInventory)}) or by walking the
+ * Tiles directory on first use, and then shared by the tests that need it.
+ */
+public class TilesInventory {
+
+	/**
+	 * Bits reserved for the RREF in a tile index; LOD 23 has 2^23 columns
+	 */
+	private static final int RREF_BITS = 24;
+
+	private static final Map<Path, TilesInventory> inventories = new ConcurrentHashMap<Path, TilesInventory>();
+
+	private final Map<CoverageKey, SortedMap<Integer, SparseBitmap>> coverage = new HashMap<CoverageKey, SortedMap<Integer, SparseBitmap>>();
+
+	private final GeocellCoverage geocells = new GeocellCoverage();
+
+	/**
+	 * Identifies the tiles of one dataset and component selector pair in one
+	 * geocell.
+	 */
+	public static class CoverageKey implements Comparable<CoverageKey> {
+		private final int latitude;
+		private final int longitude;
+		private final int datasetCode;
+		private final String cs1;
+		private final String cs2;
+
+		CoverageKey(TileAddress address) {
+			this.latitude = address.getLatitude();
+			this.longitude = address.getLongitude();
+			this.datasetCode = address.getDatasetCode();
+			this.cs1 = address.getCs1();
+			this.cs2 = address.getCs2();
+		}
+
+		public int getLatitude() {
+			return latitude;
+		}
+
+		public int getLongitude() {
+			return longitude;
+		}
+
+		public int getDatasetCode() {
+			return datasetCode;
+		}
+
+		public String getCs1() {
+			return cs1;
+		}
+
+		public String getCs2() {
+			return cs2;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof CoverageKey)) {
+				return false;
+			}
+			CoverageKey key = (CoverageKey) other;
+			return latitude == key.latitude && longitude == key.longitude && datasetCode == key.datasetCode
+					&& cs1.equals(key.cs1) && cs2.equals(key.cs2);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(latitude, longitude, datasetCode, cs1, cs2);
+		}
+
+		@Override
+		public int compareTo(CoverageKey other) {
+			int result = Integer.compare(latitude, other.latitude);
+			if (result == 0) {
+				result = Integer.compare(longitude, other.longitude);
+			}
+			if (result == 0) {
+				result = Integer.compare(datasetCode, other.datasetCode);
+			}
+			if (result == 0) {
+				result = cs1.compareTo(other.cs1);
+			}
+			if (result == 0) {
+				result = cs2.compareTo(other.cs2);
+			}
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s D%03d S%s T%s", geocellName(latitude, longitude), datasetCode, cs1, cs2);
+		}
+	}
+
+	/**
+	 * Get the inventory for a Tiles directory, walking the directory if no
+	 * inventory has been built or published for it. A walked inventory only
+	 * includes the geocells of the current {@link Shard}.
+	 *
+	 * @param  tilesPath   Path to the Tiles directory
+	 * @return             Inventory of the tiles
+	 * @throws IOException Error reading from CDB
+	 */
+	public static TilesInventory forTiles(Path tilesPath) throws IOException {
+		Path key = tilesPath.toAbsolutePath().normalize();
+		TilesInventory inventory = inventories.get(key);
+		if (inventory == null) {
+			inventory = new TilesInventory();
+			if (Files.exists(tilesPath)) {
+				TilesInventory walked = inventory;
+				Shard shard = Shard.current();
+				Path cdbRoot = key.getParent();
+				// {lat}/{lon}/{dataset}/{lod}/{uref}/{file}
+				DirectoryWalker.walkAtDepth(tilesPath, 5, ((file, attributes) -> {
+					TileAddress address = TileAddress.parse(file.getFileName().toString());
+					if (address != null && attributes.isRegularFile() && shard.owns(
+							Shard.unitName(cdbRoot, file.getParent().getParent().getParent().getParent()))) {
+						walked.add(address);
+					}
+				}));
+			}
+			if (TimeBudget.current().isExpired()) {
+				// incomplete, walk again for the next test
+				return inventory;
+			}
+			inventories.put(key, inventory);
+		}
+		return inventory;
+	}
+
+	/**
+	 * Share an inventory built while walking a Tiles directory for other
+	 * reasons, so that it is not walked again.
+	 *
+	 * @param tilesPath Path to the Tiles directory
+	 * @param inventory Complete inventory of the directory, or of the
+	 *                  geocells of the current {@link Shard}
+	 */
+	public static void publish(Path tilesPath, TilesInventory inventory) {
+		if (TimeBudget.current().isExpired()) {
+			return;
+		}
+		inventories.put(tilesPath.toAbsolutePath().normalize(), inventory);
+	}
+
+	/**
+	 * Forget all inventories, e.g. at the start of a test run.
+	 */
+	public static void clear() {
+		inventories.clear();
+	}
+
+	/**
+	 * Add a tile to the inventory. Tiles outside the UREF/RREF bounds of their
+	 * LOD only count towards the geocell coverage.
+	 *
+	 * @param address Parsed tile file name
+	 */
+	public void add(TileAddress address) {
+		geocells.add(address.getDatasetCode(), address.getLatitude(), address.getLongitude());
+
+		int lod = address.getLod();
+		int maxIndex = Math.max(1 << Math.max(lod, 0), 1) - 1;
+		if (address.getUref() < 0 || address.getUref() > maxIndex
+				|| address.getRref() < 0 || address.getRref() > maxIndex) {
+			return;
+		}
+
+		SortedMap<Integer, SparseBitmap> lods = coverage.get(new CoverageKey(address));
+		if (lods == null) {
+			lods = new TreeMap<Integer, SparseBitmap>();
+			coverage.put(new CoverageKey(address), lods);
+		}
+		SparseBitmap tiles = lods.get(lod);
+		if (tiles == null) {
+			tiles = new SparseBitmap();
+			lods.put(lod, tiles);
+		}
+		tiles.add(tileIndex(address.getUref(), address.getRref()));
+	}
+
+	/**
+	 * @return Geocell, dataset and component selector combinations with tiles
+	 */
+	public Set<CoverageKey> getKeys() {
+		return Collections.unmodifiableSet(coverage.keySet());
+	}
+
+	/**
+	 * @return Geocells covered by each dataset
+	 */
+	public GeocellCoverage getGeocellCoverage() {
+		return geocells;
+	}
+
+	/**
+	 * @param  key Coverage key
+	 * @return     Tiles present at each LOD, keyed by LOD (negative for "LC"
+	 *             levels)
+	 */
+	public SortedMap<Integer, SparseBitmap> getCoverage(CoverageKey key) {
+		SortedMap<Integer, SparseBitmap> lods = coverage.get(key);
+		return lods == null ? Collections.<Integer, SparseBitmap>emptySortedMap()
+				: Collections.unmodifiableSortedMap(lods);
+	}
+
+	/**
+	 * Encode a tile address as a bitmap index.
+	 *
+	 * @param  uref UREF (row)
+	 * @param  rref RREF (column)
+	 * @return      Index for a {@link SparseBitmap}
+	 */
+	public static long tileIndex(long uref, long rref) {
+		return (uref << RREF_BITS) | rref;
+	}
+
+	/**
+	 * @param  index Tile index
+	 * @return       UREF of the tile
+	 */
+	public static long urefOf(long index) {
+		return index >>> RREF_BITS;
+	}
+
+	/**
+	 * @param  index Tile index
+	 * @return       RREF of the tile
+	 */
+	public static long rrefOf(long index) {
+		return index & ((1L << RREF_BITS) - 1);
+	}
+
+	/**
+	 * Compute the parents at LOD n-1 of a set of tiles at LOD n; the parent of
+	 * (UREF, RREF) is (UREF / 2, RREF / 2).
+	 *
+	 * @param  tiles Tiles at LOD n
+	 * @return       Parent tiles
+	 */
+	public static SparseBitmap parentsOf(SparseBitmap tiles) {
+		SparseBitmap parents = new SparseBitmap();
+		tiles.forEach(index -> parents.add(tileIndex(urefOf(index) >>> 1, rrefOf(index) >>> 1)));
+		return parents;
+	}
+
+	/**
+	 * Compute all four children at LOD n+1 of a set of tiles at LOD n.
+	 *
+	 * @param  tiles Tiles at LOD n
+	 * @return       Child tiles
+	 */
+	public static SparseBitmap childrenOf(SparseBitmap tiles) {
+		SparseBitmap children = new SparseBitmap();
+		tiles.forEach(index -> {
+			long uref = urefOf(index) << 1;
+			long rref = rrefOf(index) << 1;
+			children.add(tileIndex(uref, rref));
+			children.add(tileIndex(uref, rref + 1));
+			children.add(tileIndex(uref + 1, rref));
+			children.add(tileIndex(uref + 1, rref + 1));
+		});
+		return children;
+	}
+
+	static String geocellName(int latitude, int longitude) {
+		return String.format("%s%02d%s%03d", latitude < 0 ? "S" : "N", Math.abs(latitude),
+				longitude < 0 ? "W" : "E", Math.abs(longitude));
+	}
+}
@@ -0,0 +1,217 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wall-clock time allowed for the test that is running, so that a
+ * pathological directory (millions of files in one folder, a stuck network
+ * mount) cannot hold up the whole test run. A budget can be set per test
+ * method and per phase, i.e. for all tests of the same cost stage together;
+ * a test gets whichever deadline comes first.
+ *
+ * Budgets are cooperative: {@link DirectoryWalker} stops listing and walking
+ * at the next entry once the budget of the current test has expired, and
+ * iteration over datasets, geocells, archives and the files of a listing stops
+ * before the next one. The test then
+ * reports the errors it found so far, marked as incomplete with the share of
+ * its work that was covered (see {@link #describe()}). Results of an
+ * incomplete walk are not cached or recorded in the {@link Checkpoint}.
+ *
+ * Tests run one at a time, so the budget of the running test is kept in a
+ * static field and is also seen by its worker threads.
+ */
+public class TimeBudget {
+
+	/**
+	 * Start of the marker added to the results of an incomplete test
+	 */
+	public static final String INCOMPLETE = "incomplete:";
+
+	/**
+	 * Budget that never expires, used outside of tests
+	 */
+	public static final TimeBudget NONE = new TimeBudget("", Long.MAX_VALUE, "");
+
+	private static volatile long testMillis = 0;
+	private static volatile Map<String, Long> phaseMillis = Collections.emptyMap();
+	private static final Map<String, Long> phaseStarts = new HashMap<String, Long>();
+
+	private static volatile TimeBudget current = NONE;
+
+	private final String test;
+	private final long deadline;
+	private final String limit;
+	private volatile boolean expired;
+	private final AtomicLong units = new AtomicLong();
+	private final AtomicLong unitsDone = new AtomicLong();
+
+	private TimeBudget(String test, long deadline, String limit) {
+		this.test = test;
+		this.deadline = deadline;
+		this.limit = limit;
+	}
+
+	/**
+	 * Set the budgets of the test run and forget the start times of phases,
+	 * usually at the start of a test run.
+	 *
+	 * @param perTest  Milliseconds allowed for each test method, or 0 for no
+	 *                 limit
+	 * @param perPhase Milliseconds allowed for all tests of a phase together,
+	 *                 by phase name (e.g. "archives"); phases without an entry
+	 *                 have no limit
+	 */
+	public static synchronized void configure(long perTest, Map<String, Long> perPhase) {
+		if (perTest < 0) {
+			throw new IllegalArgumentException("Time budget must not be negative: " + perTest);
+		}
+		for (Map.Entry<String, Long> phase : perPhase.entrySet()) {
+			if (phase.getValue() < 0) {
+				throw new IllegalArgumentException(
+						"Time budget of " + phase.getKey() + " must not be negative: " + phase.getValue());
+			}
+		}
+		testMillis = perTest;
+		phaseMillis = new LinkedHashMap<String, Long>(perPhase);
+		phaseStarts.clear();
+		current = NONE;
+	}
+
+	/**
+	 * Parse per-phase budgets given as "phase=seconds" pairs separated by
+	 * commas, e.g. "archives=600,content=3600".
+	 *
+	 * @param  value Budgets of the phases
+	 * @return       Milliseconds by phase name, in lower case
+	 * @throws IllegalArgumentException If a pair is not valid
+	 */
+	public static Map<String, Long> parsePhases(String value) {
+		Map<String, Long> phases = new LinkedHashMap<String, Long>();
+		for (String pair : value.split(",")) {
+			if (pair.trim().isEmpty()) {
+				continue;
+			}
+			String[] parts = pair.split("=", 2);
+			try {
+				if (parts.length < 2) {
+					throw new NumberFormatException();
+				}
+				phases.put(parts[0].trim().toLowerCase(),
+						TimeUnit.SECONDS.toMillis(Long.parseLong(parts[1].trim())));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid phase time budget, expected phase=seconds: " + pair);
+			}
+		}
+		return phases;
+	}
+
+	/**
+	 * Start the budget of a test. The first test of a phase starts the clock
+	 * of the phase.
+	 *
+	 * @param  test  Name of the test, for the report
+	 * @param  phase Name of the phase of the test, e.g. "archives"
+	 * @return       The budget, which is now {@link #current()}
+	 */
+	public static synchronized TimeBudget start(String test, String phase) {
+		long now = System.nanoTime();
+		long deadline = Long.MAX_VALUE;
+		String limit = "";
+		if (testMillis > 0) {
+			deadline = now + TimeUnit.MILLISECONDS.toNanos(testMillis);
+			limit = String.format("%d s per test", TimeUnit.MILLISECONDS.toSeconds(testMillis));
+		}
+		Long phaseBudget = phaseMillis.get(phase.toLowerCase());
+		if (phaseBudget != null && phaseBudget > 0) {
+			Long phaseStart = phaseStarts.get(phase.toLowerCase());
+			if (phaseStart == null) {
+				phaseStart = now;
+				phaseStarts.put(phase.toLowerCase(), phaseStart);
+			}
+			long phaseDeadline = phaseStart + TimeUnit.MILLISECONDS.toNanos(phaseBudget);
+			if (phaseDeadline < deadline) {
+				deadline = phaseDeadline;
+				limit = String.format("%d s for the %s phase", TimeUnit.MILLISECONDS.toSeconds(phaseBudget),
+						phase.toLowerCase());
+			}
+		}
+		current = new TimeBudget(test, deadline, limit);
+		return current;
+	}
+
+	/**
+	 * End the budget of the running test.
+	 *
+	 * @return The budget of the test that ended
+	 */
+	public static TimeBudget finish() {
+		TimeBudget finished = current;
+		current = NONE;
+		return finished;
+	}
+
+	/**
+	 * @return Budget of the running test, {@link #NONE} if there is none
+	 */
+	public static TimeBudget current() {
+		return current;
+	}
+
+	/**
+	 * Check whether the time is up, at an entry boundary. Once expired, a
+	 * budget stays expired.
+	 *
+	 * @return true if the test should stop
+	 */
+	public boolean isExpired() {
+		if (!expired && deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0) {
+			expired = true;
+		}
+		return expired;
+	}
+
+	/**
+	 * Add units of work, e.g. the datasets or geocells the test will visit,
+	 * for the covered share in {@link #describe()}.
+	 *
+	 * @param count Number of units
+	 */
+	public void addUnits(long count) {
+		units.addAndGet(count);
+	}
+
+	/**
+	 * Record a unit of work that was completed within the budget.
+	 */
+	public void unitDone() {
+		unitsDone.incrementAndGet();
+	}
+
+	/**
+	 * @return Share of the units of work completed, from 0 to 100, or -1 if
+	 *         no units were added
+	 */
+	public int getCoveredPercent() {
+		long total = units.get();
+		if (total == 0) {
+			return -1;
+		}
+		return (int) Math.min(100, unitsDone.get() * 100 / total);
+	}
+
+	/**
+	 * @return Marker for the results of an incomplete test, e.g. "incomplete:
+	 *         42% covered (time budget of 600 s for the archives phase
+	 *         exceeded in verifyX)"
+	 */
+	public String describe() {
+		int percent = getCoveredPercent();
+		return String.format("%s %s covered (time budget of %s exceeded in %s)", INCOMPLETE,
+				percent < 0 ? "partially" : percent + "%", limit, test);
+	}
+}
@@ -1,15 +1,27 @@
 package org.opengis.cite.cdb10.util;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import javax.ws.rs.core.HttpHeaders;
 import javax.xml.parsers.DocumentBuilder;
@@ -31,6 +43,12 @@ public class URIUtils {
 
     private static final String FIXUP_BASE_URI = "http://apache.org/xml/features/xinclude/fixup-base-uris";
 
+    /**
+     * Number of worker threads used to write ZIP entries when extracting an
+     * archive.
+     */
+    private static final int UNZIP_THREADS = Runtime.getRuntime().availableProcessors();
+
     /**
      * Parses the content of the given URI as an XML document and returns a new
      * DOM Document object. Entity reference nodes will not be expanded. XML
@@ -74,7 +92,8 @@ public class URIUtils {
     /**
      * Dereferences the given URI and stores the resulting resource
      * representation in a local file. The file will be located in the default
-     * temporary file directory.
+     * temporary file directory. ZIP archives are extracted after download; tar
+     * and tar.gz archives are extracted while they are being read.
      * 
      * @param uriRef
      *            An absolute URI specifying the location of some resource.
@@ -98,6 +117,15 @@ public class URIUtils {
                 
                 unzipFile(destFile,destDir);
                 
+                return destDir;
+            } else if (TarUtils.isTarArchive(uriRef.getRawSchemeSpecificPart())) {
+                File destFile = new File(uriRef);
+
+                File destDir = new File(destFile.getParent() + "/CDB" + System.currentTimeMillis());
+                destDir.mkdir();
+
+                TarUtils.untarFile(destFile, destDir);
+
                 return destDir;
             } else {
                 return new File(uriRef);
@@ -107,6 +135,19 @@ public class URIUtils {
         Client client = Client.create();
         WebResource webRes = client.resource(uriRef);
         ClientResponse rsp = webRes.get(ClientResponse.class);
+
+        if (TarUtils.isTarArchive(uriRef.getPath())) {
+            // Extract directly from the response stream, no temporary copy
+            File destDir = new File(System.getProperty("java.io.tmpdir") + "/CDB" + System.currentTimeMillis());
+            destDir.mkdir();
+            if (rsp.hasEntity()) {
+                try (InputStream is = rsp.getEntityInputStream()) {
+                    TarUtils.untarStream(is, TarUtils.isGzipTarArchive(uriRef.getPath()), destDir);
+                }
+            }
+            return destDir;
+        }
+
         String suffix = null;
         if (rsp.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE).endsWith("xml")) {
             suffix = ".xml";
@@ -138,7 +179,12 @@ public class URIUtils {
     }
     
     /**
-     * Unzips a file to a directory.
+     * Unzips a file to a directory. The central directory of the archive is
+     * read first so that the directory skeleton can be created up front; the
+     * file entries are then split into one contiguous range per thread, of
+     * about the same compressed size, and each thread inflates its range
+     * through its own {@link ZipFile}, as reads through a shared ZipFile are
+     * serialized.
      * 
      * @param zippedFile
      *            The zipped file
@@ -146,33 +192,104 @@ public class URIUtils {
      *            The destination directory       
      * @throws IOException
      *             If an IO error occurred.
-     */    
-    
+     */
     public static void unzipFile(File zippedFile, File destDir) throws IOException {
- 
-        byte[] buffer = new byte[1024];
-        ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(zippedFile));
-        ZipEntry zipEntry = zipInputStream.getNextEntry();
-        while (zipEntry != null) {
-        	File outFile = new File(destDir, zipEntry.getName());
-            if(zipEntry.isDirectory()) {
-            	outFile.mkdir();
+        List<String> fileEntries = new ArrayList<String>();
+        List<Long> fileSizes = new ArrayList<Long>();
+        Set<Path> directories = new HashSet<Path>();
+        try (ZipFile zipFile = new ZipFile(zippedFile)) {
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry zipEntry = entries.nextElement();
+                File outFile = new File(destDir, zipEntry.getName());
+                if (zipEntry.isDirectory()) {
+                    directories.add(outFile.toPath());
+                } else {
+                    directories.add(outFile.getParentFile().toPath());
+                    fileEntries.add(zipEntry.getName());
+                    // count each entry for at least a byte, so empty entries are spread too
+                    fileSizes.add(Math.max(zipEntry.getCompressedSize(), 0) + 1);
+                }
             }
-            else{
-            	FileOutputStream fileOutputStream = new FileOutputStream(outFile);
-            	int len;
-            	while ((len = zipInputStream.read(buffer)) > 0) {
-            		fileOutputStream.write(buffer, 0, len);
-            	}
-            	fileOutputStream.close();
+        }
+
+        for (Path directory : directories) {
+            Files.createDirectories(directory);
+        }
+        if (fileEntries.isEmpty()) {
+            return;
+        }
+
+        int workers = Math.min(UNZIP_THREADS, fileEntries.size());
+        int[] bounds = splitBySize(fileSizes, workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int worker = 0; worker < workers; worker++) {
+                List<String> range = fileEntries.subList(bounds[worker], bounds[worker + 1]);
+                if (range.isEmpty()) {
+                    continue;
+                }
+                results.add(executor.submit(() -> {
+                    try (ZipFile zipFile = new ZipFile(zippedFile)) {
+                        for (String name : range) {
+                            try (InputStream in = zipFile.getInputStream(zipFile.getEntry(name))) {
+                                Path outPath = new File(destDir, name).toPath();
+                                Files.copy(in, outPath, StandardCopyOption.REPLACE_EXISTING);
+                            }
+                        }
+                    }
+                    return null;
+                }));
             }
-            zipEntry = zipInputStream.getNextEntry();
+
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting " + zippedFile);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to extract " + zippedFile, e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
-        zipInputStream.closeEntry();
-        zipInputStream.close();
-    }	
-	
+    }
 
+    /**
+     * Splits a list of entries into contiguous ranges of about the same total
+     * size.
+     * 
+     * @param sizes
+     *            Sizes of the entries, in list order
+     * @param parts
+     *            Number of ranges
+     * @return Start index of each range, followed by the number of entries;
+     *         range i is [bounds[i], bounds[i + 1]) and may be empty.
+     */
+    static int[] splitBySize(List<Long> sizes, int parts) {
+        long total = 0;
+        for (long size : sizes) {
+            total += size;
+        }
+        int[] bounds = new int[parts + 1];
+        int part = 1;
+        long cumulative = 0;
+        for (int i = 0; i < sizes.size(); i++) {
+            while (part < parts && cumulative >= total * part / parts) {
+                bounds[part++] = i;
+            }
+            cumulative += sizes.get(i);
+        }
+        while (part <= parts) {
+            bounds[part++] = sizes.size();
+        }
+        return bounds;
+    }
 
     /**
      * Constructs an absolute URI from the given URI reference and a base URI.
@@ -0,0 +1,327 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Validates the files of CDB directories in a pipeline of stages, e.g. file
+ * name parsing followed by opening ZIP archives. The directories are listed
+ * by one thread, each stage has its own bounded queue and number of threads,
+ * and the errors of each file are collected in listing order, so the result
+ * is the same as validating the files one by one.
+ *
+ * Queues block when they are full, and at most {@link #MAX_IN_FLIGHT} files
+ * are between the listing and the collection of their errors, so memory use
+ * does not depend on the number of files. A slow stage only holds back the
+ * listing once its queue is full; fast stages before it keep their own pace.
+ *
+ * Once the {@link TimeBudget} of the test expires, listing stops and files
+ * still queued skip their remaining stages.
+ *
+ * The pipeline is built on blocking queues rather than
+ * {@code java.util.concurrent.Flow}, which is not available on Java 8. Listing
+ * and error aggregation are fixed steps around the stages; the stages are
+ * {@link check} lambdas rather than {@code Capability1Tests.validateFile}
+ * ones, as a stage has to pass its parse result on and be able to skip the
+ * later stages for a file. It is currently used by the GSModel archive tests
+ * only, with a name parsing stage and an archive stage. The other name checks,
+ * such as those of Tiles and GTModel, are cheap and still iterate the files
+ * one by one; they gain nothing from a separate archive stage.
+ */
+public class ValidationPipeline {
+
+	/**
+	 * Default capacity of the queue of a stage
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/**
+	 * Maximum number of files listed but not yet collected
+	 */
+	public static final int MAX_IN_FLIGHT = 4096;
+
+	/**
+	 * Validates a file in a stage of the pipeline.
+	 */
+	public interface check {
+		/**
+		 * @param  item        File to validate
+		 * @return             false to skip the later stages for the file
+		 * @throws IOException Error reading from CDB, which stops the pipeline
+		 */
+		boolean check(Item item) throws IOException;
+	}
+
+	/**
+	 * A file passing through the pipeline, with its errors and the result of
+	 * parsing its name.
+	 */
+	public static class Item {
+		private final long sequence;
+		private final Path path;
+		private final BasicFileAttributes attributes;
+		private final ArrayList<String> errors = new ArrayList<String>();
+		private volatile Object parsed;
+		private volatile boolean skipped;
+
+		Item(long sequence, Path path, BasicFileAttributes attributes) {
+			this.sequence = sequence;
+			this.path = path;
+			this.attributes = attributes;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * @return Attributes read for the file while its directory was listed
+		 */
+		public BasicFileAttributes getAttributes() {
+			return attributes;
+		}
+
+		public String getFileName() {
+			return path.getFileName().toString();
+		}
+
+		/**
+		 * @return Errors of the file, which stages add to
+		 */
+		public ArrayList<String> getErrors() {
+			return errors;
+		}
+
+		/**
+		 * @param  type Type of the value
+		 * @return      Value set by an earlier stage, e.g. a file name Matcher
+		 */
+		public <T> T getParsed(Class<T> type) {
+			return type.cast(parsed);
+		}
+
+		/**
+		 * @param parsed Value for the later stages
+		 */
+		public void setParsed(Object parsed) {
+			this.parsed = parsed;
+		}
+	}
+
+	private static class Stage {
+		private final String name;
+		private final int parallelism;
+		private final int capacity;
+		private final check check;
+
+		Stage(String name, int parallelism, int capacity, check check) {
+			this.name = name;
+			this.parallelism = parallelism;
+			this.capacity = capacity;
+			this.check = check;
+		}
+	}
+
+	/**
+	 * Marks the end of the files in a queue
+	 */
+	private static final Item END = new Item(-1, null, null);
+
+	private final List<Stage> stages = new ArrayList<Stage>();
+
+	/**
+	 * Add a stage with the default queue capacity.
+	 *
+	 * @param  name        Name of the stage, for thread names
+	 * @param  parallelism Number of threads of the stage
+	 * @param  check       Validation of a file
+	 * @return             This pipeline
+	 */
+	public ValidationPipeline stage(String name, int parallelism, check check) {
+		return stage(name, parallelism, DEFAULT_CAPACITY, check);
+	}
+
+	/**
+	 * Add a stage.
+	 *
+	 * @param  name        Name of the stage, for thread names
+	 * @param  parallelism Number of threads of the stage
+	 * @param  capacity    Capacity of the queue of files waiting for the stage
+	 * @param  check       Validation of a file
+	 * @return             This pipeline
+	 */
+	public ValidationPipeline stage(String name, int parallelism, int capacity, check check) {
+		if (parallelism < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Invalid parallelism or capacity for stage " + name);
+		}
+		stages.add(new Stage(name, parallelism, capacity, check));
+		return this;
+	}
+
+	/**
+	 * Run all stages against the entries a certain depth below each of the
+	 * given directories (see {@link DirectoryWalker#walkAtDepth}).
+	 *
+	 * @param  directories Directories to list
+	 * @param  depth       Depth of the entries below the directories
+	 * @return             Errors of all files, in listing order
+	 * @throws IOException Error reading from CDB
+	 */
+	public ArrayList<String> run(List<Path> directories, int depth) throws IOException {
+		if (stages.isEmpty()) {
+			throw new IllegalStateException("Pipeline has no stages");
+		}
+		List<BlockingQueue<Item>> queues = new ArrayList<BlockingQueue<Item>>();
+		for (Stage stage : stages) {
+			queues.add(new ArrayBlockingQueue<Item>(stage.capacity));
+		}
+		BlockingQueue<Item> collected = new ArrayBlockingQueue<Item>(DEFAULT_CAPACITY);
+		queues.add(collected);
+
+		Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		ExecutorService executor = Executors.newCachedThreadPool(IoExecutors.newThreadFactory("validation-pipeline"));
+
+		try {
+			executor.execute(() -> list(directories, depth, queues.get(0), inFlight, failure));
+			for (int i = 0; i < stages.size(); i++) {
+				Stage stage = stages.get(i);
+				int consumers = (i + 1 < stages.size()) ? stages.get(i + 1).parallelism : 1;
+				AtomicInteger running = new AtomicInteger(stage.parallelism);
+				BlockingQueue<Item> input = queues.get(i);
+				BlockingQueue<Item> output = queues.get(i + 1);
+				for (int worker = 0; worker < stage.parallelism; worker++) {
+					executor.execute(() -> process(stage, input, output, running, consumers, failure));
+				}
+			}
+
+			ArrayList<String> errors = collect(collected, inFlight);
+			Throwable error = failure.get();
+			if (error instanceof IOException) {
+				throw (IOException) error;
+			} else if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			} else if (error instanceof Error) {
+				throw (Error) error;
+			} else if (error != null) {
+				throw new IOException(error);
+			}
+			return errors;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while validating files");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void list(List<Path> directories, int depth, BlockingQueue<Item> first, Semaphore inFlight,
+			AtomicReference<Throwable> failure) {
+		long[] sequence = new long[1];
+		TimeBudget budget = TimeBudget.current();
+		budget.addUnits(directories.size());
+		try {
+			for (Path directory : directories) {
+				if (budget.isExpired()) {
+					break;
+				}
+				DirectoryWalker.walkAtDepth(directory, depth, (entry, attributes) -> {
+					if (failure.get() != null) {
+						// a stage failed, stop listing
+						throw new IOException("Validation pipeline stopped");
+					}
+					try {
+						inFlight.acquire();
+						first.put(new Item(sequence[0]++, entry, attributes));
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException("Interrupted while listing files");
+					}
+				});
+				if (!budget.isExpired()) {
+					budget.unitDone();
+				}
+			}
+		} catch (Throwable e) {
+			failure.compareAndSet(null, e);
+		} finally {
+			for (int i = 0; i < stages.get(0).parallelism; i++) {
+				if (!putEnd(first)) {
+					return;
+				}
+			}
+		}
+	}
+
+	private static void process(Stage stage, BlockingQueue<Item> input, BlockingQueue<Item> output,
+			AtomicInteger running, int consumers, AtomicReference<Throwable> failure) {
+		Thread.currentThread().setName("validation-pipeline-" + stage.name);
+		try {
+			for (Item item = input.take(); item != END; item = input.take()) {
+				if (!item.skipped && failure.get() == null && !TimeBudget.current().isExpired()) {
+					try {
+						item.skipped = !stage.check.check(item);
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+				output.put(item);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Throwable e) {
+			failure.compareAndSet(null, e);
+		} finally {
+			// the last worker of a stage ends the next one, even if it failed
+			if (running.decrementAndGet() == 0) {
+				for (int i = 0; i < consumers; i++) {
+					if (!putEnd(output)) {
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collect the errors of the files in listing order.
+	 */
+	private static ArrayList<String> collect(BlockingQueue<Item> collected, Semaphore inFlight)
+			throws InterruptedException {
+		ArrayList<String> errors = new ArrayList<String>();
+		Map<Long, Item> pending = new HashMap<Long, Item>();
+		long next = 0;
+		for (Item item = collected.take(); item != END; item = collected.take()) {
+			pending.put(item.sequence, item);
+			for (Item ready = pending.remove(next); ready != null; ready = pending.remove(next)) {
+				errors.addAll(ready.errors);
+				inFlight.release();
+				next++;
+			}
+		}
+		return errors;
+	}
+
+	private static boolean putEnd(BlockingQueue<Item> queue) {
+		try {
+			queue.put(END);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -59,6 +60,7 @@ public class XMLUtils {
     private static final Logger LOGR = Logger.getLogger(XMLUtils.class.getPackage().getName());
     private static final XMLInputFactory STAX_FACTORY = initXMLInputFactory();
     private static final XPathFactory XPATH_FACTORY = initXPathFactory();
+    private static final Map<File, CompiledSchema> SCHEMAS = new ConcurrentHashMap<File, CompiledSchema>();
 
     private static XPathFactory initXPathFactory() {
         XPathFactory factory = XPathFactory.newInstance();
@@ -422,8 +424,7 @@ public class XMLUtils {
      */
     public static SchemaValidatorErrorHandler validateXmlFileIsValid(File xmlFile, File xsdFile) throws SAXException, IOException {
         SchemaValidatorErrorHandler errorHandler = new SchemaValidatorErrorHandler();
-        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        Schema schema = schemaFactory.newSchema(xsdFile);
+        Schema schema = schemaFor(xsdFile);
 
         Validator validator = schema.newValidator();
         validator.setErrorHandler(errorHandler);
@@ -433,6 +434,47 @@ public class XMLUtils {
         return errorHandler;
     }
 
+    /**
+     * Returns the compiled schema of an XSD file. Compiled schemas are
+     * thread-safe and are kept for later test runs, until the XSD file is
+     * modified. Schemas it includes or imports are assumed to change along
+     * with it.
+     *
+     * @param xsdFile
+     *              Schema file to compile
+     *
+     * @return The compiled schema.
+     * @throws SAXException Could not parse the schema
+     */
+    static Schema schemaFor(File xsdFile) throws SAXException {
+        File key = xsdFile.getAbsoluteFile();
+        long lastModified = key.lastModified();
+        long length = key.length();
+        CompiledSchema cached = SCHEMAS.get(key);
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.schema;
+        }
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        Schema schema = schemaFactory.newSchema(xsdFile);
+        SCHEMAS.put(key, new CompiledSchema(schema, lastModified, length));
+        return schema;
+    }
+
+    /**
+     * A compiled schema with the modification time and size of its file.
+     */
+    private static class CompiledSchema {
+        private final Schema schema;
+        private final long lastModified;
+        private final long length;
+
+        CompiledSchema(Schema schema, long lastModified, long length) {
+            this.schema = schema;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
     /**
      * Returns a list of nodes based on an xPath query
      *
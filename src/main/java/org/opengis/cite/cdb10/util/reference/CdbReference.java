@@ -2,6 +2,8 @@ package org.opengis.cite.cdb10.util.reference;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -17,6 +19,12 @@ import org.xml.sax.SAXException;
  *
  */
 public class CdbReference {
+	/**
+	 * Parsed reference files, shared by all instances so each file is only
+	 * parsed once per JVM. The documents must not be modified.
+	 */
+	private static final Map<String, Document> documents = new ConcurrentHashMap<String, Document>();
+
 	public CdbReference() {
 	}
 
@@ -66,14 +74,28 @@ public class CdbReference {
 	}
 	
 	/**
-	 * Get a Resource from a path, and load it into an XML Document.
+	 * Get a Resource from a path, and load it into an XML Document. Documents
+	 * are cached, so a long-running JVM (see
+	 * {@link org.opengis.cite.cdb10.ValidationService}) only parses them once.
 	 * @param resourcePath Path to resource bundled by Maven
 	 * @return XML Document
 	 */
 	private Document documentForResource(String resourcePath) {
+		return documents.computeIfAbsent(resourcePath, this::parseResource);
+	}
+
+	private Document parseResource(String resourcePath) {
 		InputStream in = getClass().getResourceAsStream(resourcePath);
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		
+		try {
+			// Expand the whole DOM while parsing, so that the shared
+			// documents are not modified when validators read them
+			factory.setFeature("http://apache.org/xml/features/dom/defer-node-expansion", false);
+		} catch (ParserConfigurationException e) {
+			// not a Xerces parser; documents are fully expanded already
+		}
+		
 		DocumentBuilder builder = null;
 		try {
 			builder = factory.newDocumentBuilder();
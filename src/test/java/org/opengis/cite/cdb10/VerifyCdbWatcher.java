@@ -0,0 +1,162 @@
+package org.opengis.cite.cdb10;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the CdbWatcher class.
+ */
+public class VerifyCdbWatcher {
+
+	private static final String STRUCTURE = "org.opengis.cite.cdb10.cdbStructure.";
+
+	private Path cdbRoot;
+	private CdbWatcher watcher;
+	private Thread watchThread;
+	private final BlockingQueue<Set<String>> batches = new LinkedBlockingQueue<Set<String>>();
+	private final BlockingQueue<Set<String>> scopes = new LinkedBlockingQueue<Set<String>>();
+
+	@Before
+	public void createCdb() throws IOException {
+		this.cdbRoot = Files.createTempDirectory("cdbWatcherTest-");
+		Files.createDirectories(this.cdbRoot.resolve("Tiles/N62/W162"));
+		Files.createDirectories(this.cdbRoot.resolve("Metadata"));
+	}
+
+	@After
+	public void deleteCdb() throws Exception {
+		if (null != this.watcher) {
+			this.watcher.close();
+			this.watchThread.join(5000);
+		}
+		FileUtils.deleteDirectory(this.cdbRoot.toFile());
+	}
+
+	private void startWatching() throws Exception {
+		this.watcher = new CdbWatcher(this.cdbRoot, (batch, scope) -> {
+			batches.add(batch);
+			scopes.add(scope);
+		});
+		this.watchThread = new Thread(() -> {
+			try {
+				this.watcher.watch();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		this.watchThread.start();
+		// give the watcher time to register the existing directories
+		Thread.sleep(200);
+	}
+
+	@Test
+	public void affectedTests_tile() {
+		Set<String> tests = CdbWatcher.affectedTests(
+				Paths.get("Tiles/N62/W162/001_Elevation/L00/U0/N62W162_D001_S001_T001_L00_U0_R0.tif"));
+
+		Assert.assertTrue(tests.contains(STRUCTURE + "TilesStructureTests"));
+		Assert.assertTrue(tests.contains(STRUCTURE + "TilesContentTests"));
+		Assert.assertTrue(tests.contains(STRUCTURE + "TilesCoverageTests"));
+		Assert.assertFalse(tests.contains(STRUCTURE + "ModelGeometryContentTests"));
+	}
+
+	@Test
+	public void affectedTests_gsModelArchive() {
+		Set<String> tests = CdbWatcher.affectedTests(
+				Paths.get("Tiles/N62/W162/300_GSModelGeometry/L07/U38/N62W162_D300_S001_T001_L07_U38_R102.zip"));
+
+		Assert.assertTrue(tests.contains(STRUCTURE + "GSModel.GSModelGeometryStructureTests"));
+		Assert.assertTrue(tests.contains(STRUCTURE + "GSModel.GSModelArchiveIntegrityTests"));
+		Assert.assertFalse(tests.contains(STRUCTURE + "TilesStructureTests"));
+	}
+
+	@Test
+	public void affectedTests_gtModel() {
+		Set<String> tests = CdbWatcher.affectedTests(Paths.get("GTModel/511_GTModelTexture/A/B/texture.rgb"));
+
+		Assert.assertTrue(tests.contains(STRUCTURE + "GTModelStructureTests"));
+		Assert.assertTrue(tests.contains(STRUCTURE + "GTModelTextureStructureTests"));
+		Assert.assertTrue(tests.contains(STRUCTURE + "ModelGeometryContentTests"));
+	}
+
+	@Test
+	public void affectedTests_unwatched() {
+		Assert.assertTrue(CdbWatcher.affectedTests(Paths.get("Navigation/400_NavData/file.dbf")).isEmpty());
+	}
+
+	@Test
+	public void scopeOf() {
+		Assert.assertEquals("Tiles/N62/W162", CdbWatcher.scopeOf(
+				Paths.get("Tiles/N62/W162/001_Elevation/L00/U0/N62W162_D001_S001_T001_L00_U0_R0.tif")));
+		Assert.assertEquals("Tiles/N62", CdbWatcher.scopeOf(Paths.get("Tiles/N62")));
+		Assert.assertEquals("GTModel/511_GTModelTexture",
+				CdbWatcher.scopeOf(Paths.get("GTModel/511_GTModelTexture/A/B/texture.rgb")));
+		Assert.assertEquals("Metadata", CdbWatcher.scopeOf(Paths.get("Metadata/Lights.xml")));
+	}
+
+	@Test
+	public void batchParameters() {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("iut", "/data/cdb");
+		parameters.put("checkpoint", "/data/cdb.checkpoint");
+		parameters.put("resume", "true");
+		parameters.put("shard", "1/4");
+		parameters.put("error_budget", "100");
+
+		Map<String, String> batch = CdbWatcher.batchParameters(parameters,
+				new TreeSet<String>(Arrays.asList("GTModel/511_GTModelTexture", "Tiles/N62/W162")));
+
+		Assert.assertEquals("/data/cdb", batch.get("iut"));
+		Assert.assertEquals("100", batch.get("error_budget"));
+		Assert.assertEquals("GTModel/511_GTModelTexture,Tiles/N62/W162", batch.get("scope"));
+		Assert.assertFalse(batch.containsKey("checkpoint"));
+		Assert.assertFalse(batch.containsKey("resume"));
+		Assert.assertFalse(batch.containsKey("shard"));
+		Assert.assertEquals("/data/cdb.checkpoint", parameters.get("checkpoint"));
+	}
+
+	@Test
+	public void watch_batchesChanges() throws Exception {
+		startWatching();
+
+		Path tiles = this.cdbRoot.resolve("Tiles/N62/W162/001_Elevation/L00/U0");
+		Files.createDirectories(tiles);
+		Files.createFile(tiles.resolve("N62W162_D001_S001_T001_L00_U0_R0.tif"));
+		Files.createFile(tiles.resolve("N62W162_D001_S001_T001_L00_U0_R1.tif"));
+
+		Set<String> batch = batches.poll(5, TimeUnit.SECONDS);
+		Assert.assertNotNull(batch);
+		Assert.assertTrue(batch.toString(), batch.contains(STRUCTURE + "TilesStructureTests"));
+		Assert.assertTrue(batch.toString(), batch.contains(STRUCTURE + "TilesContentTests"));
+		Assert.assertEquals(Collections.singleton("Tiles/N62/W162"), scopes.poll(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void watch_newTopLevelDirectory() throws Exception {
+		startWatching();
+
+		Path textures = this.cdbRoot.resolve("GTModel/511_GTModelTexture");
+		Files.createDirectories(textures);
+
+		Set<String> batch = batches.poll(5, TimeUnit.SECONDS);
+		Assert.assertNotNull(batch);
+		Assert.assertTrue(batch.toString(), batch.contains(STRUCTURE + "GTModelStructureTests"));
+	}
+}
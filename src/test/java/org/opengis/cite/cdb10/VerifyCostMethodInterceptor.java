@@ -0,0 +1,98 @@
+package org.opengis.cite.cdb10;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.testng.IMethodInstance;
+import org.testng.ITestNGMethod;
+
+/**
+ * Verifies the behavior of the CostMethodInterceptor class.
+ */
+public class VerifyCostMethodInterceptor {
+
+	/**
+	 * Tests of several stages, listed out of order
+	 */
+	@Cost(Cost.Stage.DIRECTORIES)
+	public static class CostTests {
+		@Cost(Cost.Stage.CONTENT)
+		public void verifyContent() {
+		}
+
+		public void verifyDirectories() {
+		}
+
+		@Cost(Cost.Stage.ROOT)
+		public void verifyRoot() {
+		}
+
+		@Cost(Cost.Stage.ARCHIVES)
+		public void verifyArchives() {
+		}
+
+		public void verifyMoreDirectories() {
+		}
+	}
+
+	/**
+	 * Tests without a cost
+	 */
+	public static class UnannotatedTests {
+		public void verifyFiles() {
+		}
+	}
+
+	private static IMethodInstance instance(Class<?> testClass, String name) throws NoSuchMethodException {
+		Method method = testClass.getMethod(name);
+		ITestNGMethod testMethod = (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(),
+				new Class<?>[] { ITestNGMethod.class }, (proxy, called, args) -> {
+					if (called.getName().equals("getMethod")) {
+						return method;
+					}
+					if (called.getName().equals("getMethodName")) {
+						return name;
+					}
+					throw new UnsupportedOperationException(called.getName());
+				});
+		return (IMethodInstance) Proxy.newProxyInstance(IMethodInstance.class.getClassLoader(),
+				new Class<?>[] { IMethodInstance.class }, (proxy, called, args) -> {
+					if (called.getName().equals("getMethod")) {
+						return testMethod;
+					}
+					throw new UnsupportedOperationException(called.getName());
+				});
+	}
+
+	@Test
+	public void cheapTestsFirst() throws NoSuchMethodException {
+		List<IMethodInstance> methods = new ArrayList<IMethodInstance>();
+		for (String name : Arrays.asList("verifyContent", "verifyDirectories", "verifyRoot", "verifyArchives",
+				"verifyMoreDirectories")) {
+			methods.add(instance(CostTests.class, name));
+		}
+		methods.add(2, instance(UnannotatedTests.class, "verifyFiles"));
+
+		List<String> names = new ArrayList<String>();
+		for (IMethodInstance method : new CostMethodInterceptor().intercept(methods, null)) {
+			names.add(method.getMethod().getMethodName());
+		}
+
+		Assert.assertEquals(Arrays.asList("verifyRoot", "verifyDirectories", "verifyMoreDirectories", "verifyFiles",
+				"verifyArchives", "verifyContent"), names);
+	}
+
+	@Test
+	public void stageOfMethod() throws NoSuchMethodException {
+		Assert.assertEquals(Cost.Stage.CONTENT, Cost.Stage.of(CostTests.class.getMethod("verifyContent")));
+		Assert.assertEquals(Cost.Stage.DIRECTORIES, Cost.Stage.of(CostTests.class.getMethod("verifyDirectories")));
+		Assert.assertEquals(Cost.Stage.FILES, Cost.Stage.of(UnannotatedTests.class.getMethod("verifyFiles")));
+		Assert.assertTrue(Cost.Stage.ARCHIVES.isExpensive());
+		Assert.assertFalse(Cost.Stage.FILES.isExpensive());
+	}
+}
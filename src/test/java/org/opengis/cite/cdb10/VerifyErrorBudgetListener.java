@@ -0,0 +1,98 @@
+package org.opengis.cite.cdb10;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opengis.cite.cdb10.util.ErrorBudget;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+
+/**
+ * Verifies the behavior of the ErrorBudgetListener class and the skipping of
+ * expensive tests in CommonFixture.
+ */
+public class VerifyErrorBudgetListener {
+
+	/**
+	 * Tests of a cheap and an expensive stage
+	 */
+	public static class BudgetTests extends CommonFixture {
+		@Cost(Cost.Stage.DIRECTORIES)
+		public void verifyDirectories() {
+		}
+
+		@Cost(Cost.Stage.CONTENT)
+		public void verifyContent() {
+		}
+	}
+
+	@After
+	public void resetBudget() {
+		ErrorBudget.reset(ErrorBudget.UNLIMITED);
+	}
+
+	private static ITestResult failure(String message) throws NoSuchMethodException {
+		ITestNGMethod method = (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(),
+				new Class<?>[] { ITestNGMethod.class }, (proxy, called, args) -> {
+					if (called.getName().equals("getMethod")) {
+						return BudgetTests.class.getMethod("verifyDirectories");
+					}
+					throw new UnsupportedOperationException(called.getName());
+				});
+		return (ITestResult) Proxy.newProxyInstance(ITestResult.class.getClassLoader(),
+				new Class<?>[] { ITestResult.class }, (proxy, called, args) -> {
+					if (called.getName().equals("getMethod")) {
+						return method;
+					}
+					if (called.getName().equals("getThrowable")) {
+						return new AssertionError(message);
+					}
+					throw new UnsupportedOperationException(called.getName());
+				});
+	}
+
+	@Test
+	public void countsOneErrorPerLine() {
+		Assert.assertEquals(3, ErrorBudgetListener.countErrors(
+				new AssertionError("Invalid LOD: LC\nInvalid LOD: L25\nInvalid UREF: U9 expected [true] but found [false]")));
+		Assert.assertEquals(1, ErrorBudgetListener.countErrors(new NullPointerException()));
+	}
+
+	@Test
+	public void skipsExpensiveTestsOnceExceeded() throws NoSuchMethodException {
+		ErrorBudget.reset(2);
+		BudgetTests tests = new BudgetTests();
+		ErrorBudgetListener listener = new ErrorBudgetListener();
+
+		listener.onTestFailure(failure("Invalid LOD: LC\nInvalid LOD: L25"));
+		Assert.assertFalse(ErrorBudget.isExceeded());
+		tests.checkErrorBudget(BudgetTests.class.getMethod("verifyContent"));
+
+		listener.onTestFailure(failure("Invalid UREF: U9"));
+		Assert.assertTrue(ErrorBudget.isExceeded());
+		Assert.assertEquals(3, ErrorBudget.getErrors());
+		tests.checkErrorBudget(BudgetTests.class.getMethod("verifyDirectories"));
+		try {
+			tests.checkErrorBudget(BudgetTests.class.getMethod("verifyContent"));
+			Assert.fail("Expensive test was not skipped");
+		} catch (SkipException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("Error budget of 2 exceeded"));
+		}
+	}
+
+	@Test
+	public void unlimitedByDefault() throws NoSuchMethodException {
+		new ErrorBudgetListener().onTestFailure(failure("Invalid LOD: LC"));
+
+		Assert.assertFalse(ErrorBudget.isExceeded());
+		new BudgetTests().checkErrorBudget(BudgetTests.class.getMethod("verifyContent"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeBudget() {
+		ErrorBudget.reset(-1);
+	}
+}
@@ -0,0 +1,137 @@
+package org.opengis.cite.cdb10;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Verifies the behavior of the ResultsMerger class.
+ */
+public class VerifyResultsMerger {
+
+	private static final String TILES = "org.opengis.cite.cdb10.cdbStructure.TilesStructureTests";
+	private static final String ROOT = "org.opengis.cite.cdb10.cdbStructure.RootStructureTests";
+
+	@Test
+	public void mergeStatuses() throws Exception {
+		Document first = parse(results(
+				testClass(TILES,
+						method("verifyA", "PASS", null, 10),
+						method("verifyB", "FAIL", "error one\nerror two expected [true] but found [false]", 20),
+						method("verifyC", "SKIP", null, 0)),
+				testClass(ROOT,
+						method("verifyRoot", "FAIL", "root error expected [true] but found [false]", 5))));
+		Document second = parse(results(
+				testClass(TILES,
+						method("verifyA", "FAIL", "error three expected [true] but found [false]", 30),
+						method("verifyB", "FAIL", "error two\nerror four expected [true] but found [false]", 40),
+						method("verifyC", "PASS", null, 1))));
+
+		Document merged = ResultsMerger.merge(Arrays.asList(first, second));
+		Element root = merged.getDocumentElement();
+
+		Assert.assertEquals("4", root.getAttribute("total"));
+		Assert.assertEquals("1", root.getAttribute("passed"));
+		Assert.assertEquals("3", root.getAttribute("failed"));
+		Assert.assertEquals("0", root.getAttribute("skipped"));
+
+		Element verifyA = method(merged, "verifyA");
+		Assert.assertEquals("FAIL", verifyA.getAttribute("status"));
+		Assert.assertEquals("40", verifyA.getAttribute("duration-ms"));
+
+		Element verifyB = method(merged, "verifyB");
+		Assert.assertEquals("error one\nerror two\nerror four expected [true] but found [false]",
+				verifyB.getElementsByTagName("message").item(0).getTextContent());
+
+		Assert.assertEquals("PASS", method(merged, "verifyC").getAttribute("status"));
+		Assert.assertEquals("FAIL", method(merged, "verifyRoot").getAttribute("status"));
+	}
+
+	@Test
+	public void mergeMissingClass() throws Exception {
+		Document first = parse(results(testClass(ROOT, method("verifyRoot", "PASS", null, 5))));
+		Document second = parse(results(testClass(TILES, method("verifyA", "SKIP", null, 0))));
+
+		Document merged = ResultsMerger.merge(Arrays.asList(first, second));
+
+		Assert.assertEquals("2", merged.getDocumentElement().getAttribute("total"));
+		Assert.assertEquals("1", merged.getDocumentElement().getAttribute("skipped"));
+		Assert.assertEquals(2, merged.getElementsByTagName("class").getLength());
+	}
+
+	@Test
+	public void mergeIncomplete() throws Exception {
+		String incomplete = TimeBudget.INCOMPLETE + " 40% covered (time budget of 1m exceeded in 2 of 5 units)";
+		Document first = parse(results(
+				testClass(TILES,
+						method("verifyA", "PASS", null, 10),
+						method("verifyB", "FAIL", "error one expected [true] but found [false]", 20),
+						method("verifyC", "SKIP", incomplete, 30),
+						method("verifyD", "SKIP", null, 0))));
+		Document second = parse(results(
+				testClass(TILES,
+						method("verifyA", "SKIP", incomplete, 30),
+						method("verifyB", "SKIP", incomplete, 30),
+						method("verifyC", "PASS", null, 10),
+						method("verifyD", "SKIP", incomplete, 30))));
+
+		Document merged = ResultsMerger.merge(Arrays.asList(first, second));
+
+		Assert.assertEquals("SKIP", method(merged, "verifyA").getAttribute("status"));
+		Assert.assertEquals("SKIP", method(merged, "verifyC").getAttribute("status"));
+		Assert.assertEquals(incomplete,
+				method(merged, "verifyD").getElementsByTagName("message").item(0).getTextContent());
+		Element verifyB = method(merged, "verifyB");
+		Assert.assertEquals("FAIL", verifyB.getAttribute("status"));
+		Assert.assertEquals("error one\n" + incomplete + " expected [true] but found [false]",
+				verifyB.getElementsByTagName("message").item(0).getTextContent());
+		Assert.assertEquals("3", merged.getDocumentElement().getAttribute("skipped"));
+		Assert.assertEquals("0", merged.getDocumentElement().getAttribute("passed"));
+	}
+
+	private static Element method(Document results, String name) {
+		NodeList methods = results.getElementsByTagName("test-method");
+		for (int i = 0; i < methods.getLength(); i++) {
+			Element method = (Element) methods.item(i);
+			if (method.getAttribute("name").equals(name)) {
+				return method;
+			}
+		}
+		throw new AssertionError("No test method " + name);
+	}
+
+	private static String results(String... classes) {
+		return "<testng-results skipped=\"0\" failed=\"0\" total=\"0\" passed=\"0\"><reporter-output/>"
+				+ "<suite name=\"ets-cdb10\" duration-ms=\"100\"><groups/>"
+				+ "<test name=\"CDB Structure\" duration-ms=\"100\">" + String.join("", classes)
+				+ "</test></suite></testng-results>";
+	}
+
+	private static String testClass(String name, String... methods) {
+		return "<class name=\"" + name + "\">" + String.join("", methods) + "</class>";
+	}
+
+	private static String method(String name, String status, String message, int duration) {
+		String method = "<test-method status=\"" + status + "\" signature=\"" + name + "()\" name=\"" + name
+				+ "\" duration-ms=\"" + duration + "\">";
+		if (null != message) {
+			method += "<exception class=\"java.lang.AssertionError\"><message><![CDATA[" + message
+					+ "]]></message></exception>";
+		}
+		return method + "</test-method>";
+	}
+
+	private static Document parse(String xml) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+				.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+	}
+}
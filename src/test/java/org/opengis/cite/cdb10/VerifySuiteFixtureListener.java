@@ -0,0 +1,91 @@
+package org.opengis.cite.cdb10;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.cite.cdb10.util.Checkpoint;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+
+/**
+ * Verifies the behavior of the SuiteFixtureListener class.
+ */
+public class VerifySuiteFixtureListener {
+
+	private Path directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		this.directory = Files.createTempDirectory("suiteFixtureListenerTest-");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		Checkpoint.disable();
+		FileUtils.deleteDirectory(this.directory.toFile());
+	}
+
+	/**
+	 * Apply the run arguments as at the start of a test run.
+	 *
+	 * @return Test subject set by the listener
+	 */
+	private static Object startRun(Map<String, String> params) {
+		XmlSuite xmlSuite = new XmlSuite();
+		xmlSuite.setParameters(params);
+		Map<String, Object> attributes = new HashMap<String, Object>();
+		ISuite suite = (ISuite) Proxy.newProxyInstance(ISuite.class.getClassLoader(), new Class<?>[] { ISuite.class },
+				(proxy, called, args) -> {
+					switch (called.getName()) {
+					case "getXmlSuite":
+						return xmlSuite;
+					case "setAttribute":
+						attributes.put((String) args[0], args[1]);
+						return null;
+					case "getAttribute":
+						return attributes.get(args[0]);
+					default:
+						throw new UnsupportedOperationException(called.getName());
+					}
+				});
+		new SuiteFixtureListener().processSuiteParameters(suite);
+		return attributes.get(SuiteAttribute.TEST_SUBJECT.getName());
+	}
+
+	@Test
+	public void resumeCheckpointOfArchive() throws IOException, InterruptedException {
+		File archive = this.directory.resolve("cdb.zip").toFile();
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+			zip.putNextEntry(new ZipEntry("Tiles/"));
+			zip.closeEntry();
+		}
+		Map<String, String> params = new HashMap<String, String>();
+		params.put(TestRunArg.IUT.toString(), archive.toURI().toString());
+		params.put(TestRunArg.CHECKPOINT.toString(), this.directory.resolve("checkpoint.txt").toString());
+		params.put(TestRunArg.RESUME.toString(), "true");
+
+		Object firstSubject = startRun(params);
+		Checkpoint.current().complete("test", "N62/W162", Collections.<String>emptyList());
+		Checkpoint.current().save();
+		Thread.sleep(5);
+		Object secondSubject = startRun(params);
+
+		// each run extracts the archive to a directory of its own
+		Assert.assertFalse(firstSubject.equals(secondSubject));
+		Assert.assertTrue(Checkpoint.current().isCompleted("test", "N62/W162"));
+	}
+}
@@ -0,0 +1,137 @@
+package org.opengis.cite.cdb10;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opengis.cite.cdb10.util.TimeBudget;
+import org.testng.IInvokedMethod;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+
+/**
+ * Verifies the behavior of the TimeBudgetListener class.
+ */
+public class VerifyTimeBudgetListener {
+
+	/**
+	 * Test that runs out of time
+	 */
+	public static class SlowTests extends CommonFixture {
+		@Cost(Cost.Stage.CONTENT)
+		public void verifyContent() {
+		}
+	}
+
+	/**
+	 * Result of a test, with the status and exception set by the listener
+	 */
+	private static class Result {
+		int status;
+		Throwable throwable;
+
+		Result(int status, Throwable throwable) {
+			this.status = status;
+			this.throwable = throwable;
+		}
+
+		ITestResult proxy() {
+			return (ITestResult) Proxy.newProxyInstance(ITestResult.class.getClassLoader(),
+					new Class<?>[] { ITestResult.class }, (proxy, called, args) -> {
+						switch (called.getName()) {
+						case "getStatus":
+							return status;
+						case "setStatus":
+							status = (Integer) args[0];
+							return null;
+						case "getThrowable":
+							return throwable;
+						case "setThrowable":
+							throwable = (Throwable) args[0];
+							return null;
+						default:
+							throw new UnsupportedOperationException(called.getName());
+						}
+					});
+		}
+	}
+
+	@After
+	public void removeBudgets() {
+		TimeBudget.finish();
+		TimeBudget.configure(0, Collections.<String, Long>emptyMap());
+	}
+
+	private static IInvokedMethod invoked() {
+		ITestNGMethod method = (ITestNGMethod) Proxy.newProxyInstance(ITestNGMethod.class.getClassLoader(),
+				new Class<?>[] { ITestNGMethod.class }, (proxy, called, args) -> {
+					if (called.getName().equals("getMethod")) {
+						return SlowTests.class.getMethod("verifyContent");
+					}
+					throw new UnsupportedOperationException(called.getName());
+				});
+		return (IInvokedMethod) Proxy.newProxyInstance(IInvokedMethod.class.getClassLoader(),
+				new Class<?>[] { IInvokedMethod.class }, (proxy, called, args) -> {
+					if (called.getName().equals("isTestMethod")) {
+						return true;
+					}
+					if (called.getName().equals("getTestMethod")) {
+						return method;
+					}
+					throw new UnsupportedOperationException(called.getName());
+				});
+	}
+
+	/**
+	 * Run a test that takes longer than its budget of 1 ms.
+	 */
+	private static void runOutOfTime(Result result) throws InterruptedException {
+		TimeBudget.configure(1, Collections.<String, Long>emptyMap());
+		TimeBudgetListener listener = new TimeBudgetListener();
+		listener.beforeInvocation(invoked(), result.proxy());
+		TimeBudget.current().addUnits(2);
+		TimeBudget.current().unitDone();
+		Thread.sleep(5);
+		listener.afterInvocation(invoked(), result.proxy());
+	}
+
+	@Test
+	public void marksFailureIncomplete() throws InterruptedException {
+		Result result = new Result(ITestResult.FAILURE, new AssertionError("Invalid LOD: LC\nInvalid LOD: L25"));
+		runOutOfTime(result);
+
+		Assert.assertEquals(ITestResult.FAILURE, result.status);
+		String[] lines = result.throwable.getMessage().split("\n");
+		Assert.assertEquals(3, lines.length);
+		Assert.assertEquals("Invalid LOD: L25", lines[1]);
+		Assert.assertTrue(lines[2], lines[2].startsWith("incomplete: 50% covered"));
+		Assert.assertTrue(lines[2], lines[2].endsWith("exceeded in SlowTests.verifyContent)"));
+		Assert.assertEquals(2, ErrorBudgetListener.countErrors(result.throwable));
+	}
+
+	@Test
+	public void skipsPassingTestOutOfTime() throws InterruptedException {
+		Result result = new Result(ITestResult.SUCCESS, null);
+		runOutOfTime(result);
+
+		Assert.assertEquals(ITestResult.SKIP, result.status);
+		Assert.assertTrue(result.throwable instanceof SkipException);
+		Assert.assertTrue(result.throwable.getMessage().startsWith(TimeBudget.INCOMPLETE));
+	}
+
+	@Test
+	public void keepsResultWithinBudget() {
+		Result result = new Result(ITestResult.SUCCESS, null);
+		TimeBudgetListener listener = new TimeBudgetListener();
+		listener.beforeInvocation(invoked(), result.proxy());
+		Assert.assertTrue(TimeBudget.NONE != TimeBudget.current());
+		listener.afterInvocation(invoked(), result.proxy());
+
+		Assert.assertEquals(ITestResult.SUCCESS, result.status);
+		Assert.assertNull(result.throwable);
+		Assert.assertSame(TimeBudget.NONE, TimeBudget.current());
+	}
+}
@@ -0,0 +1,289 @@
+package org.opengis.cite.cdb10;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.cite.cdb10.ValidationService.Run;
+import org.opengis.cite.cdb10.util.Checkpoint;
+import org.opengis.cite.cdb10.util.DirectoryWalker;
+import org.opengis.cite.cdb10.util.IoExecutors;
+import org.opengis.cite.cdb10.util.IoLimiter;
+import org.testng.ISuite;
+import org.testng.xml.XmlSuite;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.occamlab.te.spi.jaxrs.TestSuiteController;
+
+/**
+ * Verifies the behavior of the ValidationService class, using a controller that
+ * writes a fixed result instead of running the test suite.
+ */
+public class VerifyValidationService {
+
+	private static final String PROPERTIES = "<properties version=\"1.0\"><entry key=\"iut\">/tmp/CDB</entry></properties>";
+
+	private Path outputDir;
+	private ValidationService service;
+	private int port;
+
+	/**
+	 * Controller that records the "iut" argument as its test result.
+	 */
+	private static class FakeController implements TestSuiteController {
+		private final File outputDir;
+
+		FakeController(File outputDir) {
+			this.outputDir = outputDir;
+		}
+
+		public String getCode() {
+			return "cdb10";
+		}
+
+		public String getVersion() {
+			return "test";
+		}
+
+		public String getTitle() {
+			return "test";
+		}
+
+		public Source doTestRun(Document testRunArgs) throws Exception {
+			String iut = testRunArgs.getElementsByTagName("entry").item(0).getTextContent();
+			if (iut.isEmpty()) {
+				throw new IllegalArgumentException("Missing argument: 'iut' must be present.");
+			}
+			File results = new File(outputDir, "testng-results.xml");
+			Files.write(results.toPath(), ("<results iut=\"" + iut + "\"/>").getBytes(StandardCharsets.UTF_8));
+			return new StreamSource(results);
+		}
+	}
+
+	/**
+	 * Controller that applies the run arguments like a test run does, and
+	 * records the resulting I/O settings as its test result.
+	 */
+	private static class SettingsController extends FakeController {
+		private final File outputDir;
+
+		SettingsController(File outputDir) {
+			super(outputDir);
+			this.outputDir = outputDir;
+		}
+
+		@Override
+		public Source doTestRun(Document testRunArgs) throws Exception {
+			XmlSuite xmlSuite = new XmlSuite();
+			Map<String, String> params = new HashMap<String, String>();
+			NodeList entries = testRunArgs.getElementsByTagName("entry");
+			for (int i = 0; i < entries.getLength(); i++) {
+				Element entry = (Element) entries.item(i);
+				params.put(entry.getAttribute("key"), entry.getTextContent());
+			}
+			xmlSuite.setParameters(params);
+			ISuite suite = (ISuite) Proxy.newProxyInstance(ISuite.class.getClassLoader(),
+					new Class<?>[] { ISuite.class }, (proxy, called, args) -> {
+						return called.getName().equals("getXmlSuite") ? xmlSuite : null;
+					});
+			new SuiteFixtureListener().processSuiteParameters(suite);
+
+			String settings = String.format("%d %s %d %s %s", DirectoryWalker.getMaxOpenDirectories(),
+					DirectoryWalker.getOrder(), IoExecutors.getMaxOutstanding(),
+					IoLimiter.getRate(IoLimiter.Resource.OPENS), IoLimiter.getRate(IoLimiter.Resource.BYTES));
+			File results = new File(outputDir, "testng-results.xml");
+			Files.write(results.toPath(), settings.getBytes(StandardCharsets.UTF_8));
+			return new StreamSource(results);
+		}
+	}
+
+	@Before
+	public void startService() throws IOException {
+		this.outputDir = Files.createTempDirectory("validationServiceTest-");
+		this.service = new ValidationService(this.outputDir.toFile(), FakeController::new);
+		this.port = this.service.start(0);
+	}
+
+	@After
+	public void stopService() throws IOException {
+		this.service.stop();
+		for (IoLimiter.Resource resource : IoLimiter.Resource.values()) {
+			IoLimiter.setRate(resource, 0);
+		}
+		FileUtils.deleteDirectory(this.outputDir.toFile());
+	}
+
+	private HttpURLConnection request(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path)
+				.openConnection();
+		connection.setRequestMethod(method);
+		if (body != null) {
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(body.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return connection;
+	}
+
+	private static String read(HttpURLConnection connection) throws IOException {
+		InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream()
+				: connection.getErrorStream();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int n; (n = in.read(buffer)) > 0;) {
+			bytes.write(buffer, 0, n);
+		}
+		in.close();
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private String awaitFinished(String id) throws Exception {
+		for (int i = 0; i < 200; i++) {
+			String status = read(request("GET", "/runs/" + id, null));
+			if (!status.contains("status: QUEUED") && !status.contains("status: RUNNING")) {
+				return status;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Run did not finish");
+	}
+
+	@Test
+	public void submitRun() throws Exception {
+		HttpURLConnection submit = request("POST", "/runs", PROPERTIES);
+		Assert.assertEquals(202, submit.getResponseCode());
+		String id = read(submit).trim();
+		Assert.assertEquals("/runs/" + id, submit.getHeaderField("Location"));
+
+		String status = awaitFinished(id);
+		Assert.assertTrue(status, status.contains("status: COMPLETED"));
+		Assert.assertTrue(status, status.contains("run-" + id));
+
+		HttpURLConnection result = request("GET", "/runs/" + id + "/result", null);
+		Assert.assertEquals(200, result.getResponseCode());
+		Assert.assertEquals("<results iut=\"/tmp/CDB\"/>", read(result));
+	}
+
+	@Test
+	public void runsHaveSeparateOutputDirectories() throws Exception {
+		String first = read(request("POST", "/runs", PROPERTIES)).trim();
+		String second = read(request("POST", "/runs", PROPERTIES)).trim();
+		awaitFinished(first);
+		awaitFinished(second);
+
+		Assert.assertFalse(first.equals(second));
+		Assert.assertTrue(Files.exists(outputDir.resolve("run-" + first).resolve("testng-results.xml")));
+		Assert.assertTrue(Files.exists(outputDir.resolve("run-" + second).resolve("testng-results.xml")));
+	}
+
+	@Test
+	public void failedRun() throws Exception {
+		String id = read(request("POST", "/runs", "<properties><entry key=\"iut\"></entry></properties>")).trim();
+
+		String status = awaitFinished(id);
+		Assert.assertTrue(status, status.contains("status: FAILED"));
+		Assert.assertTrue(status, status.contains("'iut' must be present"));
+		Assert.assertEquals(409, request("GET", "/runs/" + id + "/result", null).getResponseCode());
+	}
+
+	@Test
+	public void invalidProperties() throws Exception {
+		Assert.assertEquals(400, request("POST", "/runs", "not xml").getResponseCode());
+	}
+
+	@Test
+	public void externalEntitiesRefused() throws Exception {
+		String properties = "<!DOCTYPE properties [<!ENTITY iut SYSTEM \"file:///etc/hostname\">]>"
+				+ "<properties><entry key=\"iut\">&iut;</entry></properties>";
+		Assert.assertEquals(400, request("POST", "/runs", properties).getResponseCode());
+	}
+
+	@Test
+	public void unknownRun() throws Exception {
+		Assert.assertEquals(404, request("GET", "/runs/42", null).getResponseCode());
+	}
+
+	@Test
+	public void runsDoNotInheritSettings() throws Exception {
+		ValidationService settingsService = new ValidationService(this.outputDir.toFile(), SettingsController::new);
+		try {
+			Run first = settingsService.submit(properties("<entry key=\"iut\">/tmp/CDB</entry>"
+					+ "<entry key=\"max_open_dirs\">8</entry><entry key=\"traversal_order\">inode</entry>"
+					+ "<entry key=\"max_outstanding_io\">16</entry><entry key=\"opens_per_second\">100</entry>"));
+			Run second = settingsService.submit(properties("<entry key=\"iut\">/tmp/CDB</entry>"
+					+ "<entry key=\"read_bytes_per_second\">5e6</entry>"));
+			settingsService.setLimits("listings_per_second: 10");
+			Run third = settingsService.submit(properties("<entry key=\"iut\">/tmp/CDB</entry>"));
+
+			Assert.assertEquals("8 INODE 16 100.0 0.0", awaitResult(first));
+			Assert.assertEquals("256 DIRECTORY 1024 0.0 5000000.0", awaitResult(second));
+			Assert.assertEquals("256 DIRECTORY 1024 0.0 0.0", awaitResult(third));
+			Assert.assertEquals(0.0, IoLimiter.getRate(IoLimiter.Resource.LISTINGS), 0);
+		} finally {
+			settingsService.stop();
+			Checkpoint.disable();
+		}
+	}
+
+	private static Document properties(String entries) throws Exception {
+		String xml = "<properties version=\"1.0\">" + entries + "</properties>";
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+			.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static String awaitResult(Run run) throws Exception {
+		for (int i = 0; i < 200 && (run.getStatus() == ValidationService.Status.QUEUED
+				|| run.getStatus() == ValidationService.Status.RUNNING); i++) {
+			Thread.sleep(10);
+		}
+		Assert.assertEquals(run.getError(), ValidationService.Status.COMPLETED, run.getStatus());
+		return new String(Files.readAllBytes(new File(run.getOutputDir(), "testng-results.xml").toPath()),
+				StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void changeLimits() throws Exception {
+		HttpURLConnection change = request("PUT", "/limits", "opens_per_second: 100\nread_bytes_per_second: 5e6\n");
+		Assert.assertEquals(200, change.getResponseCode());
+		String limits = read(change);
+
+		Assert.assertTrue(limits, limits.contains("opens_per_second: 100.0"));
+		Assert.assertTrue(limits, limits.contains("listings_per_second: 0.0"));
+		Assert.assertEquals(100.0, IoLimiter.getRate(IoLimiter.Resource.OPENS), 0);
+		Assert.assertEquals(5e6, IoLimiter.getRate(IoLimiter.Resource.BYTES), 0);
+		Assert.assertEquals(limits, read(request("GET", "/limits", null)));
+	}
+
+	@Test
+	public void invalidLimits() throws Exception {
+		HttpURLConnection change = request("PUT", "/limits", "opens_per_second: 100\nlistings_per_second: -1\n");
+		Assert.assertEquals(400, change.getResponseCode());
+
+		// no limit is changed
+		Assert.assertEquals(0.0, IoLimiter.getRate(IoLimiter.Resource.OPENS), 0);
+		Assert.assertEquals(400, request("PUT", "/limits", "iut: 100").getResponseCode());
+	}
+}
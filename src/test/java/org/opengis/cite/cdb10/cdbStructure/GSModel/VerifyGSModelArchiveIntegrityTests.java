@@ -0,0 +1,81 @@
+package org.opengis.cite.cdb10.cdbStructure.GSModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+import org.testng.SkipException;
+
+public class VerifyGSModelArchiveIntegrityTests extends GSModelStructureTests<GSModelArchiveIntegrityTests> {
+	protected static final String VALID_ARCHIVE_NAME = "N62W162_D300_S001_T001_L07_U38_R102.zip";
+	protected static final String VALID_ENTRY_NAME = "N62W162_D300_S001_T001_L07_U38_R102_AL015_116_AcmeFactory.flt";
+
+	public VerifyGSModelArchiveIntegrityTests() throws IOException {
+		this.testSuite = new GSModelArchiveIntegrityTests();
+	}
+
+	@Test
+	public void verifyGSModelArchiveChecksums_valid() throws IOException {
+		// setup
+		Path archive = createGSModelArchive(GSModelGeometryStructureTests.DATASET_DIRECTORY, VALID_ARCHIVE_NAME);
+		createArchiveWithEntryNamed(archive, VALID_ENTRY_NAME);
+		this.testSuite.setIntegrityEnabled(true);
+
+		// execute
+		this.testSuite.verifyGSModelArchiveChecksums();
+	}
+
+	@Test
+	public void verifyGSModelArchiveChecksums_compressedIgnored() throws IOException {
+		// setup
+		Path archive = createGSModelArchive(GSModelGeometryStructureTests.DATASET_DIRECTORY, VALID_ARCHIVE_NAME);
+		createArchiveWithCompressedEntryNamed(archive, VALID_ENTRY_NAME);
+		this.testSuite.setIntegrityEnabled(true);
+
+		// execute
+		this.testSuite.verifyGSModelArchiveChecksums();
+	}
+
+	@Test
+	public void verifyGSModelArchiveChecksums_corruptEntry() throws IOException {
+		// setup
+		Path archive = createGSModelArchive(GSModelTextureStructureTests.DATASET_DIRECTORY, VALID_ARCHIVE_NAME);
+		createArchiveWithEntryNamed(archive, VALID_ENTRY_NAME);
+		byte[] bytes = Files.readAllBytes(archive);
+		// entry data follows the 30-byte local header and the entry name
+		bytes[30 + VALID_ENTRY_NAME.length()] ^= 0x01;
+		Files.write(archive, bytes);
+		this.testSuite.setIntegrityEnabled(true);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Entry '" + VALID_ENTRY_NAME + "' CRC-32 mismatch");
+
+		// execute
+		this.testSuite.verifyGSModelArchiveChecksums();
+	}
+
+	@Test
+	public void verifyGSModelArchiveChecksums_invalidArchive() throws IOException {
+		// setup
+		Path archive = createGSModelArchive(GSModelGeometryStructureTests.DATASET_DIRECTORY, VALID_ARCHIVE_NAME);
+		Files.write(archive, new byte[] { 1, 2, 3 });
+		this.testSuite.setIntegrityEnabled(true);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Invalid ZIP archive file");
+
+		// execute
+		this.testSuite.verifyGSModelArchiveChecksums();
+	}
+
+	@Test(expected = SkipException.class)
+	public void verifyGSModelArchiveChecksums_disabled() throws IOException {
+		// setup
+		Path archive = createGSModelArchive(GSModelGeometryStructureTests.DATASET_DIRECTORY, VALID_ARCHIVE_NAME);
+		createArchiveWithEntryNamed(archive, VALID_ENTRY_NAME);
+
+		// execute
+		this.testSuite.verifyGSModelArchiveChecksums();
+	}
+}
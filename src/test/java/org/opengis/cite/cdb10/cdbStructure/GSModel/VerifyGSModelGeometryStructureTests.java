@@ -6,8 +6,11 @@ import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 
+import org.junit.Assert;
 import org.junit.Test;
+import org.opengis.cite.cdb10.util.ArchiveStatistics;
 
 public class VerifyGSModelGeometryStructureTests extends GSModelStructureTests<GSModelGeometryStructureTests> {
 	protected static final String VALID_ARCHIVE_NAME = "N62W162_D300_S001_T001_L07_U38_R102.zip";
@@ -187,6 +190,25 @@ public class VerifyGSModelGeometryStructureTests extends GSModelStructureTests<G
 		this.testSuite.verifyGSModelGeometryFileArchive();
 	}
 	
+	@Test
+	public void verifyGSModelGeometryFileArchive_recordsStatistics() throws IOException {
+		// setup
+		ArchiveStatistics.reset();
+		Path archive = createGSModelGeometryArchive(VALID_ARCHIVE_NAME);
+		createArchiveWithEntryNamed(archive, VALID_ENTRY_NAME);
+
+		// execute
+		this.testSuite.verifyGSModelGeometryFileArchive();
+
+		Map<ArchiveStatistics.Key, ArchiveStatistics> statistics = ArchiveStatistics.getStatistics();
+		Assert.assertEquals(1, statistics.size());
+		ArchiveStatistics.Key key = statistics.keySet().iterator().next();
+		Assert.assertEquals("D300 L07", key.toString());
+		Assert.assertEquals(1, statistics.get(key).getEntries().getTotal());
+		Assert.assertEquals(Files.size(archive), statistics.get(key).getSizes().getMax());
+		Assert.assertEquals(VALID_ARCHIVE_NAME, statistics.get(key).getLargest().get(0).getName());
+	}
+	
 	@Test
 	public void verifyGSModelGeometryFileArchive_zeroZip() throws IOException {
 		// setup
@@ -0,0 +1,325 @@
+package org.opengis.cite.cdb10.cdbStructure;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+import org.opengis.cite.cdb10.util.TimeBudget;
+
+public class VerifyModelGeometryContentTests extends StructureTestFixture<ModelGeometryContentTests> {
+
+	public VerifyModelGeometryContentTests() throws IOException {
+		this.testSuite = new ModelGeometryContentTests();
+	}
+
+	/**
+	 * Build an OpenFlight record stream with a header record followed by a
+	 * texture palette record and an external reference record.
+	 */
+	private byte[] openFlight(String texture, String externalReference) {
+		ByteBuffer buffer = ByteBuffer.allocate(20 + 216 + 216);
+		// header: opcode, length, ID, format revision, edit revision
+		buffer.putShort((short) 1).putShort((short) 20).put("db\0\0\0\0\0\0".getBytes()).putInt(1640).putInt(1);
+		buffer.putShort((short) 64).putShort((short) 216);
+		buffer.put(Arrays.copyOf(texture.getBytes(), 200)).putInt(0).putInt(0).putInt(0);
+		buffer.putShort((short) 63).putShort((short) 216);
+		buffer.put(Arrays.copyOf(externalReference.getBytes(), 200)).putInt(0).putInt(0).putInt(0);
+		return buffer.array();
+	}
+
+	private Path gtModelGeometryFile(String filename) throws IOException {
+		Path parent = this.cdb_root.resolve(Paths.get("GTModel", "500_GTModelGeometry",
+				"A_Culture", "L_Misc_Feature", "015_Building"));
+		Files.createDirectories(parent);
+		return parent.resolve(filename);
+	}
+
+	@Test
+	public void verifyGTModelGeometryOpenFlight_Valid() throws IOException {
+		// setup
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				openFlight("D501_S001_T001_Tex.rgb", "D500_S001_T001_AL015_000_Part.flt<node>"));
+
+		// execute
+		this.testSuite.verifyGTModelGeometryOpenFlight();
+	}
+
+	@Test
+	public void verifyGTModelGeometryOpenFlight_NoHeader() throws IOException {
+		// setup
+		byte[] bytes = openFlight("D501_S001_T001_Tex.rgb", "Part.flt");
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				Arrays.copyOfRange(bytes, 20, bytes.length));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("OpenFlight file does not start with a header record");
+
+		// execute
+		this.testSuite.verifyGTModelGeometryOpenFlight();
+	}
+
+	@Test
+	public void verifyGTModelGeometryOpenFlight_Truncated() throws IOException {
+		// setup
+		byte[] bytes = openFlight("D501_S001_T001_Tex.rgb", "Part.flt");
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				Arrays.copyOf(bytes, bytes.length - 10));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Invalid or truncated OpenFlight record (opcode 63)");
+
+		// execute
+		this.testSuite.verifyGTModelGeometryOpenFlight();
+	}
+
+	@Test
+	public void verifyGTModelGeometryOpenFlight_EmptyTexture() throws IOException {
+		// setup
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"), openFlight("", "Part.flt"));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Texture palette record has no file name");
+
+		// execute
+		this.testSuite.verifyGTModelGeometryOpenFlight();
+	}
+
+	@Test
+	public void verifyMModelGeometryOpenFlight_Truncated() throws IOException {
+		// setup
+		Path parent = this.cdb_root.resolve(Paths.get("MModel", "600_MModelGeometry",
+				"1_Platform", "2_Air", "225_United_States", "1_Fighter_Air_Defense", "1_2_225_1_9_0_0"));
+		Files.createDirectories(parent);
+		Files.write(parent.resolve("D600_S001_T001_1_2_225_1_9_0_0.flt"), new byte[] { 0, 1, 0, 40, 0 });
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Invalid or truncated OpenFlight record (opcode 1)");
+
+		// execute
+		this.testSuite.verifyMModelGeometryOpenFlight();
+	}
+
+	@Test
+	public void verifyGSModelGeometryOpenFlight_Valid() throws IOException {
+		// setup
+		writeGSModelArchive(openFlight("N62W162_D301_S001_T001_L07_U38_R102_Tex.rgb", "Part.flt"));
+
+		// execute
+		this.testSuite.verifyGSModelGeometryOpenFlight();
+	}
+
+	@Test
+	public void verifyGSModelGeometryOpenFlight_Truncated() throws IOException {
+		// setup
+		byte[] bytes = openFlight("Tex.rgb", "Part.flt");
+		writeGSModelArchive(Arrays.copyOf(bytes, 30));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Invalid OpenFlight entry");
+
+		// execute
+		this.testSuite.verifyGSModelGeometryOpenFlight();
+	}
+
+	private void writeGSModelArchive(byte[] entryBytes) throws IOException {
+		Path parent = this.cdb_root.resolve(Paths.get("Tiles", "N62", "W162", "300_GSModelGeometry", "L07", "U38"));
+		Files.createDirectories(parent);
+		CRC32 crc32 = new CRC32();
+		crc32.update(entryBytes);
+
+		try (ZipOutputStream zipStream = new ZipOutputStream(
+				new FileOutputStream(parent.resolve("N62W162_D300_S001_T001_L07_U38_R102.zip").toFile()))) {
+			zipStream.setMethod(ZipOutputStream.STORED);
+			ZipEntry entry = new ZipEntry("N62W162_D300_S001_T001_L07_U38_R102_AL015_116_AcmeFactory.flt");
+			entry.setSize(entryBytes.length);
+			entry.setCompressedSize(entryBytes.length);
+			entry.setCrc(crc32.getValue());
+			zipStream.putNextEntry(entry);
+			zipStream.write(entryBytes);
+			zipStream.closeEntry();
+		}
+	}
+
+	private void writeGTModelTexture(String tnam, String filename) throws IOException {
+		Path parent = this.cdb_root.resolve(Paths.get("GTModel", "511_GTModelTexture",
+				tnam.substring(0, 2), tnam.substring(2, 4), tnam));
+		Files.createDirectories(parent);
+		Files.write(parent.resolve(filename), new byte[] { 0 });
+	}
+
+	@Test
+	public void verifyModelTextureReferences_Resolved() throws IOException {
+		// setup
+		writeGTModelTexture("BrickWall", "D511_S001_T001_L00_BrickWall.rgb");
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				openFlight("..\\textures\\D511_S001_T001_L00_BrickWall.rgb", "Part.flt"));
+
+		// execute
+		this.testSuite.verifyModelTextureReferences();
+		this.testSuite.verifyModelTexturesReferenced();
+	}
+
+	@Test
+	public void verifyModelTextureReferences_Dangling() throws IOException {
+		// setup
+		writeGTModelTexture("BrickWall", "D511_S001_T001_L00_BrickWall.rgb");
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				openFlight("D511_S001_T001_L00_Stone.rgb", "Part.flt"));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Texture 'D511_S001_T001_L00_Stone.rgb' referenced by "
+				+ "'D500_S001_T001_AL015_000_Model.flt' does not exist");
+
+		// execute
+		this.testSuite.verifyModelTextureReferences();
+	}
+
+	@Test
+	public void verifyModelTextureReferences_OtherScope() throws IOException {
+		// setup: the texture only exists for MModel
+		Path mmodelTextures = this.cdb_root.resolve(Paths.get("MModel", "601_MModelTexture", "Br", "ic", "BrickWall"));
+		Files.createDirectories(mmodelTextures);
+		Files.write(mmodelTextures.resolve("D511_S001_T001_L00_BrickWall.rgb"), new byte[] { 0 });
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				openFlight("D511_S001_T001_L00_BrickWall.rgb", "Part.flt"));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Texture 'D511_S001_T001_L00_BrickWall.rgb' referenced by "
+				+ "'D500_S001_T001_AL015_000_Model.flt' does not exist");
+
+		// execute
+		this.testSuite.verifyModelTextureReferences();
+	}
+
+	@Test
+	public void verifyModelTexturesReferenced_Orphan() throws IOException {
+		// setup
+		writeGTModelTexture("BrickWall", "D511_S001_T001_L00_BrickWall.rgb");
+		writeGTModelTexture("Stone", "D511_S001_T001_L00_Stone.rgb");
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				openFlight("D511_S001_T001_L00_BrickWall.rgb", "Part.flt"));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Texture is not referenced by any model in GTModel: D511_S001_T001_L00_Stone.rgb");
+
+		// execute
+		this.testSuite.verifyModelTexturesReferenced();
+	}
+
+	@Test
+	public void verifyModelTexturesReferenced_RebuildsIncompleteIndex() throws IOException, InterruptedException {
+		// setup
+		writeGTModelTexture("BrickWall", "D511_S001_T001_L00_BrickWall.rgb");
+		writeGTModelTexture("Stone", "D511_S001_T001_L00_Stone.rgb");
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"),
+				openFlight("D511_S001_T001_L00_BrickWall.rgb", "Part.flt"));
+		TimeBudget.configure(1, Collections.<String, Long>emptyMap());
+		try {
+			TimeBudget.start("ModelGeometryContentTests.verifyModelTextureReferences", "CONTENT");
+			Thread.sleep(5);
+			this.testSuite.verifyModelTextureReferences();
+		} finally {
+			TimeBudget.finish();
+			TimeBudget.configure(0, Collections.<String, Long>emptyMap());
+		}
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Texture is not referenced by any model in GTModel: D511_S001_T001_L00_Stone.rgb");
+
+		// execute
+		this.testSuite.verifyModelTexturesReferenced();
+	}
+
+	/**
+	 * Write a DBF file with a NAME column followed by MODL, FACC and FSC
+	 * columns, one record per model.
+	 */
+	private void writeFeatureDbf(String dataset, String filename, String[]... records) throws IOException {
+		String[] names = { "NAME", "MODL", "FACC", "FSC" };
+		int[] lengths = { 20, 32, 5, 3 };
+		int headerLength = 32 + names.length * 32 + 1;
+		int recordLength = 1 + 20 + 32 + 5 + 3;
+
+		ByteBuffer dbf = ByteBuffer.allocate(headerLength + records.length * recordLength + 1)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		dbf.put((byte) 3).put((byte) 118).put((byte) 1).put((byte) 1);
+		dbf.putInt(records.length).putShort((short) headerLength).putShort((short) recordLength);
+		for (int i = 0; i < names.length; i++) {
+			int base = 32 + i * 32;
+			((Buffer) dbf).position(base);
+			dbf.put(names[i].getBytes());
+			dbf.put(base + 11, (byte) (names[i].equals("FSC") ? 'N' : 'C'));
+			dbf.put(base + 16, (byte) lengths[i]);
+		}
+		((Buffer) dbf).position(headerLength - 1);
+		dbf.put((byte) 0x0d);
+		for (String[] record : records) {
+			dbf.put((byte) ' ');
+			dbf.put(Arrays.copyOf("feature".getBytes(), 20));
+			for (int i = 0; i < 3; i++) {
+				byte[] value = Arrays.copyOf(record[i].getBytes(), lengths[i + 1]);
+				for (int j = record[i].length(); j < value.length; j++) {
+					value[j] = ' ';
+				}
+				dbf.put(value);
+			}
+		}
+		dbf.put((byte) 0x1a);
+
+		Path parent = this.cdb_root.resolve(Paths.get("Tiles", "N62", "W162", dataset, "L00", "U0"));
+		Files.createDirectories(parent);
+		Files.write(parent.resolve(filename), dbf.array());
+	}
+
+	@Test
+	public void verifyFeatureModelReferences_Valid() throws IOException {
+		// setup
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"), openFlight("Tex.rgb", "Part.flt"));
+		writeFeatureDbf("101_GTFeature", "N62W162_D101_S002_T001_L00_U0_R0.dbf",
+				new String[] { "Model", "AL015", "0" });
+
+		// execute
+		this.testSuite.verifyFeatureModelReferences();
+	}
+
+	@Test
+	public void verifyFeatureModelReferences_MissingGTModel() throws IOException {
+		// setup
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"), openFlight("Tex.rgb", "Part.flt"));
+		writeFeatureDbf("101_GTFeature", "N62W162_D101_S002_T001_L00_U0_R0.dbf",
+				new String[] { "Model", "AL015", "0" }, new String[] { "Tower", "AL015", "2" });
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Model 'Tower' (FACC AL015, FSC 2) referenced by record 1 of "
+				+ "'N62W162_D101_S002_T001_L00_U0_R0.dbf' does not exist");
+
+		// execute
+		this.testSuite.verifyFeatureModelReferences();
+	}
+
+	@Test
+	public void verifyFeatureModelReferences_GSModel() throws IOException {
+		// setup: GS features resolve against GSModelGeometry archive entries only
+		writeGSModelArchive(openFlight("Tex.rgb", "Part.flt"));
+		Files.write(gtModelGeometryFile("D500_S001_T001_AL015_000_Model.flt"), openFlight("Tex.rgb", "Part.flt"));
+		writeFeatureDbf("100_GSFeature", "N62W162_D100_S002_T001_L00_U0_R0.dbf",
+				new String[] { "AcmeFactory", "AL015", "116" }, new String[] { "Model", "AL015", "0" });
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Model 'Model' (FACC AL015, FSC 0) referenced by record 1");
+
+		// execute
+		this.testSuite.verifyFeatureModelReferences();
+	}
+}
@@ -0,0 +1,517 @@
+package org.opengis.cite.cdb10.cdbStructure;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opengis.cite.cdb10.util.Checkpoint;
+import org.opengis.cite.cdb10.util.GeoTiffHeader;
+import org.opengis.cite.cdb10.util.Shard;
+
+public class VerifyTilesContentTests extends StructureTestFixture<TilesContentTests> {
+
+	public VerifyTilesContentTests() throws IOException {
+		this.testSuite = new TilesContentTests();
+	}
+
+	/**
+	 * Write a minimal little-endian GeoTIFF header with a single IFD and no
+	 * image data.
+	 */
+	private void writeGeoTiff(Path file, int width, int height, int bitsPerSample, int samples,
+			int sampleFormat, double west, double north, double pixelWidth, double pixelHeight, boolean georeferenced) throws IOException {
+		writeGeoTiff(file, width, height, bitsPerSample, samples, sampleFormat, west, north, pixelWidth, pixelHeight,
+				georeferenced, 0);
+	}
+
+	/**
+	 * Write a minimal GeoTIFF header, with a GTRasterTypeGeoKey unless the
+	 * raster type is 0.
+	 */
+	private void writeGeoTiff(Path file, int width, int height, int bitsPerSample, int samples,
+			int sampleFormat, double west, double north, double pixelWidth, double pixelHeight, boolean georeferenced,
+			int rasterType) throws IOException {
+		int entryCount = (georeferenced ? 7 : 5) + (rasterType != 0 ? 1 : 0);
+		int ifdOffset = 8;
+		int valuesOffset = ifdOffset + 2 + entryCount * 12 + 4;
+		ByteBuffer buffer = ByteBuffer.allocate(valuesOffset + 3 * 8 + 6 * 8 + 8 * 2).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(ifdOffset);
+		buffer.putShort((short) entryCount);
+		putEntry(buffer, 256, 4, 1, width);
+		putEntry(buffer, 257, 4, 1, height);
+		putEntry(buffer, 258, 3, 1, bitsPerSample);
+		putEntry(buffer, 277, 3, 1, samples);
+		putEntry(buffer, 339, 3, 1, sampleFormat);
+		if (georeferenced) {
+			putEntry(buffer, 33550, 12, 3, valuesOffset);
+			putEntry(buffer, 33922, 12, 6, valuesOffset + 3 * 8);
+		}
+		if (rasterType != 0) {
+			putEntry(buffer, 34735, 3, 8, valuesOffset + 9 * 8);
+		}
+		buffer.putInt(0);
+
+		buffer.putDouble(pixelWidth).putDouble(pixelHeight).putDouble(0);
+		buffer.putDouble(0).putDouble(0).putDouble(0).putDouble(west).putDouble(north).putDouble(0);
+		if (rasterType != 0) {
+			// GeoKeyDirectory: version 1.1.0 with one key, GTRasterTypeGeoKey
+			for (int value : new int[] { 1, 1, 0, 1, 1025, 0, 1, rasterType }) {
+				buffer.putShort((short) value);
+			}
+		}
+
+		Files.createDirectories(file.getParent());
+		Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+	}
+
+	private void putEntry(ByteBuffer buffer, int tag, int type, int count, int value) {
+		buffer.putShort((short) tag).putShort((short) type).putInt(count);
+		if (type == 3 && count == 1) {
+			buffer.putShort((short) value).putShort((short) 0);
+		} else {
+			buffer.putInt(value);
+		}
+	}
+
+	private Path elevationTile(String filename) {
+		return this.cdb_root.resolve(Paths.get("Tiles", "N62", "W162", "001_Elevation", "L01", "U1", filename));
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_Valid() throws IOException {
+		// setup: L01 tile U1 R0 of N62W162 covers lat 62.5-63, lon -162 to -161
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				1024, 1024, 32, 1, 3, -162.0, 63.0, 1.0 / 1024, 0.5 / 1024, true);
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_PixelIsPoint() throws IOException {
+		// setup: tie point at the centre of the first pixel
+		Path file = elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif");
+		writeGeoTiff(file, 1024, 1024, 32, 1, 3, -162.0 + 0.5 / 1024, 63.0 - 0.25 / 1024, 1.0 / 1024, 0.5 / 1024,
+				true, GeoTiffHeader.RASTER_PIXEL_IS_POINT);
+
+		GeoTiffHeader header = GeoTiffHeader.read(file);
+		Assert.assertEquals(GeoTiffHeader.RASTER_PIXEL_IS_POINT, header.getRasterType());
+		Assert.assertArrayEquals(new double[] { -162.0, 62.5, -161.0, 63.0 }, header.getExtent(), 1e-9);
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_NoTiles() throws IOException {
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_WrongSize() throws IOException {
+		// setup
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				512, 512, 32, 1, 3, -162.0, 63.0, 1.0 / 512, 0.5 / 512, true);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("GeoTIFF should be 1024x1024 pixels for LOD, found 512x512");
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@After
+	public void disableCheckpoint() {
+		Checkpoint.disable();
+		Shard.setCurrent(null);
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_SkipsGeocellsOfOtherShards() throws IOException {
+		// setup: the geocell has a bad tile, but belongs to the other shard
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				512, 512, 32, 1, 3, -162.0, 63.0, 1.0 / 512, 0.5 / 512, true);
+		int owner = Math.floorMod("Tiles/N62/W162".hashCode(), 2);
+		Shard.setCurrent(new Shard(1 - owner, 2));
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+
+		Shard.setCurrent(new Shard(owner, 2));
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("512x512");
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_RecordsCheckpoint() throws IOException {
+		// setup
+		Path checkpointFile = this.cdb_root.resolveSibling(this.cdb_root.getFileName() + ".checkpoint");
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				1024, 1024, 32, 1, 3, -162.0, 63.0, 1.0 / 1024, 0.5 / 1024, true);
+		Checkpoint.start(checkpointFile, "cdb", false);
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+		Checkpoint.current().save();
+
+		Checkpoint resumed = Checkpoint.start(checkpointFile, "cdb", true);
+		Files.delete(checkpointFile);
+		Assert.assertTrue(resumed.isCompleted(TilesContentTests.class.getName() + ".verifyGeoTiffTileHeaders",
+				"N62/W162"));
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_CheckpointReportsErrorsOnce() throws IOException {
+		// setup: two failing geocells, recorded in a new checkpoint
+		Path checkpointFile = this.cdb_root.resolveSibling(this.cdb_root.getFileName() + ".checkpoint");
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				512, 512, 32, 1, 3, -162.0, 63.0, 1.0 / 512, 0.5 / 512, true);
+		writeGeoTiff(this.cdb_root.resolve(Paths.get("Tiles", "N62", "W163", "001_Elevation", "L01", "U1",
+				"N62W163_D001_S001_T001_L01_U1_R0.tif")),
+				512, 512, 32, 1, 3, -163.0, 63.0, 1.0 / 512, 0.5 / 512, true);
+		Checkpoint.start(checkpointFile, "cdb", false);
+
+		// execute
+		try {
+			this.testSuite.verifyGeoTiffTileHeaders();
+			Assert.fail("Errors were not reported");
+		} catch (AssertionError e) {
+			String message = e.getMessage();
+			for (String tile : Arrays.asList("N62W162_D001_S001_T001_L01_U1_R0.tif",
+					"N62W163_D001_S001_T001_L01_U1_R0.tif")) {
+				String error = "found 512x512: " + tile;
+				Assert.assertTrue(message, message.contains(error));
+				Assert.assertEquals(message, message.indexOf(error), message.lastIndexOf(error));
+			}
+		} finally {
+			Files.deleteIfExists(checkpointFile);
+		}
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_ResumeSkipsCompletedGeocells() throws IOException {
+		// setup: the geocell has a bad tile, but was completed before
+		Path checkpointFile = this.cdb_root.resolveSibling(this.cdb_root.getFileName() + ".checkpoint");
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				512, 512, 32, 1, 3, -162.0, 63.0, 1.0 / 512, 0.5 / 512, true);
+		Checkpoint.start(checkpointFile, "cdb", false).complete(
+				TilesContentTests.class.getName() + ".verifyGeoTiffTileHeaders", "N62/W162",
+				Arrays.asList("Error saved in checkpoint"));
+		Checkpoint.current().save();
+		Checkpoint.start(checkpointFile, "cdb", true);
+		Files.delete(checkpointFile);
+
+		// execute
+		try {
+			this.testSuite.verifyGeoTiffTileHeaders();
+			Assert.fail("Saved error was not reported");
+		} catch (AssertionError e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("Error saved in checkpoint"));
+			Assert.assertFalse(e.getMessage(), e.getMessage().contains("512x512"));
+		}
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_WrongSampleFormat() throws IOException {
+		// setup
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				1024, 1024, 16, 1, 2, -162.0, 63.0, 1.0 / 1024, 0.5 / 1024, true);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Elevation GeoTIFF should have a single 32-bit floating point sample");
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_WrongExtent() throws IOException {
+		// setup: georeferenced as tile R1
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				1024, 1024, 32, 1, 3, -161.0, 63.0, 1.0 / 1024, 0.5 / 1024, true);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("does not match tile extent");
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_NotGeoreferenced() throws IOException {
+		// setup
+		writeGeoTiff(elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif"),
+				1024, 1024, 32, 1, 3, 0, 0, 0, 0, false);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("GeoTIFF is missing georeferencing tags");
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_Truncated() throws IOException {
+		// setup
+		Path file = elevationTile("N62W162_D001_S001_T001_L01_U1_R0.tif");
+		Files.createDirectories(file.getParent());
+		Files.write(file, new byte[] { 'I', 'I', 42, 0, 8, 0, 0, 0 });
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Invalid GeoTIFF header");
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	@Test
+	public void verifyGeoTiffTileHeaders_ImageryRgb() throws IOException {
+		// setup: LC02 imagery covers the whole 2x1 degree geocell at 256x256
+		Path file = this.cdb_root.resolve(Paths.get("Tiles", "N62", "W162", "004_Imagery", "LC", "U0",
+				"N62W162_D004_S001_T001_LC02_U0_R0.tif"));
+		writeGeoTiff(file, 256, 256, 8, 3, 1, -162.0, 63.0, 2.0 / 256, 1.0 / 256, true);
+
+		// execute
+		this.testSuite.verifyGeoTiffTileHeaders();
+	}
+
+	/**
+	 * Write a minimal JP2 file with a single-tile codestream of 8-bit
+	 * components. The tile-part carries a few bytes of placeholder data.
+	 */
+	private void writeJp2(Path file, int size, int tileSize, int components, int tiles) throws IOException {
+		ByteBuffer codestream = ByteBuffer.allocate(256 + 20 * tiles);
+		codestream.putShort((short) 0xff4f);
+		// SIZ
+		codestream.putShort((short) 0xff51).putShort((short) (38 + 3 * components)).putShort((short) 0);
+		codestream.putInt(size).putInt(size).putInt(0).putInt(0);
+		codestream.putInt(tileSize).putInt(tileSize).putInt(0).putInt(0);
+		codestream.putShort((short) components);
+		for (int i = 0; i < components; i++) {
+			codestream.put((byte) 7).put((byte) 1).put((byte) 1);
+		}
+		// COD: 1 layer, 5 decomposition levels
+		codestream.putShort((short) 0xff52).putShort((short) 12).put((byte) 0).put((byte) 0).putShort((short) 1)
+				.put((byte) 0).put((byte) 5).put((byte) 4).put((byte) 4).put((byte) 0).put((byte) 0);
+		for (int tile = 0; tile < tiles; tile++) {
+			// SOT + SOD + 4 bytes of data
+			codestream.putShort((short) 0xff90).putShort((short) 10).putShort((short) tile).putInt(18)
+					.put((byte) 0).put((byte) 1);
+			codestream.putShort((short) 0xff93).putInt(0);
+		}
+		codestream.putShort((short) 0xffd9);
+		((Buffer) codestream).flip();
+
+		ByteBuffer jp2 = ByteBuffer.allocate(12 + 20 + 8 + 22 + 8 + codestream.limit());
+		jp2.putInt(12).putInt(0x6a502020).putInt(0x0d0a870a);
+		jp2.putInt(20).putInt(0x66747970).putInt(0x6a703220).putInt(0).putInt(0x6a703220);
+		jp2.putInt(8 + 22).putInt(0x6a703268);
+		jp2.putInt(22).putInt(0x69686472).putInt(size).putInt(size).putShort((short) components)
+				.put((byte) 7).put((byte) 7).put((byte) 0).put((byte) 0);
+		jp2.putInt(8 + codestream.limit()).putInt(0x6a703263).put(codestream);
+
+		Files.createDirectories(file.getParent());
+		Files.write(file, jp2.array());
+	}
+
+	private Path imageryTile(String filename) {
+		return this.cdb_root.resolve(Paths.get("Tiles", "N62", "W162", "004_Imagery", "L00", "U0", filename));
+	}
+
+	@Test
+	public void verifyJpeg2000TileHeaders_Valid() throws IOException {
+		// setup
+		writeJp2(imageryTile("N62W162_D004_S001_T001_L00_U0_R0.jp2"), 1024, 1024, 3, 1);
+
+		// execute
+		this.testSuite.verifyJpeg2000TileHeaders();
+	}
+
+	@Test
+	public void verifyJpeg2000TileHeaders_ValidMultipleTiles() throws IOException {
+		// setup
+		writeJp2(imageryTile("N62W162_D004_S001_T001_L00_U0_R0.jp2"), 1024, 512, 1, 4);
+
+		// execute
+		this.testSuite.verifyJpeg2000TileHeaders();
+	}
+
+	@Test
+	public void verifyJpeg2000TileHeaders_MissingTiles() throws IOException {
+		// setup
+		writeJp2(imageryTile("N62W162_D004_S001_T001_L00_U0_R0.jp2"), 1024, 512, 1, 3);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("JPEG 2000 codestream has 3 of 4 tiles");
+
+		// execute
+		this.testSuite.verifyJpeg2000TileHeaders();
+	}
+
+	@Test
+	public void verifyJpeg2000TileHeaders_WrongSize() throws IOException {
+		// setup
+		writeJp2(imageryTile("N62W162_D004_S001_T001_L00_U0_R0.jp2"), 512, 512, 3, 1);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("JPEG 2000 image should be 1024x1024 pixels for LOD, found 512x512");
+
+		// execute
+		this.testSuite.verifyJpeg2000TileHeaders();
+	}
+
+	@Test
+	public void verifyJpeg2000TileHeaders_WrongComponents() throws IOException {
+		// setup
+		writeJp2(imageryTile("N62W162_D004_S001_T001_L00_U0_R0.jp2"), 1024, 1024, 2, 1);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Imagery JPEG 2000 should have 1 or 3 unsigned 8-bit components");
+
+		// execute
+		this.testSuite.verifyJpeg2000TileHeaders();
+	}
+
+	@Test
+	public void verifyJpeg2000TileHeaders_TooManyTiles() throws IOException {
+		// setup
+		writeJp2(imageryTile("N62W162_D004_S001_T001_L00_U0_R0.jp2"), 100000, 1, 3, 1);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Invalid JPEG 2000 file (SIZ marker declares too many tiles (100000x100000))");
+
+		// execute
+		this.testSuite.verifyJpeg2000TileHeaders();
+	}
+
+	@Test
+	public void verifyJpeg2000TileHeaders_Truncated() throws IOException {
+		// setup
+		Path file = imageryTile("N62W162_D004_S001_T001_L00_U0_R0.jp2");
+		writeJp2(file, 1024, 1024, 3, 1);
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Invalid JPEG 2000 file");
+
+		// execute
+		this.testSuite.verifyJpeg2000TileHeaders();
+	}
+
+	/**
+	 * Write the headers of a point shapefile set: .shp with a bounding box,
+	 * .shx with one index record per shape, and .dbf with a single character
+	 * field. Shape and attribute record contents are zero-filled.
+	 */
+	private void writeShapefile(Path shpFile, int shpRecords, int dbfRecords,
+			double minX, double minY, double maxX, double maxY) throws IOException {
+		String baseName = shpFile.getFileName().toString().replace(".shp", "");
+		Files.createDirectories(shpFile.getParent());
+
+		// point records are 8-byte header + 20-byte content
+		Files.write(shpFile, shapefileHeader(100 + shpRecords * 28, minX, minY, maxX, maxY));
+		Files.write(shpFile.resolveSibling(baseName + ".shx"),
+				shapefileHeader(100 + shpRecords * 8, minX, minY, maxX, maxY));
+
+		int headerLength = 32 + 32 + 1;
+		int recordLength = 1 + 10;
+		ByteBuffer dbf = ByteBuffer.allocate(headerLength + dbfRecords * recordLength).order(ByteOrder.LITTLE_ENDIAN);
+		dbf.put((byte) 3).put((byte) 118).put((byte) 1).put((byte) 1);
+		dbf.putInt(dbfRecords).putShort((short) headerLength).putShort((short) recordLength);
+		((Buffer) dbf).position(32);
+		dbf.put("NAME".getBytes("US-ASCII"));
+		((Buffer) dbf).position(32 + 11);
+		dbf.put((byte) 'C');
+		((Buffer) dbf).position(32 + 16);
+		dbf.put((byte) 10);
+		((Buffer) dbf).position(64);
+		dbf.put((byte) 0x0d);
+		Files.write(shpFile.resolveSibling(baseName + ".dbf"), dbf.array());
+	}
+
+	private byte[] shapefileHeader(int length, double minX, double minY, double maxX, double maxY) {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.order(ByteOrder.BIG_ENDIAN).putInt(0, 9994).putInt(24, length / 2);
+		buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(28, 1000).putInt(32, 1);
+		buffer.putDouble(36, minX).putDouble(44, minY).putDouble(52, maxX).putDouble(60, maxY);
+		return buffer.array();
+	}
+
+	private Path vectorTile(String filename) {
+		return this.cdb_root.resolve(Paths.get("Tiles", "N62", "W162", "101_GTFeature", "L00", "U0", filename));
+	}
+
+	@Test
+	public void verifyShapefileHeaders_Valid() throws IOException {
+		// setup
+		writeShapefile(vectorTile("N62W162_D101_S001_T001_L00_U0_R0.shp"), 3, 3, -161.5, 62.2, -160.5, 62.9);
+
+		// execute
+		this.testSuite.verifyShapefileHeaders();
+	}
+
+	@Test
+	public void verifyShapefileHeaders_RecordCountMismatch() throws IOException {
+		// setup
+		writeShapefile(vectorTile("N62W162_D101_S001_T001_L00_U0_R0.shp"), 3, 2, -161.5, 62.2, -160.5, 62.9);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Shapefile index has 3 records but attribute file has 2");
+
+		// execute
+		this.testSuite.verifyShapefileHeaders();
+	}
+
+	@Test
+	public void verifyShapefileHeaders_OutsideTile() throws IOException {
+		// setup
+		writeShapefile(vectorTile("N62W162_D101_S001_T001_L00_U0_R0.shp"), 3, 3, -162.5, 62.2, -160.5, 62.9);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("is outside tile extent");
+
+		// execute
+		this.testSuite.verifyShapefileHeaders();
+	}
+
+	@Test
+	public void verifyShapefileHeaders_MissingIndex() throws IOException {
+		// setup
+		Path file = vectorTile("N62W162_D101_S001_T001_L00_U0_R0.shp");
+		writeShapefile(file, 3, 3, -161.5, 62.2, -160.5, 62.9);
+		Files.delete(file.resolveSibling("N62W162_D101_S001_T001_L00_U0_R0.shx"));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Shapefile is missing index file (.shx)");
+
+		// execute
+		this.testSuite.verifyShapefileHeaders();
+	}
+
+	@Test
+	public void verifyShapefileHeaders_TruncatedShp() throws IOException {
+		// setup
+		Path file = vectorTile("N62W162_D101_S001_T001_L00_U0_R0.shp");
+		writeShapefile(file, 3, 3, -161.5, 62.2, -160.5, 62.9);
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 20));
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("does not match file size");
+
+		// execute
+		this.testSuite.verifyShapefileHeaders();
+	}
+}
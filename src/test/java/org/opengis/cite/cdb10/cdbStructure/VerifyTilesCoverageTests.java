@@ -0,0 +1,141 @@
+package org.opengis.cite.cdb10.cdbStructure;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+import org.opengis.cite.cdb10.util.TilesInventory;
+
+public class VerifyTilesCoverageTests extends StructureTestFixture<TilesCoverageTests> {
+
+	public VerifyTilesCoverageTests() throws IOException {
+		this.testSuite = new TilesCoverageTests();
+	}
+
+	/**
+	 * Create an empty elevation tile in the N62W162 geocell.
+	 */
+	private void createTile(String lod, int uref, int rref) throws IOException {
+		createTile("N62", "W162", "001_Elevation", lod, uref, rref);
+	}
+
+	private void createTile(String lat, String lon, String dataset, String lod, int uref, int rref)
+			throws IOException {
+		String lodDirectory = lod.startsWith("LC") ? "LC" : lod;
+		Path parent = this.cdb_root.resolve(Paths.get("Tiles", lat, lon, dataset, lodDirectory, "U" + uref));
+		Files.createDirectories(parent);
+		Files.createFile(parent.resolve(String.format("%s%s_D%s_S001_T001_%s_U%d_R%d.tif", lat, lon,
+				dataset.substring(0, 3), lod, uref, rref)));
+	}
+
+	@Test
+	public void verifyLodPyramid_Complete() throws IOException {
+		// setup
+		createTile("LC01", 0, 0);
+		createTile("L00", 0, 0);
+		createTile("L01", 0, 0);
+		createTile("L01", 0, 1);
+		createTile("L01", 1, 0);
+		createTile("L01", 1, 1);
+		createTile("L02", 2, 2);
+		createTile("L02", 2, 3);
+		createTile("L02", 3, 2);
+		createTile("L02", 3, 3);
+
+		// execute
+		this.testSuite.verifyLodPyramid();
+	}
+
+	@Test
+	public void verifyLodPyramid_NoTiles() throws IOException {
+		// execute
+		this.testSuite.verifyLodPyramid();
+	}
+
+	@Test
+	public void verifyLodPyramid_MissingParent() throws IOException {
+		// setup
+		createTile("L00", 0, 0);
+		createTile("L02", 0, 0);
+		createTile("L02", 0, 1);
+		createTile("L02", 1, 0);
+		createTile("L02", 1, 1);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Missing 1 parent tiles at LOD 1 for N62W162 D001 S001 T001: U0_R0");
+
+		// execute
+		this.testSuite.verifyLodPyramid();
+	}
+
+	@Test
+	public void verifyLodPyramid_Hole() throws IOException {
+		// setup
+		createTile("L00", 0, 0);
+		createTile("L01", 0, 0);
+		createTile("L01", 0, 1);
+		createTile("L01", 1, 1);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("Coverage holes at LOD 1 for N62W162 D001 S001 T001, 1 sibling tiles missing: U1_R0");
+
+		// execute
+		this.testSuite.verifyLodPyramid();
+	}
+
+	@Test
+	public void verifyLodPyramid_UsesPublishedInventory() throws IOException {
+		// setup: an empty published inventory hides the missing parent
+		createTile("L02", 0, 0);
+		TilesInventory.publish(this.cdb_root.resolve("Tiles"), new TilesInventory());
+
+		// execute
+		this.testSuite.verifyLodPyramid();
+	}
+
+	@Test
+	public void verifyGeocellCoverage_Consistent() throws IOException {
+		// setup
+		createTile("N62", "W162", "001_Elevation", "L00", 0, 0);
+		createTile("N62", "W162", "004_Imagery", "L00", 0, 0);
+		createTile("N62", "W162", "004_Imagery", "L01", 0, 0);
+
+		// execute
+		this.testSuite.verifyGeocellCoverage();
+	}
+
+	@Test
+	public void verifyGeocellCoverage_NoTiles() throws IOException {
+		// execute
+		this.testSuite.verifyGeocellCoverage();
+	}
+
+	@Test
+	public void verifyGeocellCoverage_ImageryWithoutElevation() throws IOException {
+		// setup
+		createTile("N62", "W162", "001_Elevation", "L00", 0, 0);
+		createTile("N62", "W162", "004_Imagery", "L00", 0, 0);
+		createTile("N62", "W164", "004_Imagery", "L00", 0, 0);
+		createTile("N10", "E010", "004_Imagery", "L00", 0, 0);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("004_Imagery is present in 2 geocells without 001_Elevation: N10E010, N62W164");
+
+		// execute
+		this.testSuite.verifyGeocellCoverage();
+	}
+
+	@Test
+	public void verifyGeocellCoverage_DescriptorWithoutTexture() throws IOException {
+		// setup
+		createTile("N62", "W162", "006_RMDescriptor", "L00", 0, 0);
+
+		expectedException.expect(AssertionError.class);
+		expectedException.expectMessage("006_RMDescriptor is present in 1 geocells without 005_RMTexture: N62W162");
+
+		// execute
+		this.testSuite.verifyGeocellCoverage();
+	}
+}
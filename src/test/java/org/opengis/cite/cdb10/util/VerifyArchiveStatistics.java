@@ -0,0 +1,63 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the ArchiveStatistics class.
+ */
+public class VerifyArchiveStatistics {
+
+	@After
+	public void resetStatistics() {
+		ArchiveStatistics.reset();
+	}
+
+	@Test
+	public void percentilesAreBucketUpperBounds() {
+		ArchiveStatistics.reset();
+		for (int i = 1; i <= 100; i++) {
+			ArchiveStatistics.record(300, 2, "archive" + i + ".zip", i * 1000, i % 10);
+		}
+
+		ArchiveStatistics group = ArchiveStatistics.getStatistics().values().iterator().next();
+		ArchiveStatistics.Histogram sizes = group.getSizes();
+		Assert.assertEquals(100, sizes.getCount());
+		Assert.assertEquals(5050000, sizes.getTotal());
+		// 50000 falls in [32768, 65536)
+		Assert.assertEquals(65535, sizes.getPercentile(50));
+		// 99000 falls in [65536, 131072), capped at the maximum
+		Assert.assertEquals(100000, sizes.getPercentile(99));
+		Assert.assertEquals(9, group.getEntries().getMax());
+		Assert.assertEquals(10, group.getEntries().getBucketCount(0));
+	}
+
+	@Test
+	public void keepsLargestArchives() {
+		ArchiveStatistics.reset();
+		for (int i = 1; i <= 20; i++) {
+			ArchiveStatistics.record(301, -1, "archive" + i + ".zip", i, 1);
+		}
+
+		List<ArchiveStatistics.Archive> largest = ArchiveStatistics.getStatistics().values().iterator().next()
+				.getLargest();
+		Assert.assertEquals(ArchiveStatistics.LARGEST_ARCHIVES, largest.size());
+		Assert.assertEquals("archive20.zip", largest.get(0).getName());
+		Assert.assertEquals(16, largest.get(4).getSize());
+	}
+
+	@Test
+	public void groupsByDatasetAndLod() {
+		ArchiveStatistics.reset();
+		ArchiveStatistics.record(301, 0, "b.zip", 1, 1);
+		ArchiveStatistics.record(300, 1, "a.zip", 1, 1);
+		ArchiveStatistics.record(300, -2, "c.zip", 1, 1);
+
+		Map<ArchiveStatistics.Key, ArchiveStatistics> statistics = ArchiveStatistics.getStatistics();
+		Assert.assertEquals("[D300 LC02, D300 L01, D301 L00]", statistics.keySet().toString());
+	}
+}
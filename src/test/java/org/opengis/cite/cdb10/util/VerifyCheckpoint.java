@@ -0,0 +1,101 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the Checkpoint class.
+ */
+public class VerifyCheckpoint {
+
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void createDirectory() throws IOException {
+		this.directory = Files.createTempDirectory("checkpointTest-");
+		this.file = this.directory.resolve("run.checkpoint");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		Checkpoint.disable();
+		FileUtils.deleteDirectory(this.directory.toFile());
+	}
+
+	@Test
+	public void disabledByDefault() throws IOException {
+		Checkpoint.disable();
+		Checkpoint checkpoint = Checkpoint.current();
+		checkpoint.complete("test", "N62/W162", Arrays.asList("error"));
+		checkpoint.save();
+
+		Assert.assertFalse(checkpoint.isEnabled());
+		Assert.assertFalse(checkpoint.isCompleted("test", "N62/W162"));
+	}
+
+	@Test
+	public void resume() throws IOException {
+		Checkpoint checkpoint = Checkpoint.start(this.file, "/cdb", false);
+		checkpoint.complete("test", "N62/W162", Arrays.asList("line one\nline\ttwo \\ end"));
+		checkpoint.complete("test", "N62/W164", Collections.<String>emptyList());
+		checkpoint.save();
+
+		Checkpoint resumed = Checkpoint.start(this.file, "/cdb", true);
+		Assert.assertSame(resumed, Checkpoint.current());
+		Assert.assertTrue(resumed.isCompleted("test", "N62/W162"));
+		Assert.assertTrue(resumed.isCompleted("test", "N62/W164"));
+		Assert.assertFalse(resumed.isCompleted("other", "N62/W162"));
+		Assert.assertEquals(Arrays.asList("line one\nline\ttwo \\ end"), resumed.getSavedErrors("test"));
+		Assert.assertEquals(Arrays.asList("run.checkpoint"), Arrays.asList(this.directory.toFile().list()));
+	}
+
+	@Test
+	public void savedErrorsOnlyFromResumedRun() throws IOException {
+		Checkpoint.start(this.file, "/cdb", false).complete("test", "N62/W162", Arrays.asList("old error"));
+		Checkpoint.current().save();
+
+		Checkpoint resumed = Checkpoint.start(this.file, "/cdb", true);
+		resumed.complete("test", "N62/W164", Arrays.asList("new error"));
+		Assert.assertEquals(Arrays.asList("old error"), resumed.getSavedErrors("test"));
+
+		Checkpoint fresh = Checkpoint.start(this.file, "/cdb", false);
+		fresh.complete("test", "N62/W162", Arrays.asList("new error"));
+		Assert.assertTrue(fresh.getSavedErrors("test").isEmpty());
+	}
+
+	@Test
+	public void notResumed() throws IOException {
+		Checkpoint.start(this.file, "/cdb", false).complete("test", "N62/W162", Collections.<String>emptyList());
+		Checkpoint.current().save();
+
+		Assert.assertFalse(Checkpoint.start(this.file, "/cdb", false).isCompleted("test", "N62/W162"));
+		Assert.assertFalse(Checkpoint.start(this.file, "/other-cdb", true).isCompleted("test", "N62/W162"));
+	}
+
+	@Test
+	public void savedErrorsAreBounded() throws IOException {
+		List<String> errors = new ArrayList<String>();
+		for (int i = 0; i < Checkpoint.MAX_SAVED_ERRORS + 5; i++) {
+			errors.add("error " + i);
+		}
+		Checkpoint.start(this.file, "/cdb", false).complete("test", "N62/W162", errors);
+		Checkpoint.current().save();
+
+		List<String> saved = Checkpoint.start(this.file, "/cdb", true).getSavedErrors("test");
+		Assert.assertEquals(Checkpoint.MAX_SAVED_ERRORS + 1, saved.size());
+		Assert.assertEquals("5 more errors from completed units were not saved in the checkpoint",
+				saved.get(Checkpoint.MAX_SAVED_ERRORS));
+	}
+}
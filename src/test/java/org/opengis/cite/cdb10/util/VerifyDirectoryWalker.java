@@ -0,0 +1,202 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the DirectoryWalker class.
+ */
+public class VerifyDirectoryWalker {
+
+    private Path root;
+
+    public VerifyDirectoryWalker() {
+    }
+
+    @Before
+    public void createTree() throws IOException {
+        this.root = Files.createTempDirectory("directoryWalkerTest-");
+        Files.createDirectories(this.root.resolve("N62/W162/001_Elevation/L00/U0"));
+        Files.createDirectories(this.root.resolve("N62/W163/001_Elevation"));
+        Files.createFile(this.root.resolve("N62/W162/001_Elevation/L00/U0/tile.tif"));
+        Files.createFile(this.root.resolve("N62/readme.txt"));
+    }
+
+    @After
+    public void deleteTree() throws IOException {
+        FileUtils.deleteDirectory(this.root.toFile());
+        DirectoryWalker.setMaxOpenDirectories(DirectoryWalker.DEFAULT_MAX_OPEN_DIRECTORIES);
+        DirectoryWalker.setOrder(DirectoryWalker.Order.DIRECTORY);
+    }
+
+    @Test
+    public void listClosesDirectoryHandle() throws IOException {
+        DirectoryWalker.resetCounters();
+
+        List<Path> entries = DirectoryWalker.list(this.root.resolve("N62"));
+
+        Assert.assertEquals(3, entries.size());
+        Assert.assertEquals(0, DirectoryWalker.getOpenDirectoryCount());
+        Assert.assertEquals(1, DirectoryWalker.getDirectoriesOpenedCount());
+    }
+
+    @Test
+    public void walkAtDepthVisitsEntriesWithAttributes() throws IOException {
+        List<String> visited = new ArrayList<String>();
+
+        DirectoryWalker.walkAtDepth(this.root, 2, (entry, attributes) -> {
+            Assert.assertTrue(attributes.isDirectory());
+            visited.add(entry.getFileName().toString());
+        });
+
+        // readme.txt is above the target depth and is ignored
+        Assert.assertEquals(2, visited.size());
+        Assert.assertTrue(visited.contains("001_Elevation"));
+        Assert.assertEquals(0, DirectoryWalker.getOpenDirectoryCount());
+    }
+
+    @Test
+    public void walkAtDepthSkipsLeafAttributesForPathVisitor() throws IOException {
+        List<Path> visited = new ArrayList<Path>();
+
+        DirectoryWalker.resetCounters();
+        DirectoryWalker.walkAtDepth(this.root, 2, (entry, attributes) -> { });
+        long withAttributes = DirectoryWalker.getAttributesReadCount();
+
+        DirectoryWalker.resetCounters();
+        DirectoryWalker.walkAtDepth(this.root, 2, entry -> {
+            visited.add(entry);
+        });
+
+        Assert.assertEquals(2, visited.size());
+        // only the two leaves are not read
+        Assert.assertEquals(withAttributes - 2, DirectoryWalker.getAttributesReadCount());
+    }
+
+    @Test
+    public void listDirectoriesSkipsFiles() throws IOException {
+        List<Path> directories = DirectoryWalker.listDirectories(this.root.resolve("N62"));
+
+        Assert.assertEquals(2, directories.size());
+        Assert.assertFalse(directories.contains(this.root.resolve("N62/readme.txt")));
+        Assert.assertEquals(0, DirectoryWalker.getOpenDirectoryCount());
+    }
+
+    @Test
+    public void walkAtDepthReleasesHandlesOnVisitorError() throws IOException {
+        DirectoryWalker.setMaxOpenDirectories(3);
+        try {
+            DirectoryWalker.walkAtDepth(this.root, 1, (entry, attributes) -> {
+                throw new IOException("visitor failure");
+            });
+            Assert.fail("Expected visitor failure");
+        } catch (IOException e) {
+            Assert.assertEquals("visitor failure", e.getMessage());
+        }
+
+        Assert.assertEquals(0, DirectoryWalker.getOpenDirectoryCount());
+        // all permits are available again
+        DirectoryWalker.walkAtDepth(this.root, 2, (entry, attributes) -> { });
+    }
+
+    @Test
+    public void walkAtDepthInInodeOrder() throws IOException {
+        Path urefDir = this.root.resolve("N62/W162/001_Elevation/L00/U0");
+        for (int i = 0; i < 10; i++) {
+            Files.createFile(urefDir.resolve("tile" + i + ".tif"));
+        }
+        DirectoryWalker.setOrder(DirectoryWalker.Order.fromString("inode"));
+        List<Long> inodes = new ArrayList<Long>();
+
+        DirectoryWalker.walkAtDepth(urefDir, 0, (entry, attributes) -> {
+            inodes.add(DirectoryWalker.inodeOf(entry, attributes));
+        });
+
+        Assert.assertEquals(11, inodes.size());
+        for (int i = 1; i < inodes.size(); i++) {
+            if (inodes.get(i - 1) >= 0 && inodes.get(i) >= 0) {
+                Assert.assertTrue(inodes.get(i - 1) <= inodes.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void walkDeeperThanOpenDirectoryLimit() throws Exception {
+        DirectoryWalker.setMaxOpenDirectories(1);
+        DirectoryWalker.resetCounters();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<String> visited = new ArrayList<String>();
+            Future<?> walk = executor.submit(() -> {
+                DirectoryWalker.walkAtDepth(this.root, 3,
+                        (entry, attributes) -> visited.add(entry.getFileName().toString()));
+                DirectoryWalker.walkTree(this.root, 5, new DirectoryWalker.TreeVisitor() {
+                    @Override
+                    public void visit(Path entry, BasicFileAttributes attributes) {
+                        visited.add(entry.getFileName().toString());
+                    }
+
+                    @Override
+                    public boolean enter(Path directory) {
+                        return true;
+                    }
+                });
+                return null;
+            });
+
+            walk.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals("L00", visited.get(0));
+            Assert.assertTrue(visited.contains("tile.tif"));
+            Assert.assertEquals(1, DirectoryWalker.getPeakOpenDirectoryCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentWalksShareOpenDirectoryLimit() throws Exception {
+        int walkers = 16;
+        DirectoryWalker.setMaxOpenDirectories(walkers);
+        DirectoryWalker.resetCounters();
+        ExecutorService executor = Executors.newFixedThreadPool(walkers);
+        try {
+            List<Callable<Integer>> walks = new ArrayList<Callable<Integer>>();
+            for (int i = 0; i < walkers * 4; i++) {
+                walks.add(() -> {
+                    AtomicInteger visited = new AtomicInteger();
+                    DirectoryWalker.walkAtDepth(this.root, 3, (entry, attributes) -> visited.incrementAndGet());
+                    return visited.get();
+                });
+            }
+
+            for (Future<Integer> walk : executor.invokeAll(walks, 10, TimeUnit.SECONDS)) {
+                Assert.assertEquals(Integer.valueOf(1), walk.get());
+            }
+            Assert.assertTrue(DirectoryWalker.getPeakOpenDirectoryCount() <= walkers);
+            Assert.assertEquals(0, DirectoryWalker.getOpenDirectoryCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMaxOpenDirectoriesRejectsZero() {
+        DirectoryWalker.setMaxOpenDirectories(0);
+    }
+}
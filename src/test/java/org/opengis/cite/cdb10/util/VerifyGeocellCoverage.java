@@ -0,0 +1,46 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the GeocellCoverage class.
+ */
+public class VerifyGeocellCoverage {
+
+	@Test
+	public void wideGeocellSpansCells() {
+		GeocellCoverage coverage = new GeocellCoverage();
+		coverage.add(1, 62, -162);
+
+		Assert.assertTrue(coverage.covers(1, 62, -162));
+		Assert.assertTrue(coverage.covers(1, 62, -161));
+		Assert.assertFalse(coverage.covers(1, 62, -160));
+		Assert.assertEquals(1, coverage.getGeocellCount(1));
+		Assert.assertEquals(2, coverage.getCellCount(1));
+	}
+
+	@Test
+	public void missingAcrossZones() {
+		GeocellCoverage coverage = new GeocellCoverage();
+		coverage.add(4, 0, 0);
+		coverage.add(4, 89, 168);
+		coverage.add(1, 0, 0);
+
+		Assert.assertEquals(Arrays.asList("N89E168"), coverage.getGeocellsMissing(4, 1));
+		Assert.assertEquals(Collections.emptyList(), coverage.getGeocellsMissing(1, 4));
+		Assert.assertEquals(Arrays.asList(1, 4), Arrays.asList(coverage.getDatasetCodes().toArray()));
+	}
+
+	@Test
+	public void missingDataset() {
+		GeocellCoverage coverage = new GeocellCoverage();
+		coverage.add(2, -90, -180);
+
+		Assert.assertEquals(Arrays.asList("S90W180"), coverage.getGeocellsMissing(2, 1));
+		Assert.assertEquals(Collections.emptyList(), coverage.getGeocellsMissing(1, 2));
+	}
+}
@@ -0,0 +1,94 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the IoExecutors class.
+ */
+public class VerifyIoExecutors {
+
+	@After
+	public void resetExecutors() {
+		IoExecutors.setMode(IoExecutors.Mode.PLATFORM);
+		IoExecutors.setMaxOutstanding(IoExecutors.DEFAULT_MAX_OUTSTANDING);
+	}
+
+	@Test
+	public void parseMode() {
+		Assert.assertEquals(IoExecutors.Mode.VIRTUAL, IoExecutors.Mode.fromString(" Virtual "));
+		Assert.assertEquals(IoExecutors.Mode.PLATFORM, IoExecutors.Mode.fromString("platform"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidMode() {
+		IoExecutors.Mode.fromString("green");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidMaxOutstanding() {
+		IoExecutors.setMaxOutstanding(0);
+	}
+
+	@Test
+	public void platformParallelism() {
+		Assert.assertFalse(IoExecutors.isVirtual());
+		Assert.assertEquals(4, IoExecutors.getParallelism(4));
+	}
+
+	@Test
+	public void virtualParallelism() {
+		IoExecutors.setMode(IoExecutors.Mode.VIRTUAL);
+		IoExecutors.setMaxOutstanding(64);
+
+		// virtual threads are only used where the runtime has them
+		Assert.assertEquals(IoExecutors.isVirtual() ? 64 : 4, IoExecutors.getParallelism(4));
+	}
+
+	@Test
+	public void capsOutstandingTasks() throws InterruptedException, ExecutionException {
+		IoExecutors.setMode(IoExecutors.Mode.VIRTUAL);
+		IoExecutors.setMaxOutstanding(3);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+
+		ExecutorService executor = IoExecutors.newExecutor("test", 3);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < 50; i++) {
+				int task = i;
+				results.add(executor.submit(() -> {
+					peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+					Thread.sleep(1);
+					running.decrementAndGet();
+					return task;
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				Assert.assertEquals(i, results.get(i).get().intValue());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Assert.assertTrue("Peak of " + peak.get() + " tasks", peak.get() <= 3);
+	}
+
+	@Test
+	public void namedThreads() throws InterruptedException {
+		String[] name = new String[1];
+		Thread thread = IoExecutors.newThreadFactory("walker").newThread(() -> name[0] = Thread.currentThread().getName());
+		thread.start();
+		thread.join();
+
+		Assert.assertEquals("walker-0", name[0]);
+	}
+}
@@ -0,0 +1,121 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the IoLimiter class.
+ */
+public class VerifyIoLimiter {
+
+	@Before
+	public void resetCounters() {
+		IoLimiter.resetCounters();
+	}
+
+	@After
+	public void removeLimits() {
+		for (IoLimiter.Resource resource : IoLimiter.Resource.values()) {
+			IoLimiter.setRate(resource, 0);
+		}
+	}
+
+	@Test
+	public void unlimitedByDefault() throws IOException {
+		long start = System.nanoTime();
+		for (int i = 0; i < 1000; i++) {
+			IoLimiter.list();
+		}
+		IoLimiter.read(Long.MAX_VALUE / 2);
+
+		Assert.assertEquals(1000, IoLimiter.getCount(IoLimiter.Resource.LISTINGS));
+		Assert.assertEquals(0, IoLimiter.getWaitedMillis(IoLimiter.Resource.LISTINGS));
+		Assert.assertTrue(System.nanoTime() - start < 1000000000L);
+	}
+
+	@Test
+	public void limitsRate() throws IOException {
+		IoLimiter.setRate(IoLimiter.Resource.LISTINGS, 100);
+
+		long start = System.nanoTime();
+		// a full bucket of 100, then 20 more at 100 per second
+		for (int i = 0; i < 120; i++) {
+			IoLimiter.list();
+		}
+		long elapsed = (System.nanoTime() - start) / 1000000;
+
+		Assert.assertTrue("Took " + elapsed + " ms", elapsed >= 150);
+		Assert.assertTrue(IoLimiter.getWaitedMillis(IoLimiter.Resource.LISTINGS) >= 150);
+	}
+
+	@Test
+	public void largeReadWaitsForExcess() throws IOException {
+		IoLimiter.setRate(IoLimiter.Resource.BYTES, 1000);
+
+		long start = System.nanoTime();
+		IoLimiter.read(1200);
+		long elapsed = (System.nanoTime() - start) / 1000000;
+
+		Assert.assertTrue("Took " + elapsed + " ms", elapsed >= 150);
+		Assert.assertEquals(1200, IoLimiter.getCount(IoLimiter.Resource.BYTES));
+	}
+
+	@Test
+	public void headerReadersCountBytes() throws IOException {
+		Path file = Files.createTempFile("ioLimiterTest-", ".shp");
+		try {
+			ByteBuffer header = ByteBuffer.allocate(100);
+			header.putInt(0, 9994).putInt(24, 50);
+			header.order(ByteOrder.LITTLE_ENDIAN).putInt(28, 1000).putInt(32, 1);
+			Files.write(file, header.array());
+
+			Assert.assertEquals(1, ShapefileHeader.read(file).getShapeType());
+			Assert.assertEquals(1, IoLimiter.getCount(IoLimiter.Resource.OPENS));
+			Assert.assertEquals(100, IoLimiter.getCount(IoLimiter.Resource.BYTES));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void openCountsFiles() throws IOException {
+		Path file = Files.createTempFile("ioLimiterTest-", ".dbf");
+		try {
+			try (FileChannel channel = IoLimiter.open(file)) {
+				Assert.assertEquals(0, channel.size());
+			}
+			Assert.assertEquals(1, IoLimiter.getCount(IoLimiter.Resource.OPENS));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void walkerCountsListings() throws IOException {
+		Path directory = Files.createTempDirectory("ioLimiterTest-");
+		try {
+			Files.createDirectory(directory.resolve("N62"));
+			DirectoryWalker.walkAtDepth(directory, 1, (entry, attributes) -> {
+			});
+
+			Assert.assertEquals(2, IoLimiter.getCount(IoLimiter.Resource.LISTINGS));
+		} finally {
+			Files.delete(directory.resolve("N62"));
+			Files.delete(directory);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeRate() {
+		IoLimiter.setRate(IoLimiter.Resource.OPENS, -1);
+	}
+}
@@ -0,0 +1,125 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the RuleEngine and PathRule classes.
+ */
+public class VerifyRuleEngine {
+
+	/**
+	 * Test methods that rules can report to
+	 */
+	public static class RuleTests {
+		@org.testng.annotations.Test(description = "OGC 15-113r3, Section 1")
+		public void verifyDirectories() {
+		}
+
+		@org.testng.annotations.Test(description = "OGC 15-113r3, Section 2")
+		public void verifyFiles() {
+		}
+
+		public void notATest() {
+		}
+	}
+
+	private Path cdbRoot;
+
+	@Before
+	public void createCdb() throws IOException {
+		this.cdbRoot = Files.createTempDirectory("ruleEngineTest-");
+		Files.createDirectories(this.cdbRoot.resolve("MModel/600_MModelGeometry/1_Platform/2_Air"));
+		Files.createDirectories(this.cdbRoot.resolve("MModel/600_MModelGeometry/bad_Kind"));
+		Files.createFile(this.cdbRoot.resolve("MModel/600_MModelGeometry/1_Platform/2_Air/valid.flt"));
+		Files.createFile(this.cdbRoot.resolve("MModel/600_MModelGeometry/1_Platform/2_Air/invalid.txt"));
+		Files.createDirectories(this.cdbRoot.resolve("GTModel/500_GTModelGeometry/1_Platform"));
+	}
+
+	@After
+	public void deleteCdb() throws IOException {
+		FileUtils.deleteDirectory(this.cdbRoot.toFile());
+	}
+
+	@Test
+	public void dispatchesEntriesToMatchingRules() throws IOException {
+		List<String> visited = Collections.synchronizedList(new ArrayList<String>());
+		RuleEngine engine = new RuleEngine(RuleTests.class, Arrays.asList(
+				PathRule.of("verifyDirectories", "MModel/600_MModelGeometry/{kind}",
+						match -> Character.isDigit(match.get("kind").charAt(0)), "Invalid kind: %s"),
+				PathRule.of("verifyFiles", "MModel/*/{kind}/{domain}/{file}", (match, errors) -> {
+					visited.add(match.get("kind") + "/" + match.get("domain") + "/" + match.getFileName());
+					if (!match.getFileName().endsWith(".flt")) {
+						errors.add("Invalid file: " + match.getFileName());
+					}
+				})));
+
+		Assert.assertEquals(Arrays.asList("Invalid kind: bad_Kind"),
+				engine.getErrors(this.cdbRoot, "verifyDirectories"));
+		Assert.assertEquals(Arrays.asList("Invalid file: invalid.txt"), engine.getErrors(this.cdbRoot, "verifyFiles"));
+		Assert.assertEquals(2, visited.size());
+		Assert.assertTrue(visited.contains("1_Platform/2_Air/valid.flt"));
+		Assert.assertEquals("OGC 15-113r3, Section 2", engine.getDescription("verifyFiles"));
+	}
+
+	@Test
+	public void walksOnce() throws IOException {
+		int[] checked = new int[1];
+		RuleEngine engine = new RuleEngine(RuleTests.class, Arrays.asList(
+				PathRule.of("verifyDirectories", "MModel/*", (match, errors) -> checked[0]++),
+				PathRule.of("verifyFiles", "MModel/*/*", (match, errors) -> checked[0]++)));
+
+		engine.getErrors(this.cdbRoot, "verifyDirectories");
+		engine.getErrors(this.cdbRoot, "verifyFiles");
+
+		// MModel/600_MModelGeometry and its two kind directories, once each
+		Assert.assertEquals(3, checked[0]);
+	}
+
+	@Test
+	public void onlyEntersMatchingDirectories() throws IOException {
+		long opened = DirectoryWalker.getDirectoriesOpenedCount();
+		RuleEngine engine = new RuleEngine(RuleTests.class, Arrays.asList(
+				PathRule.of("verifyDirectories", "GTModel/500_GTModelGeometry/*", match -> true, "%s")));
+
+		engine.getErrors(this.cdbRoot, "verifyDirectories");
+
+		// CDB root, GTModel and 500_GTModelGeometry; MModel is not entered
+		Assert.assertEquals(3, DirectoryWalker.getDirectoriesOpenedCount() - opened);
+	}
+
+	@Test
+	public void missingCdb() throws IOException {
+		RuleEngine engine = new RuleEngine(RuleTests.class, Arrays.asList(
+				PathRule.of("verifyDirectories", "MModel/*", match -> false, "%s")));
+
+		Assert.assertTrue(engine.getErrors(this.cdbRoot.resolve("missing"), "verifyDirectories").isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void ruleForMethodThatIsNotATest() {
+		new RuleEngine(RuleTests.class, Arrays.asList(PathRule.of("notATest", "MModel/*", match -> true, "%s")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void errorsForMethodWithoutRules() throws IOException {
+		new RuleEngine(RuleTests.class, Arrays.asList(PathRule.of("verifyFiles", "MModel/*", match -> true, "%s")))
+				.getErrors(this.cdbRoot, "verifyDirectories");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidPattern() {
+		PathRule.of("verifyFiles", "MModel//*", match -> true, "%s");
+	}
+}
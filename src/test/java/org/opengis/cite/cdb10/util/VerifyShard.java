@@ -0,0 +1,114 @@
+package org.opengis.cite.cdb10.util;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the Shard class.
+ */
+public class VerifyShard {
+
+	private static final List<String> UNITS = Arrays.asList("Tiles/N62/W162", "Tiles/N62/W164",
+			"Tiles/S01/E000", "Tiles/N89/E180", "GTModel/500_GTModelGeometry", "GTModel/511_GTModelTexture",
+			"MModel/600_MModelGeometry", "MModel/606_MModelSignature");
+
+	@After
+	public void resetShard() {
+		Shard.setCurrent(null);
+	}
+
+	@Test
+	public void parse() {
+		Shard shard = Shard.parse(" 2 / 4 ");
+		Assert.assertEquals(2, shard.getIndex());
+		Assert.assertEquals(4, shard.getCount());
+		Assert.assertFalse(shard.isFirst());
+		Assert.assertEquals("2/4", shard.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseIndexOutOfRange() {
+		Shard.parse("4/4");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseInvalid() {
+		Shard.parse("2");
+	}
+
+	@Test
+	public void everyUnitHasOneShard() {
+		for (int count = 1; count <= 5; count++) {
+			for (String unit : UNITS) {
+				int owners = 0;
+				for (int index = 0; index < count; index++) {
+					if (new Shard(index, count).owns(unit)) {
+						owners++;
+					}
+				}
+				Assert.assertEquals(unit + " in " + count + " shards", 1, owners);
+			}
+		}
+	}
+
+	@Test
+	public void assignmentIsDeterministic() {
+		// String.hashCode is specified, so this must never change between runs
+		Assert.assertEquals(Math.floorMod("Tiles/N62/W162".hashCode(), 3),
+				indexOf("Tiles/N62/W162", 3));
+		Assert.assertEquals(indexOf("GTModel/500_GTModelGeometry", 7), indexOf("GTModel/500_GTModelGeometry", 7));
+	}
+
+	@Test
+	public void defaultOwnsEverything() {
+		Shard.setCurrent(null);
+		Assert.assertSame(Shard.ALL, Shard.current());
+		for (String unit : UNITS) {
+			Assert.assertTrue(Shard.current().owns(unit));
+		}
+	}
+
+	@Test
+	public void scopeLimitsUnits() {
+		Shard shard = Shard.ALL.withScope(Arrays.asList("Tiles/N62/W162", " GTModel/ ",
+				"MModel/600_MModelGeometry/500/x.flt"));
+		Assert.assertEquals("0/1 of Tiles/N62/W162, GTModel, MModel/600_MModelGeometry/500/x.flt",
+				shard.toString());
+		Assert.assertTrue(shard.owns("Tiles/N62/W162"));
+		Assert.assertFalse(shard.owns("Tiles/N62/W164"));
+		Assert.assertTrue(shard.owns("GTModel/511_GTModelTexture"));
+		Assert.assertTrue(shard.owns("MModel/600_MModelGeometry"));
+		Assert.assertFalse(shard.owns("MModel/606_MModelSignature"));
+	}
+
+	@Test
+	public void emptyScopeOwnsEverything() {
+		Shard shard = new Shard(0, 1).withScope(Arrays.asList("", " "));
+		Assert.assertTrue(shard.getScope().isEmpty());
+		for (String unit : UNITS) {
+			Assert.assertTrue(shard.owns(unit));
+		}
+	}
+
+	@Test
+	public void unitName() {
+		Assert.assertEquals("Tiles/N62/W162",
+				Shard.unitName(Paths.get("cdb"), Paths.get("cdb", "Tiles", "N62", "W162")));
+		Assert.assertEquals("GTModel/500_GTModelGeometry",
+				Shard.unitName(Paths.get("cdb").toAbsolutePath(), Paths.get("cdb", "GTModel", "500_GTModelGeometry")));
+	}
+
+	private static int indexOf(String unit, int count) {
+		for (int index = 0; index < count; index++) {
+			if (new Shard(index, count).owns(unit)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+}
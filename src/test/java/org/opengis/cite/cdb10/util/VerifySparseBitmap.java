@@ -0,0 +1,65 @@
+package org.opengis.cite.cdb10.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the SparseBitmap class.
+ */
+public class VerifySparseBitmap {
+
+	@Test
+	public void addAndContains() {
+		SparseBitmap bitmap = new SparseBitmap();
+		bitmap.add(3);
+		bitmap.add(3);
+		bitmap.add(1L << 40);
+
+		Assert.assertTrue(bitmap.contains(3));
+		Assert.assertTrue(bitmap.contains(1L << 40));
+		Assert.assertFalse(bitmap.contains(4));
+		Assert.assertEquals(2, bitmap.getCardinality());
+	}
+
+	@Test
+	public void denseChunk() {
+		// more than 4096 values in one chunk switches to a bitmap chunk
+		SparseBitmap bitmap = new SparseBitmap();
+		for (int i = 0; i < 10000; i += 2) {
+			bitmap.add(i);
+		}
+		SparseBitmap other = new SparseBitmap();
+		for (int i = 0; i < 10000; i += 4) {
+			other.add(i);
+		}
+
+		SparseBitmap difference = bitmap.andNot(other);
+		Assert.assertEquals(5000, bitmap.getCardinality());
+		Assert.assertEquals(2500, difference.getCardinality());
+		Assert.assertTrue(difference.contains(2));
+		Assert.assertFalse(difference.contains(4));
+	}
+
+	@Test
+	public void andNotToEmpty() {
+		SparseBitmap bitmap = new SparseBitmap();
+		bitmap.add(7);
+		Assert.assertTrue(bitmap.andNot(bitmap).isEmpty());
+	}
+
+	@Test
+	public void forEachInOrder() {
+		SparseBitmap bitmap = new SparseBitmap();
+		bitmap.add(1L << 20);
+		bitmap.add(5);
+		bitmap.add(2);
+
+		List<Long> values = new ArrayList<Long>();
+		bitmap.forEach(values::add);
+		Assert.assertEquals(Arrays.asList(2L, 5L, 1L << 20), values);
+	}
+}
@@ -0,0 +1,184 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the TarUtils class.
+ */
+public class VerifyTarUtils {
+
+    private Path workDir;
+
+    public VerifyTarUtils() {
+    }
+
+    @Before
+    public void createWorkDirectory() throws IOException {
+        this.workDir = Files.createTempDirectory("tarUtilsTest-");
+    }
+
+    @After
+    public void deleteWorkDirectory() throws IOException {
+        FileUtils.deleteDirectory(this.workDir.toFile());
+    }
+
+    @Test
+    public void isTarArchive() {
+        Assert.assertTrue(TarUtils.isTarArchive("file:///data/cdb.tar"));
+        Assert.assertTrue(TarUtils.isTarArchive("cdb.TAR.GZ"));
+        Assert.assertTrue(TarUtils.isTarArchive("cdb.tgz"));
+        Assert.assertFalse(TarUtils.isTarArchive("cdb.zip"));
+        Assert.assertFalse(TarUtils.isGzipTarArchive("cdb.tar"));
+    }
+
+    @Test
+    public void untarStream() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "CDB/Metadata/", '5', new byte[0]);
+        writeEntry(tar, "CDB/Metadata/Version.xml", '0', "<Version/>".getBytes(StandardCharsets.UTF_8));
+        // No directory entry for the parent of this file
+        writeEntry(tar, "CDB/Tiles/N62/W162/001_Elevation/L00/U0/tile.tif", '0', new byte[1000]);
+        tar.write(new byte[1024]);
+
+        TarUtils.untarStream(new ByteArrayInputStream(tar.toByteArray()), false, this.workDir.toFile());
+
+        Assert.assertEquals("<Version/>", new String(
+                Files.readAllBytes(this.workDir.resolve("CDB/Metadata/Version.xml")), StandardCharsets.UTF_8));
+        Assert.assertEquals(1000, Files.size(this.workDir.resolve("CDB/Tiles/N62/W162/001_Elevation/L00/U0/tile.tif")));
+    }
+
+    @Test
+    public void untarGzipStreamWithLongName() throws IOException {
+        String longName = "CDB/GTModel/500_GTModelGeometry/A_Culture/L_Misc_Feature/015_Building/"
+                + "D500_S001_T001_AL015_116_AVeryLongModelNameThatExceedsTheHeaderField.flt";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "././@LongLink", 'L', longName.getBytes(StandardCharsets.UTF_8));
+        writeEntry(tar, longName.substring(0, 99), '0', new byte[] { 1, 2, 3 });
+        tar.write(new byte[1024]);
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(tar.toByteArray());
+        }
+
+        TarUtils.untarStream(new ByteArrayInputStream(gzipped.toByteArray()), true, this.workDir.toFile());
+
+        Assert.assertEquals(3, Files.size(this.workDir.resolve(longName)));
+    }
+
+    @Test(expected = IOException.class)
+    public void untarStreamRejectsEntriesOutsideDestination() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "../escape.txt", '0', new byte[1]);
+        tar.write(new byte[1024]);
+
+        TarUtils.untarStream(new ByteArrayInputStream(tar.toByteArray()), false, this.workDir.toFile());
+    }
+
+    @Test
+    public void untarStreamWithPaxPath() throws IOException {
+        String path = "CDB/GTModel/500_GTModelGeometry/A_Culture/D500_S001_T001_AL015_116_Factory.flt";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        // record lengths count bytes, so multi-byte characters shift the later records
+        writeEntry(tar, "PaxHeaders/model.flt", 'x', (paxRecord("comment=Caf\u00e9 \u00e0 Montr\u00e9al")
+                + paxRecord("path=" + path) + paxRecord("size=3")).getBytes(StandardCharsets.UTF_8));
+        writeEntry(tar, "model.flt", '0', new byte[] { 1, 2, 3 });
+        tar.write(new byte[1024]);
+
+        TarUtils.untarStream(new ByteArrayInputStream(tar.toByteArray()), false, this.workDir.toFile());
+
+        Assert.assertEquals(3, Files.size(this.workDir.resolve(path)));
+    }
+
+    @Test(expected = IOException.class)
+    public void untarStreamRejectsInvalidPaxRecord() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "PaxHeaders/model.flt", 'x', "99 path=model.flt\n".getBytes(StandardCharsets.UTF_8));
+        writeEntry(tar, "model.flt", '0', new byte[1]);
+        tar.write(new byte[1024]);
+
+        TarUtils.untarStream(new ByteArrayInputStream(tar.toByteArray()), false, this.workDir.toFile());
+    }
+
+    @Test(expected = IOException.class)
+    public void untarStreamRejectsOversizedLongName() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "././@LongLink", 'L', new byte[0]);
+        byte[] header = tar.toByteArray();
+        // declare 8 GB of long name data, and fix the checksum
+        putOctal(header, 124, 12, 0100000000000L);
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        putOctal(header, 148, 7, sum);
+
+        TarUtils.untarStream(new ByteArrayInputStream(header), false, this.workDir.toFile());
+    }
+
+    /**
+     * Build a pax record, whose length counts the bytes of the whole record.
+     */
+    private static String paxRecord(String keyValue) {
+        int bytes = keyValue.getBytes(StandardCharsets.UTF_8).length + 2;
+        int length = bytes + Integer.toString(bytes).length();
+        if (Integer.toString(length).length() != Integer.toString(bytes).length()) {
+            length++;
+        }
+        return length + " " + keyValue + "\n";
+    }
+
+    /**
+     * Write a ustar header block followed by the padded entry data.
+     */
+    private void writeEntry(ByteArrayOutputStream out, String name, char type, byte[] data) throws IOException {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, data.length);
+        putOctal(header, 136, 12, 0);
+        header[156] = (byte) type;
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xff;
+        }
+        putOctal(header, 148, 7, sum);
+
+        out.write(header);
+        out.write(data);
+        int remainder = data.length % 512;
+        if (remainder != 0) {
+            out.write(new byte[512 - remainder]);
+        }
+    }
+
+    private void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = String.format("%0" + (length - 1) + "o", value);
+        byte[] bytes = octal.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+        header[offset + length - 1] = 0;
+    }
+}
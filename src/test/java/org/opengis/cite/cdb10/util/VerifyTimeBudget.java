@@ -0,0 +1,128 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the TimeBudget class.
+ */
+public class VerifyTimeBudget {
+
+	@After
+	public void removeBudgets() {
+		TimeBudget.configure(0, Collections.<String, Long>emptyMap());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void unlimitedByDefault() {
+		TimeBudget budget = TimeBudget.start("TilesTests.verifyTiles", "DIRECTORIES");
+
+		Assert.assertSame(budget, TimeBudget.current());
+		Assert.assertFalse(budget.isExpired());
+		Assert.assertSame(budget, TimeBudget.finish());
+		Assert.assertSame(TimeBudget.NONE, TimeBudget.current());
+	}
+
+	@Test
+	public void expiresPerTest() {
+		TimeBudget.configure(1, Collections.<String, Long>emptyMap());
+		TimeBudget budget = TimeBudget.start("TilesTests.verifyTiles", "DIRECTORIES");
+		sleep(5);
+
+		Assert.assertTrue(budget.isExpired());
+		// the next test gets a budget of its own
+		Assert.assertFalse(TimeBudget.start("TilesTests.verifyLods", "DIRECTORIES").isExpired());
+	}
+
+	@Test
+	public void phaseClockIsShared() {
+		TimeBudget.configure(0, TimeBudget.parsePhases("archives=1"));
+		TimeBudget.start("GSModelGeometryStructureTests.verifyFileArchive", "ARCHIVES");
+		sleep(1100);
+		TimeBudget other = TimeBudget.start("TilesTests.verifyTiles", "DIRECTORIES");
+		TimeBudget second = TimeBudget.start("GSModelTextureStructureTests.verifyFileArchive", "ARCHIVES");
+
+		Assert.assertFalse(other.isExpired());
+		Assert.assertTrue(second.isExpired());
+		Assert.assertTrue(second.describe(), second.describe().contains("1 s for the archives phase"));
+	}
+
+	@Test
+	public void describesCoverage() {
+		TimeBudget.configure(1000, Collections.<String, Long>emptyMap());
+		TimeBudget budget = TimeBudget.start("TilesContentTests.verifyGeoTiffTileHeaders", "CONTENT");
+		Assert.assertEquals(-1, budget.getCoveredPercent());
+		Assert.assertTrue(budget.describe(), budget.describe().startsWith("incomplete: partially covered"));
+
+		budget.addUnits(4);
+		budget.unitDone();
+
+		Assert.assertEquals(25, budget.getCoveredPercent());
+		Assert.assertEquals(
+				"incomplete: 25% covered (time budget of 1 s per test exceeded in TilesContentTests.verifyGeoTiffTileHeaders)",
+				budget.describe());
+	}
+
+	@Test
+	public void parsesPhases() {
+		Map<String, Long> phases = TimeBudget.parsePhases("Archives=600, content=3600,");
+
+		Assert.assertEquals(2, phases.size());
+		Assert.assertEquals(Long.valueOf(600000), phases.get("archives"));
+		Assert.assertEquals(Long.valueOf(3600000), phases.get("content"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidPhase() {
+		TimeBudget.parsePhases("archives");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeBudget() {
+		TimeBudget.configure(-1, Collections.<String, Long>emptyMap());
+	}
+
+	@Test
+	public void walkStopsWhenExpired() throws IOException {
+		Path directory = Files.createTempDirectory("timeBudgetTest-");
+		try {
+			for (int i = 0; i < 10; i++) {
+				Files.createFile(Files.createDirectories(directory.resolve("L0" + i)).resolve("file.zip"));
+			}
+			List<Path> visited = new ArrayList<Path>();
+			DirectoryWalker.walkAtDepth(directory, 1, (entry, attributes) -> visited.add(entry));
+			Assert.assertEquals(10, visited.size());
+
+			TimeBudget.configure(1, Collections.<String, Long>emptyMap());
+			TimeBudget.start("TilesTests.verifyTiles", "DIRECTORIES");
+			sleep(5);
+			visited.clear();
+			DirectoryWalker.walkAtDepth(directory, 1, (entry, attributes) -> visited.add(entry));
+
+			Assert.assertTrue(visited.isEmpty());
+			// nested loops over listings wind down without reading directories
+			Assert.assertTrue(DirectoryWalker.list(directory).isEmpty());
+		} finally {
+			TimeBudget.finish();
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+}
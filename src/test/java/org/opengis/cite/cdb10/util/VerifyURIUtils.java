@@ -0,0 +1,81 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the URIUtils class.
+ */
+public class VerifyURIUtils {
+
+    private Path workDir;
+
+    public VerifyURIUtils() {
+    }
+
+    @Before
+    public void createWorkDirectory() throws IOException {
+        this.workDir = Files.createTempDirectory("uriUtilsTest-");
+    }
+
+    @After
+    public void deleteWorkDirectory() throws IOException {
+        FileUtils.deleteDirectory(this.workDir.toFile());
+    }
+
+    @Test
+    public void unzipFileCreatesMissingParentDirectories() throws IOException {
+        File archive = this.workDir.resolve("cdb.zip").toFile();
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("CDB/Metadata/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("CDB/Metadata/Version.xml"));
+            zip.write("<Version/>".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            // No directory entries for the Tiles tree
+            for (int i = 0; i < 20; i++) {
+                zip.putNextEntry(new ZipEntry("CDB/Tiles/N62/W162/001_Elevation/L00/U0/tile" + i + ".tif"));
+                zip.write(new byte[i * 100]);
+                zip.closeEntry();
+            }
+        }
+
+        File destDir = this.workDir.resolve("out").toFile();
+        destDir.mkdir();
+        URIUtils.unzipFile(archive, destDir);
+
+        Path cdb = destDir.toPath().resolve("CDB");
+        Assert.assertTrue(Files.isDirectory(cdb.resolve("Metadata")));
+        Assert.assertEquals("<Version/>",
+                new String(Files.readAllBytes(cdb.resolve("Metadata/Version.xml")), StandardCharsets.UTF_8));
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(i * 100,
+                    Files.size(cdb.resolve("Tiles/N62/W162/001_Elevation/L00/U0/tile" + i + ".tif")));
+        }
+    }
+
+    @Test
+    public void splitBySizeBalancesRanges() {
+        // one large entry gets a range of its own
+        Assert.assertArrayEquals(new int[] { 0, 1, 4 },
+                URIUtils.splitBySize(Arrays.asList(100L, 1L, 1L, 1L), 2));
+        Assert.assertArrayEquals(new int[] { 0, 2, 4 },
+                URIUtils.splitBySize(Arrays.asList(10L, 10L, 10L, 10L), 2));
+        // more ranges than entries leaves the last ranges empty
+        Assert.assertArrayEquals(new int[] { 0, 1, 2, 2 },
+                URIUtils.splitBySize(Arrays.asList(5L, 5L), 3));
+    }
+}
@@ -0,0 +1,144 @@
+package org.opengis.cite.cdb10.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies the behavior of the ValidationPipeline class.
+ */
+public class VerifyValidationPipeline {
+
+	private Path cdbRoot;
+
+	private List<Path> datasets;
+
+	@Before
+	public void createCdb() throws IOException {
+		this.cdbRoot = Files.createTempDirectory("validationPipelineTest-");
+		Path first = Files.createDirectories(this.cdbRoot.resolve("Tiles/N62/W162/300_GSModelGeometry"));
+		Path second = Files.createDirectories(this.cdbRoot.resolve("Tiles/N62/W163/300_GSModelGeometry"));
+		for (int i = 0; i < 20; i++) {
+			Files.createDirectories(first.resolve(String.format("L%02d/U0", i)));
+			Files.createFile(first.resolve(String.format("L%02d/U0/file%02d.zip", i, i)));
+		}
+		Files.createDirectories(second.resolve("L00/U0"));
+		Files.createFile(second.resolve("L00/U0/last.zip"));
+		this.datasets = Arrays.asList(first, second);
+	}
+
+	@After
+	public void deleteCdb() throws IOException {
+		FileUtils.deleteDirectory(this.cdbRoot.toFile());
+	}
+
+	@Test
+	public void errorsInListingOrder() throws IOException {
+		ValidationPipeline pipeline = new ValidationPipeline()
+			.stage("parse", 1, item -> {
+				item.setParsed(item.getFileName().replace(".zip", ""));
+				return true;
+			})
+			.stage("archive", 4, 2, item -> {
+				String name = item.getParsed(String.class);
+				// finish out of order
+				if (name.hashCode() % 3 == 0) {
+					Thread.yield();
+				}
+				item.getErrors().add(name);
+				return true;
+			});
+
+		List<String> expected = new ArrayList<String>();
+		for (Path dataset : this.datasets) {
+			DirectoryWalker.walkAtDepth(dataset, 2,
+					(entry, attributes) -> expected.add(entry.getFileName().toString().replace(".zip", "")));
+		}
+
+		Assert.assertEquals(21, expected.size());
+		Assert.assertEquals(expected, pipeline.run(this.datasets, 2));
+	}
+
+	@Test
+	public void skipsLaterStages() throws IOException {
+		AtomicInteger archived = new AtomicInteger();
+		ValidationPipeline pipeline = new ValidationPipeline()
+			.stage("parse", 1, item -> item.getFileName().startsWith("last"))
+			.stage("archive", 2, item -> {
+				archived.incrementAndGet();
+				item.getErrors().add("Invalid archive: " + item.getFileName());
+				return true;
+			});
+
+		ArrayList<String> errors = pipeline.run(this.datasets, 2);
+
+		Assert.assertEquals(Arrays.asList("Invalid archive: last.zip"), errors);
+		Assert.assertEquals(1, archived.get());
+	}
+
+	@Test
+	public void boundedQueues() throws IOException {
+		AtomicInteger inStage = new AtomicInteger();
+		AtomicInteger maximum = new AtomicInteger();
+		ValidationPipeline pipeline = new ValidationPipeline()
+			.stage("slow", 1, 1, item -> {
+				maximum.accumulateAndGet(inStage.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inStage.decrementAndGet();
+				return true;
+			});
+
+		Assert.assertTrue(pipeline.run(this.datasets, 2).isEmpty());
+		Assert.assertEquals(1, maximum.get());
+	}
+
+	@Test(expected = IOException.class)
+	public void failureStopsPipeline() throws IOException {
+		new ValidationPipeline()
+			.stage("parse", 1, item -> true)
+			.stage("archive", 2, item -> {
+				throw new IOException("Could not read " + item.getFileName());
+			})
+			.run(this.datasets, 2);
+	}
+
+	@Test(expected = StackOverflowError.class)
+	public void errorStopsPipeline() throws Throwable {
+		ValidationPipeline pipeline = new ValidationPipeline()
+			.stage("parse", 1, item -> true)
+			.stage("archive", 1, item -> {
+				throw new StackOverflowError();
+			});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			executor.submit(() -> pipeline.run(this.datasets, 2)).get(10, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			throw e.getCause();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void noStages() throws IOException {
+		new ValidationPipeline().run(this.datasets, 2);
+	}
+}
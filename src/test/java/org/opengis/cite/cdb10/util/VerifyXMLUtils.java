@@ -1,6 +1,12 @@
 package org.opengis.cite.cdb10.util;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.validation.Schema;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -36,4 +42,26 @@ public class VerifyXMLUtils {
         Assert.assertEquals("Expected result to contain character é (U+00E9)",
                 "Montréal", result);
     }
+
+    @Test
+    public void schemaForReusesCompiledSchema() throws Exception {
+        File xsd = File.createTempFile("schema-", ".xsd");
+        try {
+            writeSchema(xsd, "a");
+            Schema schema = XMLUtils.schemaFor(xsd);
+            Assert.assertSame(schema, XMLUtils.schemaFor(xsd));
+
+            // a modified schema is compiled again
+            writeSchema(xsd, "element");
+            Assert.assertFalse(schema == XMLUtils.schemaFor(xsd));
+        } finally {
+            xsd.delete();
+        }
+    }
+
+    private static void writeSchema(File xsd, String element) throws IOException {
+        String schema = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">"
+                + "<xs:element name=\"" + element + "\" type=\"xs:string\"/></xs:schema>";
+        Files.write(xsd.toPath(), schema.getBytes(StandardCharsets.UTF_8));
+    }
 }